@@ -12,22 +12,61 @@ const __dirname = path.resolve()
 import { Server } from 'socket.io'
 import mediasoup from 'mediasoup'
 import jwt from 'jsonwebtoken'
+import { request as httpRequest } from 'http'
+import { request as httpsRequest } from 'https'
 
-import mysql from 'mysql2/promise'
 import dotenv from 'dotenv';
 
 dotenv.config();
 
-const con = mysql.createPool({
-  connectionLimit: 10,
-  host: process.env.DB_HOST,
-  port: '3306',
-  user: process.env.DB_USER,
-  password: process.env.DB_PASSWD,
-  database: 'gongsa_ver2',
-  dataStrings: true
+// 공부 세션(StudyMember)은 API 서버(/api/study-session)를 통해 기록한다
+const apiUrl = new URL(process.env.API_URL || 'http://localhost:8080')
+
+const callApi = (method, path, authorization, body) => new Promise((resolve, reject) => {
+  const data = body ? JSON.stringify(body) : ''
+  const request = (apiUrl.protocol === 'https:' ? httpsRequest : httpRequest)(new URL(path, apiUrl), {
+    method,
+    headers: {
+      'Content-Type': 'application/json',
+      'Content-Length': Buffer.byteLength(data),
+      Authorization: authorization,
+    }
+  }, response => {
+    let responseBody = ''
+    response.on('data', chunk => responseBody += chunk)
+    response.on('end', () => {
+      let result
+      try {
+        result = responseBody ? JSON.parse(responseBody) : {}
+      } catch (err) {
+        // 프록시 오류 페이지 등 JSON이 아닌 응답
+        reject(new Error(`invalid response (${response.statusCode})`))
+        return
+      }
+      if (response.statusCode >= 400) reject(new Error(result.msg || response.statusCode))
+      else resolve(result)
+    })
+  })
+  request.on('error', reject)
+  request.end(data)
 })
 
+// API 서버 호출용 access token
+// 클라이언트 토큰(1시간)은 공부 중에 만료되므로, 연결할 때 확인한 유저로 짧게(5분) 다시 서명해서 쓴다 (heartbeat, 연결이 끊긴 뒤의 종료 기록)
+// 만료 1분 전까지는 같은 토큰을 다시 쓴다
+const apiAuthorization = socket => {
+  if (!socket.apiToken || socket.apiTokenExpiresAt - Date.now() < 60 * 1000) {
+    const options = { expiresIn: '5m' }
+    if (socket.tokenIssuer) options.issuer = socket.tokenIssuer
+    socket.apiToken = jwt.sign({
+      userUID: socket.userUID,
+      userAuthUID: socket.userAuthUID
+    }, process.env.ACCESS_TOKEN_SECRET, options)
+    socket.apiTokenExpiresAt = Date.now() + 5 * 60 * 1000
+  }
+  return 'Bearer ' + socket.apiToken
+}
+
 app.get('*', (req, res, next) => {
   const path = '/sfu/'
 
@@ -125,11 +164,22 @@ connections.on('connection', async socket => {
     consumers = removeItems(consumers, socket.id, 'consumer')
     producers = removeItems(producers, socket.id, 'producer')
     transports = removeItems(transports, socket.id, 'transport')
+    // 방에 들어가기 전(세션 시작 실패 등)에 끊긴 연결
+    if (!peers[socket.id]) return
 
     const {
-      roomName
+      roomName,
+      studyMemberUID,
+      studyTime,
+      heartbeat
     } = peers[socket.id]
     delete peers[socket.id]
+    clearInterval(heartbeat)
+    if (studyMemberUID) {
+      callApi('POST', `/api/study-session/${studyMemberUID}/stop`, apiAuthorization(socket), {
+        studyTime: studyTime || '00:00:00'
+      }).catch(err => console.error('study session stop failed', studyMemberUID, err.message))
+    }
     socket.leave(roomName)
 
     // remove socket from room
@@ -158,6 +208,8 @@ connections.on('connection', async socket => {
       console.log(decoded)
       if (decoded) {
         socket.userUID = decoded.userUID
+        socket.userAuthUID = decoded.userAuthUID
+        socket.tokenIssuer = decoded.iss
       } else {
         socket.emit('auth-error', {
           location: "auth",
@@ -184,11 +236,14 @@ connections.on('connection', async socket => {
       roomName,
       userUID,
       studyMemberUID
-    } = peers[socket.io]
+    } = peers[socket.id]
     console.log(roomName, studyMemberUID)
-    let sql = "UPDATE StudyMember SET studyStatus = ?, studyTime = ? WHERE UID = ?"
-    const sqlData = [status, studyTime, studyMemberUID]
-    await con.query(sql, sqlData)
+    peers[socket.id].studyTime = studyTime
+    // 짧은 시간 안의 변경은 API 서버에서 모아서 기록
+    callApi('PATCH', `/api/study-session/${studyMemberUID}`, apiAuthorization(socket), {
+      studyStatus: status,
+      studyTime
+    }).catch(err => console.error('study status change failed', studyMemberUID, err.message))
 
     connections.to(roomName).emit('change', {
       userUID,
@@ -202,28 +257,44 @@ connections.on('connection', async socket => {
     userUID,
     roomName
   }, callback) => {
+    // 세션을 먼저 시작하고, 실패하면 방에 넣지 않는다
+    let studyMemberUID
+    try {
+      const startResult = await callApi('POST', '/api/study-session', socket.handshake.headers.authorization, {
+        groupUID
+      })
+      studyMemberUID = startResult.data.studyMemberUID
+    } catch (err) {
+      console.error('study session start failed', groupUID, err.message)
+      socket.emit('session-error', {
+        location: "studySession",
+        msg: err.message,
+        data: ""
+      })
+      return
+    }
+
     // create Router if it does not exist
     // const router1 = rooms[roomName] && rooms[roomName].get('data').router || await createRoom(roomName, socket.id)
     // 해당 roomName에 대한 Router가 있다면 Router를 반환하고, 아니라면 새로 만들어서 Router 반환
     const router1 = await createRoom(roomName, socket.id)
     socket.join(roomName)
 
-    let getSql = "select UID from GroupMember where userUID = ? and groupUID = ?"
-    const getSqlData = [userUID, groupUID]
-    const [getResult] = await con.query(getSql, getSqlData)
-    const groupMemberUID = getResult[0].UID
-
-    let insertSql = "insert StudyMember(groupUID, groupMemberUID, userUID) values(?)"
-    const insertSqlData = [groupUID, groupMemberUID, userUID]
-    const [insertResult] = await con.query(insertSql, [insertSqlData])
-    const studyMemberUID = insertResult.insertId
-
     console.log("studyMemberUID: " + studyMemberUID)
 
+    // 상태 변경이 없어도 세션이 끊기지 않도록 주기적으로 알림
+    const heartbeat = setInterval(() => {
+      if (!peers[socket.id]) return
+      callApi('POST', `/api/study-session/${studyMemberUID}/heartbeat`, apiAuthorization(socket), {
+        studyTime: peers[socket.id].studyTime || '00:00:00'
+      }).catch(err => console.error('study session heartbeat failed', studyMemberUID, err.message))
+    }, 60 * 1000)
+
     peers[socket.id] = {
       socket,
       roomName, // Name for the Router this Peer joined
       studyMemberUID,
+      heartbeat,
       userUID,
       transports: [],
       producers: [],
@@ -247,7 +318,7 @@ connections.on('connection', async socket => {
   socket.on('getStudyMemberUID', async (callback) => {
     const {
       studyMemberUID
-    } = peers[socket.io]
+    } = peers[socket.id]
     callback({
       studyMemberUID
     })
@@ -1,31 +1,37 @@
 package study.gongsa.component;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.gongsa.domain.MemberWeeklyTimeInfo;
-import study.gongsa.service.FirebaseCloudMessageService;
-import study.gongsa.service.GroupMemberService;
+import study.gongsa.service.ImageService;
+import study.gongsa.service.RecommendationService;
+import study.gongsa.service.StudyGroupSearchService;
 import study.gongsa.service.StudyGroupService;
+import study.gongsa.service.StudySessionService;
+import study.gongsa.service.StudyStatusStreamService;
+import study.gongsa.service.StudyTimeRollupService;
 import study.gongsa.service.UserService;
 
-import java.sql.Timestamp;
-import java.util.Date;
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class BatchScheduler {
-    private final GroupMemberService groupMemberService;
     private final StudyGroupService studyGroupService;
     private final UserService userService;
-    private final FirebaseCloudMessageService firebaseCloudMessageService;
+    private final WeeklyPenaltyBatch weeklyPenaltyBatch;
+    private final ExpiredStudyGroupPurgeBatch expiredStudyGroupPurgeBatch;
+    private final StudyMemberArchiveBatch studyMemberArchiveBatch;
+    private final StudyTimeRollupService studyTimeRollupService;
+    private final RecommendationService recommendationService;
+    private final StudyGroupSearchService studyGroupSearchService;
+    private final ImageService imageService;
+    private final StudySessionService studySessionService;
+    private final StudyStatusStreamService studyStatusStreamService;
 
+    @Timed(value = "batch.job", extraTags = {"job", "deleteExpiredUnauthenticatedUser"})
     @Async
     @Scheduled(cron = "0 0 1 * * ?", zone   = "Asia/Seoul") // 매일 오전 1시에
     public void deleteExpiredUnauthenticatedUser() {
@@ -34,54 +40,87 @@ public class BatchScheduler {
         log.info("deleteExpiredUnauthenticatedUser() 종료");
     }
 
+    @Timed(value = "batch.job", extraTags = {"job", "deleteExpiredStudyGroup"})
     @Async
     @Scheduled(cron = "0 0 1 * * ?", zone   = "Asia/Seoul") // 매일 오전 1시에
     public void deleteExpiredStudyGroup() {
         log.info("deleteExpiredStudyGroup() 실행");
-        studyGroupService.deleteExpiredGroup();
-        log.info("deleteExpiredStudyGroup() 종료");
+        int purgedGroups = expiredStudyGroupPurgeBatch.run();
+        log.info("deleteExpiredStudyGroup() 종료 - 삭제 그룹: {}", purgedGroups);
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "deleteUnreferencedImages"})
+    @Async
+    @Scheduled(cron = "0 0 3 * * ?", zone   = "Asia/Seoul") // 매일 오전 3시에 (그룹/유저 삭제 배치 이후)
+    public void deleteUnreferencedImages() {
+        log.info("deleteUnreferencedImages() 실행");
+        imageService.deleteUnreferencedImages();
+        log.info("deleteUnreferencedImages() 종료");
     }
 
+    @Timed(value = "batch.job", extraTags = {"job", "repairStudyGroupMemberCount"})
+    @Async
+    @Scheduled(cron = "0 30 3 * * ?", zone   = "Asia/Seoul") // 매일 오전 3시 30분에
+    public void repairStudyGroupMemberCount() {
+        log.info("repairStudyGroupMemberCount() 실행");
+        studyGroupService.repairMemberCounts();
+        log.info("repairStudyGroupMemberCount() 종료");
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "archiveStudyMember"})
+    @Async
+    @Scheduled(cron = "0 0 4 * * ?", zone   = "Asia/Seoul") // 매일 오전 4시에
+    public void archiveStudyMember() {
+        log.info("archiveStudyMember() 실행");
+        int archivedRows = studyMemberArchiveBatch.run();
+        log.info("archiveStudyMember() 종료 - 보관 세션: {}", archivedRows);
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "addPenaltyAndWidthDrawGroupMember"})
     @Async
-    @Transactional
     @Scheduled(cron = "0 0 1 * * MON", zone   = "Asia/Seoul") // 매주 월요일 오전 1시에
     public void addPenaltyAndWidthDrawGroupMember() {
         log.info("addPenaltyAndWidthDrawGroupMember() 실행");
+        weeklyPenaltyBatch.run();
+        log.info("addPenaltyAndWidthDrawGroupMember() 종료");
+    }
 
-        List<MemberWeeklyTimeInfo> memberToStudyLess = groupMemberService.updatePenalty();
-        List<Integer> memberUIDsToWithDraw = memberToStudyLess.stream()
-                .filter(info -> (info.getIsPenalty()) && (info.getMaxPenalty() < (info.getCurrentPenalty()+1))) // 최대 벌점 초과
-                .map(MemberWeeklyTimeInfo::getGroupMemberUID)
-                .collect(Collectors.toList());
+    @Timed(value = "batch.job", extraTags = {"job", "refreshStudyTimeWeekly"})
+    @Scheduled(fixedDelayString = "${rollup.study-time.interval:600000}", initialDelay = 10000) // 10분마다 (종료된 세션은 종료할 때 바로 집계)
+    public void refreshStudyTimeWeekly() {
+        int updatedRows = studyTimeRollupService.refresh();
+        if (updatedRows > 0) log.debug("refreshStudyTimeWeekly() 집계 rows: {}", updatedRows);
+    }
 
-        // membersToWithdraw 퇴장 & push 알림 & 레벨 다운
-        memberToStudyLess.stream().forEach(memberInfo -> {
-            int userUID = memberInfo.getUserUID();
-            String fcmToken = userService.getDeviceToken(userUID);
-            String groupName = memberInfo.getGroupName();
-            String studyHour = memberInfo.getStudyHour();
-            int maxPenalty = memberInfo.getMaxPenalty();
-            int currentPenalty = memberInfo.getCurrentPenalty();
-            if(memberInfo.getIsPenalty()){
-                //벌점 받는 멤버들
-                if(memberInfo.getMaxPenalty() < (memberInfo.getCurrentPenalty()+1)){
-                    // 강퇴당하는 멤버
-                    userService.downLevel(userUID);
-                    groupMemberService.removeForced(memberUIDsToWithDraw);
-                    firebaseCloudMessageService.sendMessageTo(fcmToken, "["+groupName+"] 알림", "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못해 퇴장되었습니다. (벌점: "
-                            + currentPenalty + "/" + maxPenalty + ")");
-                }else{
-                    // 벌점만 받는 멤버
-                    firebaseCloudMessageService.sendMessageTo(fcmToken, "["+groupName+"] 알림", "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못해 벌점을 받았습니다. (벌점: "
-                            + currentPenalty + "/" + maxPenalty + ")");
-                }
-            }else{
-                //단순 시간 못채운 멤버
-                firebaseCloudMessageService.sendMessageTo(fcmToken, "["+groupName+"] 알림", "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못했습니다.");
-            }
-        });
-        log.info("퇴장할 멤버: {}", memberUIDsToWithDraw);
+    @Timed(value = "batch.job", extraTags = {"job", "flushStudySessions"})
+    @Scheduled(fixedDelayString = "${study-session.flush-interval:5000}", initialDelay = 10000) // 5초마다
+    public void flushStudySessions() {
+        studySessionService.expireIdleSessions();
+        int flushedRows = studySessionService.flush();
+        if (flushedRows > 0) log.debug("flushStudySessions() 반영 세션: {}", flushedRows);
+    }
 
-        log.info("addPenaltyAndWidthDrawGroupMember() 종료");
+    @Timed(value = "batch.job", extraTags = {"job", "heartbeatStudyStatusStreams"})
+    @Scheduled(fixedDelayString = "${study-status.stream.heartbeat-interval:25000}", initialDelay = 25000) // 25초마다
+    public void heartbeatStudyStatusStreams() {
+        studyStatusStreamService.heartbeat();
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "reloadStudyStatusStreams"})
+    @Scheduled(fixedDelayString = "${study-status.stream.refresh-interval:30000}", initialDelayString = "${study-status.stream.refresh-interval:30000}") // 30초마다
+    public void reloadStudyStatusStreams() {
+        studyStatusStreamService.reloadAll();
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "reloadRecommendationIndex"})
+    @Scheduled(fixedDelayString = "${recommend.reload-interval:600000}", initialDelayString = "${recommend.reload-interval:600000}") // 10분마다
+    public void reloadRecommendationIndex() {
+        recommendationService.reload();
+    }
+
+    @Timed(value = "batch.job", extraTags = {"job", "reloadSearchIndex"})
+    @Scheduled(fixedDelayString = "${search.reload-interval:600000}", initialDelayString = "${search.reload-interval:600000}") // 10분마다
+    public void reloadSearchIndex() {
+        studyGroupSearchService.reload();
     }
 }
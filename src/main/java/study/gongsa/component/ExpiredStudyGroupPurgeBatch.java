@@ -0,0 +1,167 @@
+package study.gongsa.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.gongsa.domain.GroupMember;
+import study.gongsa.repository.*;
+import study.gongsa.service.LeaderboardService;
+import study.gongsa.service.RecommendationService;
+import study.gongsa.service.StudyGroupSearchService;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 만료된 스터디 그룹 삭제 배치
+ * 1. 오늘 이전에 만료된 그룹을 expiredAt 인덱스 범위로 groupChunkSize 만큼 조회
+ * 2. 그룹에 딸린 답변 -> 질문 -> 공부 기록 -> 카테고리 -> 멤버(주간 집계 포함) 순서로 batchSize개씩 삭제 (DELETE ... LIMIT, 삭제마다 짧은 트랜잭션)
+ * 3. 딸린 행을 모두 지운 뒤 그룹 삭제
+ * 그룹을 마지막에 지우므로 중간에 멈춰도 다음 실행에서 같은 그룹을 다시 찾아 남은 행부터 이어서 지운다.
+ * 트랜잭션마다 txTimeout 안에 끝나지 않으면(lock 대기 등) 멈추고, 삭제 사이에는 batchDelay 만큼 쉬고 replica가 있으면 반영될 때까지 기다린다.
+ * 진행 상황은 study.group.purge.rows{table}(테이블별 삭제 행 수), study.group.purge.groups(삭제한 그룹 수)로 확인한다.
+ */
+@Component
+@Slf4j
+public class ExpiredStudyGroupPurgeBatch {
+    private static final String JOB_NAME = "purgeExpiredStudyGroup";
+
+    private final StudyGroupRepository studyGroupRepository;
+    private final AnswerRepository answerRepository;
+    private final QuestionRepository questionRepository;
+    private final StudyMemberRepository studyMemberRepository;
+    private final GroupCategoryRepository groupCategoryRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final StudyTimeWeeklyRepository studyTimeWeeklyRepository;
+    private final LeaderboardService leaderboardService;
+    private final RecommendationService recommendationService;
+    private final StudyGroupSearchService studyGroupSearchService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final MeterRegistry meterRegistry;
+    private final Counter purgedGroups;
+
+    @Value("${study-group.purge.group-chunk-size:100}")
+    private int groupChunkSize;
+    @Value("${study-group.purge.batch-size:500}")
+    private int batchSize;
+    @Value("${study-group.purge.batch-delay:50}")
+    private long batchDelayMillis;
+    @Value("${spring.datasource.replica.max-lag-ms:5000}")
+    private long maxReplicaLagMillis;
+
+    public ExpiredStudyGroupPurgeBatch(StudyGroupRepository studyGroupRepository, AnswerRepository answerRepository,
+                                       QuestionRepository questionRepository, StudyMemberRepository studyMemberRepository,
+                                       GroupCategoryRepository groupCategoryRepository, GroupMemberRepository groupMemberRepository,
+                                       StudyTimeWeeklyRepository studyTimeWeeklyRepository, LeaderboardService leaderboardService,
+                                       RecommendationService recommendationService, StudyGroupSearchService studyGroupSearchService,
+                                       PlatformTransactionManager transactionManager, ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                                       @Value("${study-group.purge.tx-timeout:5}") int txTimeoutSeconds,
+                                       MeterRegistry meterRegistry) {
+        this.studyGroupRepository = studyGroupRepository;
+        this.answerRepository = answerRepository;
+        this.questionRepository = questionRepository;
+        this.studyMemberRepository = studyMemberRepository;
+        this.groupCategoryRepository = groupCategoryRepository;
+        this.groupMemberRepository = groupMemberRepository;
+        this.studyTimeWeeklyRepository = studyTimeWeeklyRepository;
+        this.leaderboardService = leaderboardService;
+        this.recommendationService = recommendationService;
+        this.studyGroupSearchService = studyGroupSearchService;
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.meterRegistry = meterRegistry;
+        // 서비스 트랜잭션과 설정을 나누기 위해 따로 만든다 (timeout은 JdbcTemplate 쿼리 timeout으로 적용)
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(txTimeoutSeconds);
+        this.purgedGroups = meterRegistry.counter("study.group.purge.groups");
+    }
+
+    public int run() {
+        Date today = Date.valueOf(LocalDate.now());
+        // 검색/추천 목록에서는 바로 빼고 DB는 천천히 지운다
+        recommendationService.removeExpiredGroups();
+        studyGroupSearchService.removeExpiredGroups();
+
+        int totalGroups = 0;
+        long startTime = System.currentTimeMillis();
+        while (true) {
+            List<Integer> groupUIDs = studyGroupRepository.findExpiredUIDs(today, groupChunkSize);
+            if (groupUIDs.isEmpty()) break;
+
+            long chunkStartTime = System.currentTimeMillis();
+            long answers = purge("Answer", () -> answerRepository.removeByGroupUIDs(groupUIDs, batchSize));
+            long questions = purge("Question", () -> questionRepository.removeByGroupUIDs(groupUIDs, batchSize));
+            long studyMembers = purge("StudyMember", () -> studyMemberRepository.removeByGroupUIDs(groupUIDs, batchSize));
+            long groupCategories = purge("GroupCategory", () -> groupCategoryRepository.removeByGroupUIDs(groupUIDs, batchSize));
+            Set<Integer> userUIDs = new HashSet<>();
+            long groupMembers = purge("GroupMember", () -> removeGroupMembers(groupUIDs, userUIDs));
+
+            transactionTemplate.executeWithoutResult(status -> studyGroupRepository.removeByUIDs(groupUIDs));
+            leaderboardService.removeGroups(groupUIDs, userUIDs);
+
+            totalGroups += groupUIDs.size();
+            purgedGroups.increment(groupUIDs.size());
+            meterRegistry.counter("study.group.purge.rows", "table", "StudyGroup").increment(groupUIDs.size());
+            log.info("{} chunk 처리 - 그룹: {}, 답변: {}, 질문: {}, 공부 기록: {}, 카테고리: {}, 멤버: {}, 소요 시간: {}ms",
+                    JOB_NAME, groupUIDs.size(), answers, questions, studyMembers, groupCategories, groupMembers,
+                    System.currentTimeMillis() - chunkStartTime);
+            if (!throttle()) break;
+        }
+
+        log.info("{} 완료 - 총 그룹: {}, 소요 시간: {}ms", JOB_NAME, totalGroups, System.currentTimeMillis() - startTime);
+        return totalGroups;
+    }
+
+    // 멤버와 멤버의 주간 집계를 같이 삭제하고, 순위표를 다시 계산할 유저를 모은다
+    private int removeGroupMembers(List<Integer> groupUIDs, Set<Integer> userUIDs) {
+        List<GroupMember> groupMembers = groupMemberRepository.findByGroupUIDs(groupUIDs, batchSize);
+        List<Integer> groupMemberUIDs = groupMembers.stream()
+                .map(GroupMember::getUID)
+                .collect(Collectors.toList());
+        studyTimeWeeklyRepository.removeByGroupMemberUIDs(groupMemberUIDs);
+        groupMemberRepository.removeForced(groupMemberUIDs);
+        groupMembers.forEach(groupMember -> userUIDs.add(groupMember.getUserUID()));
+        return groupMembers.size();
+    }
+
+    // batchSize보다 적게 지워질 때까지 한 트랜잭션에 한 번씩 삭제
+    private long purge(String table, IntSupplier removeBatch) {
+        Counter purgedRows = meterRegistry.counter("study.group.purge.rows", "table", table);
+        long total = 0;
+        while (true) {
+            Integer removedRows = transactionTemplate.execute(status -> removeBatch.getAsInt());
+            int removed = removedRows == null ? 0 : removedRows;
+            total += removed;
+            purgedRows.increment(removed);
+            if (removed < batchSize) return total;
+            if (!throttle()) throw new IllegalStateException(JOB_NAME + " 중단");
+        }
+    }
+
+    // 삭제가 몰려 replica가 밀리거나 서비스 쿼리가 lock을 기다리지 않도록 삭제 사이에 쉰다, 중단 요청을 받으면 false
+    private boolean throttle() {
+        replicaLagMonitor.ifAvailable(monitor -> {
+            if (!monitor.awaitReplicated(Duration.ofMillis(maxReplicaLagMillis))) {
+                log.warn("{} replica 반영 지연", JOB_NAME);
+            }
+        });
+        try {
+            Thread.sleep(batchDelayMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} 중단", JOB_NAME);
+            return false;
+        }
+    }
+}
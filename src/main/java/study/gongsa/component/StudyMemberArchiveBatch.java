@@ -0,0 +1,184 @@
+package study.gongsa.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.gongsa.domain.ArchivedStudySession;
+import study.gongsa.domain.ArchivedStudyTime;
+import study.gongsa.domain.StudyMemberArchive;
+import study.gongsa.repository.StudyMemberArchiveRepository;
+import study.gongsa.repository.StudyMemberRepository;
+import study.gongsa.service.StudyTimeRollupService;
+import study.gongsa.support.archive.StudyMemberSegmentStore;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 오래된 공부 세션 보관 배치 (StudyMember -> segment 파일)
+ * 1. retentionWeeks 주 전 월요일(archivedBefore) 이전에 시작한 세션 중 멤버의 마지막 세션이 아닌 세션을 UID 순서로 chunkSize 만큼 조회
+ * 2. segment 파일로 쓰고 fsync
+ * 3. StudyMemberArchive 행과 그룹 멤버별, 날짜별 공부 시간 합계(StudyMemberArchiveDaily) 추가, StudyMember 삭제를 chunk 단위 한 트랜잭션으로 처리 (실패하면 segment 파일 삭제)
+ * StudyMember에는 최근 retentionWeeks 주의 세션과 멤버별 마지막 세션만 남는다.
+ * 중간에 멈춰도 이미 옮긴 세션은 StudyMember에 없으므로 다시 실행하면 남은 세션부터 이어서 처리한다.
+ * chunk 사이에는 chunkDelay 만큼 쉬고, replica가 있으면 삭제가 반영될 때까지 기다린다.
+ */
+@Component
+@Slf4j
+public class StudyMemberArchiveBatch {
+    private static final String JOB_NAME = "archiveStudyMember";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final StudyMemberRepository studyMemberRepository;
+    private final StudyMemberArchiveRepository studyMemberArchiveRepository;
+    private final StudyMemberSegmentStore studyMemberSegmentStore;
+    private final StudyTimeRollupService studyTimeRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final Counter archivedRows;
+    private final Counter archivedBytes;
+
+    @Value("${study-member.archive.retention-weeks:8}")
+    private int retentionWeeks;
+    @Value("${study-member.archive.chunk-size:1000}")
+    private int chunkSize;
+    @Value("${study-member.archive.chunk-delay:100}")
+    private long chunkDelayMillis;
+    @Value("${spring.datasource.replica.max-lag-ms:5000}")
+    private long maxReplicaLagMillis;
+
+    public StudyMemberArchiveBatch(StudyMemberRepository studyMemberRepository, StudyMemberArchiveRepository studyMemberArchiveRepository,
+                                   StudyMemberSegmentStore studyMemberSegmentStore, StudyTimeRollupService studyTimeRollupService,
+                                   TransactionTemplate transactionTemplate, ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                                   MeterRegistry meterRegistry) {
+        this.studyMemberRepository = studyMemberRepository;
+        this.studyMemberArchiveRepository = studyMemberArchiveRepository;
+        this.studyMemberSegmentStore = studyMemberSegmentStore;
+        this.studyTimeRollupService = studyTimeRollupService;
+        this.transactionTemplate = transactionTemplate;
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.archivedRows = meterRegistry.counter("study.member.archive.rows");
+        this.archivedBytes = meterRegistry.counter("study.member.archive.bytes");
+    }
+
+    public int run() {
+        LocalDate archivedBefore = LocalDate.now()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .minusWeeks(retentionWeeks);
+        Timestamp before = Timestamp.valueOf(archivedBefore.atStartOfDay());
+
+        Optional<Integer> maxUID = studyMemberRepository.findMaxUIDCreatedBefore(before);
+        if (maxUID.isEmpty()) return 0;
+
+        // 옮기기 전에 최신 공부 기록까지 주간 집계에 반영 (이후 archivedBefore 이전 주는 다시 집계하지 않음)
+        studyTimeRollupService.refresh();
+
+        int lastUID = 0;
+        int totalRows = 0;
+        long startTime = System.currentTimeMillis();
+
+        while (true) {
+            long chunkStartTime = System.currentTimeMillis();
+            List<ArchivedStudySession> chunk = studyMemberRepository.findArchivable(lastUID, maxUID.get(), before, chunkSize);
+            if (chunk.isEmpty()) break;
+
+            StudyMemberArchive studyMemberArchive = makeArchive(chunk, Date.valueOf(archivedBefore));
+            List<ArchivedStudyTime> archivedStudyTimes = sumByDate(chunk);
+            long bytes = studyMemberSegmentStore.write(studyMemberArchive.getPath(), chunk);
+            List<Integer> studyMemberUIDs = chunk.stream()
+                    .map(ArchivedStudySession::getStudyMemberUID)
+                    .collect(Collectors.toList());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int archiveUID = studyMemberArchiveRepository.save(studyMemberArchive).intValue();
+                    studyMemberArchiveRepository.saveStudyTimes(archiveUID, archivedStudyTimes);
+                    studyMemberRepository.removeByUIDs(studyMemberUIDs);
+                });
+            } catch (RuntimeException e) {
+                studyMemberSegmentStore.delete(studyMemberArchive.getPath());
+                throw e;
+            }
+
+            lastUID = studyMemberArchive.getLastUID();
+            totalRows += chunk.size();
+            archivedRows.increment(chunk.size());
+            archivedBytes.increment(bytes);
+            log.info("{}({}) chunk 처리 - rows: {}, segment: {}({}bytes), 소요 시간: {}ms",
+                    JOB_NAME, archivedBefore, chunk.size(), studyMemberArchive.getPath(), bytes, System.currentTimeMillis() - chunkStartTime);
+
+            if (!throttle()) break;
+        }
+
+        log.info("{}({}) 완료 - 총 rows: {}, 소요 시간: {}ms", JOB_NAME, archivedBefore, totalRows, System.currentTimeMillis() - startTime);
+        return totalRows;
+    }
+
+    // segment 경로: {첫 세션 시작 월}/{firstUID}-{lastUID}.seg.gz
+    private StudyMemberArchive makeArchive(List<ArchivedStudySession> chunk, Date archivedBefore) {
+        int firstUID = chunk.get(0).getStudyMemberUID();
+        int lastUID = chunk.get(chunk.size() - 1).getStudyMemberUID();
+        long minCreatedAt = chunk.stream().mapToLong(ArchivedStudySession::getCreatedAt).min().getAsLong();
+        long maxCreatedAt = chunk.stream().mapToLong(ArchivedStudySession::getCreatedAt).max().getAsLong();
+        String month = new Timestamp(minCreatedAt).toLocalDateTime().format(MONTH);
+
+        return StudyMemberArchive.builder()
+                .path(month + "/" + firstUID + "-" + lastUID + ".seg.gz")
+                .firstUID(firstUID)
+                .lastUID(lastUID)
+                .rowCount(chunk.size())
+                .studyTime(chunk.stream().mapToLong(ArchivedStudySession::getStudyTime).sum())
+                .minCreatedAt(new Timestamp(minCreatedAt))
+                .maxCreatedAt(new Timestamp(maxCreatedAt))
+                .archivedBefore(archivedBefore)
+                .build();
+    }
+
+    // 그룹 멤버별, 세션 시작 날짜별 공부 시간 합계 (기간별 공부 시간 조회용)
+    private List<ArchivedStudyTime> sumByDate(List<ArchivedStudySession> chunk) {
+        Map<String, ArchivedStudyTime> archivedStudyTimes = new LinkedHashMap<>();
+        for (ArchivedStudySession session : chunk) {
+            Date studyDate = Date.valueOf(new Timestamp(session.getCreatedAt()).toLocalDateTime().toLocalDate());
+            ArchivedStudyTime archivedStudyTime = archivedStudyTimes.computeIfAbsent(session.getGroupMemberUID() + "/" + studyDate,
+                    key -> ArchivedStudyTime.builder()
+                            .groupMemberUID(session.getGroupMemberUID())
+                            .userUID(session.getUserUID())
+                            .studyDate(studyDate)
+                            .build());
+            archivedStudyTime.setStudyTime(archivedStudyTime.getStudyTime() + session.getStudyTime());
+        }
+        return new ArrayList<>(archivedStudyTimes.values());
+    }
+
+    // 삭제가 몰려 replica가 밀리지 않도록 chunk 사이에 쉰다, 중단 요청을 받으면 false
+    private boolean throttle() {
+        replicaLagMonitor.ifAvailable(monitor -> {
+            if (!monitor.awaitReplicated(Duration.ofMillis(maxReplicaLagMillis))) {
+                log.warn("{} replica 반영 지연", JOB_NAME);
+            }
+        });
+        try {
+            Thread.sleep(chunkDelayMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} 중단", JOB_NAME);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.gongsa.component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import study.gongsa.service.StudyTimeRollupService;
+
+/**
+ * --rebuild-study-time-weekly 옵션으로 서버를 실행하거나 StudyTimeWeekly가 비어 있으면(처음 적용한 DB) 전체 다시 집계
+ * 순위표를 읽기(ApplicationReadyEvent) 전에 실행된다.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StudyTimeRollupRunner implements ApplicationRunner {
+    private static final String REBUILD_OPTION = "rebuild-study-time-weekly";
+
+    private final StudyTimeRollupService studyTimeRollupService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REBUILD_OPTION)) {
+            log.info("StudyTimeWeekly 전체 집계 실행");
+        } else if (studyTimeRollupService.isEmpty()) {
+            log.info("StudyTimeWeekly 집계 기록이 없어 전체 집계 실행");
+        } else {
+            return;
+        }
+        studyTimeRollupService.rebuild();
+    }
+}
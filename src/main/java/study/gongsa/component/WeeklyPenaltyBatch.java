@@ -0,0 +1,206 @@
+package study.gongsa.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.gongsa.domain.BatchCheckpoint;
+import study.gongsa.domain.MemberWeeklyTimeInfo;
+import study.gongsa.repository.BatchCheckpointRepository;
+import study.gongsa.service.FirebaseCloudMessageService;
+import study.gongsa.service.GroupMemberService;
+import study.gongsa.service.StudyTimeRollupService;
+import study.gongsa.service.UserService;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 주간 벌점 배치
+ * 1. GroupMember.UID 순서로 chunkSize 만큼 지난 주 공부 시간 조회 (StudyTimeWeekly)
+ *    지난 주는 배치 실행 시점 기준 최근 7일이 아니라 지난 월요일 0시 ~ 일요일 24시(달력 주)이고, 세션은 시작한 날이 속한 주에 합산된다.
+ * 2. 벌점 부여, 레벨 다운, 강제 퇴장을 chunk 단위 한 트랜잭션으로 처리하고 체크포인트 저장
+ *    트랜잭션은 대상 그룹 row, 멤버 row 순서로 UID 순서로 잠그는 것으로 시작한다. (가입/탈퇴와 같은 잠금 순서)
+ *    1의 조회 뒤에 탈퇴한 멤버는 빼고, 강제 퇴장 여부는 잠근 뒤 다시 읽은 벌점으로 판단한다.
+ * 3. 커밋 후 push 알림 전송
+ * 중간에 실패하면 같은 주에 다시 실행했을 때 마지막 체크포인트 다음부터 이어서 처리한다.
+ * 1의 조회는 replica에서 하므로, replica가 있으면 방금 갱신한 주간 집계가 replica에 반영될 때까지 기다린다.
+ * 진행 상황은 batch.penalty.rows(처리 행 수, rate로 rows/sec), batch.penalty.targets(벌점 대상 수), batch.penalty.chunk(chunk 처리 시간)로 확인한다.
+ */
+@Component
+@Slf4j
+public class WeeklyPenaltyBatch {
+    private static final String JOB_NAME = "weeklyPenalty";
+
+    private final GroupMemberService groupMemberService;
+    private final UserService userService;
+    private final FirebaseCloudMessageService firebaseCloudMessageService;
+    private final BatchCheckpointRepository batchCheckpointRepository;
+    private final StudyTimeRollupService studyTimeRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final Counter processedRows;
+    private final Counter penaltyTargets;
+    private final Timer chunkTimer;
+
+    @Value("${batch.penalty.chunk-size:500}")
+    private int chunkSize;
+    @Value("${spring.datasource.replica.max-lag-ms:5000}")
+    private long maxReplicaLagMillis;
+
+    public WeeklyPenaltyBatch(GroupMemberService groupMemberService, UserService userService,
+                              FirebaseCloudMessageService firebaseCloudMessageService, BatchCheckpointRepository batchCheckpointRepository,
+                              StudyTimeRollupService studyTimeRollupService, TransactionTemplate transactionTemplate,
+                              ObjectProvider<ReplicaLagMonitor> replicaLagMonitor, MeterRegistry meterRegistry) {
+        this.groupMemberService = groupMemberService;
+        this.userService = userService;
+        this.firebaseCloudMessageService = firebaseCloudMessageService;
+        this.batchCheckpointRepository = batchCheckpointRepository;
+        this.studyTimeRollupService = studyTimeRollupService;
+        this.transactionTemplate = transactionTemplate;
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.processedRows = meterRegistry.counter("batch.penalty.rows");
+        this.penaltyTargets = meterRegistry.counter("batch.penalty.targets");
+        this.chunkTimer = Timer.builder("batch.penalty.chunk")
+                .description("벌점 배치 chunk 하나(조회, 벌점 반영, 알림 등록)를 처리하는 데 걸린 시간")
+                .register(meterRegistry);
+    }
+
+    public void run() {
+        String runKey = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+        BatchCheckpoint checkpoint = findOrStartCheckpoint(runKey);
+        if (checkpoint.getIsCompleted()) {
+            log.info("{}({}) 이미 완료된 배치입니다.", JOB_NAME, runKey);
+            return;
+        }
+
+        // 최신 공부 기록까지 주간 집계에 반영
+        studyTimeRollupService.refresh();
+        replicaLagMonitor.ifAvailable(monitor -> {
+            if (!monitor.awaitReplicated(Duration.ofMillis(maxReplicaLagMillis))) {
+                log.warn("{}({}) replica 반영 지연 - primary에서 조회합니다.", JOB_NAME, runKey);
+            }
+        });
+
+        // 재시작해도 같은 기준 시간으로 조회
+        Timestamp baseTime = checkpoint.getStartedAt();
+        int lastGroupMemberUID = checkpoint.getLastUID();
+        long totalRows = 0;
+        long startTime = System.currentTimeMillis();
+
+        while (true) {
+            long chunkStartTime = System.currentTimeMillis();
+            List<MemberWeeklyTimeInfo> chunk = groupMemberService.getMemberWeeklyStudyTimeInfo(lastGroupMemberUID, chunkSize, baseTime);
+            if (chunk.isEmpty()) break;
+
+            int chunkLastUID = chunk.get(chunk.size() - 1).getGroupMemberUID();
+            List<MemberWeeklyTimeInfo> memberToStudyLess = transactionTemplate.execute(status -> {
+                List<MemberWeeklyTimeInfo> penalized = applyPenalty(chunk.stream()
+                        .filter(info -> info.getAddPenalty())
+                        .collect(Collectors.toList()));
+                batchCheckpointRepository.updateLastUID(JOB_NAME, runKey, chunkLastUID);
+                return penalized;
+            });
+
+            sendNotification(memberToStudyLess);
+
+            lastGroupMemberUID = chunkLastUID;
+            totalRows += chunk.size();
+            processedRows.increment(chunk.size());
+            penaltyTargets.increment(memberToStudyLess.size());
+            chunkTimer.record(System.currentTimeMillis() - chunkStartTime, TimeUnit.MILLISECONDS);
+            log.info("{}({}) chunk 처리 - rows: {}, 벌점 대상: {}, 소요 시간: {}ms, 마지막 UID: {}",
+                    JOB_NAME, runKey, chunk.size(), memberToStudyLess.size(), System.currentTimeMillis() - chunkStartTime, chunkLastUID);
+        }
+
+        batchCheckpointRepository.complete(JOB_NAME, runKey);
+
+        long elapsed = Math.max(System.currentTimeMillis() - startTime, 1);
+        log.info("{}({}) 완료 - 총 rows: {}, 소요 시간: {}ms, {} rows/sec",
+                JOB_NAME, runKey, totalRows, elapsed, totalRows * 1000 / elapsed);
+    }
+
+    private BatchCheckpoint findOrStartCheckpoint(String runKey) {
+        Optional<BatchCheckpoint> checkpoint = batchCheckpointRepository.findOne(JOB_NAME, runKey);
+        if (checkpoint.isPresent()) {
+            return checkpoint.get();
+        }
+
+        BatchCheckpoint newCheckpoint = BatchCheckpoint.builder()
+                .jobName(JOB_NAME)
+                .runKey(runKey)
+                .build();
+        batchCheckpointRepository.save(newCheckpoint);
+        return newCheckpoint;
+    }
+
+    // 잠근 뒤에도 남아 있어서 벌점을 준 멤버 반환 (알림 대상)
+    private List<MemberWeeklyTimeInfo> applyPenalty(List<MemberWeeklyTimeInfo> candidates) {
+        groupMemberService.lockGroups(candidates); // 그룹 → 멤버 → 유저 순서로 잠근다 (가입/탈퇴와 같은 순서)
+        List<MemberWeeklyTimeInfo> memberToStudyLess = groupMemberService.lockMembers(candidates);
+        List<MemberWeeklyTimeInfo> memberToWithdraw = memberToStudyLess.stream()
+                .filter(this::isWithdraw)
+                .collect(Collectors.toList());
+
+        groupMemberService.updatePenalty(memberToStudyLess);
+        userService.downLevels(memberToWithdraw.stream()
+                .map(MemberWeeklyTimeInfo::getUserUID)
+                .collect(Collectors.toList()));
+        groupMemberService.removeForced(memberToWithdraw);
+        return memberToStudyLess;
+    }
+
+    private void sendNotification(List<MemberWeeklyTimeInfo> memberToStudyLess) {
+        Map<Integer, String> deviceTokens = userService.getDeviceTokens(memberToStudyLess.stream()
+                .map(MemberWeeklyTimeInfo::getUserUID)
+                .distinct()
+                .collect(Collectors.toList()));
+
+        for (MemberWeeklyTimeInfo memberInfo : memberToStudyLess) {
+            String fcmToken = deviceTokens.get(memberInfo.getUserUID());
+            if (fcmToken == null) continue;
+
+            String title = "[" + memberInfo.getGroupName() + "] 알림";
+            String body = makeMessageBody(memberInfo);
+            // 전송은 FirebaseCloudMessageService worker가 비동기로 처리, 실패는 로그만 남김
+            firebaseCloudMessageService.sendMessageTo(fcmToken, title, body)
+                    .exceptionally(e -> {
+                        log.info("push 알림 실패 userUID: {}, {}", memberInfo.getUserUID(), e.getMessage());
+                        return null;
+                    });
+        }
+    }
+
+    private String makeMessageBody(MemberWeeklyTimeInfo memberInfo) {
+        String studyHour = memberInfo.getStudyHour();
+        String penalty = "(벌점: " + memberInfo.getCurrentPenalty() + "/" + memberInfo.getMaxPenalty() + ")";
+
+        if (!memberInfo.getIsPenalty()) {
+            //단순 시간 못채운 멤버
+            return "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못했습니다.";
+        }
+        if (isWithdraw(memberInfo)) {
+            // 강퇴당하는 멤버
+            return "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못해 퇴장되었습니다. " + penalty;
+        }
+        // 벌점만 받는 멤버
+        return "지난 주에 " + studyHour + "시간 공부해서 주 목표 공부시간을 채우지 못해 벌점을 받았습니다. " + penalty;
+    }
+
+    private boolean isWithdraw(MemberWeeklyTimeInfo memberInfo) {
+        return memberInfo.getIsPenalty() && (memberInfo.getMaxPenalty() < (memberInfo.getCurrentPenalty() + 1)); // 최대 벌점 초과
+    }
+}
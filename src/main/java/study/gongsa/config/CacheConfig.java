@@ -0,0 +1,71 @@
+package study.gongsa.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import study.gongsa.support.cache.CopyOnReadCache;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 자주 조회되고 거의 바뀌지 않는 StudyGroup, Category 조회 캐시
+ * cache.enabled=false 이면 NoOpCacheManager로 바뀌어 항상 DB에서 조회한다. (비교용)
+ * hit/miss/eviction 통계는 actuator의 cache.gets, cache.evictions 메트릭으로 확인할 수 있다.
+ * 캐시 hit은 repository.method 메트릭에 잡히지 않도록 캐시 advice를 RepositoryMetricsAspect보다 먼저 적용한다.
+ * 캐시에 든 StudyGroup, Category는 꺼낸 쪽에서 바꿔도 영향이 없도록 넣을 때와 꺼낼 때 복사한다. (CopyOnReadCache)
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+    public static final String STUDY_GROUP = "studyGroup";
+    public static final String STUDY_GROUP_BY_CODE = "studyGroupByCode";
+    public static final String MAX_MEMBER = "maxMember";
+    public static final String MIN_STUDY_HOUR = "minStudyHour";
+    public static final String CATEGORIES = "categories";
+    public static final String CATEGORY = "category";
+    public static final String GROUP_CATEGORIES = "groupCategories";
+    public static final String USER_AUTH = "userAuth";
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager cacheManager(@Value("${cache.max-size:10000}") long maxSize,
+                                     @Value("${cache.ttl-seconds:600}") long ttlSeconds,
+                                     @Value("${cache.user-auth.ttl-seconds:60}") long userAuthTtlSeconds) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CopyOnReadCache(super.adaptCaffeineCache(name, cache));
+            }
+        };
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats());
+        // 시작할 때 캐시를 만들어 두어야 actuator가 메트릭으로 등록한다
+        cacheManager.setCacheNames(List.of(STUDY_GROUP, STUDY_GROUP_BY_CODE, MAX_MEMBER, MIN_STUDY_HOUR,
+                CATEGORIES, CATEGORY, GROUP_CATEGORIES));
+        // 인증 여부는 짧게 유지 (cache.gets{cache=userAuth,result=hit} = 생략된 User 조회 수)
+        cacheManager.registerCustomCache(USER_AUTH, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(userAuthTtlSeconds))
+                .recordStats()
+                .build());
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.enabled", havingValue = "false")
+    public CacheManager noOpCacheManager() {
+        return new NoOpCacheManager();
+    }
+}
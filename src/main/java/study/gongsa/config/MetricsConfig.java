@@ -0,0 +1,25 @@
+package study.gongsa.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * 메트릭 기본 설정 (metrics.properties, application.properties에 같은 key가 있으면 그 값이 우선)
+ * /actuator/prometheus 로 수집한다. actuator는 인증이 없으므로 서비스 포트가 아닌 management.server.port(내부 주소)에서만 연다.
+ * - http.server.requests: 컨트롤러 mapping(uri)별 응답 시간
+ * - repository.method, repository.rows: repository 메서드별 실행 시간, 조회 row 수 (RepositoryMetricsAspect)
+ * - hikaricp.connections.acquire: connection pool 대기 시간
+ * - fcm.send: FCM 전송 시간/결과, batch.job: 배치별 실행 시간 (@Timed)
+ */
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+    // @Timed 적용
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
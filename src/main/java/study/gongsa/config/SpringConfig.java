@@ -2,10 +2,13 @@ package study.gongsa.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+// DataSource 기본 설정 (application.properties에 같은 key가 있으면 그 값이 우선)
 @Configuration
+@PropertySource("classpath:datasource.properties")
 public class SpringConfig {
     @Bean
     public PasswordEncoder passwordEncoder(){
@@ -5,7 +5,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import study.gongsa.domain.GroupMember;
 import study.gongsa.dto.DefaultResponse;
 import study.gongsa.dto.GroupMemberResponse;
 import study.gongsa.dto.RegisterGroupMemberRequest;
@@ -23,10 +22,6 @@ import java.util.List;
 public class GroupMemberController {
     private final StudyGroupService studyGroupService;
     private final GroupMemberService groupMemberService;
-    private final QuestionService questionService;
-    private final StudyMemberService studyMemberService;
-    private final AnswerService answerService;
-    private final UserService userService;
 
     @ApiOperation(value="스터디 그룹 가입")
     @ApiResponses({
@@ -39,19 +34,11 @@ public class GroupMemberController {
     public ResponseEntity registerStudyGroup(@RequestBody @Valid RegisterGroupMemberRequest req, HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
 
-        //가입 가능한 공부 시간인지 체크
         //가입된 그룹인지 확인
         //최대 그룹 인원 확인
-        int groupUID = req.getGroupUID();
-        int minStudyHour = studyGroupService.getMinStudyHourByGroupUID(groupUID);
-        groupMemberService.checkAlreadyRegister(groupUID, userUID);
-        groupMemberService.checkCurrentGroupMemberCnt(groupUID);
-
-        //userUID가 가입 가능한 최대 시간 구하기, 비교
-        studyGroupService.checkPossibleMinStudyHourByUsersUID(userUID, minStudyHour);
-
+        //가입 가능한 공부 시간인지 체크
         //그룹 멤버 생성
-        groupMemberService.makeStudyGroupMember(groupUID, userUID, false);
+        groupMemberService.join(req.getGroupUID(), userUID);
 
         DefaultResponse response = new DefaultResponse();
         return new ResponseEntity(response, HttpStatus.CREATED);
@@ -66,15 +53,7 @@ public class GroupMemberController {
     @DeleteMapping("/{groupUID}")
     public ResponseEntity removeGroupMember(@PathVariable("groupUID") int groupUID, HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        List<Integer> questionUIDs = questionService.findAllByUserUIDAndGroupUID(userUID, groupUID);
-        if(questionUIDs.size() != 0) {
-            answerService.deleteUserAnswer(questionUIDs, userUID);
-            questionService.deleteUserQuestion(questionUIDs);
-        }
-        GroupMember groupMember = groupMemberService.findOne(groupUID, userUID);
-        studyMemberService.remove(groupMember);
-        groupMemberService.remove(groupMember);
-        userService.downLevel(userUID);
+        groupMemberService.leave(groupUID, userUID);
         DefaultResponse response = new DefaultResponse();
         return new ResponseEntity(response, HttpStatus.NO_CONTENT);
     }
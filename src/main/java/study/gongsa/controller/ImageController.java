@@ -1,15 +1,26 @@
 package study.gongsa.controller;
 
-import io.swagger.annotations.Api;
-import io.swagger.annotations.ApiOperation;
-import io.swagger.annotations.ApiResponse;
-import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.core.io.Resource;
+import org.springframework.web.context.request.ServletWebRequest;
 import study.gongsa.service.ImageService;
+import study.gongsa.support.image.FileTransfer;
+import study.gongsa.support.image.ImageStorage;
+import study.gongsa.support.image.ImageVariant;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 
 @RestController
@@ -18,18 +29,94 @@ import study.gongsa.service.ImageService;
 @RequestMapping("/api/image")
 @RequiredArgsConstructor
 public class ImageController {
+    private static final long IMMUTABLE_MAX_AGE = 365L * 24 * 60 * 60;
+
     private final ImageService imageService;
 
+    @Value("${image.cache.max-age-seconds:86400}")
+    private long cacheMaxAge;
+
     @ApiOperation(value="이미지 얻기")
     @ApiResponses({
             @ApiResponse(code=200, message="이미지 반환"),
+            @ApiResponse(code=206, message="Range 요청한 구간 반환"),
+            @ApiResponse(code=304, message="If-None-Match/If-Modified-Since와 같은 이미지(body 없음)"),
             @ApiResponse(code=400, message="이미지를 불러올 수 없습니다."),
+            @ApiResponse(code=416, message="Range가 이미지 크기를 벗어난 경우"),
+    })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "size", value = "이미지 크기(thumb: 160px, medium: 640px, original: 2048px)", required = false, dataType = "string", paramType = "query", defaultValue = "original")
     })
     @GetMapping("/{imageName:.+}")
-    public ResponseEntity<Resource> getImage(@PathVariable String imageName) {
-        Resource imageFile = imageService.load(imageName);
+    public void getImage(@PathVariable String imageName,
+                         @RequestParam(required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant variant = ImageVariant.from(size);
+        ImageStorage.StoredImage image = imageService.load(imageName, variant);
+        String eTag = "\"" + Long.toHexString(image.getLastModified()) + "-" + Long.toHexString(image.getSize()) + "\"";
+
+        if (imageService.isImmutable(imageName, variant, image)) { // 이름이 내용 hash라서 바뀌지 않음
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + IMMUTABLE_MAX_AGE + ", immutable");
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + cacheMaxAge);
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // If-None-Match, If-Modified-Since 확인 후 같으면 304 (ETag, Last-Modified 헤더도 여기서 설정)
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, image.getLastModified())) return;
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+
+        long start = 0, end = image.getSize() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && isRangeApplicable(request.getHeader(HttpHeaders.IF_RANGE), eTag, image.getLastModified())) {
+            long[] byteRange = parseRange(range, image.getSize());
+            if (byteRange == null) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.getSize());
+                return;
+            }
+            if (byteRange.length == 2) {
+                start = byteRange[0];
+                end = byteRange[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + image.getSize());
+            }
+        }
+
+        if (image.getFile() != null) {
+            FileTransfer.send(image.getFile(), start, end - start + 1, request, response);
+        } else {
+            FileTransfer.send(image.getContent(), (int) start, (int) (end - start + 1), request, response);
+        }
+    }
+
+    // If-Range가 없거나 현재 이미지와 같을 때만 Range 적용, 다르면 전체를 200으로
+    private boolean isRangeApplicable(String ifRange, String eTag, long lastModified) {
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(eTag);
+        try {
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() / 1000 == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 단일 byte range만 지원 ([start, end] 반환)
+     * 여러 구간(multipart/byteranges)이나 형식이 잘못된 Range는 무시하고 전체를 내려준다. (빈 배열)
+     * 구간이 이미지 크기를 벗어나면 null (416)
+     */
+    private long[] parseRange(String range, long length) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return new long[0];
+        }
+        if (ranges.size() != 1) return new long[0];
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + imageFile.getFilename() + "\"").body(imageFile);
+        long start = ranges.get(0).getRangeStart(length);
+        long end = ranges.get(0).getRangeEnd(length);
+        if (start >= length || start > end) return null;
+        return new long[]{start, end};
     }
-}
\ No newline at end of file
+}
@@ -6,9 +6,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import study.gongsa.dto.DefaultResponse;
 import study.gongsa.service.FirebaseCloudMessageService;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @CrossOrigin("*")
@@ -19,7 +21,13 @@ public class PushTestController {
 
     @GetMapping()
     public ResponseEntity sendtestPush(@RequestParam String targetToken) throws IOException {
-        firebaseCloudMessageService.sendMessageTo(targetToken, "TestTitle", new Timestamp(new Date().getTime())+": TestBody");
+        try {
+            firebaseCloudMessageService.sendMessageTo(targetToken, "TestTitle", new Timestamp(new Date().getTime())+": TestBody").join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalStateExceptionWithLocation)
+                throw (IllegalStateExceptionWithLocation) e.getCause();
+            throw e;
+        }
 
         DefaultResponse response = new DefaultResponse();
         return new ResponseEntity(response, HttpStatus.OK);
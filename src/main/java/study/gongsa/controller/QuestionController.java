@@ -9,6 +9,7 @@ import study.gongsa.domain.*;
 import study.gongsa.dto.*;
 import study.gongsa.service.AnswerService;
 import study.gongsa.service.QuestionService;
+import study.gongsa.support.paging.CursorPage;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.List;
@@ -28,11 +29,17 @@ public class QuestionController {
             @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
             @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등)")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "이전 응답의 nextCursor(첫 페이지는 생략)", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "size", value = "페이지 크기(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20")
+    })
     @GetMapping("/my-question")
-    public ResponseEntity findMyQuestion(HttpServletRequest request){
+    public ResponseEntity findMyQuestion(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size,
+                                         HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        List<QuestionInfo> questionList = questionService.findMyQuestion(userUID);
-        DefaultResponse response = new DefaultResponse(new GetQuestionResponse(questionList));
+        CursorPage<QuestionInfo> questionPage = questionService.findMyQuestion(userUID, cursor, size);
+        DefaultResponse response = new DefaultResponse(new GetQuestionResponse(questionPage.getItems(), questionPage.getNextCursor()));
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
@@ -42,11 +49,18 @@ public class QuestionController {
             @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
             @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등)")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "이전 응답의 nextCursor(첫 페이지는 생략)", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "size", value = "페이지 크기(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20")
+    })
     @GetMapping("/group-question/{groupUID}")
-    public ResponseEntity findGroupQuestion(@PathVariable("groupUID") int groupUID, HttpServletRequest request){
+    public ResponseEntity findGroupQuestion(@PathVariable("groupUID") int groupUID,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer size,
+                                            HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        List<QuestionInfo> questionList = questionService.findGroupQuestion(userUID, groupUID);
-        DefaultResponse response = new DefaultResponse(new GetQuestionResponse(questionList));
+        CursorPage<QuestionInfo> questionPage = questionService.findGroupQuestion(userUID, groupUID, cursor, size);
+        DefaultResponse response = new DefaultResponse(new GetQuestionResponse(questionPage.getItems(), questionPage.getNextCursor()));
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
@@ -56,11 +70,17 @@ public class QuestionController {
             @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
             @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등)")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "답변 목록 cursor - 이전 응답의 nextCursor(첫 페이지는 생략)", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "size", value = "답변 페이지 크기(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20")
+    })
     @GetMapping("/{questionUID}")
-    public ResponseEntity findOne(@PathVariable("questionUID") int questionUID){
+    public ResponseEntity findOne(@PathVariable("questionUID") int questionUID,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer size){
         Question question = questionService.findOne(questionUID);
-        List<AnswerInfo> answerList = answerService.findAnswerByQuestionUID(questionUID);
-        DefaultResponse response = new DefaultResponse(new GetQuestionInfoResponse(question, answerList));
+        CursorPage<AnswerInfo> answerPage = answerService.findAnswerByQuestionUID(questionUID, cursor, size);
+        DefaultResponse response = new DefaultResponse(new GetQuestionInfoResponse(question, answerPage.getItems(), answerPage.getNextCursor()));
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
@@ -3,24 +3,30 @@ package study.gongsa.controller;
 import io.swagger.annotations.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import study.gongsa.domain.Category;
 import study.gongsa.domain.LastStudyTimeInfo;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.dto.*;
 import study.gongsa.service.CategoryService;
 import study.gongsa.service.GroupMemberService;
+import study.gongsa.service.StudyGroupSearchService;
 import study.gongsa.service.StudyGroupService;
 import study.gongsa.service.StudyMemberService;
+import study.gongsa.service.StudyStatusStreamService;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.paging.CursorPage;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -33,6 +39,7 @@ public class StudyGroupController {
     private final StudyGroupService studyGroupService;
     private final GroupMemberService groupMemberService;
     private final StudyMemberService studyMemberService;
+    private final StudyStatusStreamService studyStatusStreamService;
     private final CategoryService categoryService;
 
     @ApiOperation(value="스터디 그룹 정보 조회 (UID로 조회)")
@@ -83,15 +90,19 @@ public class StudyGroupController {
             @ApiImplicitParam(name = "categoryUIDs", value = "카테고리 UID 배열", required = false, dataType = "array", paramType = "query", defaultValue = ""),
             @ApiImplicitParam(name = "word", value = "검색어/코드", required = false, dataType = "string", paramType = "query", defaultValue = ""),
             @ApiImplicitParam(name = "isCam", value = "캠 유무", required = false, dataType = "boolean", paramType = "query", defaultValue = ""),
-            @ApiImplicitParam(name = "align", value = "정렬 기준", required = false, dataType = "string", paramType = "query", defaultValue = "latest"),
+            @ApiImplicitParam(name = "align", value = "정렬 기준(latest/expire/random)", required = false, dataType = "string", paramType = "query", defaultValue = "latest"),
+            @ApiImplicitParam(name = "cursor", value = "이전 응답의 nextCursor (첫 페이지는 생략)", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "size", value = "조회 개수(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20"),
     })
     @GetMapping("/search")
     public ResponseEntity findAll(@RequestParam(required = false) List<Integer> categoryUIDs,
                                   @RequestParam(required = false, defaultValue = "") String word,
                                   @RequestParam(required = false) Boolean isCam,
-                                  @RequestParam(required = false, defaultValue = "latest") String align){
-        List<StudyGroup> studyGroupList = studyGroupService.findAll(categoryUIDs, word, isCam, align);
-        DefaultResponse response = new DefaultResponse(new SearchStudyGroupReponse(studyGroupList));
+                                  @RequestParam(required = false, defaultValue = "latest") String align,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer size){
+        StudyGroupSearchService.SearchResult searchResult = studyGroupService.findAll(categoryUIDs, word, isCam, align, cursor, size);
+        DefaultResponse response = new DefaultResponse(new SearchStudyGroupReponse(searchResult.getStudyGroups(), searchResult.getNextCursor()));
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
@@ -103,22 +114,24 @@ public class StudyGroupController {
     })
     @ApiImplicitParams({
             @ApiImplicitParam(name = "groupUID", value = "스터디룸 UID(type이 expire일 때만 입력)", required = false, dataType = "int", paramType = "query", example = "0"),
-            @ApiImplicitParam(name = "type", value = "타입(main/expire)", required = true, dataType = "string", paramType = "query", defaultValue = "main")
+            @ApiImplicitParam(name = "type", value = "타입(main/expire)", required = true, dataType = "string", paramType = "query", defaultValue = "main"),
+            @ApiImplicitParam(name = "size", value = "추천 개수(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20")
     })
     @GetMapping("/recommend")
     public ResponseEntity findRecommendAll(@RequestParam(required = false) Integer groupUID,
                                            @RequestParam(required = true, defaultValue = "main") String type,
+                                           @RequestParam(required = false) Integer size,
                                            HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
         List<StudyGroup> studyGroupList;
         if(type.equals("main"))
-            studyGroupList = studyGroupService.findSameCategoryAllByUserUID(userUID);
+            studyGroupList = studyGroupService.findSameCategoryAllByUserUID(userUID, size);
         else {
             if(groupUID == null || !(type.equals("main") || type.equals("expire")))
                 throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, null,"파라미터(groupUID, type)를 다시 확인해주세요.");
 
             groupMemberService.findOne(groupUID, userUID);
-            studyGroupList = studyGroupService.findSameCategoryAllByUID(groupUID);
+            studyGroupList = studyGroupService.findSameCategoryAllByUID(groupUID, size);
         }
         DefaultResponse response = new DefaultResponse(new SearchStudyGroupReponse(studyGroupList));
         return new ResponseEntity(response, HttpStatus.OK);
@@ -135,10 +148,13 @@ public class StudyGroupController {
         int userUID = (int) request.getAttribute("userUID");
         List<StudyGroup> groupList = studyGroupService.findMyStudyGroup(userUID);
         List<GetMyStudyGroupRankResponse.GroupRank> groupRankList = new ArrayList<GetMyStudyGroupRankResponse.GroupRank>();
+        Map<Integer, List<GroupMemberResponse.Member>> membersByGroup = groupMemberService.getMembers(groupList.stream()
+                .map(StudyGroup::getUID)
+                .collect(Collectors.toList()));
 
         for(StudyGroup studyGroup : groupList){
             int groupUID = studyGroup.getUID();
-            List<GroupMemberResponse.Member> memberList = groupMemberService.getMembers(groupUID);
+            List<GroupMemberResponse.Member> memberList = membersByGroup.get(groupUID);
             GetMyStudyGroupRankResponse.GroupRank groupRank = new GetMyStudyGroupRankResponse.GroupRank();
             groupRank.setGroupUID(groupUID);
             groupRank.setName(studyGroup.getName());
@@ -156,12 +172,18 @@ public class StudyGroupController {
             @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
             @ApiResponse(code=403, message="가입되지 않은 그룹일 경우, 토큰 에러(토큰이 만료되었을 경우 등)")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "이전 응답의 nextCursor(첫 페이지는 생략)", required = false, dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "size", value = "페이지 크기(기본 20, 최대 100)", required = false, dataType = "int", paramType = "query", example = "20")
+    })
     @GetMapping("/my-group")
-    public ResponseEntity findMyStudyGroup(HttpServletRequest request){
+    public ResponseEntity findMyStudyGroup(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer size,
+                                           HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        List<StudyGroup> groupList = studyGroupService.findMyStudyGroup(userUID);
+        CursorPage<StudyGroup> groupPage = studyGroupService.findMyStudyGroup(userUID, cursor, size);
 
-        DefaultResponse response = new DefaultResponse(new SearchStudyGroupReponse(groupList));
+        DefaultResponse response = new DefaultResponse(new SearchStudyGroupReponse(groupPage.getItems(), groupPage.getNextCursor()));
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
@@ -176,18 +198,13 @@ public class StudyGroupController {
     public ResponseEntity makeStudyGroup(@RequestPart("json") @Valid MakeStudyGroupRequest req,
                                          @RequestPart(value = "image", required = false) MultipartFile image, HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        //userUID가 가입 가능한 최대 시간 구하기, 비교
-        studyGroupService.checkPossibleMinStudyHourByUsersUID(userUID, req.getMinStudyHour());
         //카테고리UID가 올바른지 체크
         categoryService.checkValidCategoryUID(req.getCategoryUIDs());
 
-        //그룹, 카테고리 생성
+        //그룹, 카테고리, 방장 생성 (userUID가 가입 가능한 최대 시간 확인)
         StudyGroup studyGroup = MakeStudyGroupRequest.convertToStudyGroup(req);
 
-        int groupUID = studyGroupService.makeStudyGroup(studyGroup, req.getCategoryUIDs());
-
-        //방장 생성
-        groupMemberService.makeStudyGroupMember(groupUID, userUID, true);
+        int groupUID = studyGroupService.makeStudyGroup(userUID, req.getMinStudyHour(), studyGroup, req.getCategoryUIDs());
 
         //이미지 저장
         studyGroupService.saveGroupImage(groupUID, image);
@@ -212,4 +229,17 @@ public class StudyGroupController {
         DefaultResponse response = new DefaultResponse(lastStudyTimeInfoDTOS);
         return new ResponseEntity(response, HttpStatus.OK);
     }
+
+    @ApiOperation(value="스터디 화면 공부 상태 구독 (SSE)", notes = "처음에 snapshot(study-info와 같은 목록), 이후 멤버의 공부 상태가 바뀔 때마다 change(멤버 한 명, 종료하면 studyStatus=inactive) 이벤트를 보낸다.")
+    @ApiResponses({
+            @ApiResponse(code=200, message="text/event-stream"),
+            @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
+    })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "groupUID", value = "스터디그룹 UID", required = true, dataType = "int", paramType = "path", example = "0"),
+    })
+    @GetMapping(value = "/{groupUID}/study-info/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStudyInfo(@PathVariable("groupUID") int groupUID){
+        return studyStatusStreamService.subscribe(groupUID);
+    }
 }
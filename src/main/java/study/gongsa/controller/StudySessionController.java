@@ -0,0 +1,97 @@
+package study.gongsa.controller;
+
+import io.swagger.annotations.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import study.gongsa.dto.DefaultResponse;
+import study.gongsa.dto.StudySessionDTO;
+import study.gongsa.service.StudySessionService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+
+@RestController
+@CrossOrigin("*")
+@Api(value="StudySession")
+@RequestMapping("/api/study-session")
+@RequiredArgsConstructor
+public class StudySessionController {
+    private final StudySessionService studySessionService;
+
+    @ApiOperation(value="공부 세션 시작")
+    @ApiResponses({
+            @ApiResponse(code=201, message="공부 세션 시작(studyMemberUID 반환)"),
+            @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
+            @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등), 가입하지 않은 그룹일 경우")
+    })
+    @PostMapping("")
+    public ResponseEntity startStudySession(@RequestBody @Valid StudySessionDTO.StartRequest req, HttpServletRequest request){
+        int userUID = (int) request.getAttribute("userUID");
+        int studyMemberUID = studySessionService.start(req.getGroupUID(), userUID);
+
+        DefaultResponse response = new DefaultResponse(new StudySessionDTO.StartResponse(studyMemberUID));
+        return new ResponseEntity(response, HttpStatus.CREATED);
+    }
+
+    @ApiOperation(value="공부 상태 변경", notes = "짧은 시간 안의 변경은 마지막 값만 모아서 반영")
+    @ApiResponses({
+            @ApiResponse(code=200, message="공부 상태 변경"),
+            @ApiResponse(code=400, message="존재하지 않는 공부 세션 / 공부 상태, 시간 형식이 올바르지 않은 경우"),
+            @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
+            @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등), 본인의 공부 세션이 아닌 경우")
+    })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "studyMemberUID", value = "공부 세션 UID", required = true, dataType = "int", paramType = "path", example = "0"),
+    })
+    @PatchMapping("/{studyMemberUID}")
+    public ResponseEntity changeStudyStatus(@PathVariable("studyMemberUID") int studyMemberUID,
+                                            @RequestBody @Valid StudySessionDTO.StatusRequest req, HttpServletRequest request){
+        int userUID = (int) request.getAttribute("userUID");
+        studySessionService.changeStatus(studyMemberUID, userUID, req.getStudyStatus(), req.getStudyTime());
+
+        DefaultResponse response = new DefaultResponse();
+        return new ResponseEntity(response, HttpStatus.OK);
+    }
+
+    @ApiOperation(value="공부 세션 heartbeat", notes = "공부 시간만 갱신, study-session.timeout 동안 없으면 세션 종료")
+    @ApiResponses({
+            @ApiResponse(code=200, message="공부 시간 갱신"),
+            @ApiResponse(code=400, message="존재하지 않는 공부 세션 / 공부 시간 형식이 올바르지 않은 경우"),
+            @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
+            @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등), 본인의 공부 세션이 아닌 경우")
+    })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "studyMemberUID", value = "공부 세션 UID", required = true, dataType = "int", paramType = "path", example = "0"),
+    })
+    @PostMapping("/{studyMemberUID}/heartbeat")
+    public ResponseEntity heartbeat(@PathVariable("studyMemberUID") int studyMemberUID,
+                                    @RequestBody @Valid StudySessionDTO.TimeRequest req, HttpServletRequest request){
+        int userUID = (int) request.getAttribute("userUID");
+        studySessionService.heartbeat(studyMemberUID, userUID, req.getStudyTime());
+
+        DefaultResponse response = new DefaultResponse();
+        return new ResponseEntity(response, HttpStatus.OK);
+    }
+
+    @ApiOperation(value="공부 세션 종료", notes = "마지막 공부 시간을 바로 반영")
+    @ApiResponses({
+            @ApiResponse(code=200, message="공부 세션 종료"),
+            @ApiResponse(code=400, message="존재하지 않는 공부 세션 / 공부 시간 형식이 올바르지 않은 경우"),
+            @ApiResponse(code=401, message="로그인을 하지 않았을 경우(header에 Authorization이 없을 경우)"),
+            @ApiResponse(code=403, message="토큰 에러(토큰이 만료되었을 경우 등), 본인의 공부 세션이 아닌 경우")
+    })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "studyMemberUID", value = "공부 세션 UID", required = true, dataType = "int", paramType = "path", example = "0"),
+    })
+    @PostMapping("/{studyMemberUID}/stop")
+    public ResponseEntity stopStudySession(@PathVariable("studyMemberUID") int studyMemberUID,
+                                           @RequestBody @Valid StudySessionDTO.TimeRequest req, HttpServletRequest request){
+        int userUID = (int) request.getAttribute("userUID");
+        studySessionService.stop(studyMemberUID, userUID, req.getStudyTime());
+
+        DefaultResponse response = new DefaultResponse();
+        return new ResponseEntity(response, HttpStatus.OK);
+    }
+}
@@ -8,14 +8,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import study.gongsa.domain.UserCategory;
 import study.gongsa.dto.DefaultResponse;
 import study.gongsa.dto.UserCategoryDTO;
 import study.gongsa.dto.UserCategoryRequest;
 import study.gongsa.service.UserCategoryService;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -35,11 +33,7 @@ public class UserCategoryController {
     @PutMapping("")
     public ResponseEntity save(@RequestBody @Valid UserCategoryRequest req, HttpServletRequest request){
         int userUID = (int) request.getAttribute("userUID");
-        userCategoryService.remove(userUID);
-        ArrayList<Integer> categoryUIDs = req.getCategoryUIDs();
-        for(int i=0; i<categoryUIDs.size(); i++) {
-            userCategoryService.save(new UserCategory(userUID, categoryUIDs.get(i)));
-        }
+        userCategoryService.change(userUID, req.getCategoryUIDs());
 
         DefaultResponse response = new DefaultResponse();
         return new ResponseEntity(response, HttpStatus.CREATED);
@@ -6,18 +6,21 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import study.gongsa.domain.UserAuth;
 import study.gongsa.dto.*;
 import study.gongsa.domain.User;
+import study.gongsa.service.StudyMemberService;
 import study.gongsa.service.UserAuthService;
 import study.gongsa.service.UserService;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 import study.gongsa.support.jwt.JwtTokenProvider;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.LocalDate;
 import static java.util.Objects.isNull;
 
 @RestController
@@ -29,6 +32,7 @@ public class UserController {
 
     private final UserService userService;
     private final UserAuthService userAuthService;
+    private final StudyMemberService studyMemberService;
     private final JwtTokenProvider jwtTokenProvider;
 
     @ApiOperation(value="회원가입")
@@ -169,6 +173,23 @@ public class UserController {
         return new ResponseEntity(response, HttpStatus.OK);
     }
 
+    @ApiOperation(value="마이페이지-기간별 공부 시간 조회", notes = "from ~ to(포함) 사이에 시작한 공부 세션의 공부 시간 합계(초), 보관된 세션 포함")
+    @ApiResponses({
+            @ApiResponse(code=200, message="공부 시간 반환"),
+            @ApiResponse(code=400, message="조회 기간이 올바르지 않은 경우"),
+            @ApiResponse(code=401, message="로그인 정보 불일치 에러"),
+    })
+    @GetMapping("/study-time")
+    public ResponseEntity getStudyTime(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                       HttpServletRequest request){
+        int userUID = (int) request.getAttribute("userUID");
+        long studyTime = studyMemberService.getStudyTime(userUID, from, to);
+
+        DefaultResponse response = new DefaultResponse(new StudyTimeResponse(from, to, studyTime));
+        return new ResponseEntity(response, HttpStatus.OK);
+    }
+
     @ApiOperation(value="환경 설정-유저 정보 조회")
     @ApiResponses({
             @ApiResponse(code=200, message="환경 설정 유저 정보 반환"),
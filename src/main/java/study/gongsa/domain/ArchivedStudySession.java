@@ -0,0 +1,18 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ArchivedStudySession {
+    private int studyMemberUID; // StudyMember.UID
+    private int groupUID;
+    private int groupMemberUID;
+    private int userUID;
+    private long createdAt; // 세션 시작 시각 (epoch millis)
+    private int studyTime; // 초
+}
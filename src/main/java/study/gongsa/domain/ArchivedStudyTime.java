@@ -0,0 +1,18 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+import java.sql.Date;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ArchivedStudyTime {
+    private int groupMemberUID;
+    private int userUID;
+    private Date studyDate; // 세션 시작 날짜
+    private long studyTime; // 초
+}
@@ -0,0 +1,25 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+import java.sql.Timestamp;
+import java.util.Date;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class BatchCheckpoint {
+    private String jobName;
+    private String runKey; // 같은 주기의 배치를 구분하는 값 (ex. 주간 배치 -> 해당 주 월요일 날짜)
+    @Builder.Default
+    private int lastUID = 0; // 마지막으로 커밋된 chunk의 마지막 UID
+    @Builder.Default
+    private Boolean isCompleted = false;
+    @Builder.Default
+    private Timestamp startedAt = new Timestamp(new Date().getTime());
+    @Builder.Default
+    private Timestamp updatedAt = new Timestamp(new Date().getTime());
+}
@@ -0,0 +1,17 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+import java.sql.Date;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class GroupCategoryInfo {
+    private Integer groupUID;
+    private Integer categoryUID;
+    private Date expiredAt;
+}
@@ -2,8 +2,6 @@ package study.gongsa.domain;
 
 import lombok.*;
 
-import java.sql.Time;
-
 @Getter
 @Setter
 @NoArgsConstructor
@@ -11,10 +9,12 @@ import java.sql.Time;
 @Builder
 @ToString
 public class GroupMemberUserInfo {
+    private Integer groupUID;
+    private Integer groupMemberUID;
     private Integer userUID;
     private String nickname;
     private String imgPath;
     private String studyStatus;
-    Time totalStudyTime;
+    String totalStudyTime;
     Integer ranking;
 }
@@ -2,8 +2,6 @@ package study.gongsa.domain;
 
 import lombok.*;
 
-import java.sql.Time;
-
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,5 +13,5 @@ public class LastStudyTimeInfo {
     private Integer groupMemberUID;
     private String imgPath;
     private String studyStatus;
-    Time studyTime;
+    String studyTime; // HH:mm:ss (24시간을 넘을 수 있음)
 }
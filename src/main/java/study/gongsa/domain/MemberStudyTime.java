@@ -0,0 +1,16 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class MemberStudyTime {
+    private Integer groupMemberUID;
+    private Integer groupUID;
+    private Integer userUID;
+    private Long studyTime; // 초
+}
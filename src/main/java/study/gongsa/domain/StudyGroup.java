@@ -10,7 +10,7 @@ import java.sql.Timestamp;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @ToString
 public class StudyGroup {
     private int UID;
@@ -24,6 +24,7 @@ public class StudyGroup {
     private Boolean isPenalty;
     private int maxPenalty;
     private Date expiredAt;
+    private int memberCount; // 가입/탈퇴/강제 탈퇴 트랜잭션에서 함께 갱신 (findByUID 캐시의 값은 오래됐을 수 있음)
     @Builder.Default
     private String imgPath = "r0.jpg";
     @Builder.Default
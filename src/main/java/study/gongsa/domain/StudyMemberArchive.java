@@ -0,0 +1,25 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class StudyMemberArchive {
+    private Integer UID;
+    private String path; // study-member.archive.dir 기준 상대 경로
+    private int firstUID;
+    private int lastUID;
+    private int rowCount;
+    private long studyTime; // 초
+    private Timestamp minCreatedAt;
+    private Timestamp maxCreatedAt;
+    private Date archivedBefore;
+    private Timestamp createdAt;
+}
@@ -0,0 +1,18 @@
+package study.gongsa.domain;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class StudySession {
+    private int studyMemberUID; // StudyMember.UID
+    private int groupUID;
+    private int groupMemberUID;
+    private int userUID;
+    private String studyStatus;
+    private String studyTime; // HH:mm:ss (TIME, 24시간을 넘을 수 있음)
+}
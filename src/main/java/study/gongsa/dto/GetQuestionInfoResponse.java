@@ -37,6 +37,11 @@ public class GetQuestionInfoResponse {
         this.answerList = list;
     }
 
+    public GetQuestionInfoResponse(Question question, List<AnswerInfo> answerList, String nextCursor){
+        this(question, answerList);
+        this.nextCursor = nextCursor;
+    }
+
     @ApiModelProperty(value="질문 제목")
     private String title;
 
@@ -45,4 +50,7 @@ public class GetQuestionInfoResponse {
 
     @ApiModelProperty(value="질문 내용")
     private List<AnswerDTO> answerList;
+
+    @ApiModelProperty(value="답변 다음 페이지 cursor (마지막 페이지면 null)")
+    private String nextCursor;
 }
@@ -31,6 +31,14 @@ public class GetQuestionResponse {
         this.questionList = list;
     }
 
+    public GetQuestionResponse(List<QuestionInfo> questionList, String nextCursor){
+        this(questionList);
+        this.nextCursor = nextCursor;
+    }
+
     @ApiModelProperty(value="질문 배열")
     List<QuestionDTO> questionList;
+
+    @ApiModelProperty(value="다음 페이지 cursor (마지막 페이지면 null)")
+    String nextCursor;
 }
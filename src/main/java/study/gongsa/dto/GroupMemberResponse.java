@@ -6,7 +6,6 @@ import study.gongsa.domain.GroupMember;
 import study.gongsa.domain.GroupMemberUserInfo;
 import study.gongsa.domain.StudyGroup;
 
-import java.sql.Time;
 import java.util.Date;
 import java.util.List;
 
@@ -29,7 +28,7 @@ public class GroupMemberResponse {
        String nickname;
        String imgPath;
        String studyStatus;
-       Time totalStudyTime;
+       String totalStudyTime;
        Integer ranking;
 
        public static Member convertToMember(GroupMemberUserInfo groupMemberUserInfo){
@@ -3,8 +3,6 @@ package study.gongsa.dto;
 import lombok.*;
 import study.gongsa.domain.LastStudyTimeInfo;
 
-import java.sql.Time;
-
 @Getter
 @Setter
 @NoArgsConstructor
@@ -16,7 +14,7 @@ public class LastStudyTimeInfoDTO {
     private Integer groupMemberUID;
     private String imgPath;
     private String studyStatus;
-    Time studyTime;
+    String studyTime; // HH:mm:ss (24시간을 넘을 수 있음)
 
     public static LastStudyTimeInfoDTO convertTo(LastStudyTimeInfo lastStudyTimeInfo){
         LastStudyTimeInfoDTO lastStudyTimeInfoDTO = LastStudyTimeInfoDTO.builder()
@@ -2,8 +2,6 @@ package study.gongsa.dto;
 
 import lombok.*;
 
-import java.sql.Time;
-
 public class MyPageUserResponse {
     @Getter
     @Setter
@@ -13,7 +11,7 @@ public class MyPageUserResponse {
     public static class Info{
         private String imgPath;
         private String nickname;
-        private Time totalStudyTime;
+        private String totalStudyTime;
         private Integer level;
         private Double percentage;
 
@@ -24,6 +24,8 @@ public class SearchStudyGroupReponse {
             studyGroupDTO.setImgPath(studyGroup.getImgPath());
             studyGroupDTO.setName(studyGroup.getName());
             studyGroupDTO.setIsCam(studyGroup.getIsCam());
+            studyGroupDTO.setMaxMember(studyGroup.getMaxMember());
+            studyGroupDTO.setCurrentMember(studyGroup.getMemberCount());
             studyGroupDTO.setCreatedAt(studyGroup.getCreatedAt());
             studyGroupDTO.setExpiredAt(studyGroup.getExpiredAt());
             list.add(studyGroupDTO);
@@ -32,6 +34,14 @@ public class SearchStudyGroupReponse {
         this.studyGroupList = list;
     }
 
+    public SearchStudyGroupReponse(List<StudyGroup> studyGroupList, String nextCursor){
+        this(studyGroupList);
+        this.nextCursor = nextCursor;
+    }
+
     @ApiModelProperty(value="스터디그룹 배열")
     List<StudyGroupDTO.Search> studyGroupList;
+
+    @ApiModelProperty(value="다음 페이지 cursor (마지막 페이지면 null)")
+    String nextCursor;
 }
@@ -15,6 +15,8 @@ public class StudyGroupDTO {
         private String imgPath;
         private String name;
         private Boolean isCam;
+        private int maxMember;
+        private int currentMember;
         private Date createdAt;
         private Date expiredAt;
     }
@@ -0,0 +1,53 @@
+package study.gongsa.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+
+public class StudySessionDTO {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StartRequest{
+        @ApiModelProperty(value="공부를 시작할 스터디 그룹 UID")
+        @NotNull(message = "그룹 UID는 필수값 입니다.")
+        private Integer groupUID;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusRequest{
+        @ApiModelProperty(value="공부 상태")
+        @NotBlank(message = "공부 상태는 필수값 입니다.")
+        @Size(max = 20, message = "공부 상태는 20자 이하입니다.")
+        private String studyStatus;
+        @ApiModelProperty(value="이번 세션의 누적 공부 시간(HH:mm:ss)")
+        @NotBlank(message = "공부 시간은 필수값 입니다.")
+        @Pattern(regexp = "^[0-9]{1,3}:[0-5][0-9]:[0-5][0-9]$", message = "공부 시간 형식이 올바르지 않습니다.")
+        private String studyTime;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TimeRequest{
+        @ApiModelProperty(value="이번 세션의 누적 공부 시간(HH:mm:ss)")
+        @NotBlank(message = "공부 시간은 필수값 입니다.")
+        @Pattern(regexp = "^[0-9]{1,3}:[0-5][0-9]:[0-5][0-9]$", message = "공부 시간 형식이 올바르지 않습니다.")
+        private String studyTime;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class StartResponse{
+        private int studyMemberUID;
+    }
+}
@@ -0,0 +1,24 @@
+package study.gongsa.dto;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@ApiModel(value="StudyTimeResponse", description = "기간별 공부 시간 조회 결과값")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudyTimeResponse {
+    @ApiModelProperty(value="조회 시작일")
+    LocalDate from;
+    @ApiModelProperty(value="조회 종료일(포함)")
+    LocalDate to;
+    @ApiModelProperty(value="공부 시간(초)")
+    long studyTime;
+}
@@ -2,8 +2,6 @@ package study.gongsa.dto;
 
 import lombok.*;
 
-import java.sql.Time;
-
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,7 +10,7 @@ import java.sql.Time;
 public class UserMyPageInfo {
     String imgPath;
     String nickname;
-    Time totalStudyTime;
+    String totalStudyTime;
     Integer ranking;
     Integer cnt;
     Integer level;
@@ -3,15 +3,17 @@ package study.gongsa.repository;
 import study.gongsa.domain.Answer;
 import study.gongsa.domain.AnswerInfo;
 import study.gongsa.domain.Question;
+import study.gongsa.support.paging.Cursor;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface AnswerRepository {
-    List<AnswerInfo> findAnswer(int questionUID);
+    List<AnswerInfo> findAnswer(int questionUID, Cursor cursor, int limit);
     Number save(Answer answer);
     Optional<Answer> findOne(int UID);
     void update(int UID, String content);
-    void deleteUserAnswer(List<Integer> questionUIDs, int userUID);
+    void removeByQuestionWriter(int userUID, int groupUID);
+    int removeByGroupUIDs(List<Integer> groupUIDs, int limit);
     void remove(int UID);
 }
@@ -0,0 +1,12 @@
+package study.gongsa.repository;
+
+import study.gongsa.domain.BatchCheckpoint;
+
+import java.util.Optional;
+
+public interface BatchCheckpointRepository {
+    void save(BatchCheckpoint batchCheckpoint);
+    Optional<BatchCheckpoint> findOne(String jobName, String runKey);
+    void updateLastUID(String jobName, String runKey, int lastUID);
+    void complete(String jobName, String runKey);
+}
@@ -4,6 +4,7 @@ import study.gongsa.domain.Category;
 import study.gongsa.domain.UserAuth;
 import study.gongsa.domain.UserCategory;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +12,5 @@ public interface CategoryRepository {
     List<Category> findAll();
     Optional<Category> findByUID(int uid);
     List<Category> findByGroupUID(int groupUID);
+    int countByUIDs(Collection<Integer> uids);
 }
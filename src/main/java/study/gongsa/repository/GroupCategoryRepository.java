@@ -3,8 +3,11 @@ package study.gongsa.repository;
 import study.gongsa.domain.Category;
 import study.gongsa.domain.GroupCategory;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 public interface GroupCategoryRepository {
     Number save(GroupCategory groupCategory);
+    void saveAll(int groupUID, int[] categoryUIDs, Timestamp createdAt);
+    int removeByGroupUIDs(List<Integer> groupUIDs, int limit);
 }
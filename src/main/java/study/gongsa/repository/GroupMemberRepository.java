@@ -14,11 +14,15 @@ public interface GroupMemberRepository {
     Number save(GroupMember groupMember);
     Optional<GroupMember> findByGroupUIDUserUID(int groupUID, int userUID);
     void remove(int uid);
-    void removeForced(List<Integer> groupMemberUIDs);
-    Optional<GroupMember> findRandUID(int groupUID);
-    void updateNewReader(int groupUID);
+    int removeForced(List<Integer> groupMemberUIDs);
+    List<GroupMember> findByUIDsForUpdate(List<Integer> groupMemberUIDs);
+    List<GroupMember> findByGroupUIDs(List<Integer> groupUIDs, int limit);
+    Optional<GroupMember> findByGroupUIDUserUIDForUpdate(int groupUID, int userUID);
+    void updateOldestMemberToLeader(int groupUID);
     List<GroupMemberUserInfo> findMemberInfo(int groupUID);
-    List<MemberWeeklyTimeInfo> getMemberWeeklyStudyTimeInfo();
+    List<GroupMemberUserInfo> findMemberInfoByGroupUIDs(List<Integer> groupUIDs);
+    List<Integer> findExistingUIDs(List<Integer> groupMemberUIDs);
+    List<MemberWeeklyTimeInfo> getMemberWeeklyStudyTimeInfo(int lastGroupMemberUID, int limit, Timestamp baseTime);
 
     void updatePenalty(List<Integer> UID);
 }
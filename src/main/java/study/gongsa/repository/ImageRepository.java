@@ -0,0 +1,7 @@
+package study.gongsa.repository;
+
+import java.util.Set;
+
+public interface ImageRepository {
+    Set<String> findReferencedImgPaths();
+}
@@ -9,6 +9,7 @@ import study.gongsa.domain.Answer;
 import study.gongsa.domain.AnswerInfo;
 import study.gongsa.domain.Category;
 import study.gongsa.domain.Question;
+import study.gongsa.support.paging.Cursor;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -41,13 +42,31 @@ public class JdbcTemplateAnswerRepository implements AnswerRepository{
         jdbcTemplate.update(sql, content, UID);
     }
 
+    // 그룹에서 유저가 작성한 질문의 답변 전체 삭제 (질문 UID를 먼저 조회하지 않고 join으로 한 번에)
     @Override
-    public void deleteUserAnswer(List<Integer> questionUIDs, int userUID) {
-        List<Integer> sqlData = questionUIDs;
-        String inSql = String.join(",", Collections.nCopies(questionUIDs.size(), "?"));
-        String query = String.format("DELETE FROM Answer WHERE questionUID in (%s) AND userUID = ?", inSql);
-        sqlData.add(userUID);
-        jdbcTemplate.update(query, sqlData.toArray());
+    public void removeByQuestionWriter(int userUID, int groupUID) {
+        String sql = "DELETE a FROM Answer a "
+                + "INNER JOIN Question q ON a.questionUID = q.UID "
+                + "WHERE q.userUID = ? AND q.groupUID = ?";
+        jdbcTemplate.update(sql, userUID, groupUID);
+    }
+
+    // 만료 그룹 삭제 배치용, 그룹 질문의 답변 UID를 최대 limit개 찾아서 PK로 삭제 (multi-table DELETE는 LIMIT을 쓸 수 없음)
+    @Override
+    public int removeByGroupUIDs(List<Integer> groupUIDs, int limit) {
+        if (groupUIDs.isEmpty()) return 0;
+
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        List<Object> params = new ArrayList<>(groupUIDs);
+        params.add(limit);
+        List<Integer> answerUIDs = jdbcTemplate.queryForList("SELECT a.UID FROM Answer a "
+                + "INNER JOIN Question q ON a.questionUID = q.UID "
+                + "WHERE q.groupUID IN (" + inSql + ") "
+                + "LIMIT ?", Integer.class, params.toArray());
+        if (answerUIDs.isEmpty()) return 0;
+
+        String answerInSql = String.join(",", Collections.nCopies(answerUIDs.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM Answer WHERE UID IN (" + answerInSql + ")", answerUIDs.toArray());
     }
 
     @Override
@@ -56,15 +75,26 @@ public class JdbcTemplateAnswerRepository implements AnswerRepository{
         jdbcTemplate.update(sql, UID);
     }
 
+    // 작성순(createdAt, UID)으로 cursor 이후 limit개 조회
     @Override
-    public List<AnswerInfo> findAnswer(int questionUID) {
+    public List<AnswerInfo> findAnswer(int questionUID, Cursor cursor, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(questionUID);
         String sql = "SELECT a.UID, a.userUID, c.nickname, a.answer, a.createdAt "
                 + "FROM Answer a "
-                + "JOIN Question b ON b.UID = a.questionUID "
                 + "JOIN User c ON c.UID = a.userUID "
-                + "WHERE a.questionUID = ?";
-        System.out.println(sql);
-        return jdbcTemplate.query(sql, answerInfoRowMapper(), questionUID);
+                + "WHERE a.questionUID = ? ";
+        if (cursor != null) {
+            Timestamp createdAt = new Timestamp(cursor.getSortKey());
+            sql += "AND (a.createdAt > ? OR (a.createdAt = ? AND a.UID > ?)) ";
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(cursor.getUID());
+        }
+        sql += "ORDER BY a.createdAt, a.UID "
+                + "LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, answerInfoRowMapper(), params.toArray());
     }
 
     private RowMapper<AnswerInfo> answerInfoRowMapper() {
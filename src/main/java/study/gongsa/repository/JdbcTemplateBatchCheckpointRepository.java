@@ -0,0 +1,60 @@
+package study.gongsa.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import study.gongsa.domain.BatchCheckpoint;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public class JdbcTemplateBatchCheckpointRepository implements BatchCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcTemplateBatchCheckpointRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void save(BatchCheckpoint batchCheckpoint) {
+        String sql = "INSERT INTO BatchCheckpoint(jobName, runKey, lastUID, isCompleted, startedAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.update(sql, batchCheckpoint.getJobName(), batchCheckpoint.getRunKey(), batchCheckpoint.getLastUID(),
+                batchCheckpoint.getIsCompleted(), batchCheckpoint.getStartedAt(), batchCheckpoint.getUpdatedAt());
+    }
+
+    @Override
+    public Optional<BatchCheckpoint> findOne(String jobName, String runKey) {
+        String sql = "SELECT * FROM BatchCheckpoint WHERE jobName = ? AND runKey = ?";
+        List<BatchCheckpoint> result = jdbcTemplate.query(sql, batchCheckpointRowMapper(), jobName, runKey);
+        return result.stream().findAny();
+    }
+
+    @Override
+    public void updateLastUID(String jobName, String runKey, int lastUID) {
+        String sql = "UPDATE BatchCheckpoint SET lastUID = ?, updatedAt = now() WHERE jobName = ? AND runKey = ?";
+        jdbcTemplate.update(sql, lastUID, jobName, runKey);
+    }
+
+    @Override
+    public void complete(String jobName, String runKey) {
+        String sql = "UPDATE BatchCheckpoint SET isCompleted = 1, updatedAt = now() WHERE jobName = ? AND runKey = ?";
+        jdbcTemplate.update(sql, jobName, runKey);
+    }
+
+    private RowMapper<BatchCheckpoint> batchCheckpointRowMapper() {
+        return (rs, rowNum) -> {
+            BatchCheckpoint batchCheckpoint = new BatchCheckpoint();
+            batchCheckpoint.setJobName(rs.getString("jobName"));
+            batchCheckpoint.setRunKey(rs.getString("runKey"));
+            batchCheckpoint.setLastUID(rs.getInt("lastUID"));
+            batchCheckpoint.setIsCompleted(rs.getBoolean("isCompleted"));
+            batchCheckpoint.setStartedAt(rs.getTimestamp("startedAt"));
+            batchCheckpoint.setUpdatedAt(rs.getTimestamp("updatedAt"));
+            return batchCheckpoint;
+        };
+    }
+}
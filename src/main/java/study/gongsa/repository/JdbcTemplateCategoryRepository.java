@@ -1,19 +1,18 @@
 package study.gongsa.repository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import study.gongsa.config.CacheConfig;
 import study.gongsa.domain.Category;
 import study.gongsa.domain.User;
 import study.gongsa.domain.UserAuth;
 
 import javax.sql.DataSource;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
 @Repository
 public class JdbcTemplateCategoryRepository implements CategoryRepository{
@@ -26,18 +25,21 @@ public class JdbcTemplateCategoryRepository implements CategoryRepository{
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "'all'")
     public List<Category> findAll(){
         List<Category> result = jdbcTemplate.query("SELECT * FROM Category", categoryRowMapper());
         return result;
     };
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.CATEGORY, key = "#uid", unless = "#result == null")
     public Optional<Category> findByUID(int uid){
         List<Category> result = jdbcTemplate.query("SELECT * FROM Category WHERE UID = ?", categoryRowMapper(), uid);
         return result.stream().findAny();
     };
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.GROUP_CATEGORIES, key = "#groupUID")
     public List<Category> findByGroupUID(int groupUID) {
         String sql = "SELECT c.UID, c.name "
                 + "FROM GroupCategory a "
@@ -47,6 +49,15 @@ public class JdbcTemplateCategoryRepository implements CategoryRepository{
         return jdbcTemplate.query(sql, categoryRowMapper(), groupUID);
     }
 
+    // uids 중 실제로 있는 카테고리 수
+    @Override
+    public int countByUIDs(Collection<Integer> uids) {
+        if (uids.isEmpty()) return 0;
+        String inSql = String.join(",", Collections.nCopies(uids.size(), "?"));
+        Integer count = jdbcTemplate.queryForObject(String.format("SELECT COUNT(*) FROM Category WHERE UID IN (%s)", inSql), Integer.class, uids.toArray());
+        return count == null ? 0 : count;
+    }
+
     private RowMapper<Category> categoryRowMapper() {
         return (rs, rowNum) -> {
             Category category = new Category();
@@ -1,15 +1,20 @@
 package study.gongsa.repository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import study.gongsa.config.CacheConfig;
 import study.gongsa.domain.Category;
 import study.gongsa.domain.GroupCategory;
 import study.gongsa.domain.User;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,11 +31,36 @@ public class JdbcTemplateGroupCategoryRepository implements GroupCategoryReposit
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.GROUP_CATEGORIES, key = "#groupCategory.groupUID")
     public Number save(GroupCategory groupCategory) {
         final Map<String, Object> parameters = setParameter(groupCategory);
         return insertIntoGroupCategory.executeAndReturnKey(parameters);
     }
 
+    // 카테고리 수와 상관없이 한 번에 insert (rewriteBatchedStatements=true 이면 multi-row INSERT 한 문장)
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GROUP_CATEGORIES, key = "#groupUID")
+    public void saveAll(int groupUID, int[] categoryUIDs, Timestamp createdAt) {
+        String sql = "INSERT INTO GroupCategory (groupUID, categoryUID, createdAt, updatedAt) VALUES (?, ?, ?, ?)";
+        List<Object[]> params = new ArrayList<>();
+        for (int categoryUID : categoryUIDs) {
+            params.add(new Object[]{groupUID, categoryUID, createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate(sql, params);
+    }
+
+    // 만료 그룹 삭제 배치용, groupUID 인덱스로 최대 limit개 삭제
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.GROUP_CATEGORIES, allEntries = true)
+    public int removeByGroupUIDs(List<Integer> groupUIDs, int limit) {
+        if (groupUIDs.isEmpty()) return 0;
+
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        List<Object> params = new ArrayList<>(groupUIDs);
+        params.add(limit);
+        return jdbcTemplate.update("DELETE FROM GroupCategory WHERE groupUID IN (" + inSql + ") LIMIT ?", params.toArray());
+    }
+
     private RowMapper<GroupCategory> groupCategoryRowMapper() {
         return (rs, rowNum) -> {
             GroupCategory groupCategory = new GroupCategory();
@@ -11,8 +11,13 @@ import org.springframework.stereotype.Repository;
 import study.gongsa.domain.*;
 
 import javax.sql.DataSource;
+import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -49,82 +54,113 @@ public class JdbcTemplateGroupMemberRepository implements GroupMemberRepository{
     }
 
     @Override
-    public void removeForced(List<Integer> groupMemberUIDs) {
+    public int removeForced(List<Integer> groupMemberUIDs) {
+        if(groupMemberUIDs.isEmpty()) return 0;
         String inSql = String.join(",", Collections.nCopies(groupMemberUIDs.size(), "?"));
         String query = String.format("DELETE FROM GroupMember WHERE UID in (%s)", inSql);
-        jdbcTemplate.update(query, groupMemberUIDs.toArray());
+        return jdbcTemplate.update(query, groupMemberUIDs.toArray());
     }
 
+    // 남아 있는 멤버 row만 UID 순서로 잠가서 반환 (그룹 row를 먼저 잠근 트랜잭션에서 사용)
     @Override
-    public Optional<GroupMember> findRandUID(int groupUID){
-        String sql = "SELECT * "
-                    + "FROM GroupMember "
-                    + "WHERE groupUID = ? "
-                    + "ORDER BY RAND() "
-                    + "LIMIT 1";
-        List<GroupMember> result = jdbcTemplate.query(sql, groupMemberRowMapper(), groupUID);
+    public List<GroupMember> findByUIDsForUpdate(List<Integer> groupMemberUIDs) {
+        if(groupMemberUIDs.isEmpty()) return new ArrayList<>();
+
+        List<Integer> sortedUIDs = groupMemberUIDs.stream().distinct().sorted().collect(Collectors.toList());
+        String inSql = String.join(",", Collections.nCopies(sortedUIDs.size(), "?"));
+        return jdbcTemplate.query("SELECT * FROM GroupMember WHERE UID IN (" + inSql + ") ORDER BY UID FOR UPDATE",
+                groupMemberRowMapper(), sortedUIDs.toArray());
+    }
+
+    @Override
+    public List<GroupMember> findByGroupUIDs(List<Integer> groupUIDs, int limit) {
+        if(groupUIDs.isEmpty()) return new ArrayList<>();
+
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        List<Object> params = new ArrayList<>(groupUIDs);
+        params.add(limit);
+        return jdbcTemplate.query("SELECT * FROM GroupMember WHERE groupUID IN (" + inSql + ") LIMIT ?", groupMemberRowMapper(), params.toArray());
+    }
+
+    // 그룹 row까지 잠가서 같은 그룹의 탈퇴(새 리더 선정)는 한 번에 하나씩 처리
+    @Override
+    public Optional<GroupMember> findByGroupUIDUserUIDForUpdate(int groupUID, int userUID){
+        String sql = "SELECT gm.* "
+                    + "FROM StudyGroup sg "
+                    + "INNER JOIN GroupMember gm ON gm.groupUID = sg.UID "
+                    + "WHERE sg.UID = ? AND gm.userUID = ? "
+                    + "FOR UPDATE";
+        List<GroupMember> result = jdbcTemplate.query(sql, groupMemberRowMapper(), groupUID, userUID);
         return result.stream().findAny();
     }
 
+    // 가장 먼저 가입한 멤버를 리더로 (GroupMember(groupUID, createdAt, UID) 인덱스)
     @Override
-    public void updateNewReader(int uid){
-        String sql = "UPDATE GroupMember SET isLeader = 1, updatedAt=now() WHERE UID = ?";
-        jdbcTemplate.update(sql, uid);
+    public void updateOldestMemberToLeader(int groupUID){
+        String sql = "UPDATE GroupMember SET isLeader = 1, updatedAt=now() "
+                    + "WHERE groupUID = ? "
+                    + "ORDER BY createdAt, UID "
+                    + "LIMIT 1";
+        jdbcTemplate.update(sql, groupUID);
     }
 
     @Override
     public List<GroupMemberUserInfo> findMemberInfo(int groupUID){
-        String with = "WITH MemberInfo AS ( " +
-                "SELECT gm.UID AS groupMemberUID, u.UID AS userUID, u.nickname AS nickname, u.imgPath AS imgPath " +
+        return findMemberInfoByGroupUIDs(List.of(groupUID));
+    }
+
+    @Override
+    public List<GroupMemberUserInfo> findMemberInfoByGroupUIDs(List<Integer> groupUIDs){
+        if(groupUIDs.isEmpty()) return new ArrayList<>();
+
+        // 순위, 공부 시간은 LeaderboardService에서 채운다, 공부 상태는 마지막 세션(StudyMemberCurrent) 기준
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        String query = "SELECT gm.groupUID, gm.UID AS groupMemberUID, u.UID AS userUID, u.nickname AS nickname, u.imgPath AS imgPath, " +
+                "IFNULL(sc.studyStatus, 'inactive') AS studyStatus, sc.updatedAt AS updatedAt " +
                 "FROM GroupMember gm " +
                 "INNER JOIN User u ON gm.userUID = u.UID " +
-                "WHERE gm.groupUID = ?) ";
-        String subQuery1 = "SELECT DENSE_RANK() OVER (ORDER BY IFNULL(SUM(sm.studyTime),0) DESC) AS ranking, " +
-                "IFNULL(TIME(SUM(sm.studyTime)),TIME(0)) AS totalStudyTime, mi.userUID " +
-                "FROM MemberInfo mi " +
-                "LEFT JOIN StudyMember sm ON sm.groupMemberUID = mi.groupMemberUID " +
-                "GROUP BY mi.groupMemberUID ";
-        String subQuery2 = "SELECT IFNULL(sm.studyStatus, 'inactive') AS studyStatus, MAX(sm.updatedAt) AS updatedAt, " +
-                "mi.userUID, mi.nickname, mi.imgPath " +
-                "FROM MemberInfo mi " +
-                "LEFT JOIN StudyMember sm ON sm.groupMemberUID = mi.groupMemberUID " +
-                "GROUP BY mi.userUID ";
-
-        String query = with + "SELECT * FROM ( " + subQuery1 + ") AS studyTimeTable  " +
-                "INNER JOIN ( "+ subQuery2 +") AS studyStatusTable ON studyTimeTable.userUID = studyStatusTable.userUID "+
-                "ORDER BY studyTimeTable.ranking ";
-
-        List<GroupMemberUserInfo> result = jdbcTemplate.query(query, groupMemberUserInfoRowMapper(), groupUID);
-        return result.stream().collect(Collectors.toList());
+                "LEFT JOIN StudyMemberCurrent sc ON sc.groupMemberUID = gm.UID " +
+                "WHERE gm.groupUID IN (" + inSql + ")";
+
+        return jdbcTemplate.query(query, groupMemberUserInfoRowMapper(), groupUIDs.toArray());
     }
 
     @Override
-    public List<MemberWeeklyTimeInfo> getMemberWeeklyStudyTimeInfo() {
-        String groupMemberInfoQuery = "SELECT sg.UID as groupUID, sg.name as groupName, gm.UID as groupMemberUID, gm.userUID, sg.minStudyHour, sg.isPenalty, sg.maxPenalty, gm.penaltyCnt " +
-                "FROM StudyGroup sg " +
-                "INNER JOIN GroupMember gm " +
-                "ON sg.UID = gm.groupUID " +
-                "WHERE TIMESTAMPDIFF(DAY, sg.createdAt , now()) >= 7 " +
-                "AND TIMESTAMPDIFF(DAY, gm.createdAt , now()) >= 7 ";
-        String studyInfoQuery = "SELECT sm.UID as studyMemberUID, groupMemberUID, TIME(SUM(studyTime)) as studyHour " +
-                "FROM StudyMember sm " +
-                "WHERE TIMESTAMPDIFF(DAY, updatedAt, now()) < 7 " +
-                "AND TIMESTAMPDIFF(HOUR, updatedAt, now()) > 1 " +
-                "GROUP BY groupMemberUID ";
-
-        String query = "SELECT GroupMemberInfo.userUID, GroupMemberInfo.groupMemberUID, GroupMemberInfo.groupUID, GroupMemberInfo.groupName, GroupMemberInfo.minStudyHour, IFNULL(StudyInfo.studyHour, TIME(0)) as studyHour, " +
-                "GroupMemberInfo.isPenalty, GroupMemberInfo.maxPenalty, GroupMemberInfo.PenaltyCnt as currentPenalty, " +
-                "IF(TIMEDIFF(GroupMemberInfo.minStudyHour, StudyInfo.studyHour)>=TIME(0),FALSE,TRUE) as addPenalty " +
-                "FROM ("+ groupMemberInfoQuery +") GroupMemberInfo " +
-                "LEFT JOIN ( " + studyInfoQuery + ") StudyInfo " +
-                "ON GroupMemberInfo.groupMemberUID = StudyInfo.groupMemberUID ";
-
-        List<MemberWeeklyTimeInfo> result = jdbcTemplate.query(query, memberWeeklyTimeInfoRowMapper());
-        return result.stream().collect(Collectors.toList());
+    public List<Integer> findExistingUIDs(List<Integer> groupMemberUIDs) {
+        if(groupMemberUIDs.isEmpty()) return new ArrayList<>();
+
+        String inSql = String.join(",", Collections.nCopies(groupMemberUIDs.size(), "?"));
+        return jdbcTemplate.queryForList("SELECT UID FROM GroupMember WHERE UID IN (" + inSql + ")", Integer.class, groupMemberUIDs.toArray());
+    }
+
+    @Override
+    public List<MemberWeeklyTimeInfo> getMemberWeeklyStudyTimeInfo(int lastGroupMemberUID, int limit, Timestamp baseTime) {
+        // baseTime 기준 지난 주(월~일) 공부 시간, GroupMember.UID 순서로 limit개씩 조회
+        LocalDate lastWeekStart = baseTime.toLocalDateTime().toLocalDate()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .minusWeeks(1);
+        Timestamp weekAgo = new Timestamp(baseTime.getTime() - Duration.ofDays(7).toMillis());
+
+        String query = "SELECT gm.userUID, gm.UID as groupMemberUID, sg.UID as groupUID, sg.name as groupName, sg.minStudyHour, " +
+                "SEC_TO_TIME(IFNULL(w.studyTime, 0)) as studyHour, " +
+                "sg.isPenalty, sg.maxPenalty, gm.penaltyCnt as currentPenalty, " +
+                "IF(IFNULL(w.studyTime, 0) >= TIME_TO_SEC(sg.minStudyHour), FALSE, TRUE) as addPenalty " +
+                "FROM GroupMember gm " +
+                "INNER JOIN StudyGroup sg ON sg.UID = gm.groupUID " +
+                "LEFT JOIN StudyTimeWeekly w ON w.groupMemberUID = gm.UID AND w.weekStart = ? " +
+                "WHERE gm.UID > ? " +
+                "AND sg.createdAt <= ? " +
+                "AND gm.createdAt <= ? " +
+                "ORDER BY gm.UID " +
+                "LIMIT ?";
+
+        return jdbcTemplate.query(query, memberWeeklyTimeInfoRowMapper(),
+                Date.valueOf(lastWeekStart), lastGroupMemberUID, weekAgo, weekAgo, limit);
     }
 
     @Override
     public void updatePenalty(List<Integer> UIDs) {
+        if(UIDs.isEmpty()) return;
         String inSql = String.join(",", Collections.nCopies(UIDs.size(), "?"));
         String sql = "UPDATE GroupMember SET penaltyCnt=(penaltyCnt+1), updatedAt= now() WHERE UID IN (%s)";
 
@@ -151,12 +187,12 @@ public class JdbcTemplateGroupMemberRepository implements GroupMemberRepository{
     private RowMapper<GroupMemberUserInfo> groupMemberUserInfoRowMapper() {
         return (rs, rowNum) -> {
             GroupMemberUserInfo groupMemberUserInfo = new GroupMemberUserInfo();
+            groupMemberUserInfo.setGroupUID(rs.getInt("groupUID"));
+            groupMemberUserInfo.setGroupMemberUID(rs.getInt("groupMemberUID"));
             groupMemberUserInfo.setUserUID(rs.getInt("userUID"));
             groupMemberUserInfo.setImgPath(rs.getString("imgPath"));
             groupMemberUserInfo.setNickname(rs.getString("nickname"));
-            groupMemberUserInfo.setRanking(rs.getInt("ranking"));
             groupMemberUserInfo.setStudyStatus(rs.getString("studyStatus"));
-            groupMemberUserInfo.setTotalStudyTime(rs.getTime("totalStudyTime"));
 
             return groupMemberUserInfo;
         };
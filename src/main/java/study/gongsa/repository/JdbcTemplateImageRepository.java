@@ -0,0 +1,28 @@
+package study.gongsa.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+
+@Repository
+public class JdbcTemplateImageRepository implements ImageRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcTemplateImageRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    // User, StudyGroup에서 사용 중인 이미지 파일 이름
+    @Override
+    public Set<String> findReferencedImgPaths() {
+        String sql = "SELECT imgPath FROM User WHERE imgPath IS NOT NULL "
+                + "UNION "
+                + "SELECT imgPath FROM StudyGroup WHERE imgPath IS NOT NULL";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, String.class));
+    }
+}
@@ -11,8 +11,10 @@ import org.springframework.stereotype.Repository;
 import study.gongsa.domain.Answer;
 import study.gongsa.domain.Question;
 import study.gongsa.domain.QuestionInfo;
+import study.gongsa.support.paging.Cursor;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
 import java.util.*;
 
 @Repository
@@ -34,32 +36,51 @@ public class JdbcTemplateQuestionRepository implements QuestionRepository{
     }
 
     @Override
-    public void deleteUserQuestion(List<Integer> questionUIDs) {
-        String inSql = String.join(",", Collections.nCopies(questionUIDs.size(), "?"));
-        String query = String.format("DELETE FROM Question WHERE UID in (%s)", inSql);
-        jdbcTemplate.update(query, questionUIDs.toArray());
+    public void removeByUserUIDAndGroupUID(int userUID, int groupUID) {
+        String sql = "DELETE FROM Question WHERE userUID = ? AND groupUID = ?";
+        jdbcTemplate.update(sql, userUID, groupUID);
     }
 
+    // 만료 그룹 삭제 배치용, groupUID 인덱스로 최대 limit개 삭제
     @Override
-    public List<QuestionInfo> findMyQuestion(int userUID) {
-        String sql = "SELECT a.UID, LEFT(a.title, 31) AS title, LEFT(a.content, 73) AS content, IF(b.answer is NULL, '응답 대기 중', '응답 완료') AS answerStatus, a.createdAt "
-                + "FROM Question a "
-                + "LEFT JOIN Answer b ON a.UID = b.questionUID "
-                + "WHERE a.userUID = ? "
-                + "GROUP BY a.UID "
-                + "ORDER BY a.createdAt DESC";
-        return jdbcTemplate.query(sql, questionInfoRowMapper(), userUID);
+    public int removeByGroupUIDs(List<Integer> groupUIDs, int limit) {
+        if (groupUIDs.isEmpty()) return 0;
+
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        List<Object> params = new ArrayList<>(groupUIDs);
+        params.add(limit);
+        return jdbcTemplate.update("DELETE FROM Question WHERE groupUID IN (" + inSql + ") LIMIT ?", params.toArray());
+    }
+
+    @Override
+    public List<QuestionInfo> findMyQuestion(int userUID, Cursor cursor, int limit) {
+        return findQuestionPage("a.userUID", userUID, cursor, limit);
     }
 
     @Override
-    public List<QuestionInfo> findGroupQuestion(int groupUID) {
-        String sql = "SELECT a.UID, LEFT(a.title, 31) AS title, LEFT(a.content, 73) AS content, IF(b.answer is NULL, '응답 대기 중', '응답 완료') AS answerStatus, a.createdAt "
+    public List<QuestionInfo> findGroupQuestion(int groupUID, Cursor cursor, int limit) {
+        return findQuestionPage("a.groupUID", groupUID, cursor, limit);
+    }
+
+    // (userUID|groupUID, createdAt, UID) 인덱스 순서대로 cursor 이후 limit개 조회, 응답 여부는 EXISTS로 확인해서 GROUP BY 없이 인덱스만 타도록
+    private List<QuestionInfo> findQuestionPage(String column, int value, Cursor cursor, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(value);
+        String sql = "SELECT a.UID, LEFT(a.title, 31) AS title, LEFT(a.content, 73) AS content, "
+                + "IF(EXISTS(SELECT 1 FROM Answer b WHERE b.questionUID = a.UID), '응답 완료', '응답 대기 중') AS answerStatus, a.createdAt "
                 + "FROM Question a "
-                + "LEFT JOIN Answer b ON a.UID = b.questionUID "
-                + "WHERE a.groupUID = ? "
-                + "GROUP BY a.UID "
-                + "ORDER BY a.createdAt DESC";
-        return jdbcTemplate.query(sql, questionInfoRowMapper(), groupUID);
+                + "WHERE " + column + " = ? ";
+        if (cursor != null) {
+            Timestamp createdAt = new Timestamp(cursor.getSortKey());
+            sql += "AND (a.createdAt < ? OR (a.createdAt = ? AND a.UID < ?)) ";
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(cursor.getUID());
+        }
+        sql += "ORDER BY a.createdAt DESC, a.UID DESC "
+                + "LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, questionInfoRowMapper(), params.toArray());
     }
 
     @Override
@@ -68,14 +89,6 @@ public class JdbcTemplateQuestionRepository implements QuestionRepository{
         return result.stream().findAny();
     }
 
-    @Override
-    public List<Question> findAllByUserUIDAndGroupUID(int userUID, int groupUID) {
-        String sql = "SELECT * "
-                + "FROM Question "
-                + "WHERE userUID = ? and groupUID = ?";
-        return jdbcTemplate.query(sql, questionRowMapper(), userUID, groupUID);
-    }
-
     private RowMapper<QuestionInfo> questionInfoRowMapper() { // Question, Answer join
         return (rs, rowNum) -> {
             QuestionInfo questionInfo = new QuestionInfo();
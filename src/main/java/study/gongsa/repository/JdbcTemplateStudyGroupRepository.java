@@ -1,94 +1,66 @@
 package study.gongsa.repository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import study.gongsa.config.CacheConfig;
+import study.gongsa.domain.GroupCategoryInfo;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.domain.User;
+import study.gongsa.support.paging.Cursor;
 
 import javax.sql.DataSource;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Repository
 public class JdbcTemplateStudyGroupRepository implements StudyGroupRepository{
     private final JdbcTemplate jdbcTemplate;
-    private SimpleJdbcInsert insertIntoStudyGroupAuth;
 
     @Autowired
     public JdbcTemplateStudyGroupRepository(DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
-        insertIntoStudyGroupAuth = new SimpleJdbcInsert(jdbcTemplate).withTableName("StudyGroup").usingGeneratedKeyColumns("UID");
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP, key = "#result.intValue()"),
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP_BY_CODE, key = "#studyGroup.code", condition = "#studyGroup.code != null")
+    })
     public Number save(StudyGroup studyGroup) {
-        final Map<String, Object> parameters = setParameter(studyGroup);
-        Number UID = insertIntoStudyGroupAuth.executeAndReturnKey(parameters);
-        updateMinStudyHour(UID.intValue(), studyGroup.getMinStudyHour());
-        return UID;
-    }
-
-    @Override
-    public List<StudyGroup> findAll(List<Integer> categoryUIDs, String word, Boolean isCam, String align) {
-        String sql = "select * "
-                    +"from StudyGroup a "
-                    +"join GroupCategory b on a.UID = b.groupUID "
-                    +"where a.UID >= 1 and a.isPrivate = false ";
-        if(isCam != null)
-            sql += "and isCam = " + isCam + " ";
-        if(word.length() != 0)
-            sql += "and (a.code LIKE \"%" + word + "%\" or a.name LIKE \"" + word + "%\")";
-        if(categoryUIDs != null){
-            sql += "and b.categoryUID in (";
-            for(int i=0; i<categoryUIDs.size(); i++){
-                sql += categoryUIDs.get(i).toString();
-                if(i != categoryUIDs.size()-1)
-                    sql += ",";
-            }
-            sql += ")";
-        }
-
-        sql += "group by b.groupUID ";
-
-        switch(align){
-            case "latest":
-                sql += "order by a.createdAt desc";
-                break;
-            case "expire":
-                sql += "order by a.expiredAt";
-                break;
-            case "random":
-                sql += "order by rand()";
-        }
-
-        return jdbcTemplate.query(sql, studyGroupRowMapper());
-    }
-
-    @Override
-    public List<StudyGroup> findSameCategoryAllByUID(int uid) {
-        String sql = "select * "
-                    +"from StudyGroup a "
-                    +"join GroupCategory b on a.UID = b.groupUID "
-                    +"where categoryUID in (select categoryUID from GroupCategory where groupUID = ?) and a.isPrivate = false "
-                    +"group by b.groupUID "
-                    +"order by rand()";
-        return jdbcTemplate.query(sql, studyGroupRowMapper(), uid);
-    }
-
-    @Override
-    public List<StudyGroup> findSameCategoryAllByUserUID(int userUID) {
-        String sql = "select * "
-                +"from StudyGroup a "
-                +"join GroupCategory b on a.UID = b.groupUID "
-                +"where categoryUID in (select categoryUID from UserCategory where userUID = ?) and a.isPrivate = false "
-                +"group by b.groupUID "
-                +"order by rand()";
-        return jdbcTemplate.query(sql, studyGroupRowMapper(), userUID);
+        // minStudyHour는 24시간 이상도 저장해야 해서 java.sql.Time을 거치지 않고 TIME(?)으로 변환
+        String sql = "INSERT INTO StudyGroup (name, code, maxTodayStudy, maxMember, maxPenalty, isPrivate, isCam, isPenalty, minStudyHour, imgPath, expiredAt, memberCount, createdAt, updatedAt) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, TIME(?), ?, ?, ?, ?, ?)";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, studyGroup.getName());
+            ps.setString(2, studyGroup.getCode());
+            ps.setInt(3, studyGroup.getMaxTodayStudy());
+            ps.setInt(4, studyGroup.getMaxMember());
+            ps.setInt(5, studyGroup.getMaxPenalty());
+            ps.setObject(6, studyGroup.getIsPrivate());
+            ps.setObject(7, studyGroup.getIsCam());
+            ps.setObject(8, studyGroup.getIsPenalty());
+            ps.setString(9, studyGroup.getMinStudyHour());
+            ps.setString(10, studyGroup.getImgPath());
+            ps.setDate(11, studyGroup.getExpiredAt());
+            ps.setInt(12, studyGroup.getMemberCount());
+            ps.setTimestamp(13, studyGroup.getCreatedAt());
+            ps.setTimestamp(14, studyGroup.getUpdatedAt());
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey();
     }
 
     @Override
@@ -103,47 +75,122 @@ public class JdbcTemplateStudyGroupRepository implements StudyGroupRepository{
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.MIN_STUDY_HOUR, key = "#UID", unless = "#result == null")
     public Optional<Integer> findMinStudyHourByGroupUID(int UID){
         String sql = "SELECT hour(minStudyHour) as minStudyHour FROM StudyGroup WHERE UID= ?";
         List<Integer> result = jdbcTemplate.query(sql, (rs, rowNum) -> Integer.valueOf(rs.getInt("minStudyHour")), UID);
         return result.stream().findAny();
     }
 
+    // 캐시(findByUID)를 거치지 않고 PK로 현재 멤버 수만 조회
+    @Override
+    public Optional<Integer> findMemberCount(int UID){
+        String sql = "SELECT memberCount FROM StudyGroup WHERE UID = ?";
+        List<Integer> result = jdbcTemplate.query(sql, (rs, rowNum) -> Integer.valueOf(rs.getInt("memberCount")), UID);
+        return result.stream().findAny();
+    }
+
+    // 그룹 row를 잠근 뒤 최신 멤버 수 조회, 같은 그룹의 가입/탈퇴는 트랜잭션이 끝날 때까지 기다린다
     @Override
-    public Optional<Map<String, Integer>> findMemberCntInfoByGroupUID(int UID){
-        String sql = "SELECT a.maxMember as maxMember, count(*) as memberCnt " +
-                "FROM StudyGroup a " +
-                "INNER JOIN GroupMember b ON a.UID = b.groupUID " +
-                "WHERE a.UID = ? " +
-                "GROUP BY a.UID";
+    public Optional<Map<String, Integer>> findMemberCntInfoByGroupUIDForUpdate(int UID){
+        String sql = "SELECT maxMember, hour(minStudyHour) as minStudyHour, memberCount as memberCnt " +
+                "FROM StudyGroup " +
+                "WHERE UID = ? " +
+                "FOR UPDATE";
 
-        Optional<Map<String, Integer>> memberCntInfo = jdbcTemplate.query(sql, (rs, rowNum) -> Map.of(
+        return jdbcTemplate.query(sql, (rs, rowNum) -> Map.of(
                 "maxMember", rs.getInt("maxMember"),
+                "minStudyHour", rs.getInt("minStudyHour"),
                 "memberCnt", rs.getInt("memberCnt")
         ), UID).stream().findAny();
+    }
+
+    // 최대 인원보다 작을 때만 증가 (증가하지 못하면 false)
+    @Override
+    public boolean increaseMemberCount(int UID) {
+        String sql = "UPDATE StudyGroup SET memberCount = memberCount + 1 WHERE UID = ? AND memberCount < maxMember";
+        return jdbcTemplate.update(sql, UID) == 1;
+    }
+
+    @Override
+    public void decreaseMemberCount(int UID) {
+        String sql = "UPDATE StudyGroup SET memberCount = memberCount - 1 WHERE UID = ? AND memberCount > 0";
+        jdbcTemplate.update(sql, UID);
+    }
 
-        return memberCntInfo;
+    // key: groupUID, value: 줄어든 멤버 수 (UID 순서로 잠가서 가입/탈퇴와 deadlock이 생기지 않도록)
+    @Override
+    public void decreaseMemberCounts(Map<Integer, Integer> removedCntByGroupUID) {
+        if (removedCntByGroupUID.isEmpty()) return;
+        String sql = "UPDATE StudyGroup SET memberCount = GREATEST(memberCount - ?, 0) WHERE UID = ?";
+        List<Object[]> params = new ArrayList<>();
+        new TreeMap<>(removedCntByGroupUID).forEach((groupUID, removedCnt) -> params.add(new Object[]{removedCnt, groupUID}));
+        jdbcTemplate.batchUpdate(sql, params);
+    }
+
+    // 여러 그룹 row를 UID 순서로 잠근다 (여러 그룹을 한 트랜잭션에서 바꾸는 배치가 가입/탈퇴와 서로 기다리지 않도록)
+    @Override
+    public void lockByUIDs(Collection<Integer> UIDs) {
+        if (UIDs.isEmpty()) return;
+        List<Integer> sortedUIDs = UIDs.stream().distinct().sorted().collect(Collectors.toList());
+        String inSql = String.join(",", Collections.nCopies(sortedUIDs.size(), "?"));
+        jdbcTemplate.queryForList("SELECT UID FROM StudyGroup WHERE UID IN (" + inSql + ") ORDER BY UID FOR UPDATE",
+                Integer.class, sortedUIDs.toArray());
+    }
+
+    @Override
+    public void lockByUIDRange(int fromUID, int toUID) {
+        jdbcTemplate.queryForList("SELECT UID FROM StudyGroup WHERE UID BETWEEN ? AND ? ORDER BY UID FOR UPDATE",
+                Integer.class, fromUID, toUID);
     }
 
     @Override
+    public Optional<Integer> findMaxUID() {
+        List<Integer> result = jdbcTemplate.query("SELECT MAX(UID) AS maxUID FROM StudyGroup",
+                (rs, rowNum) -> {
+                    int maxUID = rs.getInt("maxUID");
+                    return rs.wasNull() ? null : maxUID;
+                });
+        return result.stream().filter(uid -> uid != null).findAny();
+    }
+
+    // [fromUID, toUID] 그룹의 memberCount를 실제 GroupMember 수로 맞추고 바뀐 그룹 수 반환
+    @Override
+    public int repairMemberCounts(int fromUID, int toUID) {
+        String sql = "UPDATE StudyGroup a "
+                + "LEFT JOIN (SELECT groupUID, COUNT(*) AS memberCnt FROM GroupMember WHERE groupUID BETWEEN ? AND ? GROUP BY groupUID) b "
+                + "ON a.UID = b.groupUID "
+                + "SET a.memberCount = IFNULL(b.memberCnt, 0) "
+                + "WHERE a.UID BETWEEN ? AND ? AND a.memberCount <> IFNULL(b.memberCnt, 0)";
+        return jdbcTemplate.update(sql, fromUID, toUID, fromUID, toUID);
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.STUDY_GROUP, key = "#uid", unless = "#result == null")
     public Optional<StudyGroup> findByUID(int uid) {
         List<StudyGroup> result = jdbcTemplate.query("select * from StudyGroup where UID = ?", studyGroupRowMapper(), uid);
         return result.stream().findAny();
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.STUDY_GROUP_BY_CODE, key = "#code", unless = "#result == null")
     public Optional<StudyGroup> findByCode(String code) {
         List<StudyGroup> result = jdbcTemplate.query("select * from StudyGroup where code = ?", studyGroupRowMapper(), code);
         return result.stream().findAny();
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP, key = "#UID"),
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP_BY_CODE, allEntries = true)
+    })
     public void updateImgPath(int UID, String imgPath){
         String sql = "UPDATE StudyGroup SET imgPath = ?, updatedAt=now() WHERE UID = ?";
         jdbcTemplate.update(sql, imgPath, UID);
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.MAX_MEMBER, key = "#UID", unless = "#result == null")
     public Optional<Integer> findMaxMember(int UID){
         String sql = "SELECT maxMember FROM StudyGroup WHERE UID = ? ";
         List<Integer> result = jdbcTemplate.query(sql, (rs, rowNum) -> Integer.valueOf(rs.getInt("maxMember")), UID);
@@ -159,16 +206,75 @@ public class JdbcTemplateStudyGroupRepository implements StudyGroupRepository{
         return jdbcTemplate.query(sql, studyGroupRowMapper(), userUID);
     }
 
+    // 최신 그룹순(createdAt desc, UID desc)으로 cursor 이후 limit개 조회
+    @Override
+    public List<StudyGroup> findMyStudyGroup(int userUID, Cursor cursor, int limit) {
+        List<Object> params = new ArrayList<>();
+        params.add(userUID);
+        String sql = "SELECT a.* "
+                + "FROM StudyGroup a "
+                + "JOIN GroupMember b ON a.UID = b.groupUID "
+                + "WHERE b.userUID = ? ";
+        if (cursor != null) {
+            Timestamp createdAt = new Timestamp(cursor.getSortKey());
+            sql += "AND (a.createdAt < ? OR (a.createdAt = ? AND a.UID < ?)) ";
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(cursor.getUID());
+        }
+        sql += "ORDER BY a.createdAt DESC, a.UID DESC "
+                + "LIMIT ?";
+        params.add(limit);
+        return jdbcTemplate.query(sql, studyGroupRowMapper(), params.toArray());
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.STUDY_GROUP_BY_CODE, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MAX_MEMBER, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.MIN_STUDY_HOUR, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.GROUP_CATEGORIES, allEntries = true)
+    })
+    public void removeByUIDs(List<Integer> UIDs) {
+        if (UIDs.isEmpty()) return;
+
+        String inSql = String.join(",", Collections.nCopies(UIDs.size(), "?"));
+        jdbcTemplate.update("DELETE FROM StudyGroup WHERE UID IN (" + inSql + ")", UIDs.toArray());
+    }
+
+    // today 이전에 만료된 그룹 (expiredAt 인덱스 범위로 조회)
+    @Override
+    public List<Integer> findExpiredUIDs(Date today, int limit) {
+        String sql = "SELECT UID FROM StudyGroup WHERE expiredAt < ? ORDER BY expiredAt, UID LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Integer.class, today, limit);
+    }
+
+    @Override
+    public List<StudyGroup> findByUIDs(List<Integer> UIDs) {
+        if (UIDs.isEmpty()) return new ArrayList<>();
+
+        String inSql = String.join(",", Collections.nCopies(UIDs.size(), "?"));
+        String sql = "SELECT * FROM StudyGroup WHERE UID IN (" + inSql + ")";
+        return jdbcTemplate.query(sql, studyGroupRowMapper(), UIDs.toArray());
+    }
+
     @Override
-    public void removeExpiredGroup() {
-        String sql = "DELETE FROM StudyGroup "
-                + "WHERE DATE_FORMAT(expiredAt,'%Y-%m-%d') < DATE_FORMAT(NOW(),'%Y-%m-%d')";
-        jdbcTemplate.update(sql);
+    public List<GroupCategoryInfo> findPublicGroupCategories() {
+        String sql = "SELECT a.UID AS groupUID, b.categoryUID, a.expiredAt "
+                + "FROM StudyGroup a "
+                + "JOIN GroupCategory b ON a.UID = b.groupUID "
+                + "WHERE a.isPrivate = false";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> GroupCategoryInfo.builder()
+                .groupUID(rs.getInt("groupUID"))
+                .categoryUID(rs.getInt("categoryUID"))
+                .expiredAt(rs.getDate("expiredAt"))
+                .build());
     }
 
-    public void updateMinStudyHour(int UID, String minStudyHour){
-        String sql = "UPDATE StudyGroup SET minStudyHour = TIME(?), updatedAt=now() WHERE UID = ?";
-        jdbcTemplate.update(sql, minStudyHour, UID);
+    @Override
+    public List<StudyGroup> findAllPublic() {
+        return jdbcTemplate.query("SELECT * FROM StudyGroup WHERE isPrivate = false", studyGroupRowMapper());
     }
 
     private RowMapper<StudyGroup> studyGroupRowMapper() {
@@ -186,28 +292,10 @@ public class JdbcTemplateStudyGroupRepository implements StudyGroupRepository{
             studyGroup.setMinStudyHour(rs.getString("minStudyHour"));
             studyGroup.setImgPath(rs.getString("imgPath"));
             studyGroup.setExpiredAt(rs.getDate("expiredAt"));
+            studyGroup.setMemberCount(rs.getInt("memberCount"));
             studyGroup.setCreatedAt(rs.getTimestamp("createdAt"));
 
             return studyGroup;
         };
     }
-
-    private HashMap<String, Object> setParameter(StudyGroup studyGroup) {
-        HashMap<String, Object> hashMap = new HashMap<String, Object>();
-        hashMap.put("UID",studyGroup.getUID());
-        hashMap.put("name",studyGroup.getName());
-        hashMap.put("code",studyGroup.getCode());
-        hashMap.put("maxTodayStudy",studyGroup.getMaxTodayStudy());
-        hashMap.put("maxMember",studyGroup.getMaxMember());
-        hashMap.put("maxPenalty",studyGroup.getMaxPenalty());
-        hashMap.put("isPrivate",studyGroup.getIsPrivate());
-        hashMap.put("isCam",studyGroup.getIsCam());
-        hashMap.put("isPenalty",studyGroup.getIsPenalty());
-        hashMap.put("minStudyHour", studyGroup.getMinStudyHour());
-        hashMap.put("imgPath", studyGroup.getImgPath());
-        hashMap.put("expiredAt", studyGroup.getExpiredAt());
-        hashMap.put("createdAt",studyGroup.getCreatedAt());
-        hashMap.put("updatedAt",studyGroup.getUpdatedAt());
-        return hashMap;
-    }
 }
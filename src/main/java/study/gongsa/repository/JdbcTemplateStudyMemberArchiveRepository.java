@@ -0,0 +1,76 @@
+package study.gongsa.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.stereotype.Repository;
+import study.gongsa.domain.ArchivedStudyTime;
+import study.gongsa.domain.StudyMemberArchive;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Repository
+public class JdbcTemplateStudyMemberArchiveRepository implements StudyMemberArchiveRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private SimpleJdbcInsert insertIntoStudyMemberArchive;
+
+    @Autowired
+    public JdbcTemplateStudyMemberArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        insertIntoStudyMemberArchive = new SimpleJdbcInsert(jdbcTemplate).withTableName("StudyMemberArchive")
+                .usingColumns("path", "firstUID", "lastUID", "rowCount", "studyTime", "minCreatedAt", "maxCreatedAt", "archivedBefore")
+                .usingGeneratedKeyColumns("UID");
+    }
+
+    @Override
+    public Number save(StudyMemberArchive studyMemberArchive) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("path", studyMemberArchive.getPath());
+        parameters.put("firstUID", studyMemberArchive.getFirstUID());
+        parameters.put("lastUID", studyMemberArchive.getLastUID());
+        parameters.put("rowCount", studyMemberArchive.getRowCount());
+        parameters.put("studyTime", studyMemberArchive.getStudyTime());
+        parameters.put("minCreatedAt", studyMemberArchive.getMinCreatedAt());
+        parameters.put("maxCreatedAt", studyMemberArchive.getMaxCreatedAt());
+        parameters.put("archivedBefore", studyMemberArchive.getArchivedBefore());
+        return insertIntoStudyMemberArchive.executeAndReturnKey(parameters);
+    }
+
+    // segment에 담긴 세션의 그룹 멤버별, 날짜별 합계
+    @Override
+    public void saveStudyTimes(int archiveUID, List<ArchivedStudyTime> archivedStudyTimes) {
+        String sql = "INSERT INTO StudyMemberArchiveDaily (archiveUID, groupMemberUID, studyDate, userUID, studyTime) VALUES (?, ?, ?, ?, ?)";
+        List<Object[]> batchArgs = archivedStudyTimes.stream()
+                .map(archivedStudyTime -> new Object[]{archiveUID, archivedStudyTime.getGroupMemberUID(), archivedStudyTime.getStudyDate(),
+                        archivedStudyTime.getUserUID(), archivedStudyTime.getStudyTime()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
+    // 이 날짜 이전에 시작한 세션은 StudyMember에 모두 남아 있지 않을 수 있다
+    @Override
+    public Optional<Date> findArchivedBefore() {
+        List<Date> result = jdbcTemplate.query("SELECT MAX(archivedBefore) AS archivedBefore FROM StudyMemberArchive",
+                (rs, rowNum) -> rs.getDate("archivedBefore"));
+        return result.stream().filter(archivedBefore -> archivedBefore != null).findAny();
+    }
+
+    // from ~ to(포함) 사이에 시작한 유저의 보관된 세션 공부 시간(초)을 그룹 멤버별로 합산
+    @Override
+    public Map<Integer, Long> findStudyTimeByGroupMember(int userUID, Date from, Date to) {
+        String sql = "SELECT groupMemberUID, SUM(studyTime) AS studyTime " +
+                "FROM StudyMemberArchiveDaily " +
+                "WHERE userUID = ? AND studyDate BETWEEN ? AND ? " +
+                "GROUP BY groupMemberUID";
+        Map<Integer, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getInt("groupMemberUID"), rs.getLong("studyTime"));
+        }, userUID, from, to);
+        return result;
+    }
+}
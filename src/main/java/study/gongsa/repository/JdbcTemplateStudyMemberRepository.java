@@ -3,18 +3,66 @@ package study.gongsa.repository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import study.gongsa.domain.ArchivedStudySession;
 import study.gongsa.domain.LastStudyTimeInfo;
+import study.gongsa.domain.StudySession;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 public class JdbcTemplateStudyMemberRepository implements StudyMemberRepository{
     private final JdbcTemplate jdbcTemplate;
+    private SimpleJdbcInsert insertIntoStudyMember;
 
     @Autowired
     public JdbcTemplateStudyMemberRepository(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        insertIntoStudyMember = new SimpleJdbcInsert(jdbcTemplate).withTableName("StudyMember")
+                .usingColumns("groupUID", "groupMemberUID", "userUID")
+                .usingGeneratedKeyColumns("UID");
+    }
+
+    @Override
+    public Number save(int groupUID, int groupMemberUID, int userUID) {
+        return insertIntoStudyMember.executeAndReturnKey(Map.of(
+                "groupUID", groupUID,
+                "groupMemberUID", groupMemberUID,
+                "userUID", userUID));
+    }
+
+    @Override
+    public Optional<StudySession> findByUID(int studyMemberUID) {
+        String sql = "SELECT UID, groupUID, groupMemberUID, userUID, studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime " +
+                "FROM StudyMember WHERE UID = ?";
+        List<StudySession> result = jdbcTemplate.query(sql, studySessionRowMapper(), studyMemberUID);
+        return result.stream().findAny();
+    }
+
+    // 그룹 멤버의 마지막 세션(StudyMemberCurrent)인지 확인
+    @Override
+    public boolean isCurrent(int groupMemberUID, int studyMemberUID) {
+        String sql = "SELECT COUNT(*) FROM StudyMemberCurrent WHERE groupMemberUID = ? AND studyMemberUID = ?";
+        return jdbcTemplate.queryForObject(sql, Integer.class, groupMemberUID, studyMemberUID) > 0;
+    }
+
+    // 세션별로 모아둔 마지막 상태를 한 번에 반영 (UID 순서로 보내서 동시에 flush해도 lock 순서가 같다), 상태가 없으면 시간만 변경
+    // 이미 종료된 세션은 먼저 가져간 flush나 WAL 복구가 늦게 써도 바뀌지 않는다
+    @Override
+    public void updateStatuses(List<StudySession> studySessions) {
+        String sql = "UPDATE StudyMember SET studyStatus = IFNULL(?, studyStatus), studyTime = ?, updatedAt = now() WHERE UID = ? AND studyStatus <> 'inactive'";
+        List<Object[]> batchArgs = studySessions.stream()
+                .map(studySession -> new Object[]{studySession.getStudyStatus(), studySession.getStudyTime(), studySession.getStudyMemberUID()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(sql, batchArgs);
     }
 
     @Override
@@ -23,17 +71,94 @@ public class JdbcTemplateStudyMemberRepository implements StudyMemberRepository{
         jdbcTemplate.update(sql, groupUID, userUID, groupMemberUID);
     }
 
+    // 멤버별 마지막 세션만 담은 StudyMemberCurrent(트리거로 갱신)에서 groupUID 인덱스로 최대 maxMember개만 읽는다
     @Override
     public List<LastStudyTimeInfo> findLastStudyTime(int groupUID){
-        String sql = "SELECT distinctrow U.UID as userUID, U.imgPath, GM.UID as groupMemberUID, SM.studyStatus, IFNULL(TIME(SM.studyTime), TIME(0)) as studyTime " +
-                "FROM GroupMember GM INNER JOIN StudyMember SM on GM.UID = SM.groupMemberUID " +
+        String sql = "SELECT U.UID as userUID, U.imgPath, SC.groupMemberUID, SC.studyStatus, TIME_FORMAT(IFNULL(SC.studyTime, TIME(0)), '%H:%i:%s') as studyTime " +
+                "FROM StudyMemberCurrent SC " +
+                "INNER JOIN GroupMember GM on GM.UID = SC.groupMemberUID " +
                 "INNER JOIN User U on GM.userUID = U.UID " +
-                "WHERE (SM.UID, SM.createdAt) in (select UID, max(createdAt) from StudyMember group by UID) " +
-                "AND SM.studyStatus NOT LIKE ('inactive') AND GM.groupUID = ?";
-        List<LastStudyTimeInfo> result = jdbcTemplate.query(sql, lastStudyTimeInfoRowMapper(), groupUID);
+                "WHERE SC.groupUID = ? AND SC.studyStatus <> 'inactive'";
+        return jdbcTemplate.query(sql, lastStudyTimeInfoRowMapper(), groupUID);
+    }
+
+    @Override
+    public Optional<Integer> findMaxUIDCreatedBefore(Timestamp before) {
+        List<Integer> result = jdbcTemplate.query("SELECT MAX(UID) AS maxUID FROM StudyMember WHERE createdAt < ?",
+                (rs, rowNum) -> {
+                    int maxUID = rs.getInt("maxUID");
+                    return rs.wasNull() ? null : maxUID;
+                }, before);
+        return result.stream().filter(uid -> uid != null).findAny();
+    }
+
+    // before 이전에 시작한 세션 중 멤버의 마지막 세션(StudyMemberCurrent)이 아닌 끝난 세션을 UID 순서로 조회
+    @Override
+    public List<ArchivedStudySession> findArchivable(int lastUID, int maxUID, Timestamp before, int limit) {
+        String sql = "SELECT sm.UID, sm.groupUID, sm.groupMemberUID, sm.userUID, sm.createdAt, IFNULL(TIME_TO_SEC(sm.studyTime), 0) AS studyTime " +
+                "FROM StudyMember sm " +
+                "WHERE sm.UID > ? AND sm.UID <= ? AND sm.createdAt < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM StudyMemberCurrent sc WHERE sc.groupMemberUID = sm.groupMemberUID AND sc.studyMemberUID = sm.UID) " +
+                "ORDER BY sm.UID " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, archivedStudySessionRowMapper(), lastUID, maxUID, before, limit);
+    }
+
+    @Override
+    public void removeByUIDs(List<Integer> studyMemberUIDs) {
+        if (studyMemberUIDs.isEmpty()) return;
+
+        String inSql = String.join(",", Collections.nCopies(studyMemberUIDs.size(), "?"));
+        jdbcTemplate.update("DELETE FROM StudyMember WHERE UID IN (" + inSql + ")", studyMemberUIDs.toArray());
+    }
+
+    // 만료 그룹 삭제 배치용, groupUID 인덱스로 최대 limit개 삭제 (StudyMemberCurrent는 트리거로 같이 삭제)
+    @Override
+    public int removeByGroupUIDs(List<Integer> groupUIDs, int limit) {
+        if (groupUIDs.isEmpty()) return 0;
+
+        String inSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        List<Object> params = new ArrayList<>(groupUIDs);
+        params.add(limit);
+        return jdbcTemplate.update("DELETE FROM StudyMember WHERE groupUID IN (" + inSql + ") LIMIT ?", params.toArray());
+    }
+
+    // from ~ to(미포함) 사이에 시작한 유저의 세션 공부 시간(초)을 그룹 멤버별로 합산
+    @Override
+    public Map<Integer, Long> findStudyTimeByGroupMember(int userUID, Timestamp from, Timestamp to) {
+        String sql = "SELECT groupMemberUID, IFNULL(SUM(TIME_TO_SEC(studyTime)), 0) AS studyTime " +
+                "FROM StudyMember " +
+                "WHERE userUID = ? AND createdAt >= ? AND createdAt < ? " +
+                "GROUP BY groupMemberUID";
+        Map<Integer, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getInt("groupMemberUID"), rs.getLong("studyTime"));
+        }, userUID, from, to);
         return result;
     }
 
+    private RowMapper<ArchivedStudySession> archivedStudySessionRowMapper() {
+        return (rs, rowNum) -> ArchivedStudySession.builder()
+                .studyMemberUID(rs.getInt("UID"))
+                .groupUID(rs.getInt("groupUID"))
+                .groupMemberUID(rs.getInt("groupMemberUID"))
+                .userUID(rs.getInt("userUID"))
+                .createdAt(rs.getTimestamp("createdAt").getTime())
+                .studyTime(rs.getInt("studyTime"))
+                .build();
+    }
+
+    private RowMapper<StudySession> studySessionRowMapper() {
+        return (rs, rowNum) -> StudySession.builder()
+                .studyMemberUID(rs.getInt("UID"))
+                .groupUID(rs.getInt("groupUID"))
+                .groupMemberUID(rs.getInt("groupMemberUID"))
+                .userUID(rs.getInt("userUID"))
+                .studyStatus(rs.getString("studyStatus"))
+                .studyTime(rs.getString("studyTime"))
+                .build();
+    }
+
     private RowMapper<LastStudyTimeInfo> lastStudyTimeInfoRowMapper() { // Question, Answer join
         return (rs, rowNum) -> {
             LastStudyTimeInfo lastStudyTimeInfo = new LastStudyTimeInfo();
@@ -41,7 +166,7 @@ public class JdbcTemplateStudyMemberRepository implements StudyMemberRepository{
             lastStudyTimeInfo.setGroupMemberUID(rs.getInt("groupMemberUID"));
             lastStudyTimeInfo.setImgPath(rs.getString("imgPath"));
             lastStudyTimeInfo.setStudyStatus(rs.getString("studyStatus"));
-            lastStudyTimeInfo.setStudyTime(rs.getTime("studyTime"));
+            lastStudyTimeInfo.setStudyTime(rs.getString("studyTime"));
             return lastStudyTimeInfo;
         };
     }
@@ -0,0 +1,186 @@
+package study.gongsa.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import study.gongsa.domain.MemberStudyTime;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.*;
+
+@Repository
+public class JdbcTemplateStudyTimeWeeklyRepository implements StudyTimeWeeklyRepository {
+    // 현재 그룹 멤버별 누적 공부 시간
+    private static final String MEMBER_STUDY_TIME = "SELECT gm.UID AS groupMemberUID, gm.groupUID, gm.userUID, IFNULL(SUM(w.studyTime), 0) AS studyTime " +
+            "FROM GroupMember gm " +
+            "LEFT JOIN StudyTimeWeekly w ON w.groupMemberUID = gm.UID ";
+    // 인증된 유저별 누적 공부 시간
+    private static final String USER_STUDY_TIME = "SELECT u.UID AS userUID, IFNULL(SUM(w.studyTime), 0) AS studyTime " +
+            "FROM `User` u " +
+            "LEFT JOIN StudyTimeWeekly w ON w.userUID = u.UID " +
+            "WHERE u.isAuth = 1 ";
+    private static final String WEEK_START = "(DATE(%1$s.createdAt) - INTERVAL WEEKDAY(%1$s.createdAt) DAY)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JdbcTemplateStudyTimeWeeklyRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public int refresh(Timestamp from, Timestamp to, Date archivedBefore) {
+        // from ~ to 사이에 변경된 세션이 속한 (groupMember, 주)만 다시 집계
+        // archivedBefore(월요일) 이전 주는 세션 일부가 StudyMemberArchive로 옮겨져 있으므로 그대로 둔다
+        String touched = "SELECT DISTINCT groupMemberUID, " + String.format(WEEK_START, "StudyMember") + " AS weekStart " +
+                "FROM StudyMember " +
+                "WHERE updatedAt > ? AND updatedAt <= ? AND createdAt >= ?";
+        return jdbcTemplate.update(upsertTouchedWeeks(touched), from, to, archivedBefore);
+    }
+
+    @Override
+    public int refreshByStudyMemberUIDs(List<Integer> studyMemberUIDs, Date archivedBefore) {
+        if (studyMemberUIDs.isEmpty()) return 0;
+
+        // 종료된 세션이 속한 (groupMember, 주)만 다시 집계
+        String inSql = String.join(",", Collections.nCopies(studyMemberUIDs.size(), "?"));
+        String touched = "SELECT DISTINCT groupMemberUID, " + String.format(WEEK_START, "StudyMember") + " AS weekStart " +
+                "FROM StudyMember " +
+                "WHERE UID IN (" + inSql + ") AND createdAt >= ?";
+        List<Object> params = new ArrayList<>(studyMemberUIDs);
+        params.add(archivedBefore);
+        return jdbcTemplate.update(upsertTouchedWeeks(touched), params.toArray());
+    }
+
+    @Override
+    public int rebuild(int fromGroupMemberUID, int toGroupMemberUID, Date archivedBefore) {
+        // archivedBefore 이전 주는 보관 전에 집계한 값을 유지
+        jdbcTemplate.update("DELETE FROM StudyTimeWeekly WHERE groupMemberUID BETWEEN ? AND ? AND weekStart >= ?",
+                fromGroupMemberUID, toGroupMemberUID, archivedBefore);
+
+        String weekStart = String.format(WEEK_START, "sm");
+        String sql = "INSERT INTO StudyTimeWeekly (groupMemberUID, weekStart, groupUID, userUID, studyTime, updatedAt) " +
+                "SELECT sm.groupMemberUID, " + weekStart + ", MAX(sm.groupUID), MAX(sm.userUID), IFNULL(SUM(TIME_TO_SEC(sm.studyTime)), 0), now() " +
+                "FROM StudyMember sm " +
+                "WHERE sm.groupMemberUID BETWEEN ? AND ? AND sm.createdAt >= ? " +
+                "GROUP BY sm.groupMemberUID, " + weekStart;
+        return jdbcTemplate.update(sql, fromGroupMemberUID, toGroupMemberUID, archivedBefore);
+    }
+
+    // touched(groupMemberUID, weekStart)의 공부 시간을 StudyMember에서 다시 합산해서 덮어쓴다
+    private String upsertTouchedWeeks(String touched) {
+        return "INSERT INTO StudyTimeWeekly (groupMemberUID, weekStart, groupUID, userUID, studyTime, updatedAt) " +
+                "SELECT sm.groupMemberUID, t.weekStart, MAX(sm.groupUID), MAX(sm.userUID), IFNULL(SUM(TIME_TO_SEC(sm.studyTime)), 0), now() " +
+                "FROM (" + touched + ") t " +
+                "INNER JOIN StudyMember sm ON sm.groupMemberUID = t.groupMemberUID " +
+                "AND sm.createdAt >= t.weekStart AND sm.createdAt < t.weekStart + INTERVAL 7 DAY " +
+                "GROUP BY sm.groupMemberUID, t.weekStart " +
+                "ON DUPLICATE KEY UPDATE studyTime = VALUES(studyTime), updatedAt = now()";
+    }
+
+    @Override
+    public Optional<Integer> findMaxGroupMemberUID() {
+        List<Integer> result = jdbcTemplate.query("SELECT MAX(groupMemberUID) AS maxUID FROM StudyMember",
+                (rs, rowNum) -> {
+                    int maxUID = rs.getInt("maxUID");
+                    return rs.wasNull() ? null : maxUID;
+                });
+        return result.stream().filter(uid -> uid != null).findAny();
+    }
+
+    @Override
+    public Optional<Timestamp> findLastUpdatedAt() {
+        List<Timestamp> result = jdbcTemplate.query("SELECT MAX(updatedAt) AS lastUpdatedAt FROM StudyTimeWeekly",
+                (rs, rowNum) -> rs.getTimestamp("lastUpdatedAt"));
+        return result.stream().filter(updatedAt -> updatedAt != null).findAny();
+    }
+
+    @Override
+    public void removeByGroupMemberUID(int groupMemberUID) {
+        jdbcTemplate.update("DELETE FROM StudyTimeWeekly WHERE groupMemberUID = ?", groupMemberUID);
+    }
+
+    @Override
+    public void removeByGroupMemberUIDs(List<Integer> groupMemberUIDs) {
+        if (groupMemberUIDs.isEmpty()) return;
+
+        String inSql = String.join(",", Collections.nCopies(groupMemberUIDs.size(), "?"));
+        jdbcTemplate.update("DELETE FROM StudyTimeWeekly WHERE groupMemberUID IN (" + inSql + ")", groupMemberUIDs.toArray());
+    }
+
+    @Override
+    public List<MemberStudyTime> findMemberStudyTimes() {
+        return jdbcTemplate.query(MEMBER_STUDY_TIME + "GROUP BY gm.UID", memberStudyTimeRowMapper());
+    }
+
+    @Override
+    public List<MemberStudyTime> findMemberStudyTimes(List<Integer> groupMemberUIDs) {
+        if (groupMemberUIDs.isEmpty()) return new ArrayList<>();
+
+        String inSql = String.join(",", Collections.nCopies(groupMemberUIDs.size(), "?"));
+        String sql = MEMBER_STUDY_TIME + "WHERE gm.UID IN (" + inSql + ") GROUP BY gm.UID";
+        return jdbcTemplate.query(sql, memberStudyTimeRowMapper(), groupMemberUIDs.toArray());
+    }
+
+    @Override
+    public List<MemberStudyTime> findMemberStudyTimesUpdatedSince(Timestamp since) {
+        String sql = MEMBER_STUDY_TIME +
+                "WHERE gm.UID IN (SELECT groupMemberUID FROM StudyTimeWeekly WHERE updatedAt >= ?) " +
+                "GROUP BY gm.UID";
+        return jdbcTemplate.query(sql, memberStudyTimeRowMapper(), since);
+    }
+
+    @Override
+    public List<MemberStudyTime> findMemberStudyTimesByStudyMemberUIDs(List<Integer> studyMemberUIDs) {
+        if (studyMemberUIDs.isEmpty()) return new ArrayList<>();
+
+        String inSql = String.join(",", Collections.nCopies(studyMemberUIDs.size(), "?"));
+        String sql = MEMBER_STUDY_TIME +
+                "WHERE gm.UID IN (SELECT groupMemberUID FROM StudyMember WHERE UID IN (" + inSql + ")) " +
+                "GROUP BY gm.UID";
+        return jdbcTemplate.query(sql, memberStudyTimeRowMapper(), studyMemberUIDs.toArray());
+    }
+
+    @Override
+    public Map<Integer, Long> findUserStudyTimes() {
+        return queryForUserStudyTimes(USER_STUDY_TIME + "GROUP BY u.UID");
+    }
+
+    @Override
+    public Map<Integer, Long> findUserStudyTimes(List<Integer> userUIDs) {
+        if (userUIDs.isEmpty()) return new HashMap<>();
+
+        String inSql = String.join(",", Collections.nCopies(userUIDs.size(), "?"));
+        return queryForUserStudyTimes(USER_STUDY_TIME + "AND u.UID IN (" + inSql + ") GROUP BY u.UID", userUIDs.toArray());
+    }
+
+    @Override
+    public Map<Integer, Long> findUserStudyTimesUpdatedSince(Timestamp since) {
+        String sql = USER_STUDY_TIME +
+                "AND u.UID IN (SELECT userUID FROM StudyTimeWeekly WHERE updatedAt >= ?) " +
+                "GROUP BY u.UID";
+        return queryForUserStudyTimes(sql, since);
+    }
+
+    private Map<Integer, Long> queryForUserStudyTimes(String sql, Object... args) {
+        Map<Integer, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getInt("userUID"), rs.getLong("studyTime"));
+        }, args);
+        return result;
+    }
+
+    private RowMapper<MemberStudyTime> memberStudyTimeRowMapper() {
+        return (rs, rowNum) -> {
+            MemberStudyTime memberStudyTime = new MemberStudyTime();
+            memberStudyTime.setGroupMemberUID(rs.getInt("groupMemberUID"));
+            memberStudyTime.setGroupUID(rs.getInt("groupUID"));
+            memberStudyTime.setUserUID(rs.getInt("userUID"));
+            memberStudyTime.setStudyTime(rs.getLong("studyTime"));
+            return memberStudyTime;
+        };
+    }
+}
@@ -8,9 +8,8 @@ import org.springframework.stereotype.Repository;
 import study.gongsa.domain.UserCategory;
 
 import javax.sql.DataSource;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.sql.Timestamp;
+import java.util.*;
 
 @Repository
 public class JdbcTemplateUserCategoryRepository implements UserCategoryRepository {
@@ -30,6 +29,17 @@ public class JdbcTemplateUserCategoryRepository implements UserCategoryRepositor
         insertIntoUserCategory.execute(parameters);
     }
 
+    @Override
+    public void saveAll(int userUID, List<Integer> categoryUIDs) {
+        String sql = "INSERT INTO UserCategory (userUID, categoryUID, createdAt, updatedAt) VALUES (?, ?, ?, ?)";
+        Timestamp createdAt = new Timestamp(new Date().getTime());
+        List<Object[]> params = new ArrayList<>();
+        for (Integer categoryUID : categoryUIDs) {
+            params.add(new Object[]{userUID, categoryUID, createdAt, createdAt});
+        }
+        jdbcTemplate.batchUpdate(sql, params);
+    }
+
     @Override
     public List<UserCategory> findByUserUID(int userUID) {
         return jdbcTemplate.query("SELECT * FROM UserCategory WHERE userUID = ? ORDER BY categoryUID", userCategoryRowMapper(), userUID);
@@ -41,6 +51,12 @@ public class JdbcTemplateUserCategoryRepository implements UserCategoryRepositor
         jdbcTemplate.update(sql, uid);
     }
 
+    @Override
+    public void removeByUserUID(int userUID) {
+        String sql = "DELETE FROM UserCategory WHERE userUID = ?";
+        jdbcTemplate.update(sql, userUID);
+    }
+
     private HashMap<String, Object> setParameter(UserCategory userCategory) {
         HashMap<String, Object> hashMap = new HashMap<String, Object>();
         hashMap.put("UID", userCategory.getUID());
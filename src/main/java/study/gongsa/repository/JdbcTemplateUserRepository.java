@@ -1,13 +1,15 @@
 package study.gongsa.repository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.stereotype.Repository;
+import study.gongsa.config.CacheConfig;
 import study.gongsa.domain.GroupMemberUserInfo;
 import study.gongsa.domain.User;
-import study.gongsa.dto.UserMyPageInfo;
 
 import javax.sql.DataSource;
 import java.sql.Time;
@@ -39,6 +41,7 @@ public class JdbcTemplateUserRepository implements UserRepository {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USER_AUTH, key = "#uid")
     public void updateIsAuth(Boolean isAuth, Timestamp updatedAt, int uid){
         String sql = "UPDATE User SET isAuth=?, updatedAt=? WHERE UID=?";
         jdbcTemplate.update(sql, isAuth, updatedAt, uid);
@@ -51,6 +54,7 @@ public class JdbcTemplateUserRepository implements UserRepository {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.USER_AUTH, allEntries = true)
     public void removeExpiredUnauthenticatedUser() {
         String sql = "DELETE FROM User WHERE isAuth = 0 AND TIMESTAMPDIFF(DAY, createdAt , NOW()) > 7";
         jdbcTemplate.update(sql);
@@ -58,8 +62,18 @@ public class JdbcTemplateUserRepository implements UserRepository {
 
     @Override
     public void updateLevel(int uid, Timestamp updatedAt) {
-        String query = "UPDATE User SET level = level - 1 WHERE UID = ? AND level >= 2";
-        jdbcTemplate.update(query, uid);
+        String query = "UPDATE User SET level = level - 1, updatedAt = ? WHERE UID = ? AND level >= 2";
+        jdbcTemplate.update(query, updatedAt, uid);
+    }
+
+    @Override
+    public void updateLevels(List<Integer> uids, Timestamp updatedAt) {
+        // 같은 유저가 여러 번 포함되면 그 횟수만큼 레벨이 내려가도록 batch로 실행
+        String query = "UPDATE User SET level = level - 1, updatedAt = ? WHERE UID = ? AND level >= 2";
+        jdbcTemplate.batchUpdate(query, uids, uids.size(), (ps, uid) -> {
+            ps.setTimestamp(1, updatedAt);
+            ps.setInt(2, uid);
+        });
     }
 
     @Override
@@ -74,6 +88,25 @@ public class JdbcTemplateUserRepository implements UserRepository {
         return result.stream().findAny();
     };
 
+    // 같은 유저의 그룹 가입/생성을 순서대로 처리 (트랜잭션이 끝날 때까지 유지)
+    @Override
+    public void lockByUID(int uid) {
+        jdbcTemplate.queryForList("SELECT UID FROM User WHERE UID = ? FOR UPDATE", Integer.class, uid);
+    }
+
+    @Override
+    public Map<Integer, String> findDeviceTokensByUIDs(List<Integer> uids) {
+        Map<Integer, String> deviceTokens = new HashMap<>();
+        if(uids.isEmpty()) return deviceTokens;
+
+        String inSql = String.join(",", Collections.nCopies(uids.size(), "?"));
+        String query = String.format("SELECT UID, deviceToken FROM User WHERE UID IN (%s)", inSql);
+        jdbcTemplate.query(query, rs -> {
+            deviceTokens.put(rs.getInt("UID"), rs.getString("deviceToken"));
+        }, uids.toArray());
+        return deviceTokens;
+    }
+
     @Override
     public Optional<User> findByEmail(String email){
         List<User> result = jdbcTemplate.query("SELECT * FROM User WHERE email = ?", userRowMapper(), email);
@@ -86,6 +119,7 @@ public class JdbcTemplateUserRepository implements UserRepository {
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.USER_AUTH, key = "#uid")
     public boolean isAuth(int uid) {
         return jdbcTemplate.queryForObject("SELECT isAuth FROM User WHERE UID = ?", Boolean.class, uid);
     }
@@ -103,21 +137,6 @@ public class JdbcTemplateUserRepository implements UserRepository {
         return result.stream().findAny();
     }
 
-    @Override
-    public Optional<UserMyPageInfo> getUserMyPageInfo(int uid){
-        String with = "WITH UserInfo AS (" +
-                "SELECT DENSE_RANK() OVER (ORDER BY IFNULL(SUM(sm.studyTime),0) DESC) AS ranking, " +
-                "u.UID as userUID, u.nickname, u.imgPath, u.`level`, " +
-                "IFNULL(TIME(SUM(sm.studyTime)), TIME(0)) as totalStudyTime " +
-                "FROM `User` u LEFT JOIN StudyMember sm on u.UID = sm.userUID " +
-                "WHERE u.isAuth = 1 " +
-                "GROUP BY u.UID) ";
-        String query = "SELECT * FROM (SELECT COUNT(*) as cnt FROM UserInfo) cnt " +
-                "CROSS JOIN (SELECT * FROM UserInfo WHERE userUID = ?) userInfo ";
-        List<UserMyPageInfo> result = jdbcTemplate.query(with+query, userMyPageInfoRowMapper(), uid);
-        return result.stream().findAny();
-    }
-
     private RowMapper<User> userRowMapper() {
         return (rs, rowNum) -> {
             User user = new User();
@@ -135,21 +154,6 @@ public class JdbcTemplateUserRepository implements UserRepository {
             return user;
         };
     }
-    private RowMapper<UserMyPageInfo> userMyPageInfoRowMapper(){
-        return (rs, rowNum) -> {
-            UserMyPageInfo user = new UserMyPageInfo();
-
-            user.setImgPath(rs.getString("imgPath"));
-            user.setNickname(rs.getString("nickname"));
-            user.setTotalStudyTime(rs.getTime("totalStudyTime"));
-            user.setRanking(rs.getInt("ranking"));
-            user.setCnt(rs.getInt("cnt"));
-            user.setLevel(rs.getInt("level"));
-
-            return user;
-        };
-
-    }
 
     private HashMap<String, Object> setParameter(User user) {
         HashMap<String, Object> hashMap = new HashMap<String, Object>();
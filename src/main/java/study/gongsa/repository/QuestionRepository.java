@@ -4,16 +4,17 @@ package study.gongsa.repository;
 import study.gongsa.domain.Answer;
 import study.gongsa.domain.Question;
 import study.gongsa.domain.QuestionInfo;
+import study.gongsa.support.paging.Cursor;
 
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 
 public interface QuestionRepository {
-    List<QuestionInfo> findMyQuestion(int userUID);
-    List<QuestionInfo> findGroupQuestion(int groupUID);
+    List<QuestionInfo> findMyQuestion(int userUID, Cursor cursor, int limit);
+    List<QuestionInfo> findGroupQuestion(int groupUID, Cursor cursor, int limit);
     Optional<Question> findOne(int questionUID);
-    List<Question> findAllByUserUIDAndGroupUID(int userUID, int groupUID);
     Number save(Question question);
-    void deleteUserQuestion(List<Integer> questionUIDs);
+    void removeByUserUIDAndGroupUID(int userUID, int groupUID);
+    int removeByGroupUIDs(List<Integer> groupUIDs, int limit);
 }
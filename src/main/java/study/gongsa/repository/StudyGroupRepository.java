@@ -1,24 +1,38 @@
 package study.gongsa.repository;
 
+import study.gongsa.domain.GroupCategoryInfo;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.domain.User;
+import study.gongsa.support.paging.Cursor;
 
+import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 public interface  StudyGroupRepository {
     Number save(StudyGroup studyGroup);
-    List<StudyGroup> findAll(List<Integer> categoryUIDs, String word, Boolean isCam,String align);
-    List<StudyGroup> findSameCategoryAllByUID(int UID);
-    List<StudyGroup> findSameCategoryAllByUserUID(int userUID);
     Optional<Integer> findSumMinStudyHourByUserUID(int userUID);
     Optional<Integer> findMinStudyHourByGroupUID(int groupUID);
-    Optional<Map<String, Integer>> findMemberCntInfoByGroupUID(int groupUID);
+    Optional<Integer> findMemberCount(int groupUID);
+    Optional<Map<String, Integer>> findMemberCntInfoByGroupUIDForUpdate(int groupUID);
+    boolean increaseMemberCount(int groupUID);
+    void decreaseMemberCount(int groupUID);
+    void decreaseMemberCounts(Map<Integer, Integer> removedCntByGroupUID);
+    void lockByUIDs(Collection<Integer> UIDs);
+    void lockByUIDRange(int fromUID, int toUID);
+    Optional<Integer> findMaxUID();
+    int repairMemberCounts(int fromUID, int toUID);
     Optional<StudyGroup> findByUID(int uid);
     Optional<StudyGroup> findByCode(String code);
     void updateImgPath(int UID, String fileName);
     Optional<Integer> findMaxMember(int UID);
     List<StudyGroup> findMyStudyGroup(int userUID);
-    void removeExpiredGroup();
+    List<StudyGroup> findMyStudyGroup(int userUID, Cursor cursor, int limit);
+    List<Integer> findExpiredUIDs(Date today, int limit);
+    void removeByUIDs(List<Integer> UIDs);
+    List<StudyGroup> findByUIDs(List<Integer> UIDs);
+    List<GroupCategoryInfo> findPublicGroupCategories();
+    List<StudyGroup> findAllPublic();
 }
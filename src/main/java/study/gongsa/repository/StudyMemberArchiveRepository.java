@@ -0,0 +1,16 @@
+package study.gongsa.repository;
+
+import study.gongsa.domain.ArchivedStudyTime;
+import study.gongsa.domain.StudyMemberArchive;
+
+import java.sql.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface StudyMemberArchiveRepository {
+    Number save(StudyMemberArchive studyMemberArchive);
+    void saveStudyTimes(int archiveUID, List<ArchivedStudyTime> archivedStudyTimes);
+    Optional<Date> findArchivedBefore();
+    Map<Integer, Long> findStudyTimeByGroupMember(int userUID, Date from, Date to);
+}
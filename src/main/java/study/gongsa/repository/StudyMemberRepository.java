@@ -1,10 +1,24 @@
 package study.gongsa.repository;
 
+import study.gongsa.domain.ArchivedStudySession;
 import study.gongsa.domain.LastStudyTimeInfo;
+import study.gongsa.domain.StudySession;
 
+import java.sql.Timestamp;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface StudyMemberRepository {
+    Number save(int groupUID, int groupMemberUID, int userUID);
+    Optional<StudySession> findByUID(int studyMemberUID);
+    boolean isCurrent(int groupMemberUID, int studyMemberUID);
+    void updateStatuses(List<StudySession> studySessions);
     void remove(int groupUID, int userUID, int groupMemberUID);
     List<LastStudyTimeInfo> findLastStudyTime(int groupUID);
+    Optional<Integer> findMaxUIDCreatedBefore(Timestamp before);
+    List<ArchivedStudySession> findArchivable(int lastUID, int maxUID, Timestamp before, int limit);
+    void removeByUIDs(List<Integer> studyMemberUIDs);
+    int removeByGroupUIDs(List<Integer> groupUIDs, int limit);
+    Map<Integer, Long> findStudyTimeByGroupMember(int userUID, Timestamp from, Timestamp to);
 }
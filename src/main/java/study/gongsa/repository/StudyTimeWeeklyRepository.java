@@ -0,0 +1,26 @@
+package study.gongsa.repository;
+
+import study.gongsa.domain.MemberStudyTime;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface StudyTimeWeeklyRepository {
+    int refresh(Timestamp from, Timestamp to, Date archivedBefore);
+    int refreshByStudyMemberUIDs(List<Integer> studyMemberUIDs, Date archivedBefore);
+    int rebuild(int fromGroupMemberUID, int toGroupMemberUID, Date archivedBefore);
+    Optional<Integer> findMaxGroupMemberUID();
+    Optional<Timestamp> findLastUpdatedAt();
+    void removeByGroupMemberUID(int groupMemberUID);
+    void removeByGroupMemberUIDs(List<Integer> groupMemberUIDs);
+    List<MemberStudyTime> findMemberStudyTimes();
+    List<MemberStudyTime> findMemberStudyTimes(List<Integer> groupMemberUIDs);
+    List<MemberStudyTime> findMemberStudyTimesUpdatedSince(Timestamp since);
+    List<MemberStudyTime> findMemberStudyTimesByStudyMemberUIDs(List<Integer> studyMemberUIDs);
+    Map<Integer, Long> findUserStudyTimes();
+    Map<Integer, Long> findUserStudyTimes(List<Integer> userUIDs);
+    Map<Integer, Long> findUserStudyTimesUpdatedSince(Timestamp since);
+}
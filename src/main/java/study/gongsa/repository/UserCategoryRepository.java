@@ -6,6 +6,8 @@ import java.util.List;
 
 public interface UserCategoryRepository {
     void save(UserCategory userCategory);
+    void saveAll(int userUID, List<Integer> categoryUIDs);
     List<UserCategory> findByUserUID(int userUID);
     void remove(int uid);
+    void removeByUserUID(int userUID);
 }
@@ -1,11 +1,11 @@
 package study.gongsa.repository;
 
 import study.gongsa.domain.User;
-import study.gongsa.dto.UserMyPageInfo;
 
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserRepository {
@@ -14,8 +14,11 @@ public interface UserRepository {
     void updateIsAuth(Boolean isAuth, Timestamp updatedAt, int uid);
     void updatePasswd(String passwd, Timestamp updatedAt, int uid);
     void updateLevel(int uid, Timestamp updatedAt);
+    void updateLevels(List<Integer> uids, Timestamp updatedAt);
     void updateDeviceToken(int uid, String deviceToken, Timestamp updatedAt);
     Optional<User> findByUID(int uid);
+    void lockByUID(int uid);
+    Map<Integer, String> findDeviceTokensByUIDs(List<Integer> uids);
     Optional<User> findByEmail(String email);
     Optional<User> findByNickname(String nickname);
     boolean isAuth(int uid);
@@ -24,6 +27,5 @@ public interface UserRepository {
 
     Optional<User> findByNicknameExceptUser(String nickname, int uid);
 
-    Optional<UserMyPageInfo> getUserMyPageInfo(int uid);
     void removeExpiredUnauthenticatedUser();
 }
@@ -11,6 +11,8 @@ import study.gongsa.domain.Question;
 import study.gongsa.repository.AnswerRepository;
 import study.gongsa.repository.QuestionRepository;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.paging.Cursor;
+import study.gongsa.support.paging.CursorPage;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,8 +25,10 @@ public class AnswerService {
     private final GroupMemberService groupMemberService;
     private final QuestionService questionService;
 
-    public List<AnswerInfo> findAnswerByQuestionUID(int questionUID){
-        return answerRepository.findAnswer(questionUID);
+    public CursorPage<AnswerInfo> findAnswerByQuestionUID(int questionUID, String cursor, Integer size){
+        int pageSize = CursorPage.toSize(size);
+        List<AnswerInfo> answerList = answerRepository.findAnswer(questionUID, Cursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(answerList, pageSize, answer -> new Cursor(answer.getCreatedAt().getTime(), answer.getUID()));
     }
 
     public Answer findAnswer(int answerUID){
@@ -61,10 +65,6 @@ public class AnswerService {
         return question.getUID();
     }
 
-    public void deleteUserAnswer(List<Integer> questionUIDs, int userUID){
-        answerRepository.deleteUserAnswer(questionUIDs, userUID);
-    }
-
     public void updateAnswer(int answerUID, String content) {
         answerRepository.update(answerUID, content);
     }
@@ -9,9 +9,8 @@ import study.gongsa.dto.CategoryResponse;
 import study.gongsa.repository.CategoryRepository;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -35,9 +34,8 @@ public class CategoryService {
     }
 
     public void checkValidCategoryUID(int[] groupCategories) {
-        for(int categoryUID : groupCategories){
-            Optional<Category> categoryByUID = categoryRepository.findByUID(categoryUID);
-            if(categoryByUID.isEmpty()) throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST,"categoryUID","존재하지 않는 카테고리입니다.");
-        }
+        Set<Integer> categoryUIDs = Arrays.stream(groupCategories).boxed().collect(Collectors.toSet());
+        if(categoryRepository.countByUIDs(categoryUIDs) != categoryUIDs.size())
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST,"categoryUID","존재하지 않는 카테고리입니다.");
     }
 }
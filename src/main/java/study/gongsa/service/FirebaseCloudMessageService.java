@@ -1,66 +1,252 @@
 package study.gongsa.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
-import org.apache.tomcat.util.json.JSONParser;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import study.gongsa.dto.FcmMessage;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
 
 import static org.springframework.http.HttpHeaders.*;
 
+/**
+ * FCM push 전송
+ * 요청 스레드는 메시지를 outbox(bounded queue)에 넣고 바로 반환하고,
+ * worker 스레드들이 outbox에서 batchSize만큼 꺼내 공유 OkHttpClient(HTTP/2 connection 재사용)로 전송한다.
+ * access token은 만료 전까지 재사용하고, 429/5xx 응답은 Retry-After 또는 지수 backoff 후 재시도한다.
+ * 전송 한 번마다 fcm.send{outcome=success|retry|failure} 시간을 남기고, 대기열 크기는 fcm.outbox.size, 가득 차서 버린 메시지는 fcm.rejected로 확인한다.
+ * 메시지마다 결과가 따로 정해지므로 토큰 하나가 실패해도 같은 batch의 다른 메시지는 그대로 전송한다.
+ * 종료할 때 대기 중인 재시도와 전송하지 못한 메시지는 실패로 끝내서 결과를 기다리는 호출자가 멈추지 않게 한다.
+ */
 @Slf4j
 @Service
 public class FirebaseCloudMessageService {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final long TOKEN_REFRESH_MARGIN_MILLIS = Duration.ofMinutes(5).toMillis();
+    private static final long MAX_RETRY_DELAY_MILLIS = Duration.ofMinutes(1).toMillis();
 
     @Value("${fcm.url}")
     private String API_URL;
     @Value("${fcm.key}")
     private String firebaseConfigPath;
+    @Value("${fcm.worker-size:4}")
+    private int workerSize;
+    @Value("${fcm.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${fcm.batch-size:100}")
+    private int batchSize;
+    @Value("${fcm.max-retry:3}")
+    private int maxRetry;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MeterRegistry meterRegistry;
 
-    
-    private String getAccessToken() throws IOException {
-        GoogleCredentials googleCredentials = GoogleCredentials
-                .fromStream(new
-                        ClassPathResource(firebaseConfigPath).getInputStream())
-                .createScoped(List.of("https://www.googleapis.com/auth/cloud-platform"));
+    private OkHttpClient client;
+    private GoogleCredentials googleCredentials;
+    private BlockingQueue<PushTask> outbox;
+    private ExecutorService workers;
+    private ScheduledExecutorService retryScheduler;
+    private final Set<PushTask> pendingRetries = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
 
-        googleCredentials.refreshIfExpired();
-        return googleCredentials.getAccessToken().getTokenValue();
+    public FirebaseCloudMessageService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
     }
 
-    public void sendMessageTo(String targetToken, String title, String body)  {
-        try{
-            String message = makeMessage(targetToken, title, body);
-
-            OkHttpClient client = new OkHttpClient();
-            RequestBody requestBody = RequestBody.create(message, MediaType.get("application/json; charset=utf-8"));
-            Request request = new Request.Builder()
-                    .url(API_URL)
-                    .post(requestBody)
-                    .addHeader(AUTHORIZATION, "Bearer " + getAccessToken())
-                    .addHeader(CONTENT_TYPE, "application/json; UTF-8")
-                    .build();
-            Response response = client.newCall(request)
-                    .execute();
-            if(!response.isSuccessful()){
-                throw new Exception(response.body().string());
+    @PostConstruct
+    public void init() {
+        client = new OkHttpClient.Builder()
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(workerSize, 5, TimeUnit.MINUTES))
+                .build();
+        outbox = meterRegistry.gauge("fcm.outbox.size", new ArrayBlockingQueue<>(queueCapacity), BlockingQueue::size);
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("fcm-retry-"));
+        workers = Executors.newFixedThreadPool(workerSize, new CustomizableThreadFactory("fcm-worker-"));
+
+        running = true;
+        for (int i = 0; i < workerSize; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        // 아직 outbox로 돌아가지 않은 재시도는 실패 처리
+        retryScheduler.shutdownNow();
+        retryScheduler.awaitTermination(1, TimeUnit.SECONDS);
+        for (PushTask task : pendingRetries) {
+            if (pendingRetries.remove(task)) task.fail("push 전송이 중단되었습니다.");
+        }
+
+        // worker는 outbox에 남은 메시지까지 보내고 끝난다, 시간 안에 못 보낸 메시지는 실패 처리
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        List<PushTask> remaining = new ArrayList<>();
+        outbox.drainTo(remaining);
+        remaining.forEach(task -> task.fail("push 전송이 중단되었습니다."));
+    }
+
+    public CompletableFuture<Void> sendMessageTo(String targetToken, String title, String body) {
+        PushTask task = new PushTask(makeMessage(targetToken, title, body));
+        if (task.getMessage() == null) {
+            task.fail("push 메시지를 만들 수 없습니다.");
+        } else if (!running) {
+            task.fail("push 전송이 중단되었습니다.");
+        } else if (!outbox.offer(task)) {
+            meterRegistry.counter("fcm.rejected").increment();
+            task.fail("push 대기열이 가득 찼습니다.");
+        }
+        return task.getResult();
+    }
+
+    private void work() {
+        List<PushTask> batch = new ArrayList<>(batchSize);
+        while (running || !outbox.isEmpty()) {
+            try {
+                PushTask first = outbox.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                outbox.drainTo(batch, batchSize - 1);
+
+                // batch 당 한 번만 토큰 확인
+                String accessToken = getAccessToken();
+                for (PushTask task : batch) {
+                    try {
+                        deliver(task, accessToken);
+                    } catch (RuntimeException e) {
+                        log.info("{}: {}", e.getClass().getName(), e.getMessage());
+                        task.fail(e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(task -> task.fail("push 전송이 중단되었습니다."));
+                return;
+            } catch (Exception e) {
+                log.info("{}: {}", e.getClass().getName(), e.getMessage());
+                batch.forEach(task -> task.fail(e.getMessage()));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(PushTask task, String accessToken) {
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(API_URL)
+                .post(RequestBody.create(task.getMessage(), JSON))
+                .addHeader(CONTENT_TYPE, "application/json; UTF-8");
+        if (accessToken != null) {
+            requestBuilder.addHeader(AUTHORIZATION, "Bearer " + accessToken);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        String status = "IO_ERROR";
+        try (Response response = client.newCall(requestBuilder.build()).execute()) {
+            status = String.valueOf(response.code());
+            if (response.isSuccessful()) {
+                outcome = "success";
+                task.getResult().complete(null);
+                return;
+            }
+
+            String responseBody = response.body() != null ? response.body().string() : "";
+            if (isRetryable(response.code()) && task.getAttempt() < maxRetry) {
+                outcome = "retry";
+                retry(task, getRetryDelay(task.getAttempt(), response.header(RETRY_AFTER)));
+                return;
+            }
+            task.fail(responseBody);
+        } catch (IOException e) {
+            if (task.getAttempt() < maxRetry) {
+                outcome = "retry";
+                retry(task, getRetryDelay(task.getAttempt(), null));
+                return;
             }
-        }catch(Exception e){
-            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "push", e.getMessage());
+            task.fail(e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("fcm.send", "outcome", outcome, "status", status));
         }
     }
 
+    private void retry(PushTask task, long delayMillis) {
+        task.increaseAttempt();
+        pendingRetries.add(task);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!pendingRetries.remove(task)) return; // 종료하면서 이미 실패 처리됨
+                if (!outbox.offer(task)) task.fail("push 대기열이 가득 찼습니다.");
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (pendingRetries.remove(task)) task.fail("push 전송이 중단되었습니다.");
+        }
+    }
+
+    private boolean isRetryable(int code) {
+        return code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    private long getRetryDelay(int attempt, String retryAfter) {
+        if (StringUtils.hasText(retryAfter)) {
+            try {
+                return Math.min(Long.parseLong(retryAfter.trim()) * 1000, MAX_RETRY_DELAY_MILLIS);
+            } catch (NumberFormatException e) {
+                try {
+                    long delay = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                            - System.currentTimeMillis();
+                    return Math.min(Math.max(delay, 0), MAX_RETRY_DELAY_MILLIS);
+                } catch (Exception ignored) {}
+            }
+        }
+        // 1초, 2초, 4초 ... + jitter
+        long backoff = 1000L << Math.min(attempt, 6);
+        return Math.min(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1), MAX_RETRY_DELAY_MILLIS);
+    }
+
+    private synchronized String getAccessToken() throws IOException {
+        if (!StringUtils.hasText(firebaseConfigPath)) {
+            return null; // 로컬 테스트용 stub 서버
+        }
+        if (googleCredentials == null) {
+            googleCredentials = GoogleCredentials
+                    .fromStream(new ClassPathResource(firebaseConfigPath).getInputStream())
+                    .createScoped(List.of("https://www.googleapis.com/auth/cloud-platform"));
+        }
+
+        AccessToken accessToken = googleCredentials.getAccessToken();
+        if (accessToken == null || accessToken.getExpirationTime() == null
+                || accessToken.getExpirationTime().getTime() - System.currentTimeMillis() < TOKEN_REFRESH_MARGIN_MILLIS) {
+            googleCredentials.refresh();
+            accessToken = googleCredentials.getAccessToken();
+        }
+        return accessToken.getTokenValue();
+    }
+
     private String makeMessage(String targetToken, String title, String body) {
         try{
             FcmMessage fcmMessage = FcmMessage.builder()
@@ -83,4 +269,23 @@ public class FirebaseCloudMessageService {
             return null;
         }
     }
+
+    @Getter
+    private static class PushTask {
+        private final String message;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private volatile int attempt = 0;
+
+        PushTask(String message) {
+            this.message = message;
+        }
+
+        void increaseAttempt() {
+            attempt++;
+        }
+
+        void fail(String message) {
+            result.completeExceptionally(new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "push", message));
+        }
+    }
 }
@@ -3,16 +3,25 @@ package study.gongsa.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.gongsa.domain.GroupMember;
 import study.gongsa.domain.GroupMemberUserInfo;
 import study.gongsa.domain.MemberWeeklyTimeInfo;
 import study.gongsa.dto.GroupMemberResponse;
+import study.gongsa.repository.AnswerRepository;
 import study.gongsa.repository.GroupMemberRepository;
+import study.gongsa.repository.QuestionRepository;
 import study.gongsa.repository.StudyGroupRepository;
 import study.gongsa.repository.StudyMemberRepository;
+import study.gongsa.repository.StudyTimeWeeklyRepository;
+import study.gongsa.repository.UserRepository;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.leaderboard.RankingTree;
 
 import java.sql.Timestamp;
 import java.util.*;
@@ -24,6 +33,13 @@ import java.util.stream.Stream;
 public class GroupMemberService {
     private final GroupMemberRepository groupMemberRepository;
     private final StudyGroupRepository studyGroupRepository;
+    private final QuestionRepository questionRepository;
+    private final AnswerRepository answerRepository;
+    private final StudyMemberRepository studyMemberRepository;
+    private final StudyTimeWeeklyRepository studyTimeWeeklyRepository;
+    private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
+    private final StudyGroupService studyGroupService;
 
     public void checkAlreadyRegister(int groupUID, int userUID) {
         Optional<GroupMember> groupMember = groupMemberRepository.findByGroupUIDUserUID(groupUID, userUID);
@@ -41,23 +57,87 @@ public class GroupMemberService {
         return groupMember.get();
     }
 
-    public void remove(GroupMember groupMember){
-        int groupUID = groupMember.getGroupUID();
+    /**
+     * 스터디 그룹 탈퇴
+     * 그룹 row를 잠근 뒤 질문/답변, 공부 기록, 멤버를 조건으로 한 번에 지우고 리더였으면 가장 오래된 멤버를 리더로 정한다.
+     * 멤버 수와 상관없이 쿼리 수가 같고, 중간에 실패하면 전부 롤백된다. 순위표는 커밋된 뒤에 반영한다.
+     */
+    @Transactional
+    public void leave(int groupUID, int userUID){
+        GroupMember groupMember = groupMemberRepository.findByGroupUIDUserUIDForUpdate(groupUID, userUID)
+                .orElseThrow(() -> new IllegalStateExceptionWithLocation(HttpStatus.FORBIDDEN, "groupUID","가입되지 않은 그룹입니다."));
         int groupMemberUID = groupMember.getUID();
-        boolean isLeader = groupMember.getIsLeader();
 
+        answerRepository.removeByQuestionWriter(userUID, groupUID);
+        questionRepository.removeByUserUIDAndGroupUID(userUID, groupUID);
+        studyMemberRepository.remove(groupUID, userUID, groupMemberUID);
+        studyTimeWeeklyRepository.removeByGroupMemberUID(groupMemberUID);
         groupMemberRepository.remove(groupMemberUID);
+        studyGroupRepository.decreaseMemberCount(groupUID);
+        if (groupMember.getIsLeader()) {
+            groupMemberRepository.updateOldestMemberToLeader(groupUID);
+        }
+        userRepository.updateLevel(userUID, new Timestamp(new Date().getTime()));
 
-        if (isLeader) {
-            Optional<GroupMember> randomGroupMember = groupMemberRepository.findRandUID(groupUID);
-            if (!randomGroupMember.isEmpty()){
-                groupMemberRepository.updateNewReader(randomGroupMember.get().getUID());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                leaderboardService.removeMember(groupUID, groupMemberUID, userUID);
             }
+        });
+    }
+
+    /**
+     * 벌점 배치 chunk 트랜잭션의 첫 쿼리로 대상 멤버의 그룹 row를 UID 순서로 잠근다.
+     * 가입/탈퇴처럼 그룹 → 멤버 → 유저 순서로 잠그게 되어, 이후의 벌점 부여(멤버), 레벨 다운(유저), 강제 퇴장(그룹, 멤버)이 가입/탈퇴와 deadlock 나지 않는다.
+     */
+    @Transactional
+    public void lockGroups(List<MemberWeeklyTimeInfo> members){
+        studyGroupRepository.lockByUIDs(members.stream()
+                .map(MemberWeeklyTimeInfo::getGroupUID)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 벌점 대상 멤버 row를 UID 순서로 잠그고, 잠근 뒤의 값으로 대상 목록을 다시 만든다. (lockGroups 다음에 호출)
+     * 대상 목록은 잠그기 전에 조회한 값이라, 그 사이에 탈퇴하거나 삭제된 멤버는 빼고 바뀐 penaltyCnt는 currentPenalty에 반영한다.
+     */
+    @Transactional
+    public List<MemberWeeklyTimeInfo> lockMembers(List<MemberWeeklyTimeInfo> members){
+        Map<Integer, GroupMember> lockedMembers = groupMemberRepository.findByUIDsForUpdate(members.stream()
+                        .map(MemberWeeklyTimeInfo::getGroupMemberUID)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(GroupMember::getUID, groupMember -> groupMember));
+
+        List<MemberWeeklyTimeInfo> existingMembers = new ArrayList<>();
+        for (MemberWeeklyTimeInfo member : members) {
+            GroupMember lockedMember = lockedMembers.get(member.getGroupMemberUID());
+            if (lockedMember == null) continue;
+            member.setCurrentPenalty(lockedMember.getPenaltyCnt());
+            existingMembers.add(member);
         }
+        return existingMembers;
     }
 
-    public void removeForced(List<Integer> groupMemberUIDs){
-        groupMemberRepository.removeForced(groupMemberUIDs);
+    /**
+     * 강제 퇴장, 그룹 row는 같은 트랜잭션에서 lockGroups로 먼저 잠가 두어야 한다.
+     * 대상 목록은 잠그기 전에 조회한 값이라 그 사이에 탈퇴하거나 삭제된 멤버가 있을 수 있다.
+     * 멤버 row를 다시 잠가서 남아 있는 멤버만 지우고, memberCount는 그룹마다 실제로 지운 수만큼 줄인다.
+     */
+    @Transactional
+    public void removeForced(List<MemberWeeklyTimeInfo> members){
+        Map<Integer, List<Integer>> groupMemberUIDsByGroupUID = groupMemberRepository.findByUIDsForUpdate(members.stream()
+                        .map(MemberWeeklyTimeInfo::getGroupMemberUID)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(GroupMember::getGroupUID, TreeMap::new,
+                        Collectors.mapping(GroupMember::getUID, Collectors.toList())));
+
+        Map<Integer, Integer> removedCntByGroupUID = new HashMap<>();
+        groupMemberUIDsByGroupUID.forEach((groupUID, groupMemberUIDs) -> {
+            int removedCnt = groupMemberRepository.removeForced(groupMemberUIDs);
+            if (removedCnt > 0) removedCntByGroupUID.put(groupUID, removedCnt);
+        });
+        studyGroupRepository.decreaseMemberCounts(removedCntByGroupUID);
     }
 
     public void makeStudyGroupMember(int groupUID, int userUID, boolean isLeader) {
@@ -70,46 +150,83 @@ public class GroupMemberService {
         groupMemberRepository.save(groupMember);
     }
 
-    public void checkCurrentGroupMemberCnt(int groupUID) {
-        Optional<Map<String, Integer>> memberCntInfo = studyGroupRepository.findMemberCntInfoByGroupUID(groupUID);
-        if(memberCntInfo.isEmpty()){
-            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupUID", "존재하지 않는 그룹입니다.");
+    /**
+     * 스터디 그룹 가입
+     * 그룹 row → 유저 row 순서로 잠근 뒤(탈퇴, 그룹 생성과 같은 순서) 확인과 저장을 한 트랜잭션에서 처리해서
+     * 동시에 가입해도 최대 인원과 유저의 최소 공부 시간 합(80시간)을 넘지 않는다. 다른 그룹의 가입은 기다리지 않는다.
+     * 중복 가입은 GroupMember(groupUID, userUID) unique 제약으로도 막는다.
+     */
+    @Transactional
+    public void join(int groupUID, int userUID) {
+        Map<String, Integer> memberCntInfo = studyGroupRepository.findMemberCntInfoByGroupUIDForUpdate(groupUID)
+                .orElseThrow(() -> new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupUID", "존재하지 않는 그룹입니다."));
+        userRepository.lockByUID(userUID);
+
+        checkAlreadyRegister(groupUID, userUID);
+        if(memberCntInfo.get("memberCnt") >= memberCntInfo.get("maxMember")){
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupMember", "그룹 인원이 다 찼습니다.");
+        }
+        studyGroupService.checkPossibleMinStudyHourByUsersUID(userUID, memberCntInfo.get("minStudyHour"));
+
+        try {
+            makeStudyGroupMember(groupUID, userUID, false);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupUID","이미 가입된 그룹입니다.");
         }
-        if(memberCntInfo.get().get("memberCnt").equals(memberCntInfo.get().get("maxMember"))){
+        if(!studyGroupRepository.increaseMemberCount(groupUID)){
             throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupMember", "그룹 인원이 다 찼습니다.");
         }
     }
 
     public int findCurrentGroupMemberCnt(int groupUID) {
-        Optional<Map<String, Integer>> memberCntInfo = studyGroupRepository.findMemberCntInfoByGroupUID(groupUID);
-        return memberCntInfo.get().get("memberCnt");
+        return studyGroupRepository.findMemberCount(groupUID).orElse(0);
     }
 
+    @Transactional(readOnly = true)
     public List<GroupMemberResponse.Member> getMembers(int groupUID){
         List<GroupMemberUserInfo> memberInfoList = groupMemberRepository.findMemberInfo(groupUID);
+        return toRankedMembers(groupUID, memberInfoList);
+    }
+
+    // 여러 그룹의 멤버를 한 번에 조회 (key: groupUID)
+    @Transactional(readOnly = true)
+    public Map<Integer, List<GroupMemberResponse.Member>> getMembers(List<Integer> groupUIDs){
+        Map<Integer, List<GroupMemberUserInfo>> memberInfoByGroup = groupMemberRepository.findMemberInfoByGroupUIDs(groupUIDs).stream()
+                .collect(Collectors.groupingBy(GroupMemberUserInfo::getGroupUID));
+
+        Map<Integer, List<GroupMemberResponse.Member>> membersByGroup = new HashMap<>();
+        for(Integer groupUID : groupUIDs){
+            List<GroupMemberUserInfo> memberInfoList = memberInfoByGroup.getOrDefault(groupUID, new ArrayList<>());
+            membersByGroup.put(groupUID, toRankedMembers(groupUID, memberInfoList));
+        }
+        return membersByGroup;
+    }
+
+    private List<GroupMemberResponse.Member> toRankedMembers(int groupUID, List<GroupMemberUserInfo> memberInfoList){
+        Map<Integer, RankingTree.Entry> ranking = leaderboardService.getGroupRanking(groupUID, memberInfoList.stream()
+                .map(GroupMemberUserInfo::getGroupMemberUID)
+                .collect(Collectors.toSet()));
 
         List<GroupMemberResponse.Member> members = new ArrayList<>();
         for(GroupMemberUserInfo memberInfo : memberInfoList){
+            RankingTree.Entry entry = ranking.get(memberInfo.getGroupMemberUID());
+            memberInfo.setTotalStudyTime(LeaderboardService.toStudyHour(entry == null ? 0 : entry.getScore()));
+            memberInfo.setRanking(entry == null ? ranking.size() + 1 : entry.getRank());
             members.add(GroupMemberResponse.Member.convertToMember(memberInfo));
         }
+        members.sort(Comparator.comparing(GroupMemberResponse.Member::getRanking));
         return members;
     }
 
-    public List<MemberWeeklyTimeInfo> updatePenalty() {
-        List<MemberWeeklyTimeInfo> memberToStudyLess = getMemberToStudyLess();
+    @Transactional(readOnly = true)
+    public List<MemberWeeklyTimeInfo> getMemberWeeklyStudyTimeInfo(int lastGroupMemberUID, int limit, Timestamp baseTime){
+        return groupMemberRepository.getMemberWeeklyStudyTimeInfo(lastGroupMemberUID, limit, baseTime);
+    }
 
+    public void updatePenalty(List<MemberWeeklyTimeInfo> memberToStudyLess) {
         groupMemberRepository.updatePenalty(memberToStudyLess.stream()
                 .filter(info -> info.getIsPenalty()) // 벌점 기준 존재 그룹만
                 .map(MemberWeeklyTimeInfo::getGroupMemberUID)
                 .collect(Collectors.toList()));
-
-        return memberToStudyLess; // 벌점 받은 멤버들
-    }
-
-    public List<MemberWeeklyTimeInfo> getMemberToStudyLess(){
-        return groupMemberRepository.getMemberWeeklyStudyTimeInfo()
-                .stream()
-                .filter(info -> info.getAddPenalty())
-                .collect(Collectors.toList());
     }
 }
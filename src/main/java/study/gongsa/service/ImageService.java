@@ -1,71 +1,234 @@
 package study.gongsa.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
+import study.gongsa.repository.ImageRepository;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.image.ImageProcessor;
+import study.gongsa.support.image.ImageStorage;
+import study.gongsa.support.image.ImageVariant;
 
-import java.awt.*;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.stream.Stream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
+/**
+ * 이미지 저장/조회
+ * 업로드 이미지는 내용의 SHA-256을 파일 이름({hash}.jpg)으로 쓰고, 같은 이미지는 한 번만 저장한다.
+ * 크기별 파일({variant}/{hash}.jpg)은 ImageProcessor 스레드에서 만들고, 그 전까지는 업로드 원본(source/{hash})을 내려준다.
+ * 이름이 같으면 내용도 같으므로 클라이언트는 영구 캐시할 수 있고, User/StudyGroup.imgPath에서 참조하지 않는 파일은 배치로 지운다.
+ * 기본 이미지(r{n}.jpg), 예전 업로드(u{uid}.jpg, g{uid}.jpg)는 폴더 없이 저장되어 있고 처음 요청될 때 크기별 파일을 만든다.
+ * 자주 요청되는 작은 크기별 파일(아바타 등)은 메모리 LRU(전체 byte 수 제한)에 두고 저장소를 거치지 않고 내려준다.
+ */
 @Service
 @Slf4j
 public class ImageService {
-    private final Path root = Paths.get("image"); // controller, service 폴더 있는 곳
+    private static final String SOURCE = "source";
+    private static final Pattern HASH_NAME = Pattern.compile("^[0-9a-f]{64}\\.jpg$");
+    private static final Pattern LEGACY_UPLOAD_NAME = Pattern.compile("^[ug][0-9]+\\.jpg$");
 
-    public ImageService(){
-        init();
-    }
+    private final ImageStorage imageStorage;
+    private final ImageProcessor imageProcessor;
+    private final ImageRepository imageRepository;
+    private final Map<String, CompletableFuture<Void>> processing = new ConcurrentHashMap<>();
+    // key: 저장소 key({variant}/{fileName}), value: 내용을 담은 StoredImage
+    private final Cache<String, ImageStorage.StoredImage> hotImages;
+    private final long hotImageMaxBytes;
 
-    public void init() { //서버 최초 실행 때만
-        try {
-            Files.createDirectory(root);
-        } catch (IOException e) {}
+    @Value("${image.gc.grace-hours:24}")
+    private long gcGraceHours;
+
+    public ImageService(ImageStorage imageStorage, ImageProcessor imageProcessor, ImageRepository imageRepository,
+                        @Value("${image.cache.max-bytes:67108864}") long hotImageCacheMaxBytes,
+                        @Value("${image.cache.max-image-bytes:262144}") long hotImageMaxBytes,
+                        MeterRegistry meterRegistry){
+        this.imageStorage = imageStorage;
+        this.imageProcessor = imageProcessor;
+        this.imageRepository = imageRepository;
+        this.hotImageMaxBytes = hotImageMaxBytes;
+        this.hotImages = Caffeine.newBuilder()
+                .maximumWeight(hotImageCacheMaxBytes)
+                .weigher((String key, ImageStorage.StoredImage image) -> (int) Math.min(Integer.MAX_VALUE, image.getSize()))
+                .expireAfterWrite(Duration.ofHours(1)) // 다른 서버의 배치에서 지워진 파일
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, hotImages, "image.hot");
     }
 
-    public void save(MultipartFile file, String fileName) {
+    // 형식/해상도만 확인하고 저장할 파일 이름을 바로 반환, 크기별 파일은 뒤에서 만든다
+    public String save(MultipartFile file) {
+        byte[] source;
         try {
-            file.transferTo(Paths.get(root.getFileName()+"/"+fileName));
+            source = file.getBytes(); // 요청이 끝나면 multipart 임시 파일이 지워지므로 미리 읽어둔다
         } catch (Exception e) {
             throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지 업로드에 실패하였습니다.");
         }
+        imageProcessor.validate(source);
+
+        String hash = sha256(source);
+        String fileName = hash + ".jpg";
+        // 이미 저장된 이미지: 아직 참조되지 않은 오래된 파일일 수 있으므로 수정 시각을 갱신해서 배치가 지우지 않게 한다
+        if (imageStorage.touch(variantKey(ImageVariant.ORIGINAL, fileName))) {
+            for (ImageVariant variant : ImageVariant.values()) {
+                if (variant != ImageVariant.ORIGINAL) imageStorage.touch(variantKey(variant, fileName));
+            }
+            return fileName;
+        }
+
+        String sourceKey = SOURCE + "/" + hash;
+        imageStorage.put(sourceKey, source);
+        process(fileName, source, () -> imageStorage.delete(sourceKey));
+        return fileName;
     }
 
-    public Resource load(String filename) {
-        try {
-            Path file = root.resolve(filename);
-            Resource resource = new UrlResource(file.toUri());
+    // 크기별 파일 변환이 끝나면 완료 (변환 중이 아니면 바로 완료)
+    public CompletableFuture<Void> whenProcessed(String fileName) {
+        return processing.getOrDefault(fileName, CompletableFuture.completedFuture(null));
+    }
 
-            if (resource.exists() || resource.isReadable()) {
-                return resource;
-            } else {
-                throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지를 불러올 수 없습니다.");
-            }
-        } catch (MalformedURLException e) {
+    // 요청한 크기 → 원본 크기 → 업로드 원본/기존 이미지 순서로 찾는다
+    public ImageStorage.StoredImage load(String fileName, ImageVariant variant) {
+        String variantKey = variantKey(variant, fileName);
+        ImageStorage.StoredImage hotImage = hotImages.getIfPresent(variantKey);
+        if (hotImage != null) return hotImage;
+
+        Optional<ImageStorage.StoredImage> image = imageStorage.get(variantKey);
+        if (image.isPresent()) return cacheIfSmall(image.get());
+
+        image = imageStorage.get(variantKey(ImageVariant.ORIGINAL, fileName));
+        if (image.isPresent()) return image.get();
+
+        if (HASH_NAME.matcher(fileName).matches()) {
+            image = imageStorage.get(SOURCE + "/" + fileName.substring(0, fileName.length() - ".jpg".length()));
+        } else {
+            image = imageStorage.get(fileName);
+            image.ifPresent(legacy -> processLegacy(fileName, legacy));
+        }
+        return image.orElseThrow(() -> new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지를 불러올 수 없습니다."));
+    }
+
+    // 내용이 바뀌지 않는 파일인지 (hash 이름 + 요청한 크기의 파일), 변환 전에 대신 내려준 업로드 원본은 제외
+    public boolean isImmutable(String fileName, ImageVariant variant, ImageStorage.StoredImage image) {
+        return HASH_NAME.matcher(fileName).matches() && image.getKey().equals(variantKey(variant, fileName));
+    }
+
+    public int deleteUnreferencedImages() {
+        return deleteUnreferencedImages(Instant.now().minus(Duration.ofHours(gcGraceHours)));
+    }
+
+    /**
+     * User/StudyGroup.imgPath에서 참조하지 않는 이미지 삭제 (mark and sweep)
+     * hash 이름과 예전 업로드(u{uid}.jpg, g{uid}.jpg)만 대상이고 기본 이미지는 남긴다.
+     * 업로드 직후 imgPath가 커밋되기 전의 파일을 지우지 않도록 modifiedBefore 이전 파일만 지운다.
+     * 중복 업로드는 기존 파일의 수정 시각을 갱신하므로, 목록을 읽은 뒤 갱신된 파일은 지우기 직전에 수정 시각을 다시 확인해서 남긴다.
+     */
+    public int deleteUnreferencedImages(Instant modifiedBefore) {
+        long startTime = System.currentTimeMillis();
+        Set<String> referencedFileNames = imageRepository.findReferencedImgPaths();
+        int deletedCnt = 0;
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            deletedCnt += sweep(variant.getValue() + "/", referencedFileNames, modifiedBefore, false);
+        }
+        deletedCnt += sweep(SOURCE + "/", referencedFileNames, modifiedBefore, true);
+        deletedCnt += sweep("", referencedFileNames, modifiedBefore, false);
+
+        hotImages.invalidateAll();
+        log.info("미사용 이미지 삭제 - 참조 중: {}, 삭제: {}, 소요 시간: {}ms", referencedFileNames.size(), deletedCnt, System.currentTimeMillis() - startTime);
+        return deletedCnt;
+    }
+
+    private int sweep(String prefix, Set<String> referencedFileNames, Instant modifiedBefore, boolean isSource) {
+        int deletedCnt = 0;
+        for (ImageStorage.StoredImage image : imageStorage.list(prefix)) {
+            String fileName = image.getKey().substring(prefix.length()) + (isSource ? ".jpg" : "");
+            boolean isCollectable = HASH_NAME.matcher(fileName).matches() || LEGACY_UPLOAD_NAME.matcher(fileName).matches();
+            if (!isCollectable || referencedFileNames.contains(fileName) || processing.containsKey(fileName)) continue;
+            if (image.getLastModified() >= modifiedBefore.toEpochMilli()) continue;
+            Optional<Long> lastModified = imageStorage.lastModified(image.getKey());
+            if (lastModified.isEmpty() || lastModified.get() >= modifiedBefore.toEpochMilli()) continue;
+
+            imageStorage.delete(image.getKey());
+            deletedCnt++;
+        }
+        return deletedCnt;
+    }
+
+    // 크기별 파일이 없는 기존 이미지는 처음 요청될 때 한 번만 변환
+    private void processLegacy(String fileName, ImageStorage.StoredImage legacy) {
+        if (processing.containsKey(fileName)) return;
+        try {
+            byte[] source = legacy.getContent() != null ? legacy.getContent() : Files.readAllBytes(legacy.getFile());
+            process(fileName, source, () -> {});
+        } catch (IOException e) {
             log.error("이미지 로드 실패 {} {}", e.getClass(), e.getMessage());
-            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지를 불러올 수 없습니다.");
         }
     }
 
-    public void deleteAll() {
-        FileSystemUtils.deleteRecursively(root.toFile());
+    private void process(String fileName, byte[] source, Runnable onSuccess) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (processing.putIfAbsent(fileName, future) != null) return;
+
+        imageProcessor.process(source)
+                .thenAccept(variants -> {
+                    variants.forEach((variant, content) -> imageStorage.put(variantKey(variant, fileName), content));
+                    onSuccess.run();
+                })
+                .whenComplete((result, error) -> {
+                    processing.remove(fileName);
+                    if (error != null) {
+                        log.error("이미지 저장 실패 {} {}", fileName, error.getMessage());
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(null);
+                    }
+                });
     }
 
-    public Stream<Path> loadAll() {
+    // 요청한 크기의 파일 그대로인 작은 이미지만 내용을 읽어서 캐시 (대신 내려준 원본/업로드 원본은 곧 바뀌므로 제외)
+    private ImageStorage.StoredImage cacheIfSmall(ImageStorage.StoredImage image) {
+        if (image.getSize() > hotImageMaxBytes) return image;
         try {
-            return Files.walk(this.root, 1).filter(path -> !path.equals(this.root)).map(this.root::relativize);
+            byte[] content = image.getContent() != null ? image.getContent() : Files.readAllBytes(image.getFile());
+            ImageStorage.StoredImage hotImage = new ImageStorage.StoredImage(image.getKey(), content.length, image.getLastModified(), null, content);
+            hotImages.put(image.getKey(), hotImage);
+            return hotImage;
         } catch (IOException e) {
-            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지를 불러올 수 없습니다.");
+            log.warn("이미지 캐시 실패 {} {}", image.getKey(), e.getMessage());
+            return image;
         }
     }
 
-}
\ No newline at end of file
+    private String variantKey(ImageVariant variant, String fileName) {
+        return variant.getValue() + "/" + fileName;
+    }
+
+    private String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package study.gongsa.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.gongsa.domain.MemberStudyTime;
+import study.gongsa.repository.StudyTimeWeeklyRepository;
+import study.gongsa.support.leaderboard.RankingTree;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 공부 시간 순위표
+ * 전체 순위(인증된 유저, key: userUID)와 그룹별 순위(key: groupMemberUID)를 메모리에 유지한다.
+ * 시작할 때 StudyTimeWeekly에서 한 번 읽어오고, 이후에는 주간 집계가 갱신될 때마다 바뀐 멤버만 반영한다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LeaderboardService {
+    private final StudyTimeWeeklyRepository studyTimeWeeklyRepository;
+
+    private final RankingTree userRanking = new RankingTree();
+    private final Map<Integer, RankingTree> groupRankings = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+
+            long startTime = System.currentTimeMillis();
+            Map<Integer, Long> userStudyTimes = studyTimeWeeklyRepository.findUserStudyTimes();
+            synchronized (userRanking) {
+                userStudyTimes.forEach(userRanking::put);
+            }
+            List<MemberStudyTime> memberStudyTimes = studyTimeWeeklyRepository.findMemberStudyTimes();
+            memberStudyTimes.forEach(this::putMember);
+
+            loaded = true;
+            log.info("순위표 로딩 완료 - 유저: {}, 그룹 멤버: {}, 소요 시간: {}ms",
+                    userStudyTimes.size(), memberStudyTimes.size(), System.currentTimeMillis() - startTime);
+        }
+    }
+
+    // 주간 집계 갱신 후 since 이후 바뀐 멤버/유저의 누적 공부 시간 반영
+    public void applyChangesSince(Timestamp since) {
+        if (!loaded) return;
+
+        studyTimeWeeklyRepository.findMemberStudyTimesUpdatedSince(since).forEach(this::putMember);
+        Map<Integer, Long> userStudyTimes = studyTimeWeeklyRepository.findUserStudyTimesUpdatedSince(since);
+        synchronized (userRanking) {
+            userStudyTimes.forEach(userRanking::put);
+        }
+    }
+
+    // 세션 종료로 다시 집계된 멤버와 그 유저의 누적 공부 시간 반영
+    public void applyStudySessions(List<Integer> studyMemberUIDs) {
+        if (!loaded || studyMemberUIDs.isEmpty()) return;
+
+        List<MemberStudyTime> members = studyTimeWeeklyRepository.findMemberStudyTimesByStudyMemberUIDs(studyMemberUIDs);
+        members.forEach(this::putMember);
+        Map<Integer, Long> userStudyTimes = studyTimeWeeklyRepository.findUserStudyTimes(members.stream()
+                .map(MemberStudyTime::getUserUID)
+                .distinct()
+                .collect(Collectors.toList()));
+        synchronized (userRanking) {
+            userStudyTimes.forEach(userRanking::put);
+        }
+    }
+
+    public Optional<RankingTree.Entry> getUserRanking(int userUID) {
+        load();
+        synchronized (userRanking) {
+            Optional<RankingTree.Entry> entry = userRanking.getEntry(userUID);
+            if (entry.isPresent()) return entry;
+        }
+
+        // 순위표에 없는 유저(로딩 이후 인증된 유저 등)는 DB에서 읽어서 추가
+        Long studyTime = studyTimeWeeklyRepository.findUserStudyTimes(List.of(userUID)).get(userUID);
+        if (studyTime == null) return Optional.empty();
+        synchronized (userRanking) {
+            userRanking.put(userUID, studyTime);
+            return userRanking.getEntry(userUID);
+        }
+    }
+
+    public int getUserCount() {
+        synchronized (userRanking) {
+            return userRanking.size();
+        }
+    }
+
+    public void addUser(int userUID) {
+        if (!loaded) return;
+        synchronized (userRanking) {
+            if (!userRanking.contains(userUID)) userRanking.put(userUID, 0);
+        }
+    }
+
+    /**
+     * 그룹 멤버 순위 (key: groupMemberUID)
+     * 현재 그룹 멤버 목록과 순위표를 맞춘 뒤 반환한다. 순위표에 없는 멤버는 DB에서 읽어서 추가하고, 나간 멤버는 뺀다.
+     */
+    public Map<Integer, RankingTree.Entry> getGroupRanking(int groupUID, Collection<Integer> groupMemberUIDs) {
+        load();
+        RankingTree ranking = groupRankings.computeIfAbsent(groupUID, key -> new RankingTree());
+
+        List<Integer> missingGroupMemberUIDs;
+        synchronized (ranking) {
+            Set<Integer> leftGroupMemberUIDs = ranking.ids().stream()
+                    .filter(groupMemberUID -> !groupMemberUIDs.contains(groupMemberUID))
+                    .collect(Collectors.toSet());
+            leftGroupMemberUIDs.forEach(ranking::remove);
+            missingGroupMemberUIDs = groupMemberUIDs.stream()
+                    .filter(groupMemberUID -> !ranking.contains(groupMemberUID))
+                    .collect(Collectors.toList());
+        }
+
+        List<MemberStudyTime> missingMembers = missingGroupMemberUIDs.isEmpty()
+                ? List.of()
+                : studyTimeWeeklyRepository.findMemberStudyTimes(missingGroupMemberUIDs);
+        synchronized (ranking) {
+            missingMembers.forEach(member -> ranking.put(member.getGroupMemberUID(), member.getStudyTime()));
+            if (ranking.size() == 0) groupRankings.remove(groupUID);
+
+            // 요청한 멤버의 순위만 조회 (멤버마다 O(log n))
+            Map<Integer, RankingTree.Entry> entries = new HashMap<>();
+            for (Integer groupMemberUID : groupMemberUIDs) {
+                ranking.getEntry(groupMemberUID).ifPresent(entry -> entries.put(groupMemberUID, entry));
+            }
+            return entries;
+        }
+    }
+
+    public List<RankingTree.Entry> getGroupTopRanking(int groupUID, int limit) {
+        load();
+        RankingTree ranking = groupRankings.get(groupUID);
+        if (ranking == null) return new ArrayList<>();
+        synchronized (ranking) {
+            return ranking.top(limit);
+        }
+    }
+
+    // 그룹 탈퇴: 그룹 순위에서 빼고, 탈퇴하면서 지워진 공부 기록만큼 전체 순위도 다시 계산
+    public void removeMember(int groupUID, int groupMemberUID, int userUID) {
+        if (!loaded) return;
+
+        RankingTree ranking = groupRankings.get(groupUID);
+        if (ranking != null) {
+            synchronized (ranking) {
+                ranking.remove(groupMemberUID);
+            }
+        }
+
+        Long studyTime = studyTimeWeeklyRepository.findUserStudyTimes(List.of(userUID)).get(userUID);
+        synchronized (userRanking) {
+            if (studyTime == null) userRanking.remove(userUID);
+            else userRanking.put(userUID, studyTime);
+        }
+    }
+
+    // 만료 그룹 삭제: 그룹 순위를 빼고, 지워진 공부 기록만큼 멤버였던 유저의 전체 순위도 다시 계산
+    public void removeGroups(Collection<Integer> groupUIDs, Collection<Integer> userUIDs) {
+        if (!loaded) return;
+
+        groupUIDs.forEach(groupRankings::remove);
+        List<Integer> userUIDList = new ArrayList<>(userUIDs);
+        Map<Integer, Long> userStudyTimes = studyTimeWeeklyRepository.findUserStudyTimes(userUIDList);
+        synchronized (userRanking) {
+            for (Integer userUID : userUIDList) {
+                Long studyTime = userStudyTimes.get(userUID);
+                if (studyTime == null) userRanking.remove(userUID);
+                else userRanking.put(userUID, studyTime);
+            }
+        }
+    }
+
+    // 누적 공부 시간(초) -> "HH:mm:ss" (minStudyHour와 같은 형식, 24시간이 넘어도 시간을 그대로 표시)
+    public static String toStudyHour(long seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds % 3600 / 60, seconds % 60);
+    }
+
+    // "HH:mm:ss" (시간은 24 이상, 한 자리도 가능) -> 누적 공부 시간(초)
+    public static long toSeconds(String studyHour) {
+        String[] hms = studyHour.split(":");
+        return Long.parseLong(hms[0]) * 3600 + Long.parseLong(hms[1]) * 60 + Long.parseLong(hms[2]);
+    }
+
+    private void putMember(MemberStudyTime member) {
+        RankingTree ranking = groupRankings.computeIfAbsent(member.getGroupUID(), key -> new RankingTree());
+        synchronized (ranking) {
+            ranking.put(member.getGroupMemberUID(), member.getStudyTime());
+        }
+    }
+}
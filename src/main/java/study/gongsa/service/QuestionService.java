@@ -10,8 +10,9 @@ import study.gongsa.repository.GroupMemberRepository;
 import study.gongsa.repository.QuestionRepository;
 import study.gongsa.repository.StudyGroupRepository;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.paging.Cursor;
+import study.gongsa.support.paging.CursorPage;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,8 +26,10 @@ public class QuestionService {
     private final AnswerRepository answerRepository;
     private final GroupMemberService groupMemberService;
 
-    public List<QuestionInfo> findMyQuestion(int userUID){
-        return questionRepository.findMyQuestion(userUID);
+    public CursorPage<QuestionInfo> findMyQuestion(int userUID, String cursor, Integer size){
+        int pageSize = CursorPage.toSize(size);
+        List<QuestionInfo> questionList = questionRepository.findMyQuestion(userUID, Cursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(questionList, pageSize, this::toCursor);
     }
 
     public Question findOne(int questionUID) {
@@ -35,15 +38,7 @@ public class QuestionService {
         return question.get();
     }
 
-    public List<Integer> findAllByUserUIDAndGroupUID(int userUID, int groupUID){
-        List<Question> questionList = questionRepository.findAllByUserUIDAndGroupUID(userUID, groupUID);
-        List<Integer> result = new ArrayList<>();
-        for(Question question: questionList)
-            result.add(question.getUID());
-        return result;
-    }
-
-    public List<QuestionInfo> findGroupQuestion(int userUID, int groupUID){
+    public CursorPage<QuestionInfo> findGroupQuestion(int userUID, int groupUID, String cursor, Integer size){
         Optional<StudyGroup> studyGroup = studyGroupRepository.findByUID(groupUID);
         if (studyGroup.isEmpty()){
             throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "groupUID","존재하지 않은 그룹입니다.");
@@ -51,7 +46,13 @@ public class QuestionService {
 
         checkRegisteredGroup(groupUID, userUID);
 
-        return questionRepository.findGroupQuestion(groupUID);
+        int pageSize = CursorPage.toSize(size);
+        List<QuestionInfo> questionList = questionRepository.findGroupQuestion(groupUID, Cursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(questionList, pageSize, this::toCursor);
+    }
+
+    private Cursor toCursor(QuestionInfo question) {
+        return new Cursor(question.getCreatedAt().getTime(), question.getUID());
     }
 
     public void checkRegisteredGroup(int groupUID, int userUID) {
@@ -61,10 +62,6 @@ public class QuestionService {
         }
     }
 
-    public void deleteUserQuestion(List<Integer> questionUIDs){
-        questionRepository.deleteUserQuestion(questionUIDs);
-    }
-
     public int makeQuestion(int userUID, int groupUID, String title, String content) {
         GroupMember groupMember = groupMemberService.findOne(groupUID, userUID);
         Question question = Question.builder()
@@ -0,0 +1,122 @@
+package study.gongsa.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.gongsa.domain.Category;
+import study.gongsa.domain.GroupCategoryInfo;
+import study.gongsa.domain.StudyGroup;
+import study.gongsa.domain.UserCategory;
+import study.gongsa.repository.CategoryRepository;
+import study.gongsa.repository.StudyGroupRepository;
+import study.gongsa.repository.UserCategoryRepository;
+import study.gongsa.support.recommend.RecommendationIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 스터디 그룹 추천
+ * 시작할 때 공개 그룹의 카테고리 목록으로 RecommendationIndex를 만들고,
+ * 그룹 생성 시 추가, 종료된 그룹 삭제 시 제거하고, 다른 서버에서 생긴 변경은 주기적으로 다시 읽어서 맞춘다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RecommendationService {
+    private final StudyGroupRepository studyGroupRepository;
+    private final CategoryRepository categoryRepository;
+    private final UserCategoryRepository userCategoryRepository;
+
+    private volatile RecommendationIndex recommendationIndex = new RecommendationIndex();
+
+    @Value("${recommend.default-size:20}")
+    private int defaultSize;
+    @Value("${recommend.max-size:100}")
+    private int maxSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        long startTime = System.currentTimeMillis();
+        Map<Integer, List<GroupCategoryInfo>> groupCategories = studyGroupRepository.findPublicGroupCategories().stream()
+                .collect(Collectors.groupingBy(GroupCategoryInfo::getGroupUID));
+
+        // 새 인덱스를 다 만든 뒤 교체해서 다시 읽는 동안에도 추천은 그대로 동작
+        RecommendationIndex newIndex = new RecommendationIndex();
+        groupCategories.forEach((groupUID, categories) -> newIndex.add(groupUID,
+                categories.stream().map(GroupCategoryInfo::getCategoryUID).collect(Collectors.toList()),
+                toLocalDate(categories.get(0).getExpiredAt())));
+        recommendationIndex = newIndex;
+        log.info("추천 인덱스 로딩 완료 - 그룹: {}, 소요 시간: {}ms", groupCategories.size(), System.currentTimeMillis() - startTime);
+    }
+
+    // 그룹 생성 트랜잭션이 커밋된 뒤 인덱스에 추가
+    public void addGroup(int groupUID, StudyGroup studyGroup, int[] categoryUIDs) {
+        if (Boolean.TRUE.equals(studyGroup.getIsPrivate())) return;
+
+        List<Integer> categories = Arrays.stream(categoryUIDs).boxed().collect(Collectors.toList());
+        Runnable add = () -> recommendationIndex.add(groupUID, categories, toLocalDate(studyGroup.getExpiredAt()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        } else {
+            add.run();
+        }
+    }
+
+    public int removeExpiredGroups() {
+        return recommendationIndex.removeExpired(LocalDate.now());
+    }
+
+    // 같은 카테고리 그룹 추천 (main)
+    public List<StudyGroup> recommendByUserUID(int userUID, Integer size) {
+        List<Integer> categoryUIDs = userCategoryRepository.findByUserUID(userUID).stream()
+                .map(UserCategory::getCategoryUID)
+                .collect(Collectors.toList());
+        return recommend(categoryUIDs, size);
+    }
+
+    // 같은 카테고리 그룹 추천 (expire)
+    public List<StudyGroup> recommendByGroupUID(int groupUID, Integer size) {
+        List<Integer> categoryUIDs = categoryRepository.findByGroupUID(groupUID).stream()
+                .map(Category::getUID)
+                .collect(Collectors.toList());
+        return recommend(categoryUIDs, size);
+    }
+
+    private List<StudyGroup> recommend(List<Integer> categoryUIDs, Integer size) {
+        int limit = size == null ? defaultSize : Math.max(1, Math.min(size, maxSize));
+        List<Integer> groupUIDs = recommendationIndex.sample(categoryUIDs, limit, LocalDate.now());
+
+        Map<Integer, StudyGroup> studyGroups = studyGroupRepository.findByUIDs(groupUIDs).stream()
+                .collect(Collectors.toMap(StudyGroup::getUID, Function.identity()));
+        List<StudyGroup> result = new ArrayList<>();
+        for (Integer groupUID : groupUIDs) {
+            StudyGroup studyGroup = studyGroups.get(groupUID);
+            if (studyGroup == null) {
+                recommendationIndex.remove(groupUID); // 이미 삭제된 그룹
+                continue;
+            }
+            result.add(studyGroup);
+        }
+        return result;
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return date == null ? null : date.toLocalDate();
+    }
+}
@@ -0,0 +1,119 @@
+package study.gongsa.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.gongsa.domain.GroupCategoryInfo;
+import study.gongsa.domain.StudyGroup;
+import study.gongsa.repository.StudyGroupRepository;
+import study.gongsa.support.paging.Cursor;
+import study.gongsa.support.search.StudyGroupSearchIndex;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 스터디 그룹 검색
+ * 시작할 때 공개 그룹 전체로 StudyGroupSearchIndex를 만들고,
+ * 그룹 생성 시 추가, 종료된 그룹 삭제 시 제거하고, 다른 서버에서 생긴 변경은 주기적으로 다시 읽어서 맞춘다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StudyGroupSearchService {
+    private final StudyGroupRepository studyGroupRepository;
+
+    private volatile StudyGroupSearchIndex searchIndex = new StudyGroupSearchIndex();
+
+    @Value("${search.default-size:20}")
+    private int defaultSize;
+    @Value("${search.max-size:100}")
+    private int maxSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        long startTime = System.currentTimeMillis();
+        Map<Integer, Set<Integer>> groupCategories = studyGroupRepository.findPublicGroupCategories().stream()
+                .collect(Collectors.groupingBy(GroupCategoryInfo::getGroupUID,
+                        Collectors.mapping(GroupCategoryInfo::getCategoryUID, Collectors.toSet())));
+        List<StudyGroup> studyGroups = studyGroupRepository.findAllPublic();
+
+        // 새 인덱스를 다 만든 뒤 교체해서 다시 읽는 동안에도 검색은 그대로 동작
+        StudyGroupSearchIndex newIndex = new StudyGroupSearchIndex();
+        for (StudyGroup studyGroup : studyGroups) {
+            newIndex.put(toDocument(studyGroup.getUID(), studyGroup, groupCategories.getOrDefault(studyGroup.getUID(), new HashSet<>())));
+        }
+        searchIndex = newIndex;
+        log.info("검색 인덱스 로딩 완료 - 그룹: {}, 소요 시간: {}ms", studyGroups.size(), System.currentTimeMillis() - startTime);
+    }
+
+    // 그룹 생성 트랜잭션이 커밋된 뒤 인덱스에 추가
+    public void addGroup(int groupUID, StudyGroup studyGroup, int[] categoryUIDs) {
+        if (Boolean.TRUE.equals(studyGroup.getIsPrivate())) return;
+
+        Set<Integer> categories = Arrays.stream(categoryUIDs).boxed().collect(Collectors.toSet());
+        Runnable add = () -> searchIndex.put(toDocument(groupUID, studyGroup, categories));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        } else {
+            add.run();
+        }
+    }
+
+    public int removeExpiredGroups() {
+        return searchIndex.removeExpired(LocalDate.now());
+    }
+
+    public SearchResult search(List<Integer> categoryUIDs, String word, Boolean isCam, String align, String cursor, Integer size) {
+        int limit = size == null ? defaultSize : Math.max(1, Math.min(size, maxSize));
+        StudyGroupSearchIndex.Page page = searchIndex.search(word, categoryUIDs, isCam, align, Cursor.decode(cursor), limit);
+
+        Map<Integer, StudyGroup> studyGroups = studyGroupRepository.findByUIDs(page.getGroupUIDs()).stream()
+                .collect(Collectors.toMap(StudyGroup::getUID, Function.identity()));
+        List<StudyGroup> result = new ArrayList<>();
+        for (Integer groupUID : page.getGroupUIDs()) {
+            StudyGroup studyGroup = studyGroups.get(groupUID);
+            if (studyGroup == null) {
+                searchIndex.remove(groupUID); // 이미 삭제된 그룹
+                continue;
+            }
+            result.add(studyGroup);
+        }
+        return new SearchResult(result, page.getNextCursor());
+    }
+
+    private StudyGroupSearchIndex.Document toDocument(int groupUID, StudyGroup studyGroup, Set<Integer> categoryUIDs) {
+        return StudyGroupSearchIndex.Document.builder()
+                .groupUID(groupUID)
+                .name(studyGroup.getName())
+                .code(studyGroup.getCode())
+                .isCam(studyGroup.getIsCam())
+                .categoryUIDs(categoryUIDs)
+                .createdAt(studyGroup.getCreatedAt() == null ? 0 : studyGroup.getCreatedAt().getTime())
+                .expiredAt(studyGroup.getExpiredAt() == null ? Long.MAX_VALUE : studyGroup.getExpiredAt().toLocalDate().toEpochDay())
+                .build();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        private final List<StudyGroup> studyGroups;
+        private final String nextCursor;
+    }
+}
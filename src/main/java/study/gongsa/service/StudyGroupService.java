@@ -2,15 +2,22 @@ package study.gongsa.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import study.gongsa.domain.GroupCategory;
+import study.gongsa.domain.GroupMember;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.repository.GroupCategoryRepository;
+import study.gongsa.repository.GroupMemberRepository;
 import study.gongsa.repository.StudyGroupRepository;
+import study.gongsa.repository.UserRepository;
 import study.gongsa.support.mail.CodeGenerator;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.paging.Cursor;
+import study.gongsa.support.paging.CursorPage;
 
 import java.sql.Timestamp;
 import java.util.Date;
@@ -25,27 +32,27 @@ import static java.util.Objects.isNull;
 public class StudyGroupService {
     private final StudyGroupRepository studyGroupRepository;
     private final GroupCategoryRepository groupCategoryRepository;
+    private final GroupMemberRepository groupMemberRepository;
+    private final UserRepository userRepository;
     private final CodeGenerator codeGenerator;
     private final ImageService imageService;
+    private final RecommendationService recommendationService;
+    private final StudyGroupSearchService studyGroupSearchService;
+    private final TransactionTemplate transactionTemplate;
 
-    public List<StudyGroup> findAll(List<Integer> categoryUIDs, String word, Boolean isCam, String align){
-        return studyGroupRepository.findAll(categoryUIDs, word, isCam, align);
+    @Value("${study-group.member-count.repair-chunk-size:1000}")
+    private int repairChunkSize;
+
+    public StudyGroupSearchService.SearchResult findAll(List<Integer> categoryUIDs, String word, Boolean isCam, String align, String cursor, Integer size){
+        return studyGroupSearchService.search(categoryUIDs, word, isCam, align, cursor, size);
     }
 
-    public List<StudyGroup> findSameCategoryAllByUID(int uid){
-        List<StudyGroup> studyGroupList = studyGroupRepository.findSameCategoryAllByUID(uid);
-        if (studyGroupList.isEmpty())
-            return studyGroupRepository.findAll(null, "", null, "random");
-        else
-            return studyGroupList;
+    public List<StudyGroup> findSameCategoryAllByUID(int uid, Integer size){
+        return recommendationService.recommendByGroupUID(uid, size);
     }
 
-    public List<StudyGroup> findSameCategoryAllByUserUID(int userUID){
-        List<StudyGroup> studyGroupList = studyGroupRepository.findSameCategoryAllByUserUID(userUID);
-        if (studyGroupList.isEmpty())
-            return studyGroupRepository.findAll(null, "", null, "random");
-        else
-            return studyGroupList;
+    public List<StudyGroup> findSameCategoryAllByUserUID(int userUID, Integer size){
+        return recommendationService.recommendByUserUID(userUID, size);
     }
 
     public StudyGroup findOneByUID(int groupUID){
@@ -73,7 +80,12 @@ public class StudyGroupService {
         }
     }
 
-    public int makeStudyGroup(StudyGroup studyGroup, int[] groupCategories) {
+    // 방장의 최소 공부 시간 합은 유저 row를 잠근 뒤 확인 (같은 유저의 그룹 가입과 동시에 실행되는 경우)
+    @Transactional
+    public int makeStudyGroup(int userUID, int minStudyHour, StudyGroup studyGroup, int[] groupCategories) {
+        userRepository.lockByUID(userUID);
+        checkPossibleMinStudyHourByUsersUID(userUID, minStudyHour);
+
         // StudyGroup
         // make code
         String studyGroupCode = codeGenerator.generateRandomString(4)
@@ -85,16 +97,19 @@ public class StudyGroupService {
         Timestamp currentTime = new Timestamp(new Date().getTime());
         studyGroup.setCreatedAt(currentTime);
         studyGroup.setUpdatedAt(studyGroup.getCreatedAt());
+        studyGroup.setMemberCount(1); // 방장
         int groupUID = studyGroupRepository.save(studyGroup).intValue();
 
         // GroupCategory
-        GroupCategory groupCategory = new GroupCategory(groupUID);
-        groupCategory.setCreatedAt(currentTime);
-        groupCategory.setUpdatedAt(groupCategory.getCreatedAt());
-        for (int categoryUID : groupCategories){
-            groupCategory.setCategoryUID(categoryUID);
-            groupCategoryRepository.save(groupCategory);
-        }
+        groupCategoryRepository.saveAll(groupUID, groupCategories, currentTime);
+        // 방장
+        groupMemberRepository.save(GroupMember.builder()
+                .userUID(userUID)
+                .groupUID(groupUID)
+                .isLeader(true)
+                .build());
+        recommendationService.addGroup(groupUID, studyGroup, groupCategories);
+        studyGroupSearchService.addGroup(groupUID, studyGroup, groupCategories);
         return groupUID;
     }
 
@@ -105,10 +120,10 @@ public class StudyGroupService {
     }
 
     public void saveGroupImage (int uid, MultipartFile image){
-        String fileName = "g" + uid + ".jpg"; //groupImage rename
+        String fileName;
 
-        if( !isNull(image) && !image.isEmpty() ){ // 받은 이미지 저장
-            imageService.save(image, fileName);
+        if( !isNull(image) && !image.isEmpty() ){ // 받은 이미지 저장 (내용 hash로 이름 지정)
+            fileName = imageService.save(image);
         }else{ //이미지 없으면 랜덤 이미지 지정
             fileName = "r"+codeGenerator.generateRandomNumber(1)+".jpg";
         }
@@ -122,11 +137,38 @@ public class StudyGroupService {
         return maxMember.get();
     }
 
+    @Transactional(readOnly = true)
     public List<StudyGroup> findMyStudyGroup(int userUID){
         return studyGroupRepository.findMyStudyGroup(userUID);
     }
 
-    public void deleteExpiredGroup(){
-        studyGroupRepository.removeExpiredGroup();
+    public CursorPage<StudyGroup> findMyStudyGroup(int userUID, String cursor, Integer size){
+        int pageSize = CursorPage.toSize(size);
+        List<StudyGroup> groupList = studyGroupRepository.findMyStudyGroup(userUID, Cursor.decode(cursor), pageSize + 1);
+        return CursorPage.of(groupList, pageSize, studyGroup -> new Cursor(studyGroup.getCreatedAt().getTime(), studyGroup.getUID()));
+    }
+
+    /**
+     * 가입/탈퇴에서 갱신하는 memberCount가 실제 멤버 수와 다른 그룹을 UID 구간별로 맞춘다
+     * 구간마다 한 트랜잭션에서 그룹 row를 먼저 잠근 뒤 멤버 수를 센다. (가입/탈퇴처럼 그룹 → 멤버 순서로 잠가서 deadlock 나지 않도록)
+     */
+    public int repairMemberCounts(){
+        Optional<Integer> maxUID = studyGroupRepository.findMaxUID();
+        if (maxUID.isEmpty()) return 0;
+
+        long startTime = System.currentTimeMillis();
+        int repairedCnt = 0;
+        for (int from = 0; from <= maxUID.get(); from += repairChunkSize) {
+            int fromUID = from, toUID = from + repairChunkSize - 1;
+            Integer repaired = transactionTemplate.execute(status -> {
+                studyGroupRepository.lockByUIDRange(fromUID, toUID);
+                return studyGroupRepository.repairMemberCounts(fromUID, toUID);
+            });
+            repairedCnt += repaired == null ? 0 : repaired;
+        }
+        if (repairedCnt > 0) {
+            log.warn("스터디 그룹 멤버 수 보정 - 그룹: {}, 소요 시간: {}ms", repairedCnt, System.currentTimeMillis() - startTime);
+        }
+        return repairedCnt;
     }
 }
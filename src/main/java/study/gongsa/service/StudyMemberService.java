@@ -2,26 +2,55 @@ package study.gongsa.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import study.gongsa.domain.GroupMember;
+import org.springframework.transaction.annotation.Transactional;
 import study.gongsa.domain.LastStudyTimeInfo;
+import study.gongsa.repository.GroupMemberRepository;
+import study.gongsa.repository.StudyMemberArchiveRepository;
 import study.gongsa.repository.StudyMemberRepository;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class StudyMemberService {
     private final StudyMemberRepository studyMemberRepository;
-
-    public void remove(GroupMember groupMember){
-        int groupUID = groupMember.getGroupUID();
-        int groupMemberUID = groupMember.getUID();
-        int userUID = groupMember.getUserUID();
-        studyMemberRepository.remove(groupUID, userUID, groupMemberUID);
-    }
+    private final StudyMemberArchiveRepository studyMemberArchiveRepository;
+    private final GroupMemberRepository groupMemberRepository;
 
     public List<LastStudyTimeInfo> findLastStudyTime(int groupUID){
         return studyMemberRepository.findLastStudyTime(groupUID);
     }
+
+    /**
+     * from ~ to(포함) 사이에 시작한 유저의 공부 시간(초)
+     * StudyMember에 남은 세션과 보관할 때 만든 날짜별 합계(StudyMemberArchiveDaily)를 합산한다. segment 파일은 읽지 않는다.
+     * 보관 배치는 합계 추가와 StudyMember 삭제를 한 트랜잭션으로 처리하므로, 한 트랜잭션에서 둘을 읽으면 세션이 빠지거나 두 번 세어지지 않는다.
+     * 탈퇴한 그룹의 세션은 StudyMember에서 지워지므로 보관된 합계도 현재 그룹 멤버의 것만 센다.
+     */
+    @Transactional(readOnly = true)
+    public long getStudyTime(int userUID, LocalDate from, LocalDate to){
+        if (from.isAfter(to)) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "from", "조회 기간이 올바르지 않습니다.");
+        }
+        Timestamp fromTime = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp toTime = Timestamp.valueOf(to.plusDays(1).atStartOfDay());
+
+        long studyTime = studyMemberRepository.findStudyTimeByGroupMember(userUID, fromTime, toTime).values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+
+        Map<Integer, Long> archivedStudyTimes = studyMemberArchiveRepository.findStudyTimeByGroupMember(userUID, Date.valueOf(from), Date.valueOf(to));
+        for (Integer groupMemberUID : groupMemberRepository.findExistingUIDs(new ArrayList<>(archivedStudyTimes.keySet()))) {
+            studyTime += archivedStudyTimes.get(groupMemberUID);
+        }
+        return studyTime;
+    }
 }
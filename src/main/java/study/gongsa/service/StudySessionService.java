@@ -0,0 +1,290 @@
+package study.gongsa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import study.gongsa.domain.GroupMember;
+import study.gongsa.domain.StudySession;
+import study.gongsa.repository.StudyMemberRepository;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.session.StudySessionWal;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 공부 세션(StudyMember) 시작/상태 변경/종료
+ * 상태 변경과 heartbeat는 세션별 마지막 값만 메모리에 남기고(중간 값은 덮어씀), 주기적으로(study-session.flush-interval) 모아서 batch UPDATE 한다.
+ * 세션 종료는 그 세션만 바로 DB에 반영하고 그 세션이 속한 주의 공부 시간을 다시 집계한다(StudyTimeWeekly). 한 번 종료(inactive)된 세션은 늦게 도착한 값으로 덮어쓰지 않는다.
+ * DB에 쓰기 전의 값은 StudySessionWal에 남겨두고 서버가 다시 뜰 때 읽어서 반영한다.
+ * heartbeat가 study-session.timeout 동안 없으면 공부 서버가 종료를 보내지 못한 것으로 보고 마지막 시간으로 종료한다.
+ * 받은 변경 수는 study.session.updates{result=queued|coalesced}, DB에 쓴 row 수는 study.session.flush.rows로 확인한다.
+ */
+@Service
+@Slf4j
+public class StudySessionService {
+    private static final String INACTIVE = "inactive";
+
+    private final StudyMemberRepository studyMemberRepository;
+    private final GroupMemberService groupMemberService;
+    private final StudyStatusStreamService studyStatusStreamService;
+    private final StudyTimeRollupService studyTimeRollupService;
+    private final StudySessionWal wal;
+    private final Counter queuedUpdates;
+    private final Counter coalescedUpdates;
+    private final Counter flushedRows;
+
+    private final Object lock = new Object();
+    private final Object flushLock = new Object();
+    // key: studyMemberUID, value: 아직 DB에 쓰지 않은 마지막 상태 (lock으로 WAL과 같이 변경)
+    private final Map<Integer, StudySession> pending;
+    // key: studyMemberUID, value: 이 서버에서 진행 중인 세션
+    private final Map<Integer, ActiveSession> activeSessions;
+
+    @Value("${study-session.timeout:180000}")
+    private long timeoutMillis;
+    @Value("${study-session.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    public StudySessionService(StudyMemberRepository studyMemberRepository, GroupMemberService groupMemberService,
+                               StudyStatusStreamService studyStatusStreamService, StudyTimeRollupService studyTimeRollupService,
+                               @Value("${study-session.wal-dir:study-session-wal}") String walDir,
+                               MeterRegistry meterRegistry) throws IOException {
+        this.studyMemberRepository = studyMemberRepository;
+        this.groupMemberService = groupMemberService;
+        this.studyStatusStreamService = studyStatusStreamService;
+        this.studyTimeRollupService = studyTimeRollupService;
+        this.wal = new StudySessionWal(Path.of(walDir));
+        this.queuedUpdates = meterRegistry.counter("study.session.updates", "result", "queued");
+        this.coalescedUpdates = meterRegistry.counter("study.session.updates", "result", "coalesced");
+        this.flushedRows = meterRegistry.counter("study.session.flush.rows");
+        this.pending = meterRegistry.gauge("study.session.pending", new HashMap<>(), Map::size);
+        this.activeSessions = meterRegistry.gauge("study.session.active", new ConcurrentHashMap<>(), Map::size);
+    }
+
+    // 이전 실행에서 DB에 쓰지 못한 값 반영
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() throws IOException {
+        List<StudySession> studySessions = wal.readAll();
+        if (studySessions.isEmpty()) return;
+
+        synchronized (lock) {
+            studySessions.forEach(studySession -> pending.merge(studySession.getStudyMemberUID(), studySession, this::latest));
+        }
+        log.info("공부 세션 WAL 복구 - 기록: {}, 세션: {}", studySessions.size(), flush());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        wal.close();
+    }
+
+    public int start(int groupUID, int userUID) {
+        GroupMember groupMember = groupMemberService.findOne(groupUID, userUID);
+        int studyMemberUID = studyMemberRepository.save(groupUID, groupMember.getUID(), userUID).intValue();
+        activeSessions.put(studyMemberUID, new ActiveSession(userUID, groupUID, null, System.currentTimeMillis()));
+        studyStatusStreamService.reload(groupUID);
+        return studyMemberUID;
+    }
+
+    public void changeStatus(int studyMemberUID, int userUID, String studyStatus, String studyTime) {
+        ActiveSession activeSession = findActiveSession(studyMemberUID, userUID);
+        enqueue(studyMemberUID, studyStatus, studyTime);
+        studyStatusStreamService.publish(activeSession.getGroupUID(), userUID, studyStatus, studyTime);
+    }
+
+    // 상태는 그대로 두고 시간만 갱신
+    public void heartbeat(int studyMemberUID, int userUID, String studyTime) {
+        ActiveSession activeSession = findActiveSession(studyMemberUID, userUID);
+        enqueue(studyMemberUID, null, studyTime);
+        studyStatusStreamService.publish(activeSession.getGroupUID(), userUID, null, studyTime);
+    }
+
+    public void stop(int studyMemberUID, int userUID, String studyTime) {
+        ActiveSession activeSession = findActiveSession(studyMemberUID, userUID);
+        activeSessions.remove(studyMemberUID);
+        StudySession studySession = StudySession.builder()
+                .studyMemberUID(studyMemberUID)
+                .studyStatus(INACTIVE)
+                .studyTime(studyTime)
+                .build();
+        // 다른 세션까지 쓰는 flush()를 기다리지 않고 이 세션만 바로 쓴다 (모아둔 이전 값은 버림)
+        synchronized (lock) {
+            try {
+                wal.append(studySession);
+            } catch (IOException e) {
+                log.error("공부 세션 WAL 기록 실패 {}", e.getMessage());
+            }
+            pending.remove(studyMemberUID);
+        }
+        try {
+            studyMemberRepository.updateStatuses(List.of(studySession));
+            flushedRows.increment();
+            studyTimeRollupService.refreshSessions(List.of(studyMemberUID));
+        } catch (RuntimeException e) {
+            // 실패하면 다음 flush에서 다시 쓴다
+            synchronized (lock) {
+                pending.merge(studyMemberUID, studySession, this::latest);
+            }
+            log.error("공부 세션 종료 반영 실패 - 세션: {}, {}: {}", studyMemberUID, e.getClass().getName(), e.getMessage());
+        }
+        studyStatusStreamService.publish(activeSession.getGroupUID(), userUID, INACTIVE, studyTime);
+    }
+
+    // heartbeat가 끊긴 세션은 마지막으로 받은 시간으로 종료
+    public int expireIdleSessions() {
+        long expiredBefore = System.currentTimeMillis() - timeoutMillis;
+        int expiredCnt = 0;
+        for (Map.Entry<Integer, ActiveSession> entry : activeSessions.entrySet()) {
+            ActiveSession activeSession = entry.getValue();
+            if (activeSession.getLastSeenAt() >= expiredBefore) continue;
+            if (!activeSessions.remove(entry.getKey(), activeSession)) continue;
+            String studyTime = activeSession.getStudyTime();
+            if (studyTime == null) {
+                // 시간을 한 번도 받지 못한 세션은 DB에 있는 시간 그대로 종료
+                studyTime = studyMemberRepository.findByUID(entry.getKey())
+                        .map(StudySession::getStudyTime)
+                        .orElse("00:00:00");
+            }
+            enqueue(entry.getKey(), INACTIVE, studyTime);
+            studyStatusStreamService.publish(activeSession.getGroupUID(), activeSession.getUserUID(), INACTIVE, studyTime);
+            expiredCnt++;
+        }
+        if (expiredCnt > 0) log.info("응답 없는 공부 세션 종료: {}", expiredCnt);
+        return expiredCnt;
+    }
+
+    /**
+     * 모아둔 상태를 UID 순서로 flushBatchSize씩 batch UPDATE
+     * 넘기기 전에 WAL segment를 바꾸고, DB 반영이 끝나면 이전 segment를 지운다.
+     * 실패하면 그 사이 들어온 더 최근 값이 없는 세션만 다시 넣어서 다음 flush에서 쓴다. (WAL은 남겨둠)
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<StudySession> studySessions;
+            long segment = -1;
+            synchronized (lock) {
+                if (pending.isEmpty()) return 0;
+                studySessions = new ArrayList<>(pending.values());
+                pending.clear();
+                try {
+                    segment = wal.rotate();
+                } catch (IOException e) {
+                    log.error("공부 세션 WAL 교체 실패 {}", e.getMessage());
+                }
+            }
+
+            studySessions.sort(Comparator.comparingInt(StudySession::getStudyMemberUID));
+            try {
+                for (int from = 0; from < studySessions.size(); from += flushBatchSize) {
+                    studyMemberRepository.updateStatuses(studySessions.subList(from, Math.min(from + flushBatchSize, studySessions.size())));
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    studySessions.forEach(studySession -> pending.merge(studySession.getStudyMemberUID(), studySession, (newer, older) -> latest(older, newer)));
+                }
+                log.error("공부 세션 반영 실패 - 세션: {}, {}: {}", studySessions.size(), e.getClass().getName(), e.getMessage());
+                return 0;
+            }
+
+            if (segment >= 0) wal.deleteUpTo(segment);
+            flushedRows.increment(studySessions.size());
+
+            studyTimeRollupService.refreshSessions(studySessions.stream()
+                    .filter(studySession -> INACTIVE.equals(studySession.getStudyStatus()))
+                    .map(StudySession::getStudyMemberUID)
+                    .collect(Collectors.toList()));
+            return studySessions.size();
+        }
+    }
+
+    private void enqueue(int studyMemberUID, String studyStatus, String studyTime) {
+        StudySession studySession = StudySession.builder()
+                .studyMemberUID(studyMemberUID)
+                .studyStatus(studyStatus)
+                .studyTime(studyTime)
+                .build();
+        activeSessions.computeIfPresent(studyMemberUID, (uid, activeSession) -> new ActiveSession(activeSession.getUserUID(), activeSession.getGroupUID(), studyTime, System.currentTimeMillis()));
+
+        boolean isWritten = true;
+        synchronized (lock) {
+            try {
+                wal.append(studySession);
+            } catch (IOException e) {
+                log.error("공부 세션 WAL 기록 실패 {}", e.getMessage());
+                isWritten = false;
+            }
+            if (isWritten) {
+                boolean isCoalesced = pending.containsKey(studyMemberUID);
+                pending.merge(studyMemberUID, studySession, this::latest);
+                (isCoalesced ? coalescedUpdates : queuedUpdates).increment();
+            }
+        }
+        // WAL에 남기지 못하면 모으지 않고 바로 반영
+        if (!isWritten) {
+            studyMemberRepository.updateStatuses(List.of(studySession));
+            if (INACTIVE.equals(studyStatus)) studyTimeRollupService.refreshSessions(List.of(studyMemberUID));
+        }
+    }
+
+    // 더 최근 값을 쓰고, 상태가 없으면(heartbeat) 이전 상태 유지
+    private StudySession latest(StudySession older, StudySession newer) {
+        if (newer.getStudyStatus() != null || older.getStudyStatus() == null) return newer;
+        return StudySession.builder()
+                .studyMemberUID(newer.getStudyMemberUID())
+                .studyStatus(older.getStudyStatus())
+                .studyTime(newer.getStudyTime())
+                .build();
+    }
+
+    /**
+     * 다른 서버에서 시작했거나 재시작 전에 시작한 세션은 DB에서 확인 후 등록
+     * 종료된 세션(DB나 아직 쓰지 않은 값이 inactive)과 그룹 멤버의 마지막 세션이 아닌 예전 세션은 다시 열지 않는다.
+     */
+    private ActiveSession findActiveSession(int studyMemberUID, int userUID) {
+        ActiveSession activeSession = activeSessions.get(studyMemberUID);
+        if (activeSession == null) {
+            StudySession studySession = studyMemberRepository.findByUID(studyMemberUID)
+                    .orElseThrow(() -> new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "studyMemberUID", "존재하지 않는 공부 세션입니다."));
+            if (studySession.getUserUID() != userUID) {
+                throw new IllegalStateExceptionWithLocation(HttpStatus.FORBIDDEN, "studyMemberUID", "본인의 공부 세션이 아닙니다.");
+            }
+            boolean isStopped;
+            synchronized (lock) {
+                StudySession pendingSession = pending.get(studyMemberUID);
+                isStopped = pendingSession != null && INACTIVE.equals(pendingSession.getStudyStatus());
+            }
+            if (isStopped || INACTIVE.equals(studySession.getStudyStatus())
+                    || !studyMemberRepository.isCurrent(studySession.getGroupMemberUID(), studyMemberUID)) {
+                throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "studyMemberUID", "이미 종료된 공부 세션입니다.");
+            }
+            activeSession = activeSessions.computeIfAbsent(studyMemberUID,
+                    uid -> new ActiveSession(userUID, studySession.getGroupUID(), studySession.getStudyTime(), System.currentTimeMillis()));
+        }
+        if (activeSession.getUserUID() != userUID) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.FORBIDDEN, "studyMemberUID", "본인의 공부 세션이 아닙니다.");
+        }
+        return activeSession;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ActiveSession {
+        private final int userUID;
+        private final int groupUID;
+        private final String studyTime; // 마지막으로 받은 시간
+        private final long lastSeenAt;
+    }
+}
@@ -0,0 +1,345 @@
+package study.gongsa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import study.gongsa.domain.LastStudyTimeInfo;
+import study.gongsa.dto.LastStudyTimeInfoDTO;
+import study.gongsa.repository.StudyMemberRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 스터디 화면 공부 상태 실시간 전송 (SSE)
+ * 그룹마다 구독자가 있는 동안만 멤버별 마지막 상태(study-info와 같은 값)를 메모리에 두고, 공부 세션 변경을 받으면 바뀐 멤버만 모든 구독자에게 보낸다.
+ * 연결은 servlet async(SseEmitter)라서 연결마다 스레드를 잡지 않고, 전송은 study-status.stream.sender-size개의 스레드가 나눠서 한다.
+ * 소켓 쓰기는 받지 않는 클라이언트에서 멈출 수 있어서 writer 스레드에서 하고, sender 스레드는 study-status.stream.write-timeout까지만 기다린다.
+ * 그 안에 끝나지 않으면 연결을 끊고 다음 구독자로 넘어가므로 멈춘 연결이 sender 스레드를 잡고 있지 않는다.
+ * 멈춘 쓰기는 서버의 쓰기 timeout까지 writer 스레드를 잡고 있을 수 있어서 writer는 study-status.stream.writer-size개로 제한하고, 남은 writer가 없으면 그 연결을 끊는다.
+ * 구독자마다 아직 보내지 못한 변경을 멤버별 마지막 값 하나로 합쳐두므로 느린 클라이언트도 그룹 인원 이상 쌓이지 않고,
+ * study-status.stream.max-lag 동안 보내지 못하면 연결을 끊는다. (클라이언트는 다시 연결하면 snapshot부터 받는다)
+ * 다른 서버에서 받은 변경은 주기적으로 StudyMemberCurrent를 다시 읽어서 반영한다.
+ * 연결 수는 study.status.stream.connections, 변경을 받은 뒤 전송까지 걸린 시간은 study.status.stream.fanout, 끊은 연결은 study.status.stream.dropped로 확인한다.
+ */
+@Service
+@Slf4j
+public class StudyStatusStreamService {
+    private static final String INACTIVE = "inactive";
+
+    private final StudyMemberRepository studyMemberRepository;
+    private final Timer fanoutTimer;
+    private final Counter droppedSubscribers;
+    private final AtomicInteger connections;
+    // key: groupUID, 구독자가 없으면 제거
+    private final Map<Integer, GroupChannel> channels = new ConcurrentHashMap<>();
+    private ExecutorService senders;
+    // 소켓 쓰기 전용, 대기열 없이 남은 스레드가 없으면 RejectedExecutionException
+    private ExecutorService writers;
+
+    @Value("${study-status.stream.timeout:1800000}")
+    private long timeoutMillis;
+    @Value("${study-status.stream.sender-size:4}")
+    private int senderSize;
+    @Value("${study-status.stream.writer-size:32}")
+    private int writerSize;
+    @Value("${study-status.stream.write-timeout:5000}")
+    private long writeTimeoutMillis;
+    @Value("${study-status.stream.max-lag:30000}")
+    private long maxLagMillis;
+    @Value("${study-status.stream.refresh-interval:30000}")
+    private long refreshIntervalMillis;
+
+    public StudyStatusStreamService(StudyMemberRepository studyMemberRepository, MeterRegistry meterRegistry) {
+        this.studyMemberRepository = studyMemberRepository;
+        this.fanoutTimer = Timer.builder("study.status.stream.fanout")
+                .description("공부 상태 변경을 받은 뒤 구독자에게 보내기까지 걸린 시간")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("study.status.stream.dropped")
+                .description("전송이 밀려서 끊은 연결 수")
+                .register(meterRegistry);
+        this.connections = meterRegistry.gauge("study.status.stream.connections", new AtomicInteger());
+    }
+
+    @PostConstruct
+    public void init() {
+        senders = Executors.newFixedThreadPool(senderSize, new CustomizableThreadFactory("study-status-stream-"));
+        ThreadPoolExecutor writerPool = new ThreadPoolExecutor(writerSize, writerSize, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("study-status-stream-writer-"));
+        writerPool.allowCoreThreadTimeOut(true);
+        writers = writerPool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(channel -> channel.subscribers.forEach(Subscriber::close));
+        senders.shutdownNow();
+        writers.shutdown();
+    }
+
+    // 현재 상태(snapshot)를 먼저 보내고 이후 변경(change)을 보낸다
+    public SseEmitter subscribe(int groupUID) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(groupUID, emitter);
+        GroupChannel channel = channels.compute(groupUID, (uid, current) -> {
+            GroupChannel groupChannel = current == null ? new GroupChannel() : current;
+            groupChannel.subscribers.add(subscriber);
+            return groupChannel;
+        });
+        connections.incrementAndGet();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+
+        // DB는 reload처럼 lock 밖에서 읽고, 그 사이에 다른 구독자나 reload가 먼저 채웠으면 그 값을 쓴다
+        List<LastStudyTimeInfo> members = channel.isLoaded ? null : studyMemberRepository.findLastStudyTime(groupUID);
+        // 전송 순서가 상태 변경 순서와 같도록 channel lock 안에서 구독자에게 넘긴다 (lock 순서: channel → subscriber)
+        synchronized (channel) {
+            if (!channel.isLoaded && members != null) {
+                members.forEach(member -> channel.members.put(member.getUserUID(), member));
+                channel.isLoaded = true;
+            }
+            subscriber.offerSnapshot(channel.snapshot());
+        }
+        return emitter;
+    }
+
+    // 이 서버에서 받은 공부 세션 변경 (studyStatus가 없으면 시간만 변경)
+    public void publish(int groupUID, int userUID, String studyStatus, String studyTime) {
+        GroupChannel channel = channels.get(groupUID);
+        if (channel == null) return;
+
+        long publishedAt = System.nanoTime();
+        synchronized (channel) {
+            if (!channel.isLoaded) return; // snapshot을 만들 때 DB에서 읽음
+            LastStudyTimeInfo member = channel.members.get(userUID);
+            if (member == null) return; // 새로 시작한 세션은 reload에서 추가
+            if (studyStatus != null) member.setStudyStatus(studyStatus);
+            member.setStudyTime(LeaderboardService.toStudyHour(LeaderboardService.toSeconds(studyTime))); // DB에서 읽은 값과 같은 형식
+            if (INACTIVE.equals(member.getStudyStatus())) channel.members.remove(userUID);
+            channel.localUpdatedAt.put(userUID, System.currentTimeMillis());
+            LastStudyTimeInfoDTO change = LastStudyTimeInfoDTO.convertTo(member);
+            channel.subscribers.forEach(subscriber -> subscriber.offerChange(userUID, change, publishedAt));
+        }
+    }
+
+    // StudyMemberCurrent를 다시 읽어서 바뀐 멤버만 전송 (새로 시작한 세션, 다른 서버에서 받은 변경)
+    public void reload(int groupUID) {
+        GroupChannel channel = channels.get(groupUID);
+        if (channel == null) return;
+
+        long publishedAt = System.nanoTime();
+        List<LastStudyTimeInfo> members = studyMemberRepository.findLastStudyTime(groupUID);
+        Map<Integer, LastStudyTimeInfoDTO> changes = new HashMap<>();
+        synchronized (channel) {
+            // 최근에 이 서버에서 바뀐 멤버는 DB(모아서 쓰는 중)보다 메모리 값이 최신
+            long localAfter = System.currentTimeMillis() - refreshIntervalMillis;
+            channel.localUpdatedAt.values().removeIf(updatedAt -> updatedAt < localAfter);
+
+            Set<Integer> userUIDs = new HashSet<>();
+            for (LastStudyTimeInfo member : members) {
+                userUIDs.add(member.getUserUID());
+                if (channel.localUpdatedAt.containsKey(member.getUserUID())) continue;
+                LastStudyTimeInfo current = channel.members.get(member.getUserUID());
+                if (current != null && Objects.equals(current.getStudyStatus(), member.getStudyStatus())
+                        && Objects.equals(current.getStudyTime(), member.getStudyTime())
+                        && Objects.equals(current.getImgPath(), member.getImgPath())) continue;
+                channel.members.put(member.getUserUID(), member);
+                changes.put(member.getUserUID(), LastStudyTimeInfoDTO.convertTo(member));
+            }
+            for (Iterator<LastStudyTimeInfo> iterator = channel.members.values().iterator(); iterator.hasNext(); ) {
+                LastStudyTimeInfo member = iterator.next();
+                if (userUIDs.contains(member.getUserUID()) || channel.localUpdatedAt.containsKey(member.getUserUID())) continue;
+                iterator.remove();
+                member.setStudyStatus(INACTIVE);
+                changes.put(member.getUserUID(), LastStudyTimeInfoDTO.convertTo(member));
+            }
+            channel.isLoaded = true;
+            changes.forEach((userUID, change) -> channel.subscribers.forEach(subscriber -> subscriber.offerChange(userUID, change, publishedAt)));
+        }
+    }
+
+    public void reloadAll() {
+        channels.keySet().forEach(this::reload);
+    }
+
+    // 연결 유지용 comment 전송, 전송이 max-lag 이상 밀린 연결은 끊는다
+    public void heartbeat() {
+        long laggedBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        for (GroupChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.isLaggedBefore(laggedBefore)) {
+                    droppedSubscribers.increment();
+                    subscriber.close();
+                } else {
+                    subscriber.offerHeartbeat();
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(int groupUID, Subscriber subscriber) {
+        channels.computeIfPresent(groupUID, (uid, channel) -> {
+            if (channel.subscribers.remove(subscriber)) connections.decrementAndGet();
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private static class GroupChannel {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // key: userUID, 아래 값은 channel로 동기화
+        private final Map<Integer, LastStudyTimeInfo> members = new HashMap<>();
+        private final Map<Integer, Long> localUpdatedAt = new HashMap<>();
+        private volatile boolean isLoaded;
+
+        private List<LastStudyTimeInfoDTO> snapshot() {
+            List<LastStudyTimeInfoDTO> snapshot = new ArrayList<>();
+            members.values().forEach(member -> snapshot.add(LastStudyTimeInfoDTO.convertTo(member)));
+            return snapshot;
+        }
+    }
+
+    /**
+     * 구독자 한 명의 전송 대기열
+     * 보낼 것이 생기면 sender 스레드에 한 번만 넘기고, 보내는 동안 들어온 변경은 멤버별로 합쳐서 다음 차례에 보낸다.
+     */
+    private class Subscriber {
+        private final int groupUID;
+        private final SseEmitter emitter;
+        // 아래 값은 this로 동기화
+        private List<LastStudyTimeInfoDTO> snapshot;
+        private final Map<Integer, LastStudyTimeInfoDTO> changes = new LinkedHashMap<>();
+        private long oldestPublishedAt;
+        private boolean isHeartbeat;
+        private boolean isScheduled;
+        private boolean isStalled;
+        private boolean isClosed;
+
+        private Subscriber(int groupUID, SseEmitter emitter) {
+            this.groupUID = groupUID;
+            this.emitter = emitter;
+        }
+
+        private synchronized void offerSnapshot(List<LastStudyTimeInfoDTO> snapshot) {
+            if (isClosed) return;
+            this.snapshot = snapshot;
+            changes.clear(); // snapshot 이전 변경은 이미 snapshot에 반영됨
+            schedule();
+        }
+
+        private synchronized void offerChange(int userUID, LastStudyTimeInfoDTO change, long publishedAt) {
+            if (isClosed) return;
+            if (changes.isEmpty()) oldestPublishedAt = publishedAt;
+            changes.put(userUID, change);
+            schedule();
+        }
+
+        private synchronized void offerHeartbeat() {
+            if (isClosed) return;
+            isHeartbeat = true;
+            schedule();
+        }
+
+        private synchronized boolean isLaggedBefore(long nanoTime) {
+            return !isClosed && !changes.isEmpty() && oldestPublishedAt < nanoTime;
+        }
+
+        private void schedule() {
+            if (isScheduled) return;
+            isScheduled = true;
+            senders.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                List<LastStudyTimeInfoDTO> snapshot;
+                List<LastStudyTimeInfoDTO> changes;
+                long publishedAt;
+                boolean isHeartbeat;
+                synchronized (this) {
+                    if (isClosed || (this.snapshot == null && this.changes.isEmpty() && !this.isHeartbeat)) {
+                        isScheduled = false;
+                        return;
+                    }
+                    snapshot = this.snapshot;
+                    changes = new ArrayList<>(this.changes.values());
+                    publishedAt = oldestPublishedAt;
+                    isHeartbeat = this.isHeartbeat;
+                    this.snapshot = null;
+                    this.changes.clear();
+                    this.isHeartbeat = false;
+                }
+
+                Future<?> write;
+                try {
+                    write = writers.submit(() -> {
+                        send(snapshot, changes, isHeartbeat);
+                        return null;
+                    });
+                } catch (RejectedExecutionException e) {
+                    // writer가 모두 멈춘 쓰기에 잡혀 있음 (또는 종료 중)
+                    log.debug("공부 상태 전송 writer 부족 - groupUID: {}", groupUID);
+                    droppedSubscribers.increment();
+                    close();
+                    continue;
+                }
+                try {
+                    write.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+                    if (!changes.isEmpty()) fanoutTimer.record(System.nanoTime() - publishedAt, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // 클라이언트가 받지 않아서 쓰기가 멈춤, 쓰기는 writer 스레드에 두고 연결만 끊는다
+                    log.debug("공부 상태 전송 timeout - groupUID: {}", groupUID);
+                    write.cancel(true);
+                    synchronized (this) {
+                        isStalled = true;
+                    }
+                    droppedSubscribers.increment();
+                    close();
+                } catch (ExecutionException e) {
+                    log.debug("공부 상태 전송 실패 {}", e.getCause().getMessage());
+                    close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    write.cancel(true);
+                    close();
+                    return;
+                }
+            }
+        }
+
+        private void send(List<LastStudyTimeInfoDTO> snapshot, List<LastStudyTimeInfoDTO> changes, boolean isHeartbeat) throws IOException {
+            if (snapshot != null) emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+            for (LastStudyTimeInfoDTO change : changes) {
+                emitter.send(SseEmitter.event().name("change").data(change));
+            }
+            if (isHeartbeat) emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        // 끊긴 연결은 onCompletion이 오지 않을 수 있어서 직접 구독 해제
+        // emitter는 멈춘 쓰기가 lock을 잡고 있을 수 있어서 complete도 writer 스레드에서 한다
+        private void close() {
+            boolean isStalled;
+            synchronized (this) {
+                if (isClosed) return;
+                isClosed = true;
+                isStalled = this.isStalled;
+            }
+            unsubscribe(groupUID, this);
+            try {
+                writers.execute(emitter::complete);
+            } catch (RejectedExecutionException e) {
+                // 남은 writer가 없으면 직접 complete, 멈춘 연결은 complete도 멈추므로 서버의 쓰기 timeout(또는 emitter timeout)에 맡긴다
+                if (!isStalled) emitter.complete();
+            }
+        }
+    }
+}
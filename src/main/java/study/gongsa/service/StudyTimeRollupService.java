@@ -0,0 +1,105 @@
+package study.gongsa.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.gongsa.repository.StudyMemberArchiveRepository;
+import study.gongsa.repository.StudyTimeWeeklyRepository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * StudyTimeWeekly(그룹 멤버별 주간 공부 시간) 집계 관리
+ * refreshSessions(): 세션이 종료될 때 그 세션이 속한 주만 바로 다시 집계
+ * refresh(): 마지막 집계 이후 변경된 세션이 속한 주를 다시 집계 (진행 중인 세션, 종료 반영에 실패한 세션 보정용으로 주기적으로 실행)
+ * rebuild(): 전체 StudyMember 기록으로 다시 집계 (최초 적용, 데이터 복구용), 집계 기록이 비어 있으면 서버 시작 시 자동으로 실행
+ * 모두 StudyMemberArchive로 옮긴 세션이 있는 주(archivedBefore 이전)는 건드리지 않는다.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StudyTimeRollupService {
+    // 진행 중인 트랜잭션의 변경을 놓치지 않도록 조금 전까지만 집계하고, 다음 집계 때 겹쳐서 다시 확인
+    private static final long SAFETY_LAG_MILLIS = Duration.ofSeconds(5).toMillis();
+    private static final long STARTUP_OVERLAP_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final StudyTimeWeeklyRepository studyTimeWeeklyRepository;
+    private final StudyMemberArchiveRepository studyMemberArchiveRepository;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${rollup.study-time.rebuild-chunk-size:1000}")
+    private int rebuildChunkSize;
+
+    private Timestamp lastRefreshedAt;
+
+    public synchronized int refresh() {
+        if (lastRefreshedAt == null) {
+            Optional<Timestamp> lastUpdatedAt = studyTimeWeeklyRepository.findLastUpdatedAt();
+            if (lastUpdatedAt.isEmpty()) {
+                // 집계 기록이 없으면(처음 적용한 DB) 전체 집계 후 그 이후 변경만 이어서 집계
+                Timestamp rebuildStartedAt = new Timestamp(new Date().getTime() - STARTUP_OVERLAP_MILLIS);
+                rebuild();
+                lastRefreshedAt = rebuildStartedAt;
+                leaderboardService.applyChangesSince(rebuildStartedAt);
+            } else {
+                lastRefreshedAt = new Timestamp(lastUpdatedAt.get().getTime() - STARTUP_OVERLAP_MILLIS);
+            }
+        }
+
+        Timestamp to = new Timestamp(new Date().getTime() - SAFETY_LAG_MILLIS);
+        Timestamp refreshStartedAt = new Timestamp(to.getTime() - STARTUP_OVERLAP_MILLIS);
+        int updatedRows = studyTimeWeeklyRepository.refresh(lastRefreshedAt, to, findArchivedBefore());
+        lastRefreshedAt = new Timestamp(to.getTime() - SAFETY_LAG_MILLIS);
+
+        // 이번에 다시 집계된 멤버만 순위표에 반영 (DB와 서버 시간 차이를 감안해 1분 겹쳐서 조회)
+        if (updatedRows > 0) leaderboardService.applyChangesSince(refreshStartedAt);
+        return updatedRows;
+    }
+
+    // 종료된 세션(studyMemberUID)이 속한 주를 다시 집계하고 순위표에 반영, 실패해도 다음 refresh()에서 다시 집계된다
+    public int refreshSessions(List<Integer> studyMemberUIDs) {
+        if (studyMemberUIDs.isEmpty()) return 0;
+
+        try {
+            int updatedRows = studyTimeWeeklyRepository.refreshByStudyMemberUIDs(studyMemberUIDs, findArchivedBefore());
+            if (updatedRows > 0) leaderboardService.applyStudySessions(studyMemberUIDs);
+            return updatedRows;
+        } catch (RuntimeException e) {
+            log.error("종료된 세션 주간 집계 실패 - 세션: {}, {}: {}", studyMemberUIDs.size(), e.getClass().getName(), e.getMessage());
+            return 0;
+        }
+    }
+
+    public boolean isEmpty() {
+        return studyTimeWeeklyRepository.findLastUpdatedAt().isEmpty();
+    }
+
+    // groupMember 범위마다 삭제와 재집계를 한 트랜잭션으로 처리해서 조회하는 쪽에서 비어 있는 집계가 보이지 않게 한다
+    public synchronized void rebuild() {
+        Optional<Integer> maxGroupMemberUID = studyTimeWeeklyRepository.findMaxGroupMemberUID();
+        if (maxGroupMemberUID.isEmpty()) return;
+
+        long startTime = System.currentTimeMillis();
+        java.sql.Date archivedBefore = findArchivedBefore();
+        int totalRows = 0;
+        for (int from = 0; from <= maxGroupMemberUID.get(); from += rebuildChunkSize) {
+            int fromUID = from, toUID = from + rebuildChunkSize - 1;
+            Integer rows = transactionTemplate.execute(status -> studyTimeWeeklyRepository.rebuild(fromUID, toUID, archivedBefore));
+            totalRows += rows == null ? 0 : rows;
+        }
+        log.info("StudyTimeWeekly 전체 집계 완료 - rows: {}, 소요 시간: {}ms", totalRows, System.currentTimeMillis() - startTime);
+    }
+
+    private java.sql.Date findArchivedBefore() {
+        return studyMemberArchiveRepository.findArchivedBefore()
+                .orElse(java.sql.Date.valueOf(LocalDate.EPOCH));
+    }
+}
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import study.gongsa.domain.User;
 import study.gongsa.domain.UserCategory;
 import study.gongsa.dto.UserCategoryDTO;
@@ -19,15 +20,11 @@ import java.util.Optional;
 public class UserCategoryService {
     private final UserCategoryRepository userCategoryRepository;
 
-    public void save(UserCategory userCategory) {
-        userCategoryRepository.save(userCategory);
-    }
-
-    public void remove(int userUID){
-        List<UserCategory> userCategoryByUserUID = userCategoryRepository.findByUserUID(userUID);
-        // 이미 카테고리가 있으면 삭제하고 다시 추가
-        for(int i=0; i<userCategoryByUserUID.size(); i++)
-            userCategoryRepository.remove(userCategoryByUserUID.get(i).getUID());
+    // 이미 카테고리가 있으면 삭제하고 다시 추가
+    @Transactional
+    public void change(int userUID, List<Integer> categoryUIDs) {
+        userCategoryRepository.removeByUserUID(userUID);
+        if(!categoryUIDs.isEmpty()) userCategoryRepository.saveAll(userUID, categoryUIDs);
     }
 
     public List<UserCategoryDTO> findAll(int userUID){
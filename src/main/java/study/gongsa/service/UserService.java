@@ -4,12 +4,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import study.gongsa.domain.User;
 import study.gongsa.dto.MailDto;
 import study.gongsa.dto.MyPageUserResponse;
 import study.gongsa.dto.UserMyPageInfo;
 import study.gongsa.repository.UserRepository;
+import study.gongsa.support.leaderboard.RankingTree;
 import study.gongsa.support.mail.CodeGenerator;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 import study.gongsa.support.mail.GmailSender;
@@ -29,6 +31,7 @@ public class UserService {
     private final GmailSender gmailSender;
     private final CodeGenerator codeGenerator;
     private final ImageService imageService;
+    private final LeaderboardService leaderboardService;
 
     public int join(User user){
         //이메일 중복 체크
@@ -48,7 +51,7 @@ public class UserService {
         user.setPasswd(encryptedPassword);
 
         //랜덤 이미지 설정
-        String fileName = "r"+codeGenerator.generateRandomNumber(1)+"jpg";
+        String fileName = "r"+codeGenerator.generateRandomNumber(1)+".jpg";
         user.setImgPath(fileName);
 
         return userRepository.save(user).intValue();
@@ -143,6 +146,7 @@ public class UserService {
         }
 
         userRepository.updateIsAuth(true, currentTime, user.getUID());
+        leaderboardService.addUser(user.getUID());
     }
 
     public int login(User user){
@@ -176,6 +180,11 @@ public class UserService {
         userRepository.updateLevel(uid, new Timestamp(new Date().getTime()));
     }
 
+    public void downLevels(List<Integer> uids){
+        if(uids.isEmpty()) return;
+        userRepository.updateLevels(uids, new Timestamp(new Date().getTime()));
+    }
+
     public void changeDeviceToken(User user){
         userRepository.updateDeviceToken(user.getUID(), user.getDeviceToken(), new Timestamp(new Date().getTime()));
     }
@@ -184,6 +193,11 @@ public class UserService {
         Optional<User> userByUID = userRepository.findByUID(userUID);
         return userByUID.get().getDeviceToken();
     }
+
+    public Map<Integer, String> getDeviceTokens(List<Integer> userUIDs) {
+        return userRepository.findDeviceTokensByUIDs(userUIDs);
+    }
+
     public void changeUserSettingInfo(int uid, String nickname, MultipartFile image, Boolean changeImage) {
         //자신 제외하고 닉네임 중복 체크
         Optional<User> userByNickname = userRepository.findByNicknameExceptUser(nickname, uid);
@@ -191,26 +205,41 @@ public class UserService {
             throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST,"nickname","중복된 닉네임입니다.");
         });
 
-        String fileName = "u" + uid + ".jpg";//userImage rename
+        String fileName;
 
-        if( !isNull(image) && !image.isEmpty() ){ // 받은 이미지 저장
-            imageService.save(image, fileName);
-        }else if(changeImage){ //이미지 없음 + 이미지 변경 원하면 랜덤 이미지 지정
-            fileName = "r"+codeGenerator.generateRandomNumber(1)+"jpg";
-            // 기존 이미지 삭제
+        if( !isNull(image) && !image.isEmpty() ){ // 받은 이미지 저장 (내용 hash로 이름 지정)
+            fileName = imageService.save(image);
+        }else if(changeImage){ //이미지 없음 + 이미지 변경 원하면 랜덤 이미지 지정, 기존 이미지는 배치에서 삭제
+            fileName = "r"+codeGenerator.generateRandomNumber(1)+".jpg";
+        }else{ //기존 이미지 유지
+            fileName = userRepository.findByUID(uid).map(User::getImgPath).orElse(null);
         }
         userRepository.updateNicknameAndImage(uid, nickname, fileName, new Timestamp(new Date().getTime()));
     }
 
+    @Transactional(readOnly = true)
     public MyPageUserResponse.Info getUserMyPageInfo(int uid) {
-        Optional<UserMyPageInfo> userMyPageInfo = userRepository.getUserMyPageInfo(uid);
+        Optional<User> userByUID = userRepository.findByUID(uid);
+        Optional<RankingTree.Entry> ranking = leaderboardService.getUserRanking(uid);
+        if (userByUID.isEmpty() || ranking.isEmpty()) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, null,"등록되지 않은 회원입니다.");
+        }
+
+        User user = userByUID.get();
+        UserMyPageInfo userMyPageInfo = UserMyPageInfo.builder()
+                .imgPath(user.getImgPath())
+                .nickname(user.getNickname())
+                .level(user.getLevel())
+                .totalStudyTime(LeaderboardService.toStudyHour(ranking.get().getScore()))
+                .ranking(ranking.get().getRank())
+                .cnt(leaderboardService.getUserCount())
+                .build();
 
         //cnt, ranking으로 퍼센트 계산하기
-        UserMyPageInfo user = userMyPageInfo.get();
-        Double percentage = Double.valueOf((double)user.getRanking()/user.getCnt() * 100);
+        Double percentage = Double.valueOf((double)userMyPageInfo.getRanking()/userMyPageInfo.getCnt() * 100);
         percentage = Math.round(percentage * 100) / 100.0; //소수점 둘째자리까지
 
-        MyPageUserResponse.Info userInfo = new MyPageUserResponse.Info(user, percentage);
+        MyPageUserResponse.Info userInfo = new MyPageUserResponse.Info(userMyPageInfo, percentage);
         return userInfo;
     }
 
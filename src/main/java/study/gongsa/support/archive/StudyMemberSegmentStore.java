@@ -0,0 +1,113 @@
+package study.gongsa.support.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.gongsa.domain.ArchivedStudySession;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 보관한 공부 세션 segment 파일 저장소 (study-member.archive.dir, key = 상대 경로)
+ * segment는 UID 순서의 세션 목록을 고정 길이 binary로 쓰고 gzip으로 압축한다. (MAGIC, 세션 수, 세션마다 UID/groupUID/groupMemberUID/userUID/createdAt/studyTime)
+ * 임시 파일에 쓰고 fsync한 뒤 move해서 읽는 쪽이 쓰다 만 파일을 보지 않게 한다. 한 번 쓴 segment는 바꾸지 않는다.
+ */
+@Slf4j
+@Component
+public class StudyMemberSegmentStore {
+    private static final int MAGIC = 0x47535331; // "GSS1"
+
+    private final Path root;
+
+    public StudyMemberSegmentStore(@Value("${study-member.archive.dir:study-member-archive}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 쓴 파일 크기(byte) 반환
+    public long write(String key, List<ArchivedStudySession> sessions) {
+        Path file = resolve(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(sessions.size());
+                    for (ArchivedStudySession session : sessions) {
+                        out.writeInt(session.getStudyMemberUID());
+                        out.writeInt(session.getGroupUID());
+                        out.writeInt(session.getGroupMemberUID());
+                        out.writeInt(session.getUserUID());
+                        out.writeLong(session.getCreatedAt());
+                        out.writeInt(session.getStudyTime());
+                    }
+                }
+                // StudyMember에서 지우기 전에 디스크에 남아 있어야 한다
+                try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // segment의 세션을 UID 순서로 읽는다
+    public void read(String key, Consumer<ArchivedStudySession> consumer) {
+        Path file = resolve(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("segment 형식이 올바르지 않습니다. " + key);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                consumer.accept(ArchivedStudySession.builder()
+                        .studyMemberUID(in.readInt())
+                        .groupUID(in.readInt())
+                        .groupMemberUID(in.readInt())
+                        .userUID(in.readInt())
+                        .createdAt(in.readLong())
+                        .studyTime(in.readInt())
+                        .build());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 목록에 올리지 못한 segment 정리용
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            log.warn("공부 세션 segment 삭제 실패 {} {}", key, e.getMessage());
+        }
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("잘못된 segment 경로입니다. " + key);
+        }
+        return file;
+    }
+}
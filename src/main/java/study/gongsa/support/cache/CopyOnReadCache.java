@@ -0,0 +1,108 @@
+package study.gongsa.support.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import study.gongsa.domain.Category;
+import study.gongsa.domain.StudyGroup;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 캐시에 넣을 때와 꺼낼 때 값을 복사하는 Cache
+ * StudyGroup, Category는 setter가 있는 도메인 객체라서 꺼낸 쪽에서 값을 바꾸면 캐시에 든 객체까지 바뀐다.
+ * 캐시에는 호출한 쪽과 공유하지 않는 복사본만 두고, 꺼낼 때마다 새 복사본을 돌려준다.
+ */
+public class CopyOnReadCache implements Cache {
+    private final Cache delegate;
+
+    public CopyOnReadCache(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper valueWrapper = delegate.get(key);
+        return valueWrapper == null ? null : new SimpleValueWrapper(copy(valueWrapper.get()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        return (T) copy(delegate.get(key, type));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) copy(delegate.get(key, () -> (T) copy(valueLoader.call())));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, copy(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper valueWrapper = delegate.putIfAbsent(key, copy(value));
+        return valueWrapper == null ? null : new SimpleValueWrapper(copy(valueWrapper.get()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    // 바뀔 수 있는 값만 복사, 나머지(Integer, Boolean, String 등)는 그대로
+    private static Object copy(Object value) {
+        if (value instanceof StudyGroup) {
+            StudyGroup studyGroup = (StudyGroup) value;
+            return studyGroup.toBuilder()
+                    .expiredAt(studyGroup.getExpiredAt() == null ? null : (Date) studyGroup.getExpiredAt().clone())
+                    .createdAt(studyGroup.getCreatedAt() == null ? null : (Timestamp) studyGroup.getCreatedAt().clone())
+                    .updatedAt(studyGroup.getUpdatedAt() == null ? null : (Timestamp) studyGroup.getUpdatedAt().clone())
+                    .build();
+        }
+        if (value instanceof Category) {
+            Category category = (Category) value;
+            return new Category(category.getUID(), category.getName());
+        }
+        if (value instanceof List) {
+            List<Object> copied = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copied.add(copy(element));
+            }
+            return copied;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,99 @@
+package study.gongsa.support.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * replica 복제 지연 확인 (pt-heartbeat 방식)
+ * primary의 ReplicaHeartbeat에 현재 시간을 계속 쓰고, replica에서 읽은 값이 얼마나 오래됐는지로 지연을 잰다.
+ * heartbeat 간격만큼 크게 측정될 수 있으므로 maxLag는 간격보다 충분히 크게 잡는다.
+ * 지연이 maxLag를 넘거나 replica에 접속할 수 없으면 읽기도 primary로 보낸다. (datasource.replica.lag, datasource.replica.available)
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    private static final long UNKNOWN = -1;
+
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private volatile long lagMillis = UNKNOWN;
+    private volatile boolean available = false;
+
+    public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, long maxLagMillis, MeterRegistry meterRegistry) {
+        this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+        meterRegistry.gauge("datasource.replica.lag", this, monitor -> monitor.lagMillis);
+        meterRegistry.gauge("datasource.replica.available", this, monitor -> monitor.available ? 1 : 0);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    // replica에서 마지막 heartbeat를 읽어 지연을 잰 뒤 다음 heartbeat를 쓴다
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval:1000}")
+    public void check() {
+        try {
+            Long lag = replicaJdbcTemplate.query("SELECT TIMESTAMPDIFF(MICROSECOND, beatAt, NOW(3)) DIV 1000 FROM ReplicaHeartbeat WHERE UID = 1",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            update(lag == null ? UNKNOWN : lag);
+        } catch (Exception e) {
+            log.warn("replica 지연 확인 실패 {} {}", e.getClass(), e.getMessage());
+            update(UNKNOWN);
+        }
+
+        try {
+            beat();
+        } catch (Exception e) {
+            log.warn("replica heartbeat 실패 {} {}", e.getClass(), e.getMessage());
+        }
+    }
+
+    /**
+     * 지금까지 primary에 쓴 내용이 replica에 반영될 때까지 대기 (배치가 방금 쓴 집계를 replica에서 읽기 전)
+     * timeout 안에 반영되지 않으면 지연된 것으로 보고 다음 확인 전까지 primary에서 읽게 한다.
+     */
+    public boolean awaitReplicated(Duration timeout) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        try {
+            String beatAt = beat();
+            while (System.currentTimeMillis() < deadline) {
+                Integer replicated = replicaJdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM ReplicaHeartbeat WHERE UID = 1 AND beatAt >= ?", Integer.class, beatAt);
+                if (replicated != null && replicated > 0) return true;
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("replica 반영 대기 실패 {} {}", e.getClass(), e.getMessage());
+        }
+        update(UNKNOWN);
+        return false;
+    }
+
+    private String beat() {
+        String now = primaryJdbcTemplate.queryForObject("SELECT DATE_FORMAT(NOW(3), '%Y-%m-%d %H:%i:%s.%f')", String.class);
+        primaryJdbcTemplate.update("INSERT INTO ReplicaHeartbeat (UID, beatAt) VALUES (1, ?) ON DUPLICATE KEY UPDATE beatAt = VALUES(beatAt)", now);
+        return now;
+    }
+
+    private void update(long lag) {
+        boolean wasAvailable = available;
+        lagMillis = lag;
+        available = lag != UNKNOWN && lag <= maxLagMillis;
+        if (wasAvailable != available) {
+            log.warn("replica {} - 지연: {}ms, 기준: {}ms", available ? "사용" : "사용 중지(primary에서 읽음)", lag, maxLagMillis);
+        }
+    }
+}
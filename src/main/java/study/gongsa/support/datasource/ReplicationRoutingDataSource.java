@@ -0,0 +1,28 @@
+package study.gongsa.support.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 replica, 나머지는 primary로 보낸다.
+ * replica가 lag 기준을 넘으면 읽기 전용 트랜잭션도 primary로 보낸다.
+ * 트랜잭션 시작 시점이 아니라 첫 쿼리 시점에 connection을 얻도록 LazyConnectionDataSourceProxy로 감싸서 사용한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReplicationRoutingDataSource(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaLagMonitor.isAvailable()) {
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+}
@@ -1,14 +1,13 @@
 package study.gongsa.support.filter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.servlet.ServletComponentScan;
-import org.springframework.context.annotation.ComponentScan;
-import org.springframework.stereotype.Component;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.ContentCachingRequestWrapper;
-import org.springframework.web.util.ContentCachingResponseWrapper;
+import study.gongsa.support.log.LogMode;
 import study.gongsa.support.log.RequestLog;
+import study.gongsa.support.log.ResponseCaptureWrapper;
 import study.gongsa.support.log.ResponseLog;
 
 import javax.servlet.*;
@@ -16,56 +15,133 @@ import javax.servlet.annotation.WebFilter;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * API 요청 로그
+ * 모드(log.api.mode)에 따라 필요한 만큼만 읽는다. body는 앞부분 log.api.max-body-bytes까지만 복사하고 다시 파싱하지 않는다.
+ * 실제 파일 쓰기는 logback AsyncAppender(logback-spring.xml, 크기 제한 큐)에서 하고, 큐가 차면 버려서 요청 스레드는 기다리지 않는다.
+ * Authorization 헤더의 토큰과 body의 비밀번호/토큰 값(log.api.redact-fields)은 가린다.
+ */
 @Slf4j
-@WebFilter(urlPatterns = "/api/*")
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
 public class LogFilter implements Filter {
+    private static final String REDACTED = "***";
 
-    private final ObjectMapper objectMapper;
+    private final LogMode mode;
+    private final double sampleRate;
+    private final int maxBodyBytes;
+    private final Pattern redactPattern;
 
     @Autowired
-    public LogFilter(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public LogFilter(@Value("${log.api.mode:body}") String mode,
+                     @Value("${log.api.sample-rate:0.01}") double sampleRate,
+                     @Value("${log.api.max-body-bytes:2048}") int maxBodyBytes,
+                     @Value("${log.api.redact-fields:passwd,refreshToken,accessToken}") String redactFields) {
+        this.mode = LogMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+        String fields = Arrays.stream(redactFields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|"));
+        // "passwd":"..." → "passwd":"***" (body가 잘려 닫는 따옴표가 없는 값도 포함)
+        this.redactPattern = fields.isEmpty() ? null : Pattern.compile("(\"(?:" + fields + ")\"\\s*:\\s*)\"(?:[^\"\\\\]|\\\\.)*(?:\"|\\\\?$)");
     }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
-        ContentCachingRequestWrapper httpServletRequest = new ContentCachingRequestWrapper((HttpServletRequest) request);
-        ContentCachingResponseWrapper httpServletResponse = new ContentCachingResponseWrapper((HttpServletResponse) response);
-        chain.doFilter(httpServletRequest, httpServletResponse);
-
-        if(httpServletRequest.getRequestURI().contains("/api/image/")){
-            log.info("[REQUEST] {}\n[RESPONSE] {}:{}", httpServletRequest.getRequestURI(), httpServletResponse.getStatus(), httpServletResponse.getContentSize());
+        if (mode == LogMode.OFF) {
+            chain.doFilter(request, response);
             return;
         }
 
-        RequestLog requestLog = RequestLog.builder()
-                .method(httpServletRequest.getMethod())
-                .URI(httpServletRequest.getRequestURI())
-                .auth(httpServletRequest.getHeader("Authorization"))
-                .parameter(objectMapper.writeValueAsString(httpServletRequest.getParameterMap()))
-                .contentType(httpServletRequest.getContentType())
-                .build();
+        HttpServletRequest httpServletRequest = (HttpServletRequest) request;
+        HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+        boolean isSampled = mode != LogMode.SAMPLED || ThreadLocalRandom.current().nextDouble() < sampleRate;
+        // 이미지는 응답을 감싸지 않고 그대로 전송 (sendfile), SSE는 연결이 끝날 때까지 body가 이어지므로 제외
+        boolean withBody = isSampled && (mode == LogMode.BODY || mode == LogMode.SAMPLED)
+                && !httpServletRequest.getRequestURI().startsWith("/api/image/")
+                && !httpServletRequest.getRequestURI().endsWith("/stream");
+        long startTime = System.currentTimeMillis();
 
-        if("application/json".equals(httpServletRequest.getContentType())){
-            requestLog.setBody(objectMapper.readTree(httpServletRequest.getContentAsByteArray()).toString());
+        if (!withBody) {
+            chain.doFilter(request, response);
+            // SAMPLED 모드에서 뽑히지 않은 요청은 서버 오류만 남김
+            if (!isSampled && httpServletResponse.getStatus() < 500) return;
+            log.info("[REQUEST] {}\n[RESPONSE] {}",
+                    requestLog(httpServletRequest).build(),
+                    ResponseLog.builder()
+                            .httpStatus(httpServletResponse.getStatus())
+                            .elapsedTime(System.currentTimeMillis() - startTime)
+                            .build());
+            return;
         }
 
-        String jsonPartType = "", imagePartType = "";
-        try{
-            jsonPartType = httpServletRequest.getPart("json").getContentType();
-            imagePartType = httpServletRequest.getPart("image").getContentType();
-        }catch(Exception e){}
-        requestLog.setJsonPartType(jsonPartType);
-        requestLog.setImagePartType(imagePartType);
+        ContentCachingRequestWrapper requestWrapper = new ContentCachingRequestWrapper(httpServletRequest, maxBodyBytes);
+        ResponseCaptureWrapper responseWrapper = new ResponseCaptureWrapper(httpServletResponse, maxBodyBytes);
+        chain.doFilter(requestWrapper, responseWrapper);
+        long elapsedTime = System.currentTimeMillis() - startTime;
+
+        RequestLog requestLog = requestLog(requestWrapper).build();
+        String contentType = requestWrapper.getContentType();
+        if (isText(contentType)) {
+            requestLog.setBody(truncate(requestWrapper.getContentAsByteArray(), requestWrapper.getContentLengthLong()));
+        } else if (contentType != null && contentType.startsWith("multipart/")) {
+            requestLog.setParts(partTypes(requestWrapper));
+        }
 
         ResponseLog responseLog = ResponseLog.builder()
-                .httpStatus(httpServletResponse.getStatus())
-                .resContent(objectMapper.readTree(httpServletResponse.getContentAsByteArray()).toString()) //
+                .httpStatus(responseWrapper.getStatus())
+                .resContent(isText(responseWrapper.getContentType()) ? truncate(responseWrapper.getCapturedContent(), responseWrapper.getContentSize()) : null)
+                .contentSize(responseWrapper.getContentSize())
+                .elapsedTime(elapsedTime)
                 .build();
-        httpServletResponse.copyBodyToResponse();
 
         log.info("[REQUEST] {}\n[RESPONSE] {}", requestLog, responseLog);
     }
 
-}
\ No newline at end of file
+    private RequestLog.RequestLogBuilder requestLog(HttpServletRequest request) {
+        return RequestLog.builder()
+                .method(request.getMethod())
+                .URI(request.getRequestURI())
+                .parameter(request.getQueryString())
+                .contentType(request.getContentType())
+                .auth(redactAuthorization(request.getHeader(HttpHeaders.AUTHORIZATION)));
+    }
+
+    // 인증 방식(Bearer 등)만 남김
+    private String redactAuthorization(String authorization) {
+        if (authorization == null || authorization.isEmpty()) return null;
+        int space = authorization.indexOf(' ');
+        return space < 0 ? REDACTED : authorization.substring(0, space) + " " + REDACTED;
+    }
+
+    private String partTypes(HttpServletRequest request) {
+        try {
+            return request.getParts().stream()
+                    .map(part -> part.getName() + ":" + part.getContentType())
+                    .collect(Collectors.joining(","));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String truncate(byte[] content, long totalSize) {
+        if (content.length == 0) return null;
+        String body = new String(content, StandardCharsets.UTF_8);
+        if (redactPattern != null) body = redactPattern.matcher(body).replaceAll("$1\"" + REDACTED + "\"");
+        return totalSize > content.length ? body + "...(" + totalSize + " bytes)" : body;
+    }
+
+    private boolean isText(String contentType) {
+        if (contentType == null) return false;
+        return contentType.contains("json") || contentType.startsWith("text/") || contentType.startsWith("application/x-www-form-urlencoded");
+    }
+}
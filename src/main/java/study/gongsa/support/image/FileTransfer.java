@@ -0,0 +1,58 @@
+package study.gongsa.support.image;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 파일 body 전송
+ * Tomcat NIO connector가 sendfile을 지원하면 요청 attribute로 파일 경로/구간만 넘겨서 커널이 소켓으로 바로 복사하게 하고,
+ * 지원하지 않으면(테스트, 작은 파일) FileChannel.transferTo로 응답 스트림에 쓴다.
+ * 응답을 감싸서 버퍼링하는 필터(LogFilter 등)를 거치면 sendfile이 동작하지 않으므로 해당 경로는 필터에서 제외해야 한다.
+ */
+public final class FileTransfer {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // Tomcat DefaultServlet의 sendfileSize 기본값, 이보다 작으면 그냥 쓰는 게 더 빠르다
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private FileTransfer() {
+    }
+
+    // file의 [position, position + count) 구간을 body로 전송
+    public static void send(Path file, long position, long count, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) return;
+
+        if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long transferred = 0;
+            while (transferred < count) {
+                long written = channel.transferTo(position + transferred, count - transferred, output);
+                if (written <= 0) break;
+                transferred += written;
+            }
+        }
+    }
+
+    // 원격 저장소처럼 파일이 없고 내용만 있는 경우
+    public static void send(byte[] content, int position, int count, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) return;
+        response.getOutputStream().write(content, position, count);
+    }
+}
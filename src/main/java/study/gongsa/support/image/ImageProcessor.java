@@ -0,0 +1,159 @@
+package study.gongsa.support.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 업로드 이미지 디코딩 + 크기별(ImageVariant) JPEG 재인코딩
+ * 헤더 검사(validate)는 요청 스레드에서 바로 하고, 디코딩/리사이즈/인코딩은 별도 스레드 풀에서 처리한다.
+ * 큐가 가득 차면 요청 스레드에서 직접 처리해서(CallerRunsPolicy) 작업이 버려지지 않게 한다.
+ */
+@Slf4j
+@Component
+public class ImageProcessor {
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    private final float jpegQuality;
+
+    public ImageProcessor(@Value("${image.processor.pool-size:2}") int poolSize,
+                          @Value("${image.processor.queue-size:100}") int queueSize,
+                          @Value("${image.max-pixels:40000000}") long maxPixels,
+                          @Value("${image.jpeg-quality:0.85}") float jpegQuality) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new ImageThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 디코딩 가능한 이미지인지, 너무 크지 않은지 헤더만 읽어서 확인
+    public void validate(byte[] source) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "지원하지 않는 이미지 형식입니다.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지 해상도가 너무 큽니다.");
+                }
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지 업로드에 실패하였습니다.");
+        }
+    }
+
+    // source를 크기별(ImageVariant)로 줄여서 JPEG로 인코딩
+    public CompletableFuture<Map<ImageVariant, byte[]>> process(byte[] source) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+                if (image == null) throw new IOException("디코딩할 수 없는 이미지");
+
+                Map<ImageVariant, byte[]> variants = new EnumMap<>(ImageVariant.class);
+                for (ImageVariant variant : ImageVariant.values()) {
+                    variants.put(variant, encodeJpeg(resize(image, variant.getMaxEdge())));
+                }
+                log.info("이미지 변환 완료 - {}x{}, 소요 시간: {}ms", image.getWidth(), image.getHeight(), System.currentTimeMillis() - startTime);
+                return variants;
+            } catch (IOException e) {
+                log.error("이미지 변환 실패 {} {}", e.getClass(), e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    // 긴 변을 maxEdge 이하로, 한 번에 절반 이하로 줄이면 계단 현상이 생겨서 절반씩 나눠서 줄인다
+    private BufferedImage resize(BufferedImage image, int maxEdge) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = toRgb(image);
+        while (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            int nextWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int nextHeight = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            graphics.dispose();
+            current = next;
+        }
+        return current;
+    }
+
+    // JPEG는 알파 채널이 없어서 투명한 부분(PNG 등)은 흰 배경으로 채운다
+    private BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) return image;
+
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return rgb;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class ImageThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+        private int count = 0;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName("image-processor-" + (++count));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.gongsa.support.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 이미지 파일 저장소
+ * key는 "{thumb|medium|original|source}/{파일 이름}" 또는 기존 이미지처럼 폴더 없는 "{파일 이름}"
+ * image.storage.type으로 로컬 디스크(local, 기본값)와 S3 호환 저장소(s3) 중 하나를 사용한다.
+ */
+public interface ImageStorage {
+    // 파일이 있으면 수정 시각을 지금으로 바꾸고 true (미사용 이미지 배치가 지우지 않도록)
+    boolean touch(String key);
+    // 파일의 현재 수정 시각 (epoch millis), 없으면 empty
+    Optional<Long> lastModified(String key);
+    void put(String key, byte[] content);
+    Optional<StoredImage> get(String key);
+    // prefix 바로 아래 파일 목록 (하위 폴더 제외), 내용은 읽지 않는다
+    List<StoredImage> list(String prefix);
+    void delete(String key);
+
+    /**
+     * 저장된 이미지
+     * 로컬 저장소는 file(sendfile로 전송), 원격 저장소는 content에 내용을 담는다.
+     */
+    @Getter
+    @AllArgsConstructor
+    class StoredImage {
+        private final String key;
+        private final long size;
+        private final long lastModified; // epoch millis
+        private final Path file;
+        private final byte[] content;
+    }
+}
@@ -0,0 +1,29 @@
+package study.gongsa.support.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+
+/**
+ * 업로드 이미지를 다시 인코딩해서 저장하는 크기
+ * 긴 변이 maxEdge(px)를 넘지 않도록 줄이고, 원래 더 작으면 그대로 둔다.
+ */
+@Getter
+@AllArgsConstructor
+public enum ImageVariant {
+    THUMB("thumb", 160),     // 그룹/멤버 목록
+    MEDIUM("medium", 640),   // 그룹 상세, 마이페이지
+    ORIGINAL("original", 2048);
+
+    private final String value;
+    private final int maxEdge;
+
+    public static ImageVariant from(String size) {
+        if (size == null || size.isEmpty()) return ORIGINAL;
+        for (ImageVariant variant : values()) {
+            if (variant.value.equals(size)) return variant;
+        }
+        throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "size", "size는 thumb, medium, original 중 하나입니다.");
+    }
+}
@@ -0,0 +1,133 @@
+package study.gongsa.support.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 로컬 디스크 이미지 저장소 (image 폴더, key = 상대 경로)
+ * 임시 파일에 쓴 뒤 move해서 읽는 쪽이 쓰다 만 파일을 보지 않게 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalImageStorage implements ImageStorage {
+    private final Path root;
+
+    public LocalImageStorage(@Value("${image.storage.local.root:image}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean touch(String key) {
+        try {
+            Files.setLastModifiedTime(resolve(key), FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<Long> lastModified(String key) {
+        try {
+            return Optional.of(Files.getLastModifiedTime(resolve(key)).toMillis());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] content) {
+        Path file = resolve(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, content);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Optional<StoredImage> get(String key) {
+        Path file = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) return Optional.empty();
+            return Optional.of(new StoredImage(key, attributes.size(), attributes.lastModifiedTime().toMillis(), file, null));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<StoredImage> list(String prefix) {
+        Path directory = resolve(prefix.isEmpty() ? "." : prefix);
+        List<StoredImage> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return result;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .forEach(file -> {
+                        try {
+                            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                            result.add(new StoredImage(prefix + file.getFileName(), attributes.size(), attributes.lastModifiedTime().toMillis(), null, null));
+                        } catch (IOException e) {
+                            log.warn("이미지 목록 조회 실패 {} {}", file, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ../ 등으로 image 폴더 밖의 파일에 접근하지 못하게 막는다
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "image", "이미지를 불러올 수 없습니다.");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,115 @@
+package study.gongsa.support.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.*;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * S3 호환 이미지 저장소 (AWS S3, MinIO 등)
+ * image.storage.type=s3 일 때 사용, endpoint를 지정하면 path-style로 접근한다.
+ * 인증 정보는 SDK 기본 체인(환경 변수, 프로필, 인스턴스 role)에서 읽는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "image.storage.type", havingValue = "s3")
+public class S3ImageStorage implements ImageStorage {
+    private final S3Client s3Client;
+    private final String bucket;
+
+    public S3ImageStorage(@Value("${image.storage.s3.bucket}") String bucket,
+                          @Value("${image.storage.s3.region:ap-northeast-2}") String region,
+                          @Value("${image.storage.s3.endpoint:}") String endpoint) {
+        S3ClientBuilder builder = S3Client.builder().region(Region.of(region));
+        if (!endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(endpoint))
+                    .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+        }
+        this.s3Client = builder.build();
+        this.bucket = bucket;
+    }
+
+    @PreDestroy
+    public void close() {
+        s3Client.close();
+    }
+
+    // S3는 수정 시각만 바꿀 수 없어서 같은 key로 복사해 LastModified를 갱신한다
+    @Override
+    public boolean touch(String key) {
+        try {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket)
+                    .sourceKey(key)
+                    .destinationBucket(bucket)
+                    .destinationKey(key)
+                    .metadataDirective(MetadataDirective.REPLACE)
+                    .contentType("image/jpeg")
+                    .build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<Long> lastModified(String key) {
+        try {
+            return Optional.of(s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build())
+                    .lastModified().toEpochMilli());
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] content) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType("image/jpeg")
+                        .build(),
+                RequestBody.fromBytes(content));
+    }
+
+    @Override
+    public Optional<StoredImage> get(String key) {
+        try {
+            ResponseBytes<GetObjectResponse> object = s3Client.getObjectAsBytes(GetObjectRequest.builder().bucket(bucket).key(key).build());
+            byte[] content = object.asByteArray();
+            return Optional.of(new StoredImage(key, content.length, object.response().lastModified().toEpochMilli(), null, content));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public List<StoredImage> list(String prefix) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .delimiter("/")
+                .build();
+        return s3Client.listObjectsV2Paginator(request).contents().stream()
+                .map(object -> new StoredImage(object.key(), object.size(), object.lastModified().toEpochMilli(), null, null))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+}
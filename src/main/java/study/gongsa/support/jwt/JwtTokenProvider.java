@@ -1,13 +1,21 @@
 package study.gongsa.support.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
@@ -17,8 +25,42 @@ public class JwtTokenProvider {
     private final String secretKey;
     private String tokenPrefix = "Bearer ";
 
-    public JwtTokenProvider(@Value("${jwt.secretKey}")String secretKey){
+    // 서명 검증이 끝난 access token (key: token SHA-256), 토큰 만료 시각까지만 보관
+    private final Cache<String, Claims> verifiedTokens;
+    private final Counter verifiedTokenCacheHit;
+    private final Counter verifiedTokenCacheMiss;
+
+    public JwtTokenProvider(@Value("${jwt.secretKey}")String secretKey,
+                            @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+                            MeterRegistry meterRegistry){
         this.secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(getRemainingMillis(claims), 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.verifiedTokenCacheHit = Counter.builder("auth.token.verify")
+                .tag("result", "cache_hit")
+                .description("서명 검증을 생략한 access token 수")
+                .register(meterRegistry);
+        this.verifiedTokenCacheMiss = Counter.builder("auth.token.verify")
+                .tag("result", "verified")
+                .description("서명을 검증한 access token 수")
+                .register(meterRegistry);
     }
 
     public String makeAccessToken(int userUID, int userAuthUID) {
@@ -51,7 +93,33 @@ public class JwtTokenProvider {
     public Claims checkValid(String authorizationHeader) {
         validationAuthorizationHeader(authorizationHeader);
         String token = extractToken(authorizationHeader);
-        return verifyToken(token);
+
+        String tokenHash = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(tokenHash);
+        if (claims != null && getRemainingMillis(claims) > 0) {
+            verifiedTokenCacheHit.increment();
+            return claims;
+        }
+
+        // 만료된 토큰은 여기서 ExpiredJwtException
+        claims = verifyToken(token);
+        verifiedTokenCacheMiss.increment();
+        verifiedTokens.put(tokenHash, claims);
+        return claims;
+    }
+
+    private long getRemainingMillis(Claims claims) {
+        if (claims.getExpiration() == null) return 0;
+        return claims.getExpiration().getTime() - System.currentTimeMillis();
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private void validationAuthorizationHeader(String header) {
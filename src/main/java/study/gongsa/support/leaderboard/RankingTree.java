@@ -0,0 +1,186 @@
+package study.gongsa.support.leaderboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 공부 시간(초) 기준 순위 트리 (treap)
+ * 같은 공부 시간은 한 노드에 모아서 DENSE_RANK와 같은 순위를 계산한다.
+ * 노드마다 subtree의 노드 수(= 서로 다른 공부 시간 수)를 저장해서
+ * 추가/삭제/순위 조회를 O(log n)에 처리한다.
+ * thread-safe 하지 않으므로 사용하는 쪽에서 동기화해야 한다.
+ */
+public class RankingTree {
+    private final Map<Integer, Long> scores = new HashMap<>();
+    private Node root;
+
+    public void put(int id, long score) {
+        Long oldScore = scores.put(id, score);
+        if (oldScore != null) {
+            if (oldScore == score) return;
+            detach(id, oldScore);
+        }
+
+        Node node = find(score);
+        if (node == null) {
+            node = new Node(score);
+            Node[] splitted = split(root, score);
+            root = merge(merge(splitted[0], node), splitted[1]);
+        }
+        node.ids.add(id);
+    }
+
+    public void remove(int id) {
+        Long oldScore = scores.remove(id);
+        if (oldScore != null) {
+            detach(id, oldScore);
+        }
+    }
+
+    public boolean contains(int id) {
+        return scores.containsKey(id);
+    }
+
+    public Set<Integer> ids() {
+        return Collections.unmodifiableSet(scores.keySet());
+    }
+
+    public int size() {
+        return scores.size();
+    }
+
+    public Optional<Entry> getEntry(int id) {
+        Long score = scores.get(id);
+        if (score == null) return Optional.empty();
+        return Optional.of(new Entry(id, score, countHigher(score) + 1));
+    }
+
+    // 공부 시간 내림차순으로 limit개
+    public List<Entry> top(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, scores.size()));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node current = root;
+        int rank = 0;
+
+        while ((current != null || !stack.isEmpty()) && result.size() < limit) {
+            while (current != null) {
+                stack.push(current);
+                current = current.left;
+            }
+            current = stack.pop();
+            rank++;
+            for (Integer id : current.ids) {
+                if (result.size() >= limit) break;
+                result.add(new Entry(id, current.score, rank));
+            }
+            current = current.right;
+        }
+        return result;
+    }
+
+    private void detach(int id, long score) {
+        Node node = find(score);
+        node.ids.remove(id);
+        if (node.ids.isEmpty()) {
+            root = delete(root, score);
+        }
+    }
+
+    private Node find(long score) {
+        Node current = root;
+        while (current != null && current.score != score) {
+            current = current.score > score ? current.right : current.left;
+        }
+        return current;
+    }
+
+    // score보다 공부 시간이 긴 노드 수
+    private int countHigher(long score) {
+        int count = 0;
+        Node current = root;
+        while (current != null) {
+            if (current.score > score) {
+                count += size(current.left) + 1;
+                current = current.right;
+            } else if (current.score < score) {
+                current = current.left;
+            } else {
+                count += size(current.left);
+                break;
+            }
+        }
+        return count;
+    }
+
+    // 왼쪽 subtree가 공부 시간이 더 길다. [score 초과, score 이하]로 분리
+    private Node[] split(Node node, long score) {
+        if (node == null) return new Node[]{null, null};
+        if (node.score > score) {
+            Node[] splitted = split(node.right, score);
+            node.right = splitted[0];
+            update(node);
+            return new Node[]{node, splitted[1]};
+        }
+        Node[] splitted = split(node.left, score);
+        node.left = splitted[1];
+        update(node);
+        return new Node[]{splitted[0], node};
+    }
+
+    // higher의 모든 score가 lower보다 크다
+    private Node merge(Node higher, Node lower) {
+        if (higher == null) return lower;
+        if (lower == null) return higher;
+        if (higher.priority > lower.priority) {
+            higher.right = merge(higher.right, lower);
+            update(higher);
+            return higher;
+        }
+        lower.left = merge(higher, lower.left);
+        update(lower);
+        return lower;
+    }
+
+    private Node delete(Node node, long score) {
+        if (node == null) return null;
+        if (node.score == score) return merge(node.left, node.right);
+        if (node.score < score) {
+            node.left = delete(node.left, score);
+        } else {
+            node.right = delete(node.right, score);
+        }
+        update(node);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static class Node {
+        private final long score;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private final Set<Integer> ids = new LinkedHashSet<>();
+        private int size = 1;
+        private Node left, right;
+
+        Node(long score) {
+            this.score = score;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final int id;
+        private final long score;
+        private final int rank;
+    }
+}
@@ -0,0 +1,12 @@
+package study.gongsa.support.log;
+
+/**
+ * API 요청 로그 모드 (log.api.mode)
+ * OFF: 남기지 않음
+ * SAMPLED: log.api.sample-rate 비율의 요청만 BODY처럼 남기고, 나머지는 5xx 응답만 HEADERS처럼 남김
+ * HEADERS: method, URI, query, 상태 코드, 처리 시간만 (body를 감싸지 않음)
+ * BODY: HEADERS + 요청/응답 body 앞부분(log.api.max-body-bytes)
+ */
+public enum LogMode {
+    OFF, SAMPLED, HEADERS, BODY
+}
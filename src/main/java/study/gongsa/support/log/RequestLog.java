@@ -11,12 +11,11 @@ import lombok.*;
 public class RequestLog {
     String method;
     String URI;
-    String parameter;
+    String parameter; // query string
     String body;
 
     String contentType;
-    String imagePartType;
-    String jsonPartType;
+    String parts; // multipart 요청의 part 이름:content type
 
-    String auth;
-}
\ No newline at end of file
+    String auth; // 인증 방식만 남기고 토큰은 가림
+}
@@ -0,0 +1,108 @@
+package study.gongsa.support.log;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * 응답 body를 그대로 내보내면서 앞부분 limit byte만 복사해 두는 wrapper
+ * ContentCachingResponseWrapper처럼 전체 body를 모았다가 다시 쓰지 않아서 응답 크기와 상관없이 메모리는 limit까지만 쓴다.
+ */
+public class ResponseCaptureWrapper extends HttpServletResponseWrapper {
+    private final int limit;
+    private final ByteArrayOutputStream captured;
+    private long contentSize = 0;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public ResponseCaptureWrapper(HttpServletResponse response, int limit) {
+        super(response);
+        this.limit = limit;
+        this.captured = new ByteArrayOutputStream(Math.min(limit, 1024));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        super.flushBuffer();
+    }
+
+    public byte[] getCapturedContent() {
+        if (writer != null) writer.flush();
+        return captured.toByteArray();
+    }
+
+    // 실제로 내보낸 전체 body 크기
+    public long getContentSize() {
+        if (writer != null) writer.flush();
+        return contentSize;
+    }
+
+    private void capture(byte[] bytes, int offset, int length) {
+        contentSize += length;
+        int remaining = limit - captured.size();
+        if (remaining > 0) captured.write(bytes, offset, Math.min(remaining, length));
+    }
+
+    private class CaptureOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+
+        private CaptureOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            capture(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -11,4 +11,6 @@ import lombok.*;
 public class ResponseLog {
     int httpStatus;
     String resContent;
+    Long contentSize;
+    long elapsedTime; // ms
 }
@@ -0,0 +1,63 @@
+package study.gongsa.support.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JdbcTemplate*Repository 메서드별 실행 시간(repository.method)과 조회 row 수(repository.rows)
+ * 캐시 hit은 DB를 거치지 않으므로 포함하지 않는다. (CacheConfig에서 캐시 advice를 먼저 적용)
+ * 느린 SQL 자체(SQL + 바인딩 값)는 log4jdbc.sqltiming.warn.threshold를 넘으면 jdbc.sqltiming 로거가 WARN으로 남긴다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * study.gongsa.repository.JdbcTemplate*Repository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Object result = joinPoint.proceed();
+            int rows = countRows(result);
+            if (rows >= 0) {
+                DistributionSummary.builder("repository.rows")
+                        .tag("repository", repository)
+                        .tag("method", method)
+                        .register(meterRegistry)
+                        .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("repository.method")
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    // 조회 결과의 row 수, 조회가 아니면 -1
+    private int countRows(Object result) {
+        if (result instanceof Collection) return ((Collection<?>) result).size();
+        if (result instanceof Map) return ((Map<?, ?>) result).size();
+        if (result instanceof Optional) return ((Optional<?>) result).isPresent() ? 1 : 0;
+        return -1;
+    }
+}
@@ -0,0 +1,37 @@
+package study.gongsa.support.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이지네이션 cursor
+ * 마지막으로 내려준 항목의 정렬 값(sortKey)과 UID를 "sortKey:UID" 형태로 base64url 인코딩해서 주고받는다.
+ */
+@Getter
+@AllArgsConstructor
+public class Cursor {
+    private final long sortKey;
+    private final int UID;
+
+    public String encode() {
+        String value = sortKey + ":" + UID;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // cursor가 없으면 null (첫 페이지)
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new Cursor(Long.parseLong(value.substring(0, separator)), Integer.parseInt(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalStateExceptionWithLocation(HttpStatus.BAD_REQUEST, "cursor", "잘못된 cursor입니다.");
+        }
+    }
+}
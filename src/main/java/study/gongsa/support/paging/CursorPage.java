@@ -0,0 +1,32 @@
+package study.gongsa.support.paging;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * keyset 페이지네이션 결과
+ * repository에서 size + 1개를 조회해서 다음 페이지가 있는지 확인하고, 있으면 마지막 항목으로 nextCursor를 만든다.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> items;
+    private final String nextCursor; // 마지막 페이지면 null
+
+    public static int toSize(Integer size) {
+        return size == null ? DEFAULT_SIZE : Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> cursorOf) {
+        if (rows.size() <= size) return new CursorPage<>(rows, null);
+
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+}
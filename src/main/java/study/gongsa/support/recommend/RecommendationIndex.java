@@ -0,0 +1,162 @@
+package study.gongsa.support.recommend;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 공개 스터디 그룹 추천 인덱스
+ * 카테고리별 그룹 UID 목록(posting list)과 전체 공개 그룹 목록을 메모리에 유지하고,
+ * 목록 안의 임의 위치를 뽑는 방식으로 그룹 수와 상관없이 정해진 횟수 안에 추천 그룹을 고른다.
+ */
+public class RecommendationIndex {
+    // 한 번 추천에 시도하는 최대 위치 수 = size * MAX_ATTEMPT_RATIO
+    private static final int MAX_ATTEMPT_RATIO = 8;
+
+    private final Map<Integer, PostingList> categoryPostings = new HashMap<>();
+    private final PostingList allPostings = new PostingList();
+    private final Map<Integer, LocalDate> expiredAts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(int groupUID, Collection<Integer> categoryUIDs, LocalDate expiredAt) {
+        lock.writeLock().lock();
+        try {
+            expiredAts.put(groupUID, expiredAt);
+            allPostings.add(groupUID);
+            for (Integer categoryUID : categoryUIDs) {
+                categoryPostings.computeIfAbsent(categoryUID, key -> new PostingList()).add(groupUID);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int groupUID) {
+        lock.writeLock().lock();
+        try {
+            if (expiredAts.remove(groupUID) == null) return;
+            allPostings.remove(groupUID);
+            categoryPostings.values().forEach(postings -> postings.remove(groupUID));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // today 이전에 종료된 그룹 제거
+    public int removeExpired(LocalDate today) {
+        List<Integer> expiredGroupUIDs;
+        lock.readLock().lock();
+        try {
+            expiredGroupUIDs = new ArrayList<>();
+            expiredAts.forEach((groupUID, expiredAt) -> {
+                if (expiredAt != null && expiredAt.isBefore(today)) expiredGroupUIDs.add(groupUID);
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        expiredGroupUIDs.forEach(this::remove);
+        return expiredGroupUIDs.size();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return allPostings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * categoryUIDs 중 하나라도 속한 그룹을 최대 size개 무작위로 뽑는다. 순서도 무작위.
+     * 해당 카테고리 그룹이 없으면 전체 공개 그룹에서 뽑는다.
+     */
+    public List<Integer> sample(Collection<Integer> categoryUIDs, int size, LocalDate today) {
+        lock.readLock().lock();
+        try {
+            List<PostingList> postings = new ArrayList<>();
+            for (Integer categoryUID : new HashSet<>(categoryUIDs)) {
+                PostingList categoryPosting = categoryPostings.get(categoryUID);
+                if (categoryPosting != null && categoryPosting.size() > 0) postings.add(categoryPosting);
+            }
+            if (postings.isEmpty()) postings.add(allPostings);
+            return sample(postings, size, today);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> sample(List<PostingList> postings, int size, LocalDate today) {
+        int total = postings.stream().mapToInt(PostingList::size).sum();
+        Set<Integer> result = new LinkedHashSet<>();
+        if (total == 0 || size <= 0) return new ArrayList<>(result);
+
+        if (total <= size * 2) {
+            // 후보가 적으면 전부 모아서 섞는다
+            List<Integer> candidates = new ArrayList<>();
+            for (PostingList posting : postings) {
+                for (int i = 0; i < posting.size(); i++) {
+                    int groupUID = posting.get(i);
+                    if (isAvailable(groupUID, today) && !candidates.contains(groupUID)) candidates.add(groupUID);
+                }
+            }
+            Collections.shuffle(candidates, ThreadLocalRandom.current());
+            return candidates.subList(0, Math.min(size, candidates.size()));
+        }
+
+        // 여러 posting list를 하나로 이어 붙인 것처럼 보고 임의 위치를 뽑는다
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < size * MAX_ATTEMPT_RATIO && result.size() < size; attempt++) {
+            int offset = random.nextInt(total);
+            for (PostingList posting : postings) {
+                if (offset < posting.size()) {
+                    int groupUID = posting.get(offset);
+                    if (isAvailable(groupUID, today)) result.add(groupUID);
+                    break;
+                }
+                offset -= posting.size();
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private boolean isAvailable(int groupUID, LocalDate today) {
+        LocalDate expiredAt = expiredAts.get(groupUID);
+        return expiredAt == null || !expiredAt.isBefore(today);
+    }
+
+    // 그룹 UID 목록, 위치를 같이 저장해서 추가/삭제/임의 접근 모두 O(1)
+    private static class PostingList {
+        private final List<Integer> groupUIDs = new ArrayList<>();
+        private final Map<Integer, Integer> positions = new HashMap<>();
+
+        void add(int groupUID) {
+            if (positions.containsKey(groupUID)) return;
+            positions.put(groupUID, groupUIDs.size());
+            groupUIDs.add(groupUID);
+        }
+
+        void remove(int groupUID) {
+            Integer position = positions.remove(groupUID);
+            if (position == null) return;
+
+            // 마지막 원소를 지운 자리로 옮긴다
+            int last = groupUIDs.remove(groupUIDs.size() - 1);
+            if (last != groupUID) {
+                groupUIDs.set(position, last);
+                positions.put(last, position);
+            }
+        }
+
+        int get(int index) {
+            return groupUIDs.get(index);
+        }
+
+        int size() {
+            return groupUIDs.size();
+        }
+    }
+}
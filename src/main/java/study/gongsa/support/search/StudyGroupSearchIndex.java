@@ -0,0 +1,259 @@
+package study.gongsa.support.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import study.gongsa.support.paging.Cursor;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 공개 스터디 그룹 검색 인덱스
+ * 그룹 이름, 코드를 공백 제거 + 소문자로 정규화한 뒤 1-gram, 2-gram 단위로 역색인한다. (한글은 형태소 분석 없이 글자 단위로)
+ * 검색어의 2-gram posting을 교집합해서 후보를 찾고, 실제로 검색어를 포함하는지 한 번 더 확인한다.
+ * 정렬(latest/expire)은 TreeSet으로 유지하고 keyset cursor 이후부터 size개만 꺼낸다.
+ */
+public class StudyGroupSearchIndex {
+    public static final String LATEST = "latest";
+    public static final String EXPIRE = "expire";
+    public static final String RANDOM = "random";
+
+    // 최신순: createdAt desc, UID desc
+    private static final Comparator<Document> LATEST_ORDER = Comparator.comparingLong(Document::getCreatedAt).reversed()
+            .thenComparing(Comparator.comparingInt(Document::getGroupUID).reversed());
+    // 종료 임박순: expiredAt asc, UID asc
+    private static final Comparator<Document> EXPIRE_ORDER = Comparator.comparingLong(Document::getExpiredAt)
+            .thenComparingInt(Document::getGroupUID);
+    // 후보가 전체의 1/4보다 적으면 후보만 정렬, 아니면 정렬된 전체 목록을 순회
+    private static final int CANDIDATE_RATIO = 4;
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final Map<String, Set<Integer>> termPostings = new HashMap<>();
+    private final Map<Integer, Set<Integer>> categoryPostings = new HashMap<>();
+    private final NavigableSet<Document> latestDocuments = new TreeSet<>(LATEST_ORDER);
+    private final NavigableSet<Document> expireDocuments = new TreeSet<>(EXPIRE_ORDER);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.getGroupUID());
+
+            documents.put(document.getGroupUID(), document);
+            for (String term : tokenize(document.getName(), document.getCode())) {
+                termPostings.computeIfAbsent(term, key -> new HashSet<>()).add(document.getGroupUID());
+            }
+            for (Integer categoryUID : document.getCategoryUIDs()) {
+                categoryPostings.computeIfAbsent(categoryUID, key -> new HashSet<>()).add(document.getGroupUID());
+            }
+            latestDocuments.add(document);
+            expireDocuments.add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int groupUID) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(groupUID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // today 이전에 종료된 그룹 제거
+    public int removeExpired(LocalDate today) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> expiredGroupUIDs = new ArrayList<>();
+            for (Document document : expireDocuments) {
+                if (document.getExpiredAt() >= today.toEpochDay()) break;
+                expiredGroupUIDs.add(document.getGroupUID());
+            }
+            expiredGroupUIDs.forEach(this::removeDocument);
+            return expiredGroupUIDs.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * word(이름/코드 포함), categoryUIDs(하나라도 포함), isCam 조건으로 검색
+     * align이 random이면 cursor 없이 무작위로 size개를 반환한다.
+     */
+    public Page search(String word, Collection<Integer> categoryUIDs, Boolean isCam, String align, Cursor cursor, int size) {
+        lock.readLock().lock();
+        try {
+            String normalizedWord = normalize(word);
+            Set<Integer> categories = categoryUIDs == null ? null : new HashSet<>(categoryUIDs);
+            Set<Integer> candidates = findCandidates(normalizedWord, categories);
+
+            if (RANDOM.equals(align)) {
+                return sample(candidates, normalizedWord, categories, isCam, size);
+            }
+
+            boolean isExpireOrder = EXPIRE.equals(align);
+            Comparator<Document> order = isExpireOrder ? EXPIRE_ORDER : LATEST_ORDER;
+            Document after = cursor == null ? null : Document.builder()
+                    .groupUID(cursor.getUID())
+                    .createdAt(cursor.getSortKey())
+                    .expiredAt(cursor.getSortKey())
+                    .build();
+
+            List<Document> page = new ArrayList<>(size + 1);
+            if (candidates != null && candidates.size() * CANDIDATE_RATIO < documents.size()) {
+                candidates.stream()
+                        .map(documents::get)
+                        .filter(document -> after == null || order.compare(document, after) > 0)
+                        .filter(document -> matches(document, normalizedWord, categories, isCam))
+                        .sorted(order)
+                        .limit(size + 1)
+                        .forEach(page::add);
+            } else {
+                NavigableSet<Document> sorted = isExpireOrder ? expireDocuments : latestDocuments;
+                for (Document document : after == null ? sorted : sorted.tailSet(after, false)) {
+                    if (!matches(document, normalizedWord, categories, isCam)) continue;
+                    page.add(document);
+                    if (page.size() > size) break;
+                }
+            }
+
+            String nextCursor = null;
+            if (page.size() > size) {
+                page = page.subList(0, size);
+                Document last = page.get(size - 1);
+                nextCursor = new Cursor(isExpireOrder ? last.getExpiredAt() : last.getCreatedAt(), last.getGroupUID()).encode();
+            }
+            return new Page(page.stream().map(Document::getGroupUID).collect(Collectors.toList()), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 검색어/카테고리로 좁힌 후보, 조건이 없으면 null (전체)
+    private Set<Integer> findCandidates(String normalizedWord, Set<Integer> categories) {
+        if (!normalizedWord.isEmpty()) {
+            List<Set<Integer>> postings = new ArrayList<>();
+            for (String term : queryTerms(normalizedWord)) {
+                Set<Integer> posting = termPostings.get(term);
+                if (posting == null) return new HashSet<>();
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<Integer> candidates = new HashSet<>(postings.get(0));
+            for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+                candidates.retainAll(postings.get(i));
+            }
+            return candidates;
+        }
+        if (categories != null) {
+            Set<Integer> candidates = new HashSet<>();
+            for (Integer categoryUID : categories) {
+                candidates.addAll(categoryPostings.getOrDefault(categoryUID, Collections.emptySet()));
+            }
+            return candidates;
+        }
+        return null;
+    }
+
+    private Page sample(Set<Integer> candidates, String normalizedWord, Set<Integer> categories, Boolean isCam, int size) {
+        List<Document> matched = (candidates == null ? documents.values() : candidates.stream().map(documents::get).collect(Collectors.toList()))
+                .stream()
+                .filter(document -> matches(document, normalizedWord, categories, isCam))
+                .collect(Collectors.toList());
+        Collections.shuffle(matched, ThreadLocalRandom.current());
+        return new Page(matched.stream()
+                .limit(size)
+                .map(Document::getGroupUID)
+                .collect(Collectors.toList()), null);
+    }
+
+    private boolean matches(Document document, String normalizedWord, Set<Integer> categories, Boolean isCam) {
+        if (isCam != null && !isCam.equals(document.getIsCam())) return false;
+        if (categories != null && Collections.disjoint(categories, document.getCategoryUIDs())) return false;
+        if (normalizedWord.isEmpty()) return true;
+        return normalize(document.getName()).contains(normalizedWord) || normalize(document.getCode()).contains(normalizedWord);
+    }
+
+    private void removeDocument(int groupUID) {
+        Document document = documents.remove(groupUID);
+        if (document == null) return;
+
+        for (String term : tokenize(document.getName(), document.getCode())) {
+            Set<Integer> posting = termPostings.get(term);
+            if (posting == null) continue;
+            posting.remove(groupUID);
+            if (posting.isEmpty()) termPostings.remove(term);
+        }
+        for (Integer categoryUID : document.getCategoryUIDs()) {
+            Set<Integer> posting = categoryPostings.get(categoryUID);
+            if (posting == null) continue;
+            posting.remove(groupUID);
+            if (posting.isEmpty()) categoryPostings.remove(categoryUID);
+        }
+        latestDocuments.remove(document);
+        expireDocuments.remove(document);
+    }
+
+    private static Set<String> tokenize(String... texts) {
+        Set<String> terms = new HashSet<>();
+        for (String text : texts) {
+            String normalized = normalize(text);
+            for (int i = 0; i < normalized.length(); i++) {
+                terms.add(normalized.substring(i, i + 1));
+                if (i + 1 < normalized.length()) terms.add(normalized.substring(i, i + 2));
+            }
+        }
+        return terms;
+    }
+
+    private static Set<String> queryTerms(String normalizedWord) {
+        if (normalizedWord.length() == 1) return Set.of(normalizedWord);
+
+        Set<String> terms = new HashSet<>();
+        for (int i = 0; i + 1 < normalizedWord.length(); i++) {
+            terms.add(normalizedWord.substring(i, i + 2));
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) return "";
+        return text.replaceAll("\\s+", "").toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @Builder
+    public static class Document {
+        private final int groupUID;
+        private final String name;
+        private final String code;
+        private final Boolean isCam;
+        @Builder.Default
+        private final Set<Integer> categoryUIDs = new HashSet<>();
+        private final long createdAt; // epoch millis
+        private final long expiredAt; // epoch day
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Page {
+        private final List<Integer> groupUIDs;
+        private final String nextCursor;
+    }
+}
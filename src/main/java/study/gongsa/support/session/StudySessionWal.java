@@ -0,0 +1,123 @@
+package study.gongsa.support.session;
+
+import lombok.extern.slf4j.Slf4j;
+import study.gongsa.domain.StudySession;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 공부 세션 상태 write-ahead 파일
+ * 메모리에 모아둔 상태가 DB에 쓰이기 전에 서버가 죽어도 잃지 않도록 받은 순서대로 한 줄씩 남긴다. (studyMemberUID, studyStatus, studyTime)
+ * 파일은 segment({sequence}.wal)로 나누고, flush할 때 새 segment로 바꾼 뒤 DB 반영이 끝난 이전 segment를 지운다.
+ * 한 줄이 세션의 전체 상태라서 여러 번 다시 읽어도 결과가 같다. (heartbeat처럼 상태 없이 시간만 바뀐 줄은 상태를 비워둔다)
+ * thread-safe 하지 않으므로 사용하는 쪽에서 동기화해야 한다.
+ */
+@Slf4j
+public class StudySessionWal {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^([0-9]+)\\.wal$");
+    private static final Pattern STUDY_TIME = Pattern.compile("^[0-9]{1,3}:[0-5][0-9]:[0-5][0-9]$");
+
+    private final Path directory;
+    private long sequence;
+    private FileChannel channel;
+
+    public StudySessionWal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        sequence = segments().stream().mapToLong(this::sequenceOf).max().orElse(0) + 1;
+        channel = open(sequence);
+    }
+
+    // 프로세스가 죽어도 OS에 넘어간 내용은 남는다 (fsync는 rotate에서)
+    public void append(StudySession studySession) throws IOException {
+        String line = studySession.getStudyMemberUID() + "\t" + Objects.toString(studySession.getStudyStatus(), "") + "\t" + studySession.getStudyTime() + "\n";
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // 현재 segment를 닫고 새 segment로 바꾼 뒤 닫은 segment의 sequence 반환
+    public long rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        long closed = sequence;
+        channel = open(++sequence);
+        return closed;
+    }
+
+    // DB 반영이 끝난 segment 삭제 (sequence 이하)
+    public void deleteUpTo(long upTo) {
+        for (Path segment : segments()) {
+            if (sequenceOf(segment) > upTo) continue;
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("공부 세션 WAL 삭제 실패 {} {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    // 남아 있는 모든 segment를 오래된 순서로 읽는다 (마지막 줄이 끝까지 쓰이지 않았으면 버림)
+    public List<StudySession> readAll() throws IOException {
+        List<StudySession> studySessions = new ArrayList<>();
+        for (Path segment : segments()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if (fields.length != 3 || !STUDY_TIME.matcher(fields[2]).matches()) continue;
+                    try {
+                        studySessions.add(StudySession.builder()
+                                .studyMemberUID(Integer.parseInt(fields[0]))
+                                .studyStatus(fields[1].isEmpty() ? null : fields[1])
+                                .studyTime(fields[2])
+                                .build());
+                    } catch (NumberFormatException e) {
+                        log.warn("공부 세션 WAL 형식 오류 {} {}", segment, line);
+                    }
+                }
+            }
+        }
+        return studySessions;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open(long sequence) throws IOException {
+        return FileChannel.open(directory.resolve(sequence + ".wal"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("공부 세션 WAL 목록 조회 실패 {} {}", directory, e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private long sequenceOf(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,10 @@
+-- 배치 작업 재시작 지점 (chunk 단위 커밋)
+CREATE TABLE IF NOT EXISTS BatchCheckpoint (
+    jobName     VARCHAR(50) NOT NULL,
+    runKey      VARCHAR(20) NOT NULL,
+    lastUID     INT         NOT NULL DEFAULT 0,
+    isCompleted TINYINT(1)  NOT NULL DEFAULT 0,
+    startedAt   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updatedAt   DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (jobName, runKey)
+);
@@ -0,0 +1,5 @@
+-- 만료 그룹 삭제 배치: 만료된 그룹을 expiredAt 범위로 찾고, 그룹에 딸린 행을 groupUID 인덱스로 LIMIT개씩 지운다
+-- (Question, Answer, GroupMember, StudyTimeWeekly는 기존 인덱스 사용)
+CREATE INDEX idx_studygroup_expiredAt ON StudyGroup (expiredAt, UID);
+CREATE INDEX idx_studymember_group ON StudyMember (groupUID);
+CREATE INDEX idx_groupcategory_group ON GroupCategory (groupUID);
@@ -0,0 +1,5 @@
+-- 스터디 그룹 탈퇴: 리더가 나가면 가장 먼저 가입한 멤버를 리더로 (ORDER BY createdAt, UID LIMIT 1)
+CREATE INDEX idx_groupmember_group_createdAt ON GroupMember (groupUID, createdAt, UID);
+
+-- 스터디 그룹 가입: 같은 유저가 같은 그룹에 두 번 가입하지 않도록 (가입/탈퇴 시 그룹 멤버 조회에도 사용)
+ALTER TABLE GroupMember ADD CONSTRAINT uk_groupmember_group_user UNIQUE (groupUID, userUID);
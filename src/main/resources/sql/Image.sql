@@ -0,0 +1,2 @@
+-- 회원가입 시 점이 빠진 기본 이미지 이름(r{n}jpg) 수정
+UPDATE User SET imgPath = CONCAT(LEFT(imgPath, LENGTH(imgPath) - 3), '.jpg') WHERE imgPath REGEXP '^r[0-9]+jpg$';
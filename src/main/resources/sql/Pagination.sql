@@ -0,0 +1,9 @@
+-- 목록 API keyset 페이지네이션용 인덱스
+-- WHERE 조건 컬럼 + (createdAt, UID) 순서라서 cursor 이후 LIMIT개만 인덱스 순서대로 읽는다
+CREATE INDEX idx_question_user_createdAt ON Question (userUID, createdAt, UID);
+CREATE INDEX idx_question_group_createdAt ON Question (groupUID, createdAt, UID);
+CREATE INDEX idx_answer_question_createdAt ON Answer (questionUID, createdAt, UID);
+
+-- 나의 스터디 그룹: 유저가 가입한 그룹만 찾은 뒤 StudyGroup(createdAt, UID)로 정렬
+CREATE INDEX idx_groupmember_user_group ON GroupMember (userUID, groupUID);
+CREATE INDEX idx_studygroup_createdAt ON StudyGroup (createdAt, UID);
@@ -0,0 +1,5 @@
+-- replica 복제 지연 확인용 (ReplicaLagMonitor), primary에 만들면 replica로 복제된다
+CREATE TABLE ReplicaHeartbeat (
+    UID INT NOT NULL PRIMARY KEY,
+    beatAt DATETIME(3) NOT NULL
+);
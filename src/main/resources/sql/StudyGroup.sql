@@ -0,0 +1,6 @@
+-- 스터디 그룹 멤버 수 (가입/탈퇴 트랜잭션에서 함께 갱신, 매일 배치로 GroupMember 수와 맞춤)
+ALTER TABLE StudyGroup ADD COLUMN memberCount INT NOT NULL DEFAULT 0;
+
+UPDATE StudyGroup a
+LEFT JOIN (SELECT groupUID, COUNT(*) AS memberCnt FROM GroupMember GROUP BY groupUID) b ON a.UID = b.groupUID
+SET a.memberCount = IFNULL(b.memberCnt, 0);
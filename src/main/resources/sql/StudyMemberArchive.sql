@@ -0,0 +1,35 @@
+-- 오래된 공부 세션(StudyMember) 보관 목록
+-- study-member.archive.retention-weeks 주 이전에 시작해서 끝난 세션은 압축 segment 파일로 옮기고 StudyMember에서 지운다.
+-- segment 하나가 한 행이며, 행 추가(StudyMemberArchiveDaily 포함)와 StudyMember 삭제는 한 트랜잭션에서 처리한다. (목록에 없는 segment 파일은 읽지 않음)
+-- archivedBefore 이전 주의 StudyTimeWeekly는 다시 집계하지 않는다. (StudyMember에 남은 기록만으로 집계하면 줄어들기 때문)
+CREATE TABLE IF NOT EXISTS StudyMemberArchive (
+    UID            INT          NOT NULL AUTO_INCREMENT,
+    path           VARCHAR(255) NOT NULL, -- study-member.archive.dir 기준 상대 경로
+    firstUID       INT          NOT NULL, -- segment에 담긴 StudyMember.UID 범위
+    lastUID        INT          NOT NULL,
+    rowCount       INT          NOT NULL,
+    studyTime      BIGINT       NOT NULL, -- 초
+    minCreatedAt   DATETIME     NOT NULL, -- segment에 담긴 세션 시작 시각 범위
+    maxCreatedAt   DATETIME     NOT NULL,
+    archivedBefore DATE         NOT NULL, -- 보관 기준일(월요일), 이 날짜 이전에 시작한 세션만 담겨 있다
+    createdAt      DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (UID),
+    UNIQUE KEY uk_studymemberarchive_path (path),
+    KEY idx_studymemberarchive_createdAt (minCreatedAt, maxCreatedAt)
+);
+
+-- 보관한 세션의 그룹 멤버별, 날짜(세션 시작 날짜)별 공부 시간 합계
+-- 기간별 공부 시간 조회는 segment를 읽지 않고 이 테이블로 계산한다. studyTime은 초 단위
+CREATE TABLE IF NOT EXISTS StudyMemberArchiveDaily (
+    archiveUID     INT    NOT NULL, -- StudyMemberArchive.UID
+    groupMemberUID INT    NOT NULL,
+    studyDate      DATE   NOT NULL,
+    userUID        INT    NOT NULL,
+    studyTime      BIGINT NOT NULL,
+    PRIMARY KEY (archiveUID, groupMemberUID, studyDate),
+    KEY idx_studymemberarchivedaily_user (userUID, studyDate)
+);
+
+-- 보관 대상 범위 조회, 유저별 기간 공부 시간 조회
+CREATE INDEX idx_studymember_createdAt ON StudyMember (createdAt);
+CREATE INDEX idx_studymember_user_createdAt ON StudyMember (userUID, createdAt);
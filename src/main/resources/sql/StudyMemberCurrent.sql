@@ -0,0 +1,54 @@
+-- 그룹 멤버별 마지막 공부 세션 (스터디 화면 조회용)
+-- StudyMember는 공부 서버에서도 직접 쓰므로 트리거로 갱신한다. 세션 시작(INSERT), 상태/시간 변경(UPDATE), 삭제(DELETE) 모두 반영
+-- 마지막 세션은 StudyMember.UID가 가장 큰 세션 (나중에 시작한 세션)
+CREATE TABLE IF NOT EXISTS StudyMemberCurrent (
+    groupMemberUID INT         NOT NULL,
+    groupUID       INT         NOT NULL,
+    userUID        INT         NOT NULL,
+    studyMemberUID INT         NOT NULL,
+    studyStatus    VARCHAR(20) NOT NULL,
+    studyTime      TIME        NULL,
+    createdAt      DATETIME    NOT NULL,
+    updatedAt      DATETIME    NOT NULL,
+    PRIMARY KEY (groupMemberUID),
+    KEY idx_studymembercurrent_group (groupUID)
+);
+
+DROP TRIGGER IF EXISTS trg_studymember_after_insert;
+CREATE TRIGGER trg_studymember_after_insert AFTER INSERT ON StudyMember FOR EACH ROW
+    INSERT INTO StudyMemberCurrent (groupMemberUID, groupUID, userUID, studyMemberUID, studyStatus, studyTime, createdAt, updatedAt)
+    VALUES (NEW.groupMemberUID, NEW.groupUID, NEW.userUID, NEW.UID, NEW.studyStatus, TIME(NEW.studyTime), NEW.createdAt, NEW.updatedAt)
+    ON DUPLICATE KEY UPDATE
+        -- studyMemberUID는 마지막에 바꿔야 앞의 비교가 이전 값을 사용한다
+        groupUID    = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(groupUID), groupUID),
+        userUID     = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(userUID), userUID),
+        studyStatus = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(studyStatus), studyStatus),
+        studyTime   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(studyTime), studyTime),
+        createdAt   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(createdAt), createdAt),
+        updatedAt   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(updatedAt), updatedAt),
+        studyMemberUID = GREATEST(studyMemberUID, VALUES(studyMemberUID));
+
+DROP TRIGGER IF EXISTS trg_studymember_after_update;
+CREATE TRIGGER trg_studymember_after_update AFTER UPDATE ON StudyMember FOR EACH ROW
+    UPDATE StudyMemberCurrent
+    SET studyStatus = NEW.studyStatus, studyTime = TIME(NEW.studyTime), updatedAt = NEW.updatedAt
+    WHERE groupMemberUID = NEW.groupMemberUID AND studyMemberUID = NEW.UID;
+
+DROP TRIGGER IF EXISTS trg_studymember_after_delete;
+CREATE TRIGGER trg_studymember_after_delete AFTER DELETE ON StudyMember FOR EACH ROW
+    DELETE FROM StudyMemberCurrent
+    WHERE groupMemberUID = OLD.groupMemberUID AND studyMemberUID = OLD.UID;
+
+-- 기존 기록으로 채우기 (트리거 생성 후 실행, 이미 들어간 행은 더 최근 세션일 때만 교체)
+INSERT INTO StudyMemberCurrent (groupMemberUID, groupUID, userUID, studyMemberUID, studyStatus, studyTime, createdAt, updatedAt)
+SELECT sm.groupMemberUID, sm.groupUID, sm.userUID, sm.UID, sm.studyStatus, TIME(sm.studyTime), sm.createdAt, sm.updatedAt
+FROM StudyMember sm
+INNER JOIN (SELECT groupMemberUID, MAX(UID) AS UID FROM StudyMember GROUP BY groupMemberUID) latest ON latest.UID = sm.UID
+ON DUPLICATE KEY UPDATE
+    groupUID    = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(groupUID), groupUID),
+    userUID     = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(userUID), userUID),
+    studyStatus = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(studyStatus), studyStatus),
+    studyTime   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(studyTime), studyTime),
+    createdAt   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(createdAt), createdAt),
+    updatedAt   = IF(VALUES(studyMemberUID) >= studyMemberUID, VALUES(updatedAt), updatedAt),
+    studyMemberUID = GREATEST(studyMemberUID, VALUES(studyMemberUID));
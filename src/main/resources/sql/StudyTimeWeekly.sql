@@ -0,0 +1,21 @@
+-- 그룹 멤버별, 주(월요일 시작)별 공부 시간 집계 테이블
+-- 세션 시작 시각(StudyMember.createdAt)이 속한 주에 합산, studyTime은 초 단위
+CREATE TABLE IF NOT EXISTS StudyTimeWeekly (
+    groupMemberUID INT      NOT NULL,
+    weekStart      DATE     NOT NULL,
+    groupUID       INT      NOT NULL,
+    userUID        INT      NOT NULL,
+    studyTime      INT      NOT NULL DEFAULT 0,
+    updatedAt      DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (groupMemberUID, weekStart),
+    KEY idx_studytimeweekly_group (groupUID, weekStart),
+    KEY idx_studytimeweekly_user (userUID),
+    KEY idx_studytimeweekly_updatedAt (updatedAt)
+);
+
+-- 증분 집계는 StudyMember.updatedAt 기준으로 변경된 세션을 찾는다
+ALTER TABLE StudyMember MODIFY updatedAt DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+CREATE INDEX idx_studymember_updatedAt ON StudyMember (updatedAt);
+CREATE INDEX idx_studymember_groupmember_createdAt ON StudyMember (groupMemberUID, createdAt);
+
+-- 최초 적용 후 서버를 --rebuild-study-time-weekly 옵션으로 실행해 기존 기록을 집계
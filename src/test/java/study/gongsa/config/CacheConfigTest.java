@@ -0,0 +1,141 @@
+package study.gongsa.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.transaction.annotation.Transactional;
+import study.gongsa.domain.Category;
+import study.gongsa.domain.StudyGroup;
+import study.gongsa.repository.CategoryRepository;
+import study.gongsa.repository.StudyGroupRepository;
+import study.gongsa.support.cache.CopyOnReadCache;
+
+import java.sql.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 캐시는 트랜잭션과 상관없이 남으므로 테스트가 끝나면 비운다
+@Transactional
+@SpringBootTest
+class CacheConfigTest {
+    private static final String CODE = "9999-9999-9999-9999";
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private StudyGroupRepository studyGroupRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void 캐시_이미지변경시_삭제() {
+        // given
+        int groupUID = saveStudyGroup();
+        assertThat(studyGroupRepository.findByUID(groupUID).get().getImgPath()).isEqualTo("r0.jpg");
+
+        // when
+        studyGroupRepository.updateImgPath(groupUID, "image/t1.jpg");
+
+        // then
+        assertThat(cacheManager.getCache(CacheConfig.STUDY_GROUP).get(groupUID)).isNull();
+        assertThat(studyGroupRepository.findByUID(groupUID).get().getImgPath()).isEqualTo("image/t1.jpg");
+    }
+
+    @Test
+    void 캐시_그룹생성시_삭제() {
+        // given
+        // 같은 code로 남아있던 값 (이전에 삭제된 그룹)
+        StudyGroup staleStudyGroup = StudyGroup.builder().UID(-1).name("stale_group").code(CODE).build();
+        cacheManager.getCache(CacheConfig.STUDY_GROUP_BY_CODE).put(CODE, staleStudyGroup);
+
+        // when
+        int groupUID = saveStudyGroup();
+
+        // then
+        assertThat(cacheManager.getCache(CacheConfig.STUDY_GROUP_BY_CODE).get(CODE)).isNull();
+        assertThat(studyGroupRepository.findByCode(CODE).get().getUID()).isEqualTo(groupUID);
+    }
+
+    @Test
+    void 캐시_그룹삭제시_삭제() {
+        // given
+        int groupUID = saveStudyGroup();
+        assertThat(studyGroupRepository.findByUID(groupUID)).isPresent();
+        assertThat(studyGroupRepository.findMaxMember(groupUID)).contains(4);
+
+        // when
+        studyGroupRepository.removeByUIDs(List.of(groupUID));
+
+        // then
+        assertThat(studyGroupRepository.findByUID(groupUID)).isEmpty();
+        assertThat(studyGroupRepository.findMaxMember(groupUID)).isEmpty();
+    }
+
+    @Test
+    void 캐시_꺼낸값을바꿔도_캐시는그대로() {
+        // given
+        int groupUID = saveStudyGroup();
+        StudyGroup studyGroup = studyGroupRepository.findByUID(groupUID).get();
+        List<Category> categories = categoryRepository.findAll();
+        assertThat(categories).isNotEmpty();
+        String categoryName = categories.get(0).getName();
+
+        // when
+        studyGroup.setName("changed_group");
+        categories.get(0).setName("changed_category");
+        categories.clear();
+
+        // then
+        assertThat(studyGroupRepository.findByUID(groupUID).get().getName()).isEqualTo("cache_group");
+        List<Category> cachedCategories = categoryRepository.findAll();
+        assertThat(cachedCategories).isNotEmpty();
+        assertThat(cachedCategories.get(0).getName()).isEqualTo(categoryName);
+    }
+
+    @Test
+    void 캐시설정_CopyOnReadCache사용() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(CacheConfig.class)
+                .run(context -> {
+                    CacheManager cacheManager = context.getBean(CacheManager.class);
+                    assertThat(cacheManager).isInstanceOf(CaffeineCacheManager.class);
+                    assertThat(cacheManager.getCache(CacheConfig.STUDY_GROUP)).isInstanceOf(CopyOnReadCache.class);
+                    assertThat(cacheManager.getCache(CacheConfig.USER_AUTH)).isInstanceOf(CopyOnReadCache.class);
+                });
+    }
+
+    @Test
+    void 캐시설정_비활성화시_NoOpCacheManager() {
+        new ApplicationContextRunner()
+                .withUserConfiguration(CacheConfig.class)
+                .withPropertyValues("cache.enabled=false")
+                .run(context -> assertThat(context.getBean(CacheManager.class)).isInstanceOf(NoOpCacheManager.class));
+    }
+
+    private int saveStudyGroup() {
+        return studyGroupRepository.save(StudyGroup.builder()
+                .name("cache_group")
+                .code(CODE)
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("10:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(6)
+                .expiredAt(Date.valueOf("2099-10-10"))
+                .memberCount(1)
+                .build()).intValue();
+    }
+}
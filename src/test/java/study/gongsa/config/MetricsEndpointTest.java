@@ -0,0 +1,69 @@
+package study.gongsa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.gongsa.domain.User;
+import study.gongsa.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// actuator는 management.server.port에서만 열리는지 확인 (서비스 포트는 JwtInterceptor가 적용되지 않으므로)
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"management.server.port=0"})
+class MetricsEndpointTest {
+    @LocalManagementPort
+    private int managementPort;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void 메트릭_조회_성공() {
+        // given
+        int userUID = userRepository.save(User.builder()
+                .email("gong40sa04@gmail.com")
+                .passwd(passwordEncoder.encode("12345678"))
+                .nickname("통합테스트")
+                .authCode("00000a")
+                .build()).intValue();
+        userRepository.findByUID(userUID);
+
+        // when
+        ResponseEntity<String> response = restTemplate.getForEntity("http://127.0.0.1:" + managementPort + "/actuator/prometheus", String.class);
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String metrics = response.getBody();
+        assertThat(metrics).contains("repository_method_seconds_count{application=\"gongsa\",method=\"save\",outcome=\"success\",repository=\"JdbcTemplateUserRepository\",}");
+        assertThat(metrics).contains("repository_method_seconds_bucket{application=\"gongsa\",method=\"findByUID\",outcome=\"success\",repository=\"JdbcTemplateUserRepository\",");
+        assertThat(metrics).contains("repository_rows_count{application=\"gongsa\",method=\"findByUID\",repository=\"JdbcTemplateUserRepository\",}");
+        assertThat(metrics).contains("hikaricp_connections_acquire_seconds_bucket");
+    }
+
+    @Test
+    void 메트릭_조회_실패_서비스포트() throws Exception {
+        // when, then
+        // 서비스 포트에는 actuator가 없어서 다른 경로처럼 JwtInterceptor를 거친다
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+    }
+}
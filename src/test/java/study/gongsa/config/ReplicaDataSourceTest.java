@@ -0,0 +1,100 @@
+package study.gongsa.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// replica url에 primary와 같은 DB를 넣어 두 pool 사이의 routing만 확인 (heartbeat를 직접 바꿔서 지연을 만든다)
+@SpringBootTest(properties = {
+        "spring.datasource.replica.url=${spring.datasource.url}",
+        "spring.datasource.replica.lag-check-interval=3600000",
+        "spring.datasource.replica.max-lag-ms=5000"
+})
+class ReplicaDataSourceTest {
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        replicaLagMonitor.check(); // 다음 heartbeat 기록
+        replicaLagMonitor.check();
+    }
+
+    @Test
+    void 읽기전용트랜잭션_replica사용() {
+        // given
+        replicaLagMonitor.check();
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.isAvailable()).isTrue();
+        long replicaCnt = acquireCount("replica");
+
+        // when
+        runSelect(true);
+
+        // then
+        assertThat(acquireCount("replica")).isEqualTo(replicaCnt + 1);
+    }
+
+    @Test
+    void 쓰기트랜잭션_primary사용() {
+        // given
+        replicaLagMonitor.check();
+        replicaLagMonitor.check();
+        long replicaCnt = acquireCount("replica"), primaryCnt = acquireCount("primary");
+
+        // when
+        runSelect(false);
+
+        // then
+        assertThat(acquireCount("primary")).isGreaterThan(primaryCnt); // 다른 배치도 primary를 쓸 수 있음
+        assertThat(acquireCount("replica")).isEqualTo(replicaCnt);
+    }
+
+    @Test
+    void replica지연_primary사용() {
+        // given
+        replicaLagMonitor.check();
+        new JdbcTemplate(primaryDataSource).update("UPDATE ReplicaHeartbeat SET beatAt = NOW(3) - INTERVAL 1 MINUTE WHERE UID = 1");
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.isAvailable()).isFalse();
+        assertThat(replicaLagMonitor.getLagMillis()).isGreaterThan(5000);
+        long replicaCnt = acquireCount("replica"), primaryCnt = acquireCount("primary");
+
+        // when
+        runSelect(true);
+
+        // then
+        assertThat(acquireCount("primary")).isGreaterThan(primaryCnt); // 다른 배치도 primary를 쓸 수 있음
+        assertThat(acquireCount("replica")).isEqualTo(replicaCnt);
+    }
+
+    private void runSelect(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        transactionTemplate.executeWithoutResult(status -> new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class));
+    }
+
+    private long acquireCount(String pool) {
+        return meterRegistry.get("hikaricp.connections.acquire").tag("pool", pool).timer().count();
+    }
+}
@@ -1,45 +1,67 @@
 package study.gongsa.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.util.DateUtil;
 import org.json.JSONObject;
 import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.filter.CharacterEncodingFilter;
+import study.gongsa.component.WeeklyPenaltyBatch;
+import study.gongsa.domain.BatchCheckpoint;
 import study.gongsa.domain.GroupMember;
+import study.gongsa.domain.Question;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.domain.User;
 import study.gongsa.domain.UserAuth;
 import study.gongsa.dto.JoinRequest;
 import study.gongsa.dto.MakeStudyGroupRequest;
 import study.gongsa.dto.RegisterGroupMemberRequest;
+import study.gongsa.repository.BatchCheckpointRepository;
 import study.gongsa.repository.GroupMemberRepository;
+import study.gongsa.repository.QuestionRepository;
 import study.gongsa.repository.StudyGroupRepository;
 import study.gongsa.repository.UserAuthRepository;
 import study.gongsa.repository.UserRepository;
+import study.gongsa.service.FirebaseCloudMessageService;
+import study.gongsa.service.GroupMemberService;
+import study.gongsa.service.StudyTimeRollupService;
+import study.gongsa.service.UserService;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
 import study.gongsa.support.jwt.JwtTokenProvider;
 
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.TimeZone;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -72,9 +94,27 @@ class GroupMemberControllerTest {
     @Autowired
     private GroupMemberRepository groupMemberRepository;
     @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private GroupMemberService groupMemberService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
     private JwtTokenProvider jwtTokenProvider;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FirebaseCloudMessageService firebaseCloudMessageService;
+    @Autowired
+    private BatchCheckpointRepository batchCheckpointRepository;
+    @Autowired
+    private StudyTimeRollupService studyTimeRollupService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -129,6 +169,7 @@ class GroupMemberControllerTest {
                 .isPenalty(true)
                 .maxPenalty(6)
                 .expiredAt(Date.valueOf("2023-10-10"))
+                .memberCount(2)
                 .build();
         groupUID = studyGroupRepository.save(studyGroup).intValue();
         GroupMember groupLeader = GroupMember.builder()
@@ -286,6 +327,8 @@ class GroupMemberControllerTest {
                 .build();
         groupMemberRepository.save(groupMember1);
         groupMemberRepository.save(groupMember2);
+        studyGroupRepository.increaseMemberCount(groupUID);
+        studyGroupRepository.increaseMemberCount(groupUID);
 
         RegisterGroupMemberRequest registerGroupMemberRequest = new RegisterGroupMemberRequest(groupUID);
 
@@ -324,6 +367,28 @@ class GroupMemberControllerTest {
                 .andExpect(jsonPath("$.data.members.length()").value(2));
     }
 
+    @Test
+    void 그룹멤버정보조회_성공_24시간넘는공부시간() throws Exception {
+        // given
+        GroupMember groupLeader = groupMemberRepository.findByGroupUIDUserUID(groupUID, leaderUserUID).get();
+        jdbcTemplate.update("INSERT INTO StudyTimeWeekly (groupMemberUID, weekStart, groupUID, userUID, studyTime) VALUES (?, ?, ?, ?, ?)",
+                groupLeader.getUID(), Date.valueOf("2022-08-01"), groupUID, leaderUserUID, 25 * 3600 + 61);
+
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL+"/"+groupUID)
+                        .header("Authorization", "Bearer "+accessToken))
+                .andDo(print());
+
+        // then
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.members[0].userUID").value(leaderUserUID))
+                .andExpect(jsonPath("$.data.members[0].totalStudyTime").value("25:01:01"))
+                .andExpect(jsonPath("$.data.members[0].ranking").value(1))
+                .andExpect(jsonPath("$.data.members[1].totalStudyTime").value("00:00:00"))
+                .andExpect(jsonPath("$.data.members[1].ranking").value(2));
+    }
+
     @Test
     void 그룹멤버정보조회_실패_존재하지않는그룹() throws Exception {
         // when
@@ -340,7 +405,335 @@ class GroupMemberControllerTest {
 
     @Test
     @DisplayName("스터디 그룹 탈퇴")
-    void removeGroupMember() {
+    void removeGroupMember() throws Exception {
+        // given
+        Integer leaderAuthUID = userAuthRepository.save(UserAuth.builder()
+                .userUID(leaderUserUID)
+                .refreshToken(jwtTokenProvider.makeRefreshToken(leaderUserUID))
+                .build()).intValue();
+        String leaderAccessToken = jwtTokenProvider.makeAccessToken(leaderUserUID, leaderAuthUID);
+        int leaderGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, leaderUserUID).get().getUID();
+        questionRepository.save(Question.builder()
+                .groupUID(groupUID)
+                .userUID(leaderUserUID)
+                .groupMemberUID(leaderGroupMemberUID)
+                .title("탈퇴 테스트")
+                .content("탈퇴하면 같이 삭제")
+                .build());
+
+        // when
+        ResultActions resultActions = mockMvc.perform(delete(baseURL+"/"+groupUID)
+                        .header("Authorization", "Bearer "+leaderAccessToken))
+                .andDo(print());
+
+        // then
+        resultActions
+                .andExpect(status().isNoContent());
+        assertTrue(groupMemberRepository.findByGroupUIDUserUID(groupUID, leaderUserUID).isEmpty());
+        assertTrue(groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getIsLeader()); // 남은 멤버 중 가장 먼저 가입한 멤버
+        assertEquals(1, studyGroupRepository.findMemberCount(groupUID).get());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Question WHERE groupUID = ?", Integer.class, groupUID));
+    }
+
+    @Test
+    void 스터디그룹탈퇴_가입하지않은그룹() throws Exception {
+        // when
+        ResultActions resultActions = mockMvc.perform(delete(baseURL+"/"+groupUID)
+                        .header("Authorization", "Bearer "+accessToken))
+                .andDo(print());
+
+        // then
+        resultActions
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.location").value("groupUID"))
+                .andExpect(jsonPath("$.msg").value("가입되지 않은 그룹입니다."));
+    }
+
+    // 여러 스레드에서 커밋된 데이터를 봐야 하므로 테스트 트랜잭션 없이 실행하고 직접 정리
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void 스터디그룹_동시탈퇴() throws Exception {
+        // given
+        // 리더 + 멤버 20명 중 리더와 멤버 18명이 동시에 탈퇴
+        int joinCnt = 20, stayCnt = 2;
+        List<Integer> userUIDs = new ArrayList<>(List.of(userUID, leaderUserUID, memberUserUID));
+        List<Integer> leaveUserUIDs = new ArrayList<>(List.of(leaderUserUID));
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Integer> joinUserUIDs = saveUsers("leave", joinCnt);
+            userUIDs.addAll(joinUserUIDs);
+            for (int i = 0; i < joinCnt; i++) {
+                int uid = joinUserUIDs.get(i);
+                int groupMemberUID = groupMemberRepository.save(GroupMember.builder()
+                        .userUID(uid)
+                        .groupUID(groupUID)
+                        .isLeader(false)
+                        .build()).intValue();
+                questionRepository.save(Question.builder()
+                        .groupUID(groupUID)
+                        .userUID(uid)
+                        .groupMemberUID(groupMemberUID)
+                        .title("탈퇴 테스트" + i)
+                        .content("탈퇴하면 같이 삭제")
+                        .build());
+                if (i >= stayCnt) leaveUserUIDs.add(uid);
+            }
+            jdbcTemplate.update("UPDATE StudyGroup SET memberCount = memberCount + ? WHERE UID = ?", joinCnt, groupUID);
+
+            // when
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (Integer leaveUserUID : leaveUserUIDs) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    groupMemberService.leave(groupUID, leaveUserUID);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            // then
+            // 남은 멤버: 기존 멤버 + 가입 후 남은 2명, 리더는 그 중 가장 먼저 가입한 기존 멤버 한 명
+            List<Map<String, Object>> remains = jdbcTemplate.queryForList("SELECT userUID, isLeader FROM GroupMember WHERE groupUID = ?", groupUID);
+            assertEquals(1 + stayCnt, remains.size());
+            assertEquals(remains.size(), studyGroupRepository.findMemberCount(groupUID).get());
+            assertEquals(1, remains.stream().filter(remain -> ((Boolean) remain.get("isLeader"))).count());
+            assertTrue(groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getIsLeader());
+            assertEquals(stayCnt, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Question WHERE groupUID = ?", Integer.class, groupUID));
+        } finally {
+            executorService.shutdownNow();
+            cleanUp(List.of(groupUID), userUIDs);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void 스터디그룹_동시가입_최대인원() throws Exception {
+        // given
+        // 최대 4명, 이미 2명 가입된 그룹에 300명이 동시에 가입
+        int joinCnt = 300;
+        List<Integer> userUIDs = new ArrayList<>(List.of(userUID, leaderUserUID, memberUserUID));
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            List<Integer> joinUserUIDs = saveUsers("join", joinCnt);
+            userUIDs.addAll(joinUserUIDs);
+
+            // when
+            long startTime = System.nanoTime();
+            List<String> results = joinConcurrently(executorService, joinUserUIDs.stream()
+                    .map(joinUserUID -> new int[]{groupUID, joinUserUID})
+                    .collect(Collectors.toList()));
+            long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+            log.info("동시 가입 {}건, 소요 시간: {}ms, 처리량: {}건/s", joinCnt, elapsedMillis, joinCnt * 1000L / Math.max(1, elapsedMillis));
+
+            // then
+            assertEquals(2, results.stream().filter("가입"::equals).count());
+            assertEquals(joinCnt - 2, results.stream().filter("그룹 인원이 다 찼습니다."::equals).count());
+            assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM GroupMember WHERE groupUID = ?", Integer.class, groupUID));
+            assertEquals(4, studyGroupRepository.findMemberCount(groupUID).get());
+        } finally {
+            executorService.shutdownNow();
+            cleanUp(List.of(groupUID), userUIDs);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void 스터디그룹_동시가입_최소공부시간합() throws Exception {
+        // given
+        // 한 유저가 최소 공부 시간 23시간인 그룹 5개에 동시에 가입 → 80시간 이하인 3개(69시간)까지만 가입
+        List<Integer> userUIDs = new ArrayList<>(List.of(userUID, leaderUserUID, memberUserUID));
+        List<Integer> groupUIDs = new ArrayList<>(List.of(groupUID));
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            for (int i = 0; i < 4; i++) {
+                groupUIDs.add(studyGroupRepository.save(StudyGroup.builder()
+                        .name("test_group" + i)
+                        .code(String.format("0000-0000-0000-%04d", i + 1))
+                        .isCam(true)
+                        .isPrivate(false)
+                        .minStudyHour("23:00:00")
+                        .maxMember(4)
+                        .maxTodayStudy(6)
+                        .isPenalty(true)
+                        .maxPenalty(6)
+                        .expiredAt(Date.valueOf("2023-10-10"))
+                        .build()).intValue());
+            }
+
+            // when
+            List<String> results = joinConcurrently(executorService, groupUIDs.stream()
+                    .map(joinGroupUID -> new int[]{joinGroupUID, userUID})
+                    .collect(Collectors.toList()));
+
+            // then
+            assertEquals(3, results.stream().filter("가입"::equals).count());
+            assertEquals(2, results.stream().filter("가입할 수 있는 최소 공부 시간(80시간)을 초과했습니다."::equals).count());
+            assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM GroupMember WHERE userUID = ?", Integer.class, userUID));
+        } finally {
+            executorService.shutdownNow();
+            cleanUp(groupUIDs, userUIDs);
+        }
+    }
+
+    private List<Integer> saveUsers(String prefix, int cnt) {
+        List<Integer> uids = new ArrayList<>();
+        for (int i = 0; i < cnt; i++) {
+            uids.add(userRepository.save(User.builder()
+                    .email("gong40sa04_" + prefix + i + "@gmail.com")
+                    .passwd("12345678")
+                    .nickname("통합테스트_" + prefix + i)
+                    .authCode(String.format("1%05d", i))
+                    .build()).intValue());
+        }
+        return uids;
+    }
+
+    // {groupUID, userUID} 가입을 동시에 시작, 결과는 "가입" 또는 에러 메시지
+    private List<String> joinConcurrently(ExecutorService executorService, List<int[]> joins) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int[] join : joins) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                try {
+                    groupMemberService.join(join[0], join[1]);
+                    return "가입";
+                } catch (IllegalStateExceptionWithLocation e) {
+                    return e.getMessage();
+                }
+            }));
+        }
+        start.countDown();
+        List<String> results = new ArrayList<>();
+        for (Future<String> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @Test
+    void 주간벌점배치_성공() throws Exception {
+        // given
+        // 최대 벌점 2, 주 10시간 그룹: 리더는 공부 안 함(벌점 0 -> 1), 멤버는 벌점 2에서 공부 안 함(강제 퇴장, 레벨 다운), 유저는 11시간 공부
+        int penaltyGroupUID = makePenaltyGroup();
+        int[] groupMemberUIDs = findPenaltyGroupMemberUIDs(penaltyGroupUID);
+        // 테스트 DB에 있던 다른 멤버는 건너뛰도록 이번에 만든 멤버 앞에서 시작
+        startPenaltyCheckpoint(groupMemberUIDs[0] - 1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WeeklyPenaltyBatch weeklyPenaltyBatch = newWeeklyPenaltyBatch(2, meterRegistry);
+
+        // when
+        weeklyPenaltyBatch.run();
+        weeklyPenaltyBatch.run(); // 이미 완료된 주는 다시 처리하지 않는다
+
+        // then
+        assertEquals(1, groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, leaderUserUID).get().getPenaltyCnt());
+        assertTrue(groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, memberUserUID).isEmpty());
+        assertEquals(0, groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, userUID).get().getPenaltyCnt());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT memberCount FROM StudyGroup WHERE UID = ?", Integer.class, penaltyGroupUID));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT level FROM User WHERE UID = ?", Integer.class, leaderUserUID));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT level FROM User WHERE UID = ?", Integer.class, memberUserUID));
+
+        // 3명을 2명씩 2개 chunk로 처리하고 마지막 UID까지 체크포인트 저장
+        assertEquals(3.0, meterRegistry.counter("batch.penalty.rows").count());
+        assertEquals(2, meterRegistry.timer("batch.penalty.chunk").count());
+        BatchCheckpoint checkpoint = batchCheckpointRepository.findOne("weeklyPenalty", penaltyRunKey()).get();
+        assertTrue(checkpoint.getIsCompleted());
+        assertEquals(groupMemberUIDs[2], checkpoint.getLastUID());
+    }
+
+    @Test
+    void 주간벌점배치_체크포인트다음부터재시작() throws Exception {
+        // given
+        int penaltyGroupUID = makePenaltyGroup();
+        int[] groupMemberUIDs = findPenaltyGroupMemberUIDs(penaltyGroupUID);
+        // 리더의 chunk까지 커밋하고 다음 chunk에서 실패한 상태
+        startPenaltyCheckpoint(groupMemberUIDs[0]);
+
+        // when
+        newWeeklyPenaltyBatch(2, new SimpleMeterRegistry()).run();
+
+        // then
+        // 이미 처리한 리더는 다시 벌점을 받지 않고, 이후 멤버만 처리
+        assertEquals(0, groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, leaderUserUID).get().getPenaltyCnt());
+        assertTrue(groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, memberUserUID).isEmpty());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT memberCount FROM StudyGroup WHERE UID = ?", Integer.class, penaltyGroupUID));
+        assertTrue(batchCheckpointRepository.findOne("weeklyPenalty", penaltyRunKey()).get().getIsCompleted());
+    }
+
+    // 2주 전에 만든 벌점 그룹(리더, 멤버, 유저 순서로 가입)
+    private int makePenaltyGroup() {
+        Timestamp twoWeeksAgo = Timestamp.valueOf(LocalDate.now().minusWeeks(2).atStartOfDay());
+        int penaltyGroupUID = studyGroupRepository.save(StudyGroup.builder()
+                .name("penalty_group")
+                .code("0000-0000-0000-0002")
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("10:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(2)
+                .expiredAt(Date.valueOf(LocalDate.now().plusYears(1)))
+                .memberCount(3)
+                .createdAt(twoWeeksAgo)
+                .build()).intValue();
+        groupMemberRepository.save(GroupMember.builder()
+                .userUID(leaderUserUID).groupUID(penaltyGroupUID).isLeader(true).createdAt(twoWeeksAgo).build());
+        groupMemberRepository.save(GroupMember.builder()
+                .userUID(memberUserUID).groupUID(penaltyGroupUID).isLeader(false).penaltyCnt(2).createdAt(twoWeeksAgo).build());
+        int userGroupMemberUID = groupMemberRepository.save(GroupMember.builder()
+                .userUID(userUID).groupUID(penaltyGroupUID).isLeader(false).createdAt(twoWeeksAgo).build()).intValue();
+        jdbcTemplate.update("UPDATE User SET level = 3 WHERE UID IN (?, ?)", leaderUserUID, memberUserUID);
+
+        Date lastWeekStart = Date.valueOf(LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1));
+        jdbcTemplate.update("INSERT INTO StudyTimeWeekly (groupMemberUID, weekStart, groupUID, userUID, studyTime) VALUES (?, ?, ?, ?, ?)",
+                userGroupMemberUID, lastWeekStart, penaltyGroupUID, userUID, 11 * 3600);
+        return penaltyGroupUID;
+    }
+
+    // 리더, 멤버, 유저의 그룹 멤버 UID (가입 순서)
+    private int[] findPenaltyGroupMemberUIDs(int penaltyGroupUID) {
+        return new int[]{
+                groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, leaderUserUID).get().getUID(),
+                groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, memberUserUID).get().getUID(),
+                groupMemberRepository.findByGroupUIDUserUID(penaltyGroupUID, userUID).get().getUID()};
+    }
+
+    private String penaltyRunKey() {
+        return LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+    }
+
+    private void startPenaltyCheckpoint(int lastUID) {
+        jdbcTemplate.update("DELETE FROM BatchCheckpoint WHERE jobName = ? AND runKey = ?", "weeklyPenalty", penaltyRunKey());
+        batchCheckpointRepository.save(BatchCheckpoint.builder()
+                .jobName("weeklyPenalty")
+                .runKey(penaltyRunKey())
+                .lastUID(lastUID)
+                .build());
+    }
+
+    private WeeklyPenaltyBatch newWeeklyPenaltyBatch(int chunkSize, SimpleMeterRegistry meterRegistry) {
+        WeeklyPenaltyBatch weeklyPenaltyBatch = new WeeklyPenaltyBatch(groupMemberService, userService, firebaseCloudMessageService,
+                batchCheckpointRepository, studyTimeRollupService, transactionTemplate, replicaLagMonitor, meterRegistry);
+        ReflectionTestUtils.setField(weeklyPenaltyBatch, "chunkSize", chunkSize);
+        ReflectionTestUtils.setField(weeklyPenaltyBatch, "maxReplicaLagMillis", 5000L);
+        return weeklyPenaltyBatch;
+    }
+
+    private void cleanUp(List<Integer> groupUIDs, List<Integer> userUIDs) {
+        String groupInSql = String.join(",", Collections.nCopies(groupUIDs.size(), "?"));
+        String userInSql = String.join(",", Collections.nCopies(userUIDs.size(), "?"));
+        jdbcTemplate.update("DELETE a FROM Answer a INNER JOIN Question q ON a.questionUID = q.UID WHERE q.groupUID IN (" + groupInSql + ")", groupUIDs.toArray());
+        jdbcTemplate.update("DELETE FROM Question WHERE groupUID IN (" + groupInSql + ")", groupUIDs.toArray());
+        jdbcTemplate.update("DELETE FROM GroupMember WHERE groupUID IN (" + groupInSql + ")", groupUIDs.toArray());
+        jdbcTemplate.update("DELETE FROM StudyGroup WHERE UID IN (" + groupInSql + ")", groupUIDs.toArray());
+        jdbcTemplate.update("DELETE FROM UserAuth WHERE userUID IN (" + userInSql + ")", userUIDs.toArray());
+        jdbcTemplate.update("DELETE FROM User WHERE UID IN (" + userInSql + ")", userUIDs.toArray());
     }
 
 }
\ No newline at end of file
@@ -1,17 +1,23 @@
 package study.gongsa.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,17 +26,39 @@ import org.springframework.web.filter.CharacterEncodingFilter;
 import study.gongsa.domain.User;
 import study.gongsa.domain.UserAuth;
 import study.gongsa.dto.JoinRequest;
+import study.gongsa.repository.ImageRepository;
 import study.gongsa.repository.UserAuthRepository;
 import study.gongsa.repository.UserRepository;
+import study.gongsa.service.ImageService;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.image.ImageProcessor;
+import study.gongsa.support.image.ImageStorage;
+import study.gongsa.support.image.ImageVariant;
+import study.gongsa.support.image.LocalImageStorage;
 import study.gongsa.support.jwt.JwtTokenProvider;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -58,6 +86,14 @@ class ImageControllerTest {
     private JwtTokenProvider jwtTokenProvider;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ImageService imageService;
+    @Autowired
+    private ImageProcessor imageProcessor;
+    @Autowired
+    private ImageRepository imageRepository;
+    @TempDir
+    Path imageRoot;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -83,8 +119,19 @@ class ImageControllerTest {
         accessToken = jwtTokenProvider.makeAccessToken(userUID, userAuthUID);
     }
 
-    @AfterEach
-    void tearDown() throws Exception {
+    // 테스트마다 내용이 다른 PNG 이미지
+    private MockMultipartFile testImage(int width, int height) throws Exception {
+        BufferedImage source = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        source.setRGB(0, 0, ThreadLocalRandom.current().nextInt());
+        ByteArrayOutputStream sourceBytes = new ByteArrayOutputStream();
+        ImageIO.write(source, "png", sourceBytes);
+        return new MockMultipartFile("image", "test.png", MediaType.IMAGE_PNG_VALUE, sourceBytes.toByteArray());
+    }
+
+    // 미사용 이미지 삭제는 임시 폴더 저장소를 쓰는 ImageService로 실행 (image 폴더의 다른 파일을 지우지 않도록)
+    private ImageService tempImageService() {
+        return new ImageService(new LocalImageStorage(imageRoot.toString()), imageProcessor, imageRepository,
+                0, 0, new SimpleMeterRegistry());
     }
 
     @Test
@@ -114,4 +161,241 @@ class ImageControllerTest {
         resultActions
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void 이미지조회_성공_크기별() throws Exception {
+        // given
+        String imageName = imageService.save(testImage(1200, 900));
+        imageService.whenProcessed(imageName).get(10, TimeUnit.SECONDS);
+
+        // when
+        MvcResult thumb = mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("size", "thumb"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.IMAGE_JPEG_VALUE))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andReturn();
+        MvcResult original = mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        BufferedImage thumbImage = ImageIO.read(new ByteArrayInputStream(thumb.getResponse().getContentAsByteArray()));
+        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(original.getResponse().getContentAsByteArray()));
+        assertEquals(160, thumbImage.getWidth());
+        assertEquals(120, thumbImage.getHeight());
+        assertEquals(1200, originalImage.getWidth());
+        assertEquals(thumb.getResponse().getContentAsByteArray().length, Integer.parseInt(thumb.getResponse().getHeader(HttpHeaders.CONTENT_LENGTH)));
+    }
+
+    @Test
+    void 이미지조회_실패_잘못된크기() throws Exception {
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL+"/r0.jpg")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("size", "huge"))
+                .andDo(print());
+
+        // then
+        resultActions
+                .andExpect(status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.location").value("size"));
+    }
+
+    @Test
+    void 이미지업로드_실패_이미지아님() throws Exception {
+        // given
+        MockMultipartFile notImage = new MockMultipartFile("image", "test.jpg", MediaType.IMAGE_JPEG_VALUE, "not an image".getBytes());
+
+        // when, then
+        IllegalStateExceptionWithLocation error = assertThrows(IllegalStateExceptionWithLocation.class,
+                () -> imageService.save(notImage));
+        assertEquals("image", error.getLocation());
+    }
+
+    @Test
+    void 이미지업로드_성공_중복제거() throws Exception {
+        // given
+        MockMultipartFile image = testImage(300, 300);
+
+        // when
+        String firstName = imageService.save(image);
+        imageService.whenProcessed(firstName).get(10, TimeUnit.SECONDS);
+        String secondName = imageService.save(image);
+
+        // then
+        assertEquals(firstName, secondName);
+        assertTrue(firstName.matches("[0-9a-f]{64}\\.jpg"));
+        assertTrue(imageService.whenProcessed(secondName).isDone()); // 이미 변환된 이미지는 다시 변환하지 않음
+    }
+
+    @Test
+    void 미사용이미지삭제_성공() throws Exception {
+        // given
+        ImageService gcImageService = tempImageService();
+        String referencedName = gcImageService.save(testImage(300, 300));
+        String unreferencedName = gcImageService.save(testImage(300, 300));
+        gcImageService.whenProcessed(referencedName).get(10, TimeUnit.SECONDS);
+        gcImageService.whenProcessed(unreferencedName).get(10, TimeUnit.SECONDS);
+        userRepository.updateNicknameAndImage(userUID, "통합테스트", referencedName, new Timestamp(System.currentTimeMillis()));
+
+        // when
+        int deletedCnt = gcImageService.deleteUnreferencedImages(Instant.now().plusSeconds(60));
+
+        // then
+        assertEquals(ImageVariant.values().length, deletedCnt);
+        assertNotNull(gcImageService.load(referencedName, ImageVariant.THUMB));
+        assertThrows(IllegalStateExceptionWithLocation.class, () -> gcImageService.load(unreferencedName, ImageVariant.THUMB));
+    }
+
+    @Test
+    void 미사용이미지삭제_성공_중복업로드한이미지는남김() throws Exception {
+        // given
+        ImageService gcImageService = tempImageService();
+        MockMultipartFile image = testImage(300, 300);
+        String imageName = gcImageService.save(image);
+        gcImageService.whenProcessed(imageName).get(10, TimeUnit.SECONDS);
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(imageRoot)) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path file : files) { // 하루 전에 올리고 참조하지 않은 이미지
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(24 * 60 * 60)));
+        }
+
+        // when
+        assertEquals(imageName, gcImageService.save(image)); // 같은 이미지를 다시 올리고 imgPath는 아직 저장하기 전
+        int deletedCnt = gcImageService.deleteUnreferencedImages(Instant.now().minusSeconds(60 * 60));
+
+        // then
+        assertEquals(0, deletedCnt);
+        ImageStorage.StoredImage thumb = gcImageService.load(imageName, ImageVariant.THUMB);
+        assertTrue(gcImageService.isImmutable(imageName, ImageVariant.THUMB, thumb));
+    }
+
+    @Test
+    void 이미지조회_성공_변경없음() throws Exception {
+        // given
+        String imageName = imageService.save(testImage(300, 300));
+        imageService.whenProcessed(imageName).get(10, TimeUnit.SECONDS);
+        MvcResult first = mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("size", "thumb"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // when, then
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .queryParam("size", "thumb"))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)
+                        .queryParam("size", "thumb"))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\"")
+                        .queryParam("size", "thumb"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void 이미지조회_성공_부분요청() throws Exception {
+        // given
+        String imageName = imageService.save(testImage(300, 300));
+        imageService.whenProcessed(imageName).get(10, TimeUnit.SECONDS);
+        byte[] whole = mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // when, then
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + whole.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(whole, 10, 20)));
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(whole, whole.length - 5, whole.length)));
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.RANGE, "bytes=" + whole.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + whole.length));
+        mockMvc.perform(get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(whole));
+    }
+
+    /**
+     * 앱 실행 때마다 같은 아바타 목록을 다시 받는 상황
+     * 변경 전: 원본 크기를 매번 전체 다운로드, 변경 후: thumb + ETag 재검증(304)
+     */
+    @Test
+    void 이미지조회_부하테스트() throws Exception {
+        // given
+        int imageCnt = 20, launchCnt = 10;
+        List<String> imageNames = new ArrayList<>();
+        for (int i = 0; i < imageCnt; i++) {
+            imageNames.add(imageService.save(testImage(1200, 900)));
+        }
+        for (String imageName : imageNames) {
+            imageService.whenProcessed(imageName).get(10, TimeUnit.SECONDS);
+        }
+
+        // when
+        long beforeBytes = 0;
+        long beforeStartTime = System.nanoTime();
+        for (int launch = 0; launch < launchCnt; launch++) {
+            for (String imageName : imageNames) {
+                beforeBytes += mockMvc.perform(get(baseURL+"/"+imageName)
+                                .header("Authorization", "Bearer "+accessToken))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsByteArray().length;
+            }
+        }
+        long beforeElapsed = System.nanoTime() - beforeStartTime;
+
+        Map<String, String> eTags = new HashMap<>();
+        long afterBytes = 0;
+        long afterStartTime = System.nanoTime();
+        for (int launch = 0; launch < launchCnt; launch++) {
+            for (String imageName : imageNames) {
+                MockHttpServletRequestBuilder request = get(baseURL+"/"+imageName)
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("size", "thumb");
+                if (eTags.containsKey(imageName)) request.header(HttpHeaders.IF_NONE_MATCH, eTags.get(imageName));
+                MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+                eTags.put(imageName, response.getHeader(HttpHeaders.ETAG));
+                afterBytes += response.getContentAsByteArray().length;
+            }
+        }
+        long afterElapsed = System.nanoTime() - afterStartTime;
+
+        // then
+        int requestCnt = imageCnt * launchCnt;
+        log.info("이미지 부하 테스트 - 요청 {}회\n변경 전(original 전체): {} bytes, {} req/s\n변경 후(thumb + 304): {} bytes, {} req/s",
+                requestCnt,
+                beforeBytes, String.format("%.1f", requestCnt / (beforeElapsed / 1_000_000_000.0)),
+                afterBytes, String.format("%.1f", requestCnt / (afterElapsed / 1_000_000_000.0)));
+        assertTrue(afterBytes * 10 < beforeBytes);
+    }
+}
@@ -0,0 +1,188 @@
+package study.gongsa.controller;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.CharacterEncodingFilter;
+import study.gongsa.service.FirebaseCloudMessageService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// fcm.url을 로컬 stub FCM 서버로 바꿔서 전송 (fcm.key가 비어 있으면 access token 없이 보낸다)
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {"fcm.key=", "fcm.max-retry=3"})
+@Slf4j
+public class PushTestControllerTest {
+    private static String baseURL = "/api/push";
+    private static final HttpServer stubServer = startStubServer();
+    private static final Queue<String> receivedBodies = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger unavailableCnt = new AtomicInteger();
+    private static volatile String retryAfter = "0";
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FirebaseCloudMessageService firebaseCloudMessageService;
+
+    @DynamicPropertySource
+    static void fcmProperties(DynamicPropertyRegistry registry) {
+        registry.add("fcm.url", () -> "http://localhost:" + stubServer.getAddress().getPort() + "/v1/projects/test/messages:send");
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(new CharacterEncodingFilter("UTF-8", true)) //한글 설정
+                .build();
+        receivedBodies.clear();
+        unavailableCnt.set(0);
+        retryAfter = "0";
+    }
+
+    @Test
+    void 푸시전송_성공() throws Exception {
+        // given
+        // when
+        mockMvc.perform(get(baseURL).param("targetToken", "ok-token"))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(receivedBodies).hasSize(1);
+        assertThat(receivedBodies.peek()).contains("\"token\":\"ok-token\"").contains("TestTitle");
+    }
+
+    @Test
+    void 푸시전송_실패_잘못된토큰() throws Exception {
+        // given
+        // when
+        mockMvc.perform(get(baseURL).param("targetToken", "bad-token"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        // then
+        assertThat(receivedBodies).hasSize(1); // 404는 재시도하지 않음
+    }
+
+    @Test
+    void 푸시전송_잘못된토큰이_있어도_나머지전송() throws Exception {
+        // given
+        // when
+        CompletableFuture<Void> ok1 = firebaseCloudMessageService.sendMessageTo("ok-token-1", "title", "body");
+        CompletableFuture<Void> bad = firebaseCloudMessageService.sendMessageTo("bad-token", "title", "body");
+        CompletableFuture<Void> ok2 = firebaseCloudMessageService.sendMessageTo("ok-token-2", "title", "body");
+
+        // then
+        ok1.get(10, TimeUnit.SECONDS);
+        ok2.get(10, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> bad.get(10, TimeUnit.SECONDS));
+        assertThat(receivedBodies).hasSize(3);
+    }
+
+    @Test
+    void 푸시전송_503_재시도후성공() throws Exception {
+        // given
+        unavailableCnt.set(2); // 두 번 503 (Retry-After: 0) 후 성공
+
+        // when
+        firebaseCloudMessageService.sendMessageTo("ok-token", "title", "body").get(10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(receivedBodies).hasSize(3);
+    }
+
+    @Test
+    void 종료시_대기중인재시도_실패처리() throws Exception {
+        // given
+        // 공유 빈은 다른 테스트가 쓰므로 따로 만든 인스턴스를 종료한다
+        FirebaseCloudMessageService service = new FirebaseCloudMessageService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "API_URL", "http://localhost:" + stubServer.getAddress().getPort() + "/v1/projects/test/messages:send");
+        ReflectionTestUtils.setField(service, "firebaseConfigPath", "");
+        ReflectionTestUtils.setField(service, "workerSize", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.setField(service, "maxRetry", 3);
+        service.init();
+        unavailableCnt.set(1);
+        retryAfter = "60"; // 1분 뒤 재시도로 예약
+
+        CompletableFuture<Void> result = service.sendMessageTo("ok-token", "title", "body");
+        for (int i = 0; i < 100 && receivedBodies.isEmpty(); i++) Thread.sleep(50);
+        assertThat(receivedBodies).hasSize(1);
+
+        // when
+        service.shutdown();
+
+        // then
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> service.sendMessageTo("ok-token", "title", "body").get(5, TimeUnit.SECONDS));
+    }
+
+    // bad-token이 들어 있으면 404, unavailableCnt가 남아 있으면 503, 나머지는 200
+    private static HttpServer startStubServer() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/", exchange -> {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                receivedBodies.add(body);
+
+                int status = 200;
+                String responseBody = "{\"name\":\"projects/test/messages/1\"}";
+                if (body.contains("bad-token")) {
+                    status = 404;
+                    responseBody = "{\"error\":{\"status\":\"NOT_FOUND\",\"message\":\"Requested entity was not found.\"}}";
+                } else if (unavailableCnt.getAndUpdate(cnt -> Math.max(cnt - 1, 0)) > 0) {
+                    status = 503;
+                    responseBody = "{\"error\":{\"status\":\"UNAVAILABLE\"}}";
+                    exchange.getResponseHeaders().put("Retry-After", List.of(retryAfter));
+                }
+
+                byte[] bytes = responseBody.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().put("Content-Type", List.of("application/json"));
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(bytes);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
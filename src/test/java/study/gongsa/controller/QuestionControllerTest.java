@@ -2,6 +2,8 @@ package study.gongsa.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +11,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,10 +25,13 @@ import study.gongsa.dto.MakeQuestionDTO;
 import study.gongsa.dto.RegisterGroupMemberRequest;
 import study.gongsa.repository.*;
 import study.gongsa.support.jwt.JwtTokenProvider;
+import study.gongsa.support.paging.Cursor;
 
 import java.sql.Date;
 import java.sql.Time;
+import java.util.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -62,6 +69,8 @@ public class QuestionControllerTest {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private AnswerRepository answerRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -191,6 +200,84 @@ public class QuestionControllerTest {
                 .andExpect(jsonPath("$.data.questionList[0].createdAt").exists());
     }
 
+    @Test
+    void 내질문모아보기_성공_페이지네이션() throws Exception {
+        // given
+        int groupUserUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, userUID).get().getUID();
+        int questionCnt = 200;
+        int pageSize = 20;
+        for (int i = 0; i < questionCnt; i++) {
+            Question question = Question.builder()
+                    .groupUID(groupUID)
+                    .userUID(userUID)
+                    .groupMemberUID(groupUserUID)
+                    .title("페이지네이션 질문 " + i)
+                    .content("페이지네이션 질문 상세내용입니다.")
+                    .build();
+            questionRepository.save(question);
+        }
+
+        // when
+        Set<Integer> questionUIDs = new HashSet<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            cursors.add(cursor);
+            MvcResult page = mockMvc.perform(get(baseURL+"/my-question")
+                            .header("Authorization", "Bearer "+accessToken)
+                            .queryParam("size", String.valueOf(pageSize))
+                            .queryParam("cursor", cursor == null ? "" : cursor)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            JSONObject data = new JSONObject(page.getResponse().getContentAsString()).getJSONObject("data");
+            JSONArray questionList = data.getJSONArray("questionList");
+            assertThat(questionList.length()).isLessThanOrEqualTo(pageSize);
+            for (int i = 0; i < questionList.length(); i++) {
+                assertThat(questionUIDs.add(questionList.getJSONObject(i).getInt("questionUID"))).isTrue();
+            }
+            cursor = data.isNull("nextCursor") ? null : data.getString("nextCursor");
+        } while (cursor != null);
+
+        // 페이지마다 읽은 행 수 (Handler_read_*, 같은 트랜잭션 커넥션의 세션 카운터)
+        List<Long> pageReads = new ArrayList<>();
+        for (String pageCursor : cursors) {
+            long before = handlerReads();
+            questionRepository.findMyQuestion(userUID, Cursor.decode(pageCursor), pageSize + 1);
+            pageReads.add(handlerReads() - before);
+        }
+
+        // then
+        assertThat(questionUIDs).hasSize(questionCnt + 1); // setUp에서 등록한 질문 포함
+        assertThat(cursors).hasSize(questionCnt / pageSize + 1);
+        // offset처럼 앞 페이지를 건너뛰며 읽으면 뒤 페이지일수록 늘어나므로, 모든 페이지가 첫 페이지만큼만 읽는지 확인
+        long firstPageReads = pageReads.get(0);
+        assertThat(firstPageReads).isLessThan(questionCnt);
+        assertThat(pageReads).allSatisfy(reads -> assertThat(reads).isLessThanOrEqualTo(firstPageReads + 2));
+    }
+
+    private long handlerReads() {
+        return jdbcTemplate.query("SHOW SESSION STATUS LIKE 'Handler_read%'", (rs, rowNum) -> rs.getLong("Value"))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Test
+    void 내질문모아보기_실패_잘못된cursor() throws Exception {
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL+"/my-question")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("cursor", "잘못된cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print());
+
+        // then
+        resultActions.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.location").value("cursor"));
+    }
+
     @Test
     void 질문모아보기_성공() throws Exception {
         // given
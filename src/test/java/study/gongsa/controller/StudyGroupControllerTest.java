@@ -1,17 +1,25 @@
 package study.gongsa.controller;
 
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
@@ -19,24 +27,46 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.filter.CharacterEncodingFilter;
+import study.gongsa.component.ExpiredStudyGroupPurgeBatch;
 import study.gongsa.domain.*;
 import study.gongsa.dto.DefaultResponse;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import study.gongsa.dto.MakeStudyGroupRequest;
 import study.gongsa.repository.*;
+import study.gongsa.service.RecommendationService;
+import study.gongsa.service.StudyGroupSearchService;
+import study.gongsa.service.StudyGroupService;
+import study.gongsa.service.StudyStatusStreamService;
+import study.gongsa.support.filter.LogFilter;
 import study.gongsa.support.jwt.JwtTokenProvider;
+import study.gongsa.support.recommend.RecommendationIndex;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.sql.Time;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -46,6 +76,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
@@ -84,6 +115,26 @@ class StudyGroupControllerTest {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private CategoryRepository categoryRepository;
+    @Autowired
+    private StudyGroupSearchService studyGroupSearchService;
+    @Autowired
+    private StudyGroupService studyGroupService;
+    @Autowired
+    private StudyStatusStreamService studyStatusStreamService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private QuestionRepository questionRepository;
+    @Autowired
+    private AnswerRepository answerRepository;
+    @Autowired
+    private StudyMemberRepository studyMemberRepository;
+    @Autowired
+    private ExpiredStudyGroupPurgeBatch expiredStudyGroupPurgeBatch;
+    @Autowired
+    private RecommendationService recommendationService;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -138,6 +189,7 @@ class StudyGroupControllerTest {
                 .isPenalty(true)
                 .maxPenalty(6)
                 .expiredAt(Date.valueOf("2023-10-10"))
+                .memberCount(3)
                 .build();
         groupUID = studyGroupRepository.save(studyGroup).intValue();
         GroupCategory groupCategory1 = GroupCategory.builder()
@@ -211,6 +263,8 @@ class StudyGroupControllerTest {
                 .andExpect(jsonPath("$.data.code").value(studyGroup.getCode()))
                 .andExpect(jsonPath("$.data.isCam").value(studyGroup.getIsCam()))
                 .andExpect(jsonPath("$.data.minStudyHour").value(studyGroup.getMinStudyHour()))
+                .andExpect(jsonPath("$.data.maxMember").value(4))
+                .andExpect(jsonPath("$.data.currentMember").value(3))
                 .andExpect(jsonPath("$.data.createdAt").exists())
                 .andExpect(jsonPath("$.data.expiredAt").exists())
                 //.andExpect(jsonPath("$.data.createdAt").value(studyGroup.getCreatedAt().toString()))
@@ -265,9 +319,73 @@ class StudyGroupControllerTest {
                 .andExpect(jsonPath("$.data.studyGroupList[0].imgPath").exists())
                 .andExpect(jsonPath("$.data.studyGroupList[0].name").value(studyGroup.getName()))
                 .andExpect(jsonPath("$.data.studyGroupList[0].isCam").value(studyGroup.getIsCam()))
+                .andExpect(jsonPath("$.data.studyGroupList[0].maxMember").value(4))
+                .andExpect(jsonPath("$.data.studyGroupList[0].currentMember").value(3))
                 .andExpect(jsonPath("$.data.studyGroupList[0].createdAt").exists())
                 .andExpect(jsonPath("$.data.studyGroupList[0].expiredAt").exists());
     }
+
+    @Test
+    void 멤버없는스터디그룹조회_성공() throws Exception {
+        // given
+        int emptyGroupUID = studyGroupRepository.save(StudyGroup.builder()
+                .name("test_empty_group")
+                .code("0000-0000-0000-0009")
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("1:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(6)
+                .expiredAt(Date.valueOf("2023-10-10"))
+                .build()).intValue();
+
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL + "/"+emptyGroupUID)
+                        .header("Authorization", "Bearer "+accessToken))
+                .andDo(print());
+
+        // then
+        resultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.currentMember").value(0));
+    }
+
+    @Test
+    void 스터디그룹멤버수보정_성공() throws Exception {
+        // given
+        jdbcTemplate.update("UPDATE StudyGroup SET memberCount = 0 WHERE UID = ?", groupUID);
+
+        // when
+        int repairedCnt = studyGroupService.repairMemberCounts();
+
+        // then
+        assertThat(repairedCnt).isGreaterThanOrEqualTo(1);
+        assertThat(studyGroupRepository.findMemberCount(groupUID).get()).isEqualTo(3);
+    }
+    @Test
+    void 추천스터디그룹조회_삭제된그룹은인덱스에서제거() throws Exception {
+        // given
+        // 다른 서버에서 삭제되어 DB에는 없지만 인덱스에 남아있는 그룹
+        int deletedGroupUID = Integer.MAX_VALUE;
+        RecommendationIndex recommendationIndex = new RecommendationIndex();
+        recommendationIndex.add(groupUID, List.of(1), LocalDate.of(2099, 10, 10));
+        recommendationIndex.add(deletedGroupUID, List.of(1), LocalDate.of(2099, 10, 10));
+        Object currentIndex = ReflectionTestUtils.getField(recommendationService, "recommendationIndex");
+        ReflectionTestUtils.setField(recommendationService, "recommendationIndex", recommendationIndex);
+        try {
+            // when
+            List<StudyGroup> studyGroups = recommendationService.recommendByUserUID(userUID, 10);
+
+            // then
+            Assertions.assertEquals(List.of(groupUID), studyGroups.stream().map(StudyGroup::getUID).collect(Collectors.toList()));
+            assertThat(recommendationIndex.size()).isEqualTo(1);
+            Assertions.assertEquals(List.of(groupUID), recommendationIndex.sample(List.of(1), 10, LocalDate.now()));
+        } finally {
+            ReflectionTestUtils.setField(recommendationService, "recommendationIndex", currentIndex);
+        }
+    }
+
     @Test
     void 추천스터디그룹조회_성공() throws Exception {
         // when
@@ -291,6 +409,9 @@ class StudyGroupControllerTest {
     }
     @Test
     void 스터디그룹검색_성공() throws Exception {
+        // given
+        studyGroupSearchService.reload(); // setUp에서 저장한 그룹을 검색 인덱스에 반영
+
         // when
         ResultActions resultActions = mockMvc.perform(get(baseURL + "/search")
                         .header("Authorization", "Bearer "+accessToken)
@@ -313,6 +434,55 @@ class StudyGroupControllerTest {
                 .andExpect(jsonPath("$.data.studyGroupList[0].expiredAt").exists());
     }
 
+    @Test
+    void 스터디그룹검색_성공_페이지네이션() throws Exception {
+        // given
+        for (int i = 0; i < 3; i++) {
+            StudyGroup studyGroup = StudyGroup.builder()
+                    .name("페이지네이션검색 " + i)
+                    .code(String.format("1111-1111-1111-%04d", i))
+                    .isCam(false)
+                    .isPrivate(false)
+                    .minStudyHour("10:00:00")
+                    .maxMember(4)
+                    .maxTodayStudy(6)
+                    .isPenalty(false)
+                    .maxPenalty(0)
+                    .expiredAt(Date.valueOf("2099-10-10"))
+                    .build();
+            studyGroupRepository.save(studyGroup);
+        }
+        studyGroupSearchService.reload();
+
+        // when
+        MvcResult firstPage = mockMvc.perform(get(baseURL + "/search")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("word", "페이지네이션 검색")
+                        .queryParam("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.studyGroupList.length()").value(2))
+                .andExpect(jsonPath("$.data.studyGroupList[0].name").value("페이지네이션검색 2"))
+                .andExpect(jsonPath("$.data.nextCursor").exists())
+                .andReturn();
+        String nextCursor = new JSONObject(firstPage.getResponse().getContentAsString())
+                .getJSONObject("data").getString("nextCursor");
+
+        // then
+        mockMvc.perform(get(baseURL + "/search")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .queryParam("word", "페이지네이션 검색")
+                        .queryParam("size", "2")
+                        .queryParam("cursor", nextCursor)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.studyGroupList.length()").value(1))
+                .andExpect(jsonPath("$.data.studyGroupList[0].name").value("페이지네이션검색 0"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+    }
+
     @Test
     void 나의스터디그룹랭킹조회_성공() throws Exception {
         // when
@@ -335,6 +505,302 @@ class StudyGroupControllerTest {
                 .andExpect(jsonPath("$.data.groupRankList[0].members[0].ranking").exists());
     }
 
+    @Test
+    void 나의스터디그룹랭킹조회_가입그룹수와무관한쿼리수() throws Exception {
+        // given
+        int[] groupCounts = {1, 5, 10, 20};
+        int repeat = 5;
+        int joinedGroupCnt = 1; // setUp에서 가입한 그룹
+        Long firstQueryCnt = null;
+
+        for (int groupCnt : groupCounts) {
+            for (; joinedGroupCnt < groupCnt; joinedGroupCnt++) {
+                StudyGroup studyGroup = StudyGroup.builder()
+                        .name("test_group_" + joinedGroupCnt)
+                        .code(String.format("0000-0000-0000-%04d", joinedGroupCnt))
+                        .isCam(true)
+                        .isPrivate(false)
+                        .minStudyHour("25:00:00")
+                        .maxMember(4)
+                        .maxTodayStudy(6)
+                        .isPenalty(true)
+                        .maxPenalty(6)
+                        .expiredAt(Date.valueOf("2023-10-10"))
+                        .build();
+                int newGroupUID = studyGroupRepository.save(studyGroup).intValue();
+                groupMemberRepository.save(GroupMember.builder()
+                        .userUID(userUID)
+                        .groupUID(newGroupUID)
+                        .isLeader(true)
+                        .build());
+                groupMemberRepository.save(GroupMember.builder()
+                        .userUID(memberUserUID)
+                        .groupUID(newGroupUID)
+                        .isLeader(false)
+                        .build());
+            }
+
+            // 처음 조회한 그룹 멤버는 순위표에 올리면서 주간 집계를 읽으므로 한 번 조회해두고 측정
+            getMyRanking(groupCnt);
+
+            // when
+            long queryCntBefore = myRankingQueryCount();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                getMyRanking(groupCnt);
+            }
+            long avgMillis = (System.nanoTime() - startTime) / repeat / 1_000_000;
+            long queryCnt = (myRankingQueryCount() - queryCntBefore) / repeat;
+            log.info("my-ranking 가입 그룹 수: {}, 쿼리 수: {}, 평균 응답 시간: {}ms", groupCnt, queryCnt, avgMillis);
+
+            // then
+            // 그룹 목록 1번 + 전체 그룹 멤버 1번 (그룹 수만큼 늘어나지 않음)
+            if (firstQueryCnt == null) firstQueryCnt = queryCnt;
+            assertThat(queryCnt).isEqualTo(firstQueryCnt);
+            assertThat(queryCnt).isEqualTo(2);
+        }
+    }
+
+    private void getMyRanking(int groupCnt) throws Exception {
+        mockMvc.perform(get(baseURL + "/my-ranking")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.groupRankList.length()").value(groupCnt));
+    }
+
+    // my-ranking에서 쓰는 repository 메서드만 (다른 배치의 호출 제외)
+    private long myRankingQueryCount() {
+        List<String> repositories = List.of("JdbcTemplateStudyGroupRepository", "JdbcTemplateGroupMemberRepository", "JdbcTemplateStudyTimeWeeklyRepository");
+        List<String> methods = List.of("findMyStudyGroup", "findMemberInfo", "findMemberInfoByGroupUIDs", "findMemberStudyTimes");
+        return meterRegistry.find("repository.method").timers().stream()
+                .filter(timer -> repositories.contains(timer.getId().getTag("repository")))
+                .filter(timer -> methods.contains(timer.getId().getTag("method")))
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+
+    @Test
+    void 스터디그룹검색_로그모드별_기록() throws Exception {
+        // given
+        // sample-rate 0이면 sampled 모드는 서버 오류만 남긴다, body는 64 bytes까지만 남기고 자른다
+        String[] modes = {"off", "sampled", "headers", "body"};
+        int repeat = 5;
+        int[] expectedLogCnts = {0, 0, repeat, repeat};
+        Logger logFilterLogger = (Logger) LoggerFactory.getLogger(LogFilter.class);
+        ListAppender<ILoggingEvent> logEvents = new ListAppender<>();
+        logEvents.start();
+        logFilterLogger.addAppender(logEvents);
+
+        try {
+            for (int m = 0; m < modes.length; m++) {
+                MockMvc logMockMvc = MockMvcBuilders.webAppContextSetup(context)
+                        .addFilter(new CharacterEncodingFilter("UTF-8", true))
+                        .addFilter(new LogFilter(modes[m], 0.0, 64, "passwd,refreshToken,accessToken"), "/api/*")
+                        .build();
+                logEvents.list.clear();
+
+                // when
+                for (int i = 0; i < repeat; i++) {
+                    logMockMvc.perform(get(baseURL + "/search")
+                                    .header("Authorization", "Bearer "+accessToken)
+                                    .queryParam("size", "100")
+                                    .accept(MediaType.APPLICATION_JSON))
+                            .andExpect(status().isOk());
+                }
+
+                // then
+                assertThat(logEvents.list.size()).isEqualTo(expectedLogCnts[m]);
+                for (ILoggingEvent event : logEvents.list) {
+                    String message = event.getFormattedMessage();
+                    assertThat(message).contains("auth=Bearer ***");
+                    if (modes[m].equals("body")) assertThat(message).contains("bytes)");
+                    else assertThat(message).contains("resContent=null");
+                }
+            }
+        } finally {
+            logFilterLogger.detachAppender(logEvents);
+        }
+        // AsyncAppender는 호출 위치를 큐에 넣기 전에 채워야 %line이 찍힌다
+        assertThat(((AsyncAppender) logFilterLogger.getAppender("ASYNC_API")).isIncludeCallerData()).isTrue();
+        assertThat(((AsyncAppender) logFilterLogger.getAppender("ASYNC_CONSOLE")).isIncludeCallerData()).isTrue();
+    }
+
+    @Test
+    void 스터디정보조회_멤버별마지막세션() throws Exception {
+        // given
+        // 리더: 공부 중 → 종료(inactive), 멤버: 종료 → 다시 공부 중 (트리거로 StudyMemberCurrent 갱신)
+        int leaderGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, leaderUserUID).get().getUID();
+        int memberGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getUID();
+        Timestamp before = new Timestamp(System.currentTimeMillis() - 60 * 60 * 1000);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String sql = "INSERT INTO StudyMember (groupUID, userUID, groupMemberUID, studyStatus, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?)";
+        jdbcTemplate.update(sql, groupUID, leaderUserUID, leaderGroupMemberUID, "active", before, before);
+        jdbcTemplate.update(sql, groupUID, leaderUserUID, leaderGroupMemberUID, "inactive", now, now);
+        jdbcTemplate.update(sql, groupUID, memberUserUID, memberGroupMemberUID, "inactive", before, before);
+        jdbcTemplate.update(sql, groupUID, memberUserUID, memberGroupMemberUID, "active", now, now);
+
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info")
+                        .header("Authorization", "Bearer "+accessToken))
+                .andDo(print());
+
+        // then
+        resultActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].groupMemberUID").value(memberGroupMemberUID))
+                .andExpect(jsonPath("$.data[0].userUID").value(memberUserUID))
+                .andExpect(jsonPath("$.data[0].studyStatus").value("active"));
+    }
+
+    @Test
+    void 스터디정보구독_snapshot후변경전송() throws Exception {
+        // given
+        int memberGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getUID();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO StudyMember (groupUID, userUID, groupMemberUID, studyStatus, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?)",
+                groupUID, memberUserUID, memberGroupMemberUID, "active", now, now);
+
+        // when
+        MvcResult mvcResult = mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info/stream")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(mvcResult, "event:snapshot");
+        studyStatusStreamService.publish(groupUID, memberUserUID, "rest", "00:10:00");
+
+        // then
+        // 처음에 현재 상태 목록, 이후 바뀐 멤버 한 명만 전송
+        String content = awaitContent(mvcResult, "event:change");
+        assertThat(content.indexOf("event:snapshot")).isLessThan(content.indexOf("event:change"));
+        String change = content.substring(content.indexOf("event:change"));
+        assertThat(change.contains("\"userUID\":" + memberUserUID)).isTrue();
+        assertThat(change.contains("\"studyStatus\":\"rest\"")).isTrue();
+    }
+
+    @Test
+    void 스터디정보구독_24시간넘는공부시간() throws Exception {
+        // given
+        int memberGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getUID();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO StudyMember (groupUID, userUID, groupMemberUID, studyStatus, studyTime, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                groupUID, memberUserUID, memberGroupMemberUID, "active", "25:30:00", now, now);
+
+        // when
+        MvcResult mvcResult = mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info/stream")
+                        .header("Authorization", "Bearer "+accessToken)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        awaitContent(mvcResult, "event:snapshot");
+        studyStatusStreamService.publish(groupUID, memberUserUID, null, "100:00:05");
+
+        // then
+        // 24시간이 넘어도 시간을 그대로 전송 (00시로 돌아가지 않음)
+        String content = awaitContent(mvcResult, "event:change");
+        assertThat(content.substring(0, content.indexOf("event:change")).contains("\"studyTime\":\"25:30:00\"")).isTrue();
+        assertThat(content.substring(content.indexOf("event:change")).contains("\"studyTime\":\"100:00:05\"")).isTrue();
+        mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info")
+                        .header("Authorization", "Bearer "+accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].studyTime").value("25:30:00"));
+    }
+
+    @Test
+    void 스터디정보구독_받지않는클라이언트는끊고나머지는전송() throws Exception {
+        // given
+        int memberGroupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, memberUserUID).get().getUID();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO StudyMember (groupUID, userUID, groupMemberUID, studyStatus, createdAt, updatedAt) VALUES (?, ?, ?, ?, ?, ?)",
+                groupUID, memberUserUID, memberGroupMemberUID, "active", now, now);
+        long writeTimeoutMillis = (long) ReflectionTestUtils.getField(studyStatusStreamService, "writeTimeoutMillis");
+        ReflectionTestUtils.setField(studyStatusStreamService, "writeTimeoutMillis", 200L);
+        double dropped = meterRegistry.counter("study.status.stream.dropped").count();
+
+        // 응답을 읽지 않는 클라이언트: 소켓 버퍼(512byte)가 차면 쓰기가 멈춘다
+        CountDownLatch release = new CountDownLatch(1);
+        MockMvc stalledMockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(new CharacterEncodingFilter("UTF-8", true))
+                .addFilter((request, response, chain) -> chain.doFilter(request, new StalledResponse((HttpServletResponse) response, 512, release)))
+                .build();
+        int senderSize = (int) ReflectionTestUtils.getField(studyStatusStreamService, "senderSize");
+        try {
+            // sender 스레드 수만큼 받지 않는 클라이언트
+            for (int i = 0; i < senderSize; i++) {
+                stalledMockMvc.perform(get(baseURL + "/" + groupUID + "/study-info/stream")
+                                .header("Authorization", "Bearer "+accessToken)
+                                .accept(MediaType.TEXT_EVENT_STREAM))
+                        .andExpect(request().asyncStarted());
+            }
+
+            // when
+            long deadline = System.currentTimeMillis() + 5000;
+            for (int second = 0; meterRegistry.counter("study.status.stream.dropped").count() < dropped + senderSize
+                    && System.currentTimeMillis() < deadline; second++) {
+                studyStatusStreamService.publish(groupUID, memberUserUID, "active", String.format("00:00:%02d", second % 60));
+                Thread.sleep(20);
+            }
+            MvcResult mvcResult = mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info/stream")
+                            .header("Authorization", "Bearer "+accessToken)
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            awaitContent(mvcResult, "event:snapshot");
+            studyStatusStreamService.publish(groupUID, memberUserUID, "rest", "00:10:00");
+
+            // then
+            // 멈춘 연결은 write-timeout 뒤에 끊겨서 sender 스레드가 다른 구독자에게 보낼 수 있다
+            assertThat(meterRegistry.counter("study.status.stream.dropped").count()).isEqualTo(dropped + senderSize);
+            String content = awaitContent(mvcResult, "event:change");
+            assertThat(content.contains("\"studyStatus\":\"rest\"")).isTrue();
+        } finally {
+            release.countDown();
+            ReflectionTestUtils.setField(studyStatusStreamService, "writeTimeoutMillis", writeTimeoutMillis);
+        }
+    }
+
+    @Test
+    void 스터디정보구독_writer가없으면연결을끊음() throws Exception {
+        // given
+        // 멈춘 쓰기가 writer를 모두 잡고 있는 상태
+        ExecutorService writers = (ExecutorService) ReflectionTestUtils.getField(studyStatusStreamService, "writers");
+        ThreadPoolExecutor fullWriters = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        fullWriters.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ReflectionTestUtils.setField(studyStatusStreamService, "writers", fullWriters);
+        double dropped = meterRegistry.counter("study.status.stream.dropped").count();
+        try {
+            // when
+            MvcResult mvcResult = mockMvc.perform(get(baseURL + "/" + groupUID + "/study-info/stream")
+                            .header("Authorization", "Bearer "+accessToken)
+                            .accept(MediaType.TEXT_EVENT_STREAM))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            // 쓰기를 기다리지 않고 바로 끊는다 (writer 스레드를 더 만들지 않음)
+            long deadline = System.currentTimeMillis() + 5000;
+            while (meterRegistry.counter("study.status.stream.dropped").count() < dropped + 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(meterRegistry.counter("study.status.stream.dropped").count()).isEqualTo(dropped + 1);
+            assertThat(mvcResult.getResponse().getContentAsString().contains("event:snapshot")).isFalse();
+            assertThat(fullWriters.getPoolSize()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            fullWriters.shutdown();
+            ReflectionTestUtils.setField(studyStatusStreamService, "writers", writers);
+        }
+    }
 
     @Test
     void 스터디그룹생성_성공_이미지존재() throws Exception {
@@ -453,6 +919,59 @@ class StudyGroupControllerTest {
         });
     }
 
+    @Test
+    void 스터디그룹생성_카테고리수별_쿼리수() throws Exception {
+        // given
+        List<Category> categories = categoryRepository.findAll();
+        int[] categoryCounts = {1, Math.min(3, categories.size()), categories.size()};
+        int repeat = 5;
+        Long firstQueryCnt = null;
+
+        for (int categoryCnt : categoryCounts) {
+            int[] categoryUIDs = categories.stream().limit(categoryCnt).mapToInt(Category::getUID).toArray();
+            MakeStudyGroupRequest makeStudyGroupRequest = MakeStudyGroupRequest.builder()
+                    .name("카테고리 " + categoryCnt + "개 스터디")
+                    .isCam(true)
+                    .maxMember(6)
+                    .isPrivate(false)
+                    .categoryUIDs(categoryUIDs)
+                    .isPenalty(true)
+                    .maxTodayStudy(5)
+                    .minStudyHour(1)
+                    .expiredAt(Date.valueOf("2099-10-10"))
+                    .build();
+            MockMultipartFile json = new MockMultipartFile("json","json","application/json",
+                    objectMapper.writeValueAsString(makeStudyGroupRequest).getBytes());
+
+            // when
+            long queryCntBefore = repositoryCallCount();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < repeat; i++) {
+                mockMvc.perform(multipart(HttpMethod.POST,baseURL)
+                                .file(json)
+                                .header("Authorization", "Bearer "+accessToken))
+                        .andExpect(status().isCreated());
+            }
+            long avgMicros = (System.nanoTime() - startTime) / repeat / 1_000;
+            long queryCnt = (repositoryCallCount() - queryCntBefore) / repeat;
+            log.info("스터디 그룹 생성 카테고리 수: {}, repository 호출 수: {}, 평균 응답 시간: {}us", categoryCnt, queryCnt, avgMicros);
+
+            // then
+            if (firstQueryCnt == null) firstQueryCnt = queryCnt;
+            assertThat(queryCnt).isEqualTo(firstQueryCnt);
+        }
+    }
+
+    // 그룹 생성에서 쓰는 repository만 (다른 배치의 호출 제외)
+    private long repositoryCallCount() {
+        List<String> repositories = List.of("JdbcTemplateStudyGroupRepository", "JdbcTemplateCategoryRepository",
+                "JdbcTemplateGroupCategoryRepository", "JdbcTemplateGroupMemberRepository");
+        return meterRegistry.find("repository.method").timers().stream()
+                .filter(timer -> repositories.contains(timer.getId().getTag("repository")))
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
     @Test
     void 스터디그룹생성_실패_주최소공부시간초과() throws Exception {
         // given
@@ -516,4 +1035,110 @@ class StudyGroupControllerTest {
                 .andExpect(jsonPath("$.msg").value("존재하지 않는 카테고리입니다."))
                 .andReturn();
     }
-}
\ No newline at end of file
+
+    @Test
+    void 만료그룹삭제_딸린행까지삭제() throws Exception {
+        // given
+        // setUp의 그룹은 이미 만료된 그룹, 만료되지 않은 그룹은 남아야 한다
+        StudyGroup activeGroup = StudyGroup.builder()
+                .name("test_group2")
+                .code("0000-0000-0000-0001")
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("10:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(6)
+                .expiredAt(Date.valueOf("2099-10-10"))
+                .memberCount(1)
+                .build();
+        int activeGroupUID = studyGroupRepository.save(activeGroup).intValue();
+        groupMemberRepository.save(GroupMember.builder()
+                .userUID(userUID)
+                .groupUID(activeGroupUID)
+                .isLeader(true)
+                .build());
+
+        GroupMember leader = groupMemberRepository.findByGroupUIDUserUID(groupUID, leaderUserUID).get();
+        int questionUID = questionRepository.save(Question.builder()
+                .groupUID(groupUID)
+                .userUID(leaderUserUID)
+                .groupMemberUID(leader.getUID())
+                .title("title")
+                .content("content")
+                .build()).intValue();
+        answerRepository.save(Answer.builder()
+                .questionUID(questionUID)
+                .userUID(leaderUserUID)
+                .groupMemberUID(leader.getUID())
+                .groupUID(groupUID)
+                .answer("answer")
+                .build());
+        studyMemberRepository.save(groupUID, leader.getUID(), leaderUserUID);
+
+        // when
+        expiredStudyGroupPurgeBatch.run();
+
+        // then
+        Assertions.assertTrue(studyGroupRepository.findByUIDs(List.of(groupUID)).isEmpty());
+        for (String table : List.of("Question", "Answer", "StudyMember", "StudyMemberCurrent", "GroupCategory", "GroupMember")) {
+            Integer cnt = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE groupUID = ?", Integer.class, groupUID);
+            Assertions.assertEquals(0, cnt, table);
+        }
+        Assertions.assertEquals(1, studyGroupRepository.findByUIDs(List.of(activeGroupUID)).size());
+        Assertions.assertTrue(groupMemberRepository.findByGroupUIDUserUID(activeGroupUID, userUID).isPresent());
+    }
+
+    // SSE는 별도 스레드에서 보내므로 기대한 이벤트가 올 때까지 기다린다
+    // limit byte까지만 받고 이후 쓰기는 release될 때까지 멈추는 응답 (받지 않는 클라이언트의 소켓)
+    private static class StalledResponse extends HttpServletResponseWrapper {
+        private final ServletOutputStream outputStream;
+
+        private StalledResponse(HttpServletResponse response, int limit, CountDownLatch release) throws IOException {
+            super(response);
+            ServletOutputStream delegate = response.getOutputStream();
+            this.outputStream = new ServletOutputStream() {
+                private int written = 0;
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (++written > limit) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    delegate.write(b);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return written < limit;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+
+    private String awaitContent(MvcResult mvcResult, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = mvcResult.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            content = mvcResult.getResponse().getContentAsString();
+        }
+        assertThat(content.contains(expected)).isTrue();
+        return content;
+    }
+}
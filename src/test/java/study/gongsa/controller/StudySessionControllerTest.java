@@ -0,0 +1,485 @@
+package study.gongsa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.filter.CharacterEncodingFilter;
+import study.gongsa.domain.GroupMember;
+import study.gongsa.domain.StudyGroup;
+import study.gongsa.domain.StudySession;
+import study.gongsa.domain.User;
+import study.gongsa.domain.UserAuth;
+import study.gongsa.dto.StudySessionDTO;
+import study.gongsa.repository.GroupMemberRepository;
+import study.gongsa.repository.StudyGroupRepository;
+import study.gongsa.repository.StudyMemberArchiveRepository;
+import study.gongsa.repository.StudyMemberRepository;
+import study.gongsa.repository.StudyTimeWeeklyRepository;
+import study.gongsa.repository.UserAuthRepository;
+import study.gongsa.repository.UserRepository;
+import study.gongsa.service.GroupMemberService;
+import study.gongsa.service.LeaderboardService;
+import study.gongsa.service.StudySessionService;
+import study.gongsa.service.StudyStatusStreamService;
+import study.gongsa.service.StudyTimeRollupService;
+import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.jwt.JwtTokenProvider;
+import study.gongsa.support.session.StudySessionWal;
+
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest
+@Slf4j
+class StudySessionControllerTest {
+
+    private static String baseURL = "/api/study-session";
+    private Integer userUID, otherUserUID;
+    private Integer groupUID;
+    private String accessToken, otherAccessToken;
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserAuthRepository userAuthRepository;
+    @Autowired
+    private StudyGroupRepository studyGroupRepository;
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+    @Autowired
+    private StudySessionService studySessionService;
+    @Autowired
+    private StudyMemberRepository studyMemberRepository;
+    @Autowired
+    private GroupMemberService groupMemberService;
+    @Autowired
+    private StudyStatusStreamService studyStatusStreamService;
+    @Autowired
+    private StudyTimeRollupService studyTimeRollupService;
+    @Autowired
+    private StudyTimeWeeklyRepository studyTimeWeeklyRepository;
+    @Autowired
+    private StudyMemberArchiveRepository studyMemberArchiveRepository;
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @TempDir
+    Path walDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(new CharacterEncodingFilter("UTF-8", true)) //한글 설정
+                .build();
+
+        // 테스트 위한 데이터
+        // 스터디 그룹 멤버
+        userUID = saveUser("gong40sa05@gmail.com", "통합테스트_공부", "00000a");
+        accessToken = makeAccessToken(userUID);
+        // 그룹에 가입하지 않은 유저
+        otherUserUID = saveUser("gong40sa05_@gmail.com", "통합테스트_공부2", "00000b");
+        otherAccessToken = makeAccessToken(otherUserUID);
+
+        StudyGroup studyGroup = StudyGroup.builder()
+                .name("test_group")
+                .code("0000-0000-0000-0000")
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("10:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(6)
+                .expiredAt(Date.valueOf("2099-10-10"))
+                .memberCount(1)
+                .build();
+        groupUID = studyGroupRepository.save(studyGroup).intValue();
+        groupMemberRepository.save(GroupMember.builder()
+                .userUID(userUID)
+                .groupUID(groupUID)
+                .isLeader(true)
+                .build());
+    }
+
+    @Test
+    void 공부세션시작_성공() throws Exception {
+        // when
+        ResultActions resultActions = start(accessToken, groupUID);
+
+        // then
+        String content = resultActions
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        int studyMemberUID = new JSONObject(content).getJSONObject("data").getInt("studyMemberUID");
+        Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT groupUID, userUID FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals(groupUID, studyMember.get("groupUID"));
+        assertEquals(userUID, studyMember.get("userUID"));
+    }
+
+    @Test
+    void 공부세션시작_실패_가입하지않은그룹() throws Exception {
+        // when
+        ResultActions resultActions = start(otherAccessToken, groupUID);
+
+        // then
+        resultActions
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.location").value("groupUID"))
+                .andExpect(jsonPath("$.msg").value("가입되지 않은 그룹입니다."));
+    }
+
+    @Test
+    void 공부상태변경_실패_본인세션아님() throws Exception {
+        // given
+        int studyMemberUID = startedStudyMemberUID();
+
+        // when
+        ResultActions resultActions = changeStatus(otherAccessToken, studyMemberUID, "rest", "00:10:00");
+
+        // then
+        resultActions
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.location").value("studyMemberUID"))
+                .andExpect(jsonPath("$.msg").value("본인의 공부 세션이 아닙니다."));
+    }
+
+    @Test
+    void 공부상태변경_실패_종료된세션() throws Exception {
+        // given
+        int studyMemberUID = startedStudyMemberUID();
+        mockMvc.perform(post(baseURL + "/" + studyMemberUID + "/stop")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StudySessionDTO.TimeRequest("00:01:00")))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // when
+        // 종료 후 늦게 도착한 heartbeat
+        ResultActions resultActions = mockMvc.perform(post(baseURL + "/" + studyMemberUID + "/heartbeat")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StudySessionDTO.TimeRequest("00:01:10")))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print());
+
+        // then
+        resultActions
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.location").value("studyMemberUID"))
+                .andExpect(jsonPath("$.msg").value("이미 종료된 공부 세션입니다."));
+        Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals("inactive", studyMember.get("studyStatus"));
+        assertEquals("00:01:00", studyMember.get("studyTime"));
+    }
+
+    @Test
+    void 공부상태변경_실패_이전세션() throws Exception {
+        // given
+        // 새 세션을 시작해서 StudyMemberCurrent가 바뀐 예전 세션
+        StudySessionService restartedSessionService = newStudySessionService(180000);
+        int oldStudyMemberUID = startedStudyMemberUID();
+        int currentStudyMemberUID = startedStudyMemberUID();
+
+        // when
+        // 세션을 모르는 서버(재시작, 다른 서버)로 들어온 요청
+        IllegalStateExceptionWithLocation exception = assertThrows(IllegalStateExceptionWithLocation.class,
+                () -> restartedSessionService.heartbeat(oldStudyMemberUID, userUID, "00:10:00"));
+        restartedSessionService.heartbeat(currentStudyMemberUID, userUID, "00:10:00");
+
+        // then
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("이미 종료된 공부 세션입니다.", exception.getMessage());
+        assertEquals(1, restartedSessionService.flush());
+        restartedSessionService.shutdown();
+    }
+
+    @Test
+    void 공부상태변경_실패_시간형식() throws Exception {
+        // given
+        int studyMemberUID = startedStudyMemberUID();
+
+        // when
+        ResultActions resultActions = changeStatus(accessToken, studyMemberUID, "active", "10분");
+
+        // then
+        resultActions
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.location").value("studyTime"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void 공부상태변경_마지막값만반영() throws Exception {
+        // 변경은 모아뒀다가 flush 때 마지막 값만 쓰고, 종료는 바로 쓴다 (주기적인 flush와 겹쳐도 결과는 같음)
+        try {
+            // given
+            int studyMemberUID = startedStudyMemberUID();
+
+            // when
+            changeStatus(accessToken, studyMemberUID, "active", "00:00:10").andExpect(status().isOk());
+            changeStatus(accessToken, studyMemberUID, "rest", "00:00:20").andExpect(status().isOk());
+            mockMvc.perform(post(baseURL + "/" + studyMemberUID + "/heartbeat")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new StudySessionDTO.TimeRequest("00:00:30"))))
+                    .andExpect(status().isOk());
+            studySessionService.flush();
+
+            // then
+            // heartbeat는 시간만 바꾸고 상태는 마지막 상태 유지
+            Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+            assertEquals("rest", studyMember.get("studyStatus"));
+            assertEquals("00:00:30", studyMember.get("studyTime"));
+
+            // when
+            mockMvc.perform(post(baseURL + "/" + studyMemberUID + "/stop")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new StudySessionDTO.TimeRequest("00:01:00"))))
+                    .andExpect(status().isOk());
+
+            // then
+            studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+            assertEquals("inactive", studyMember.get("studyStatus"));
+            assertEquals("00:01:00", studyMember.get("studyTime"));
+            // 종료하면 주기적인 집계를 기다리지 않고 바로 주간 공부 시간에 반영
+            Integer weeklyStudyTime = jdbcTemplate.queryForObject("SELECT SUM(studyTime) FROM StudyTimeWeekly WHERE groupUID = ?", Integer.class, groupUID);
+            assertEquals(60, weeklyStudyTime);
+        } finally {
+            jdbcTemplate.update("DELETE FROM StudyTimeWeekly WHERE groupUID = ?", groupUID);
+            jdbcTemplate.update("DELETE FROM StudyMember WHERE groupUID = ?", groupUID);
+            jdbcTemplate.update("DELETE FROM GroupMember WHERE groupUID = ?", groupUID);
+            jdbcTemplate.update("DELETE FROM StudyGroup WHERE UID = ?", groupUID);
+            jdbcTemplate.update("DELETE FROM UserAuth WHERE userUID IN (?, ?)", userUID, otherUserUID);
+            jdbcTemplate.update("DELETE FROM User WHERE UID IN (?, ?)", userUID, otherUserUID);
+        }
+    }
+
+    @Test
+    void 공부세션종료_해당세션만반영() throws Exception {
+        // given
+        StudySessionService sessionService = newStudySessionService(180000);
+        int otherStudyMemberUID = sessionService.start(groupUID, userUID);
+        int studyMemberUID = sessionService.start(groupUID, userUID);
+        sessionService.changeStatus(otherStudyMemberUID, userUID, "rest", "00:00:20");
+        sessionService.changeStatus(studyMemberUID, userUID, "active", "00:00:30");
+
+        // when
+        sessionService.stop(studyMemberUID, userUID, "00:01:00");
+
+        // then
+        // 종료한 세션만 바로 쓰고, 다른 세션의 변경은 flush까지 모아둔다
+        Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals("inactive", studyMember.get("studyStatus"));
+        assertEquals("00:01:00", studyMember.get("studyTime"));
+        Map<String, Object> otherStudyMember = jdbcTemplate.queryForMap("SELECT studyStatus FROM StudyMember WHERE UID = ?", otherStudyMemberUID);
+        assertNotEquals("rest", otherStudyMember.get("studyStatus"));
+        Integer weeklyStudyTime = jdbcTemplate.queryForObject("SELECT SUM(studyTime) FROM StudyTimeWeekly WHERE groupUID = ?", Integer.class, groupUID);
+        assertEquals(60, weeklyStudyTime);
+        assertEquals(1, sessionService.flush());
+
+        // 종료 전에 가져간 값이 늦게 써져도 종료 상태 유지
+        studyMemberRepository.updateStatuses(List.of(StudySession.builder().studyMemberUID(studyMemberUID).studyStatus("active").studyTime("00:00:30").build()));
+        studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals("inactive", studyMember.get("studyStatus"));
+        assertEquals("00:01:00", studyMember.get("studyTime"));
+        sessionService.shutdown();
+    }
+
+    @Test
+    void 공부세션_WAL복구() throws Exception {
+        // given
+        // DB에 쓰기 전에 서버가 죽어서 WAL에만 남은 변경 (상태 변경 후 heartbeat)
+        int studyMemberUID = startedStudyMemberUID();
+        StudySessionWal wal = new StudySessionWal(walDir);
+        wal.append(StudySession.builder().studyMemberUID(studyMemberUID).studyStatus("rest").studyTime("00:00:20").build());
+        wal.append(StudySession.builder().studyMemberUID(studyMemberUID).studyStatus(null).studyTime("00:00:40").build());
+        wal.close();
+
+        // when
+        StudySessionService restartedService = newStudySessionService(180000);
+        restartedService.recover();
+
+        // then
+        Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals("rest", studyMember.get("studyStatus"));
+        assertEquals("00:00:40", studyMember.get("studyTime"));
+        assertTrue(new StudySessionWal(walDir).readAll().isEmpty()); // 반영한 segment는 지운다
+        restartedService.shutdown();
+    }
+
+    @Test
+    void 공부세션_응답없으면종료() throws Exception {
+        // given
+        StudySessionService idleSessionService = newStudySessionService(50);
+        int studyMemberUID = idleSessionService.start(groupUID, userUID);
+        idleSessionService.heartbeat(studyMemberUID, userUID, "00:00:50");
+        assertEquals(0, idleSessionService.expireIdleSessions()); // 방금 heartbeat를 받은 세션은 유지
+
+        // when
+        Thread.sleep(100);
+        int expiredCnt = idleSessionService.expireIdleSessions();
+        idleSessionService.flush();
+
+        // then
+        // 마지막으로 받은 시간으로 종료
+        assertEquals(1, expiredCnt);
+        Map<String, Object> studyMember = jdbcTemplate.queryForMap("SELECT studyStatus, TIME_FORMAT(studyTime, '%H:%i:%s') AS studyTime FROM StudyMember WHERE UID = ?", studyMemberUID);
+        assertEquals("inactive", studyMember.get("studyStatus"));
+        assertEquals("00:00:50", studyMember.get("studyTime"));
+        assertEquals(0, idleSessionService.expireIdleSessions());
+        idleSessionService.shutdown();
+    }
+
+    @Test
+    void 주간공부시간_전체집계후변경된주만다시집계() throws Exception {
+        // given
+        // 보관 기준일(archivedBefore) 이전 주는 보관할 때 집계한 값(999초)을 유지해야 한다
+        int groupMemberUID = groupMemberRepository.findByGroupUIDUserUID(groupUID, userUID).get().getUID();
+        LocalDate archivedBefore = LocalDate.of(2090, 1, 2).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        jdbcTemplate.update("INSERT INTO StudyMemberArchive (path, firstUID, lastUID, rowCount, studyTime, minCreatedAt, maxCreatedAt, archivedBefore) VALUES (?, 0, 0, 0, 0, ?, ?, ?)",
+                "test/rollup.seg", Timestamp.valueOf(archivedBefore.minusDays(7).atStartOfDay()), Timestamp.valueOf(archivedBefore.minusDays(7).atStartOfDay()), Date.valueOf(archivedBefore));
+        jdbcTemplate.update("INSERT INTO StudyTimeWeekly (groupMemberUID, weekStart, groupUID, userUID, studyTime) VALUES (?, ?, ?, ?, ?)",
+                groupMemberUID, Date.valueOf(archivedBefore.minusWeeks(1)), groupUID, userUID, 999);
+        int archivedWeekUID = saveStudyMember(groupMemberUID, "01:00:00", archivedBefore.minusDays(3).atTime(9, 0));
+        saveStudyMember(groupMemberUID, "00:10:00", archivedBefore.atTime(9, 0));
+        saveStudyMember(groupMemberUID, "00:20:00", archivedBefore.plusDays(6).atTime(23, 0)); // 같은 주 일요일
+        int nextWeekUID = saveStudyMember(groupMemberUID, "00:40:00", archivedBefore.plusWeeks(1).atTime(0, 0)); // 다음 주 월요일 0시
+        StudyTimeRollupService rollupService = new StudyTimeRollupService(studyTimeWeeklyRepository, studyMemberArchiveRepository, leaderboardService, transactionTemplate);
+        ReflectionTestUtils.setField(rollupService, "rebuildChunkSize", 1000);
+
+        // when
+        rollupService.rebuild();
+
+        // then
+        assertEquals(999, weeklyStudyTime(groupMemberUID, archivedBefore.minusWeeks(1)));
+        assertEquals(600 + 1200, weeklyStudyTime(groupMemberUID, archivedBefore));
+        assertEquals(2400, weeklyStudyTime(groupMemberUID, archivedBefore.plusWeeks(1)));
+
+        // when
+        // 마지막 집계 이후 변경된 세션 (refresh는 5초 전까지 변경된 세션만 집계)
+        Timestamp updatedAt = new Timestamp(System.currentTimeMillis() - 10000);
+        jdbcTemplate.update("UPDATE StudyMember SET studyTime = ?, updatedAt = ? WHERE UID = ?", "00:50:00", updatedAt, nextWeekUID);
+        jdbcTemplate.update("UPDATE StudyMember SET studyTime = ?, updatedAt = ? WHERE UID = ?", "02:00:00", updatedAt, archivedWeekUID);
+        int refreshedRows = rollupService.refresh();
+
+        // then
+        assertTrue(refreshedRows > 0);
+        assertEquals(999, weeklyStudyTime(groupMemberUID, archivedBefore.minusWeeks(1)));
+        assertEquals(600 + 1200, weeklyStudyTime(groupMemberUID, archivedBefore));
+        assertEquals(3000, weeklyStudyTime(groupMemberUID, archivedBefore.plusWeeks(1)));
+    }
+
+    // 임시 WAL 폴더를 쓰는 StudySessionService (공유 빈의 WAL, 진행 중인 세션과 섞이지 않도록)
+    private StudySessionService newStudySessionService(long timeoutMillis) throws Exception {
+        StudySessionService service = new StudySessionService(studyMemberRepository, groupMemberService, studyStatusStreamService,
+                studyTimeRollupService, walDir.toString(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "timeoutMillis", timeoutMillis);
+        ReflectionTestUtils.setField(service, "flushBatchSize", 500);
+        return service;
+    }
+
+    private int saveStudyMember(int groupMemberUID, String studyTime, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO StudyMember (groupUID, groupMemberUID, userUID, studyStatus, studyTime, createdAt, updatedAt) VALUES (?, ?, ?, 'inactive', ?, ?, ?)",
+                groupUID, groupMemberUID, userUID, studyTime, Timestamp.valueOf(createdAt), Timestamp.valueOf(createdAt));
+        return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Integer.class);
+    }
+
+    private Integer weeklyStudyTime(int groupMemberUID, LocalDate weekStart) {
+        return jdbcTemplate.queryForObject("SELECT studyTime FROM StudyTimeWeekly WHERE groupMemberUID = ? AND weekStart = ?",
+                Integer.class, groupMemberUID, Date.valueOf(weekStart));
+    }
+
+    private ResultActions start(String token, int groupUID) throws Exception {
+        return mockMvc.perform(post(baseURL)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StudySessionDTO.StartRequest(groupUID)))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print());
+    }
+
+    private int startedStudyMemberUID() throws Exception {
+        String content = start(accessToken, groupUID)
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return new JSONObject(content).getJSONObject("data").getInt("studyMemberUID");
+    }
+
+    private ResultActions changeStatus(String token, int studyMemberUID, String studyStatus, String studyTime) throws Exception {
+        return mockMvc.perform(patch(baseURL + "/" + studyMemberUID)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new StudySessionDTO.StatusRequest(studyStatus, studyTime)))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print());
+    }
+
+    private Integer saveUser(String email, String nickname, String authCode) {
+        User user = User.builder()
+                .email(email)
+                .passwd(passwordEncoder.encode("12345678"))
+                .nickname(nickname)
+                .authCode(authCode)
+                .build();
+        user.setIsAuth(true);
+        return userRepository.save(user).intValue();
+    }
+
+    private String makeAccessToken(int userUID) {
+        Integer userAuthUID = userAuthRepository.save(UserAuth.builder()
+                .userUID(userUID)
+                .refreshToken(jwtTokenProvider.makeRefreshToken(userUID))
+                .build()).intValue();
+        return jwtTokenProvider.makeAccessToken(userUID, userAuthUID);
+    }
+}
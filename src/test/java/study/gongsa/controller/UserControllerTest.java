@@ -1,13 +1,23 @@
 package study.gongsa.controller;
 
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.google.gson.Gson;
 import com.jayway.jsonpath.JsonPath;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.swagger.annotations.ApiModelProperty;
 import org.json.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,24 +26,32 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.FileSystemUtils;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.filter.CharacterEncodingFilter;
+import study.gongsa.component.StudyMemberArchiveBatch;
+import study.gongsa.domain.GroupMember;
 import study.gongsa.domain.StudyGroup;
 import study.gongsa.domain.User;
 import study.gongsa.domain.UserAuth;
 import study.gongsa.dto.*;
-import study.gongsa.repository.UserAuthRepository;
-import study.gongsa.repository.UserRepository;
+import study.gongsa.repository.*;
+import study.gongsa.service.StudyTimeRollupService;
+import study.gongsa.support.archive.StudyMemberSegmentStore;
+import study.gongsa.support.datasource.ReplicaLagMonitor;
 import study.gongsa.support.exception.IllegalStateExceptionWithLocation;
+import study.gongsa.support.filter.LogFilter;
 import study.gongsa.support.jwt.JwtTokenProvider;
 
 import javax.validation.constraints.NotBlank;
@@ -41,11 +59,14 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -76,6 +97,27 @@ class UserControllerTest {
     private JwtTokenProvider jwtTokenProvider;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private StudyGroupRepository studyGroupRepository;
+    @Autowired
+    private GroupMemberRepository groupMemberRepository;
+    @Autowired
+    private StudyMemberRepository studyMemberRepository;
+    @Autowired
+    private StudyMemberArchiveRepository studyMemberArchiveRepository;
+    @Autowired
+    private StudyTimeRollupService studyTimeRollupService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path archiveRoot;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -334,6 +376,49 @@ class UserControllerTest {
                 .andReturn();
     }
 
+    @Test
+    void 로그인_요청로그_민감정보가림() throws Exception {
+        // given
+        LoginRequest loginRequest = new LoginRequest("gong40sa04@gmail.com", "12345678");
+        MockMvc logMockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(new CharacterEncodingFilter("UTF-8", true))
+                .addFilter(new LogFilter("body", 0.0, 2048, "passwd,refreshToken,accessToken"), "/api/*")
+                .build();
+        Logger logFilterLogger = (Logger) LoggerFactory.getLogger(LogFilter.class);
+        ListAppender<ILoggingEvent> logEvents = new ListAppender<>();
+        logEvents.start();
+        logFilterLogger.addAppender(logEvents);
+
+        // when
+        MvcResult mvcResult;
+        try {
+            mvcResult = logMockMvc.perform(post(baseURL+"/login")
+                            .header("Authorization", "Bearer "+accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(loginRequest))
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn();
+        } finally {
+            logFilterLogger.detachAppender(logEvents);
+        }
+
+        // then
+        String response = mvcResult.getResponse().getContentAsString();
+        String issuedAccessToken = JsonPath.read(response, "$.data.accessToken");
+        String issuedRefreshToken = JsonPath.read(response, "$.data.refreshToken");
+        Assertions.assertEquals(1, logEvents.list.size());
+        String message = logEvents.list.get(0).getFormattedMessage();
+        Assertions.assertTrue(message.contains("auth=Bearer ***"));
+        Assertions.assertTrue(message.contains("\"passwd\":\"***\""));
+        Assertions.assertTrue(message.contains("\"accessToken\":\"***\""));
+        Assertions.assertTrue(message.contains("\"refreshToken\":\"***\""));
+        Assertions.assertFalse(message.contains("12345678"));
+        Assertions.assertFalse(message.contains(accessToken));
+        Assertions.assertFalse(message.contains(issuedAccessToken));
+        Assertions.assertFalse(message.contains(issuedRefreshToken));
+    }
+
     @Test
     void 로그인_실패_미가입자() throws Exception {
         // given
@@ -520,6 +605,67 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.data.nickname").exists());
     }
 
+    @Test
+    void 인증확인_인증상태변경시_캐시삭제() throws Exception {
+        // given
+        // 인증된 상태가 userAuth 캐시에 남아있음
+        userRepository.updateIsAuth(true, new Timestamp(new Date().getTime()), userUID);
+        settingInfo(accessToken).andExpect(status().isOk());
+
+        // when
+        userRepository.updateIsAuth(false, new Timestamp(new Date().getTime()), userUID);
+
+        // then
+        settingInfo(accessToken)
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.location").value("auth"))
+                .andExpect(jsonPath("$.msg").value("이메일 인증 후 이용해주세요."));
+    }
+
+    @Test
+    void 토큰검증_같은토큰은서명검증생략() throws Exception {
+        // given
+        userRepository.updateIsAuth(true, new Timestamp(new Date().getTime()), userUID);
+        double cacheHit = meterRegistry.counter("auth.token.verify", "result", "cache_hit").count();
+        double verified = meterRegistry.counter("auth.token.verify", "result", "verified").count();
+
+        // when
+        settingInfo(accessToken).andExpect(status().isOk());
+        settingInfo(accessToken).andExpect(status().isOk());
+
+        // then
+        // 처음 한 번만 서명을 검증하고 다음 요청은 검증한 값을 쓴다
+        Assertions.assertEquals(verified + 1, meterRegistry.counter("auth.token.verify", "result", "verified").count());
+        Assertions.assertEquals(cacheHit + 1, meterRegistry.counter("auth.token.verify", "result", "cache_hit").count());
+    }
+
+    @Test
+    void 토큰검증_만료된토큰은캐시에있어도거부() throws Exception {
+        // given
+        // 곧 만료되는 토큰을 한 번 검증해서 캐시에 넣어둠 (exp는 초 단위)
+        userRepository.updateIsAuth(true, new Timestamp(new Date().getTime()), userUID);
+        Date expiration = new Date(System.currentTimeMillis() + 2000);
+        String shortToken = Jwts.builder()
+                .setIssuer((String) ReflectionTestUtils.getField(jwtTokenProvider, "issuer"))
+                .setExpiration(expiration)
+                .claim("userUID", userUID)
+                .claim("userAuthUID", 0)
+                .signWith(SignatureAlgorithm.HS256, (String) ReflectionTestUtils.getField(jwtTokenProvider, "secretKey"))
+                .compact();
+        settingInfo(shortToken).andExpect(status().isOk());
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis() + 100);
+        double cacheHit = meterRegistry.counter("auth.token.verify", "result", "cache_hit").count();
+
+        // when
+        ResultActions resultActions = settingInfo(shortToken);
+
+        // then
+        resultActions.andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.location").value("auth"))
+                .andExpect(jsonPath("$.msg").value("로그인 후 이용해주세요."));
+        Assertions.assertEquals(cacheHit, meterRegistry.counter("auth.token.verify", "result", "cache_hit").count());
+    }
+
     @Test
     void 환경설정_유저정보변경_성공_이미지미변경() throws Exception {
         // given
@@ -656,4 +802,99 @@ class UserControllerTest {
         resultActions
                 .andExpect(status().isOk());
     }
-}
\ No newline at end of file
+
+    @Test
+    void 기간별공부시간조회_성공_보관된세션포함() throws Exception {
+        // given
+        userRepository.updateIsAuth(true, new Timestamp(new Date().getTime()), userUID);
+        StudyGroup studyGroup = StudyGroup.builder()
+                .name("test_group")
+                .code("0000-0000-0000-0000")
+                .isCam(true)
+                .isPrivate(false)
+                .minStudyHour("10:00:00")
+                .maxMember(4)
+                .maxTodayStudy(6)
+                .isPenalty(true)
+                .maxPenalty(6)
+                .expiredAt(java.sql.Date.valueOf("2099-10-10"))
+                .memberCount(1)
+                .build();
+        int groupUID = studyGroupRepository.save(studyGroup).intValue();
+        int groupMemberUID = groupMemberRepository.save(GroupMember.builder()
+                .userUID(userUID)
+                .groupUID(groupUID)
+                .isLeader(true)
+                .build()).intValue();
+        // 오래된 세션 2개는 보관되고, 마지막 세션은 StudyMember에 남는다
+        String insertSql = "INSERT INTO StudyMember (groupUID, groupMemberUID, userUID, studyStatus, studyTime, createdAt, updatedAt) VALUES (?, ?, ?, 'inactive', ?, ?, ?)";
+        jdbcTemplate.update(insertSql, groupUID, groupMemberUID, userUID, "01:00:00", "2020-01-06 10:00:00", "2020-01-06 11:00:00");
+        jdbcTemplate.update(insertSql, groupUID, groupMemberUID, userUID, "00:30:00", "2020-01-07 10:00:00", "2020-01-07 10:30:00");
+        Timestamp now = new Timestamp(new Date().getTime());
+        jdbcTemplate.update(insertSql, groupUID, groupMemberUID, userUID, "00:10:00", now, now);
+
+        // when
+        tempArchiveBatch().run();
+
+        // then
+        Integer hotCnt = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM StudyMember WHERE groupMemberUID = ?", Integer.class, groupMemberUID);
+        Assertions.assertEquals(1, hotCnt);
+        try (Stream<Path> files = Files.walk(archiveRoot)) {
+            Assertions.assertEquals(1L, files.filter(file -> file.toString().endsWith(".seg.gz")).count());
+        }
+        Integer dailyCnt = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM StudyMemberArchiveDaily WHERE groupMemberUID = ?", Integer.class, groupMemberUID);
+        Assertions.assertEquals(2, dailyCnt);
+
+        mockMvc.perform(get(baseURL + "/study-time")
+                        .param("from", "2020-01-01")
+                        .param("to", LocalDate.now().toString())
+                        .header("Authorization", "Bearer " + accessToken))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.studyTime").value(3600 + 1800 + 600));
+        mockMvc.perform(get(baseURL + "/study-time")
+                        .param("from", "2020-01-07")
+                        .param("to", "2020-01-07")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.studyTime").value(1800));
+    }
+
+    @Test
+    void 기간별공부시간조회_실패_기간오류() throws Exception {
+        // given
+        userRepository.updateIsAuth(true, new Timestamp(new Date().getTime()), userUID);
+
+        // when
+        ResultActions resultActions = mockMvc.perform(get(baseURL + "/study-time")
+                        .param("from", "2020-01-08")
+                        .param("to", "2020-01-07")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andDo(print());
+
+        // then
+        resultActions.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.location").value("from"))
+                .andExpect(jsonPath("$.msg").value("조회 기간이 올바르지 않습니다."));
+    }
+
+    // 보관 segment를 임시 디렉터리에 쓰는 배치
+    private ResultActions settingInfo(String token) throws Exception {
+        return mockMvc.perform(get(baseURL)
+                        .header("Authorization", "Bearer "+token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print());
+    }
+
+    private StudyMemberArchiveBatch tempArchiveBatch() {
+        StudyMemberArchiveBatch studyMemberArchiveBatch = new StudyMemberArchiveBatch(studyMemberRepository, studyMemberArchiveRepository,
+                new StudyMemberSegmentStore(archiveRoot.toString()), studyTimeRollupService, transactionTemplate, replicaLagMonitor,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(studyMemberArchiveBatch, "retentionWeeks", 8);
+        ReflectionTestUtils.setField(studyMemberArchiveBatch, "chunkSize", 1000);
+        ReflectionTestUtils.setField(studyMemberArchiveBatch, "chunkDelayMillis", 0L);
+        ReflectionTestUtils.setField(studyMemberArchiveBatch, "maxReplicaLagMillis", 5000L);
+        return studyMemberArchiveBatch;
+    }
+}
@@ -0,0 +1,108 @@
+package study.gongsa.support.recommend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationIndexTest {
+    private static final LocalDate TODAY = LocalDate.of(2022, 10, 10);
+    private static final LocalDate EXPIRED_AT = LocalDate.of(2099, 10, 10);
+
+    @Test
+    void 추천_카테고리에그룹이없으면전체공개그룹() {
+        // given
+        RecommendationIndex recommendationIndex = new RecommendationIndex();
+        recommendationIndex.add(1, List.of(1), EXPIRED_AT);
+        recommendationIndex.add(2, List.of(2), EXPIRED_AT);
+        recommendationIndex.add(3, List.of(), EXPIRED_AT);
+
+        // when
+        List<Integer> groupUIDs = recommendationIndex.sample(List.of(99), 10, TODAY);
+
+        // then
+        assertThat(groupUIDs).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void 추천_size개까지만() {
+        // given
+        // 후보가 적을 때(전부 섞기)와 많을 때(임의 위치 뽑기)
+        RecommendationIndex smallIndex = new RecommendationIndex();
+        RecommendationIndex largeIndex = new RecommendationIndex();
+        for (int groupUID = 1; groupUID <= 8; groupUID++) smallIndex.add(groupUID, List.of(1), EXPIRED_AT);
+        for (int groupUID = 1; groupUID <= 1000; groupUID++) largeIndex.add(groupUID, List.of(1, 2), EXPIRED_AT);
+
+        // when
+        List<Integer> smallGroupUIDs = smallIndex.sample(List.of(1), 5, TODAY);
+        List<Integer> largeGroupUIDs = largeIndex.sample(List.of(1, 2), 5, TODAY);
+
+        // then
+        // 여러 카테고리에 속한 그룹도 한 번만
+        assertThat(smallGroupUIDs).hasSize(5).doesNotHaveDuplicates();
+        assertThat(largeGroupUIDs).hasSize(5).doesNotHaveDuplicates();
+        assertThat(largeGroupUIDs).allMatch(groupUID -> groupUID >= 1 && groupUID <= 1000);
+    }
+
+    @Test
+    void 추천_삭제하거나종료된그룹제외() {
+        // given
+        RecommendationIndex recommendationIndex = new RecommendationIndex();
+        recommendationIndex.add(1, List.of(1), EXPIRED_AT);
+        recommendationIndex.add(2, List.of(1), TODAY.minusDays(1));
+        recommendationIndex.add(3, List.of(1), EXPIRED_AT);
+
+        // when
+        recommendationIndex.remove(3);
+
+        // then
+        assertThat(recommendationIndex.size()).isEqualTo(2);
+        assertThat(recommendationIndex.sample(List.of(1), 10, TODAY)).containsExactly(1);
+        assertThat(recommendationIndex.removeExpired(TODAY)).isEqualTo(1);
+        assertThat(recommendationIndex.size()).isEqualTo(1);
+    }
+
+    @Test
+    void 추천_확인하는위치수는그룹수와상관없음() {
+        // given
+        // 대부분 종료됐지만 아직 정리되지 않은 그룹
+        RecommendationIndex recommendationIndex = new RecommendationIndex();
+        for (int groupUID = 1; groupUID <= 100000; groupUID++) {
+            recommendationIndex.add(groupUID, List.of(1), groupUID <= 10 ? EXPIRED_AT : TODAY.minusDays(1));
+        }
+        AtomicInteger probeCnt = countProbes(recommendationIndex);
+
+        // when
+        List<Integer> groupUIDs = recommendationIndex.sample(List.of(1), 5, TODAY);
+
+        // then
+        // 한 번 추천에 size * 8 위치까지만 확인
+        assertThat(probeCnt.get()).isLessThanOrEqualTo(5 * 8);
+        Set<Integer> availableGroupUIDs = new HashSet<>();
+        for (int groupUID = 1; groupUID <= 10; groupUID++) availableGroupUIDs.add(groupUID);
+        assertThat(groupUIDs).hasSizeLessThanOrEqualTo(5).allMatch(availableGroupUIDs::contains);
+    }
+
+    // 위치마다 종료일(expiredAts)을 한 번씩 확인하므로 조회 수를 센다
+    private AtomicInteger countProbes(RecommendationIndex recommendationIndex) {
+        AtomicInteger probeCnt = new AtomicInteger();
+        @SuppressWarnings("unchecked")
+        HashMap<Integer, LocalDate> expiredAts = (HashMap<Integer, LocalDate>) ReflectionTestUtils.getField(recommendationIndex, "expiredAts");
+        HashMap<Integer, LocalDate> countingExpiredAts = new HashMap<>(expiredAts) {
+            @Override
+            public LocalDate get(Object key) {
+                probeCnt.incrementAndGet();
+                return super.get(key);
+            }
+        };
+        ReflectionTestUtils.setField(recommendationIndex, "expiredAts", countingExpiredAts);
+        return probeCnt;
+    }
+}